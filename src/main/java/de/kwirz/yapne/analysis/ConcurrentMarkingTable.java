@@ -0,0 +1,290 @@
+package de.kwirz.yapne.analysis;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Zustandstabelle für Markierungen, in die mehrere Threads gleichzeitig einfügen können.
+ * <p>
+ * Der Aufbau entspricht {@link MarkingTable}: Markierungen werden gepackt abgelegt, die
+ * Hashtabelle enthält nur Zustandsnummern. Beim Einfügen wird ein freier Platz per CAS
+ * reserviert, anschließend werden Markierung und Hashwert geschrieben und der Platz mit der
+ * Zustandsnummer veröffentlicht. Andere Threads warten nur, wenn sie genau auf einen gerade
+ * reservierten Platz treffen.
+ * <p>
+ * Die Markierungen liegen in Blöcken fester Größe, die nie verschoben werden. Vergrößern
+ * ({@link #reserve}) und Umpacken ({@link #repack}) sind nicht threadsicher und dürfen nur
+ * aufgerufen werden, solange kein Thread einfügt.
+ */
+final class ConcurrentMarkingTable implements MarkingStore {
+
+    /** Rückgabewert von {@link #insert}, falls das Limit erreicht ist */
+    static final int REJECTED = Integer.MIN_VALUE;
+
+    /** Maximale Anzahl der Zustände */
+    private static final int MAXIMUM_STATES = 1 << 29;
+
+    /** Zweierlogarithmus der Zustände pro Block */
+    private static final int CHUNK_BITS = 12;
+
+    /** Zustände pro Block */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /** Markierung eines reservierten, noch nicht veröffentlichten Platzes */
+    private static final int BUSY = -1;
+
+    /** Anzahl der Stellen */
+    private final int places;
+
+    /** Bits pro Stelle */
+    private int bits = 1;
+
+    /** Anzahl der <code>long</code> Werte pro Zustand */
+    private int wordsPerState;
+
+    /** Blöcke mit gepackten Markierungen */
+    private long[][] pool = new long[0][];
+
+    /** Blöcke mit Hashwerten */
+    private int[][] hashes = new int[0][];
+
+    /** Hashtabelle, enthält Zustandsnummer + 1, 0 für freie und {@link #BUSY} für reservierte Plätze */
+    private AtomicIntegerArray slots;
+
+    /** Anzahl der vergebenen Zustandsnummern */
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Erstellt eine leere Tabelle
+     * @param places Anzahl der Stellen
+     */
+    ConcurrentMarkingTable(int places) {
+        this.places = places;
+        this.wordsPerState = wordsFor(bits);
+        this.slots = new AtomicIntegerArray(32);
+        ensureChunks(16);
+    }
+
+    /** Gibt die Anzahl der <code>long</code> Werte für eine Markierung mit <b>bits</b> pro Stelle zurück */
+    private int wordsFor(int bits) {
+        return (int) (((long) places * bits + 63) >>> 6);
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public int getPlaceCount() {
+        return places;
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        long bytes = 4L * slots.length();
+        for (int i = 0; i < pool.length; ++i)
+            bytes += 8L * pool[i].length + 4L * hashes[i].length;
+        return bytes;
+    }
+
+    /** Erstellt einen Zwischenspeicher für {@link #insert}, gültig bis zum nächsten {@link #repack} */
+    long[] newScratch() {
+        return new long[Math.max(1, wordsPerState)];
+    }
+
+    /** Gibt <code>true</code> zurück falls die Markierung ohne Umpacken gespeichert werden kann */
+    boolean fits(int[] marking) {
+        return MarkingTable.requiredBits(marking) <= bits;
+    }
+
+    /**
+     * Stellt sicher, dass <b>additional</b> weitere Zustände eingefügt werden können.
+     * Nicht threadsicher.
+     * @throws IllegalStateException falls die maximale Anzahl der Zustände überschritten würde
+     */
+    void reserve(long additional) {
+        long required = count.get() + additional;
+        if (required > MAXIMUM_STATES)
+            throw new IllegalStateException("state table is full");
+
+        if (required * 2 > slots.length()) {
+            int capacity = slots.length();
+            while (required * 2 > capacity)
+                capacity <<= 1;
+            rehash(capacity);
+        }
+        ensureChunks((int) required);
+    }
+
+    /**
+     * Packt alle Zustände so um, dass die Markierung <b>marking</b> hineinpasst.
+     * Nicht threadsicher.
+     */
+    void repack(int[] marking) {
+        int newBits = MarkingTable.requiredBits(marking);
+        if (newBits <= bits)
+            return;
+
+        int newWords = wordsFor(newBits);
+        int[] decoded = new int[places];
+        long[] packed = new long[newWords];
+
+        for (int chunk = 0; chunk < pool.length; ++chunk) {
+            long[] newChunk = new long[CHUNK_SIZE * newWords];
+            int first = chunk << CHUNK_BITS;
+            int last = Math.min(count.get(), first + CHUNK_SIZE);
+            for (int state = first; state < last; ++state) {
+                int index = state - first;
+                MarkingTable.decode(pool[chunk], index * wordsPerState, bits, decoded);
+                Arrays.fill(packed, 0L);
+                MarkingTable.encode(decoded, packed, newBits);
+                System.arraycopy(packed, 0, newChunk, index * newWords, newWords);
+                hashes[chunk][index] = MarkingTable.hash(packed, newWords);
+            }
+            pool[chunk] = newChunk;
+        }
+
+        bits = newBits;
+        wordsPerState = newWords;
+        rehash(slots.length());
+    }
+
+    /**
+     * Fügt eine Markierung hinzu, falls sie noch nicht enthalten ist. Threadsicher.
+     * <p>
+     * Die Markierung muss {@link #fits passen} und es muss genügend Platz
+     * {@link #reserve reserviert} sein.
+     * @param marking Markierung
+     * @param scratch Zwischenspeicher des aufrufenden Threads, siehe {@link #newScratch}
+     * @param limit maximale Anzahl der Zustände
+     * @return die Nummer des neuen Zustandes, <code>-(nummer + 1)</code> falls die Markierung
+     *         bereits enthalten war oder {@link #REJECTED} falls das Limit erreicht ist
+     */
+    int insert(int[] marking, long[] scratch, int limit) {
+        Arrays.fill(scratch, 0, wordsPerState, 0L);
+        MarkingTable.encode(marking, scratch, bits);
+        int hash = MarkingTable.hash(scratch, wordsPerState);
+
+        int mask = slots.length() - 1;
+        int slot = hash & mask;
+        while (true) {
+            int entry = slots.get(slot);
+            if (entry == 0) {
+                if (!slots.compareAndSet(slot, 0, BUSY))
+                    continue;
+
+                int state = nextState(limit);
+                if (state < 0) {
+                    slots.set(slot, 0);
+                    return REJECTED;
+                }
+
+                System.arraycopy(scratch, 0, pool[state >>> CHUNK_BITS],
+                        (state & (CHUNK_SIZE - 1)) * wordsPerState, wordsPerState);
+                hashes[state >>> CHUNK_BITS][state & (CHUNK_SIZE - 1)] = hash;
+                slots.set(slot, state + 1);
+                return state;
+            }
+
+            if (entry == BUSY) {
+                Thread.yield();
+                continue;
+            }
+
+            if (hashOf(entry - 1) == hash && equalsAt(entry - 1, scratch))
+                return -entry;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Vergibt die nächste Zustandsnummer oder gibt <code>-1</code> zurück falls das Limit erreicht ist */
+    private int nextState(int limit) {
+        while (true) {
+            int state = count.get();
+            if (state >= limit)
+                return -1;
+            if (count.compareAndSet(state, state + 1))
+                return state;
+        }
+    }
+
+    @Override
+    public int find(int[] marking) {
+        if (!fits(marking))
+            return -1;
+
+        long[] packed = newScratch();
+        MarkingTable.encode(marking, packed, bits);
+        int hash = MarkingTable.hash(packed, wordsPerState);
+
+        int mask = slots.length() - 1;
+        int slot = hash & mask;
+        for (int entry = slots.get(slot); entry != 0; entry = slots.get(slot)) {
+            if (entry != BUSY && hashOf(entry - 1) == hash && equalsAt(entry - 1, packed))
+                return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    @Override
+    public void get(int state, int[] marking) {
+        MarkingTable.decode(pool[state >>> CHUNK_BITS], (state & (CHUNK_SIZE - 1)) * wordsPerState,
+                bits, marking);
+    }
+
+    @Override
+    public int get(int state, int place) {
+        long bit = (long) place * bits;
+        long word = pool[state >>> CHUNK_BITS][(state & (CHUNK_SIZE - 1)) * wordsPerState + (int) (bit >>> 6)];
+        return (int) ((word >>> (bit & 63)) & MarkingTable.mask(bits));
+    }
+
+    /** Gibt den Hashwert des Zustandes zurück */
+    private int hashOf(int state) {
+        return hashes[state >>> CHUNK_BITS][state & (CHUNK_SIZE - 1)];
+    }
+
+    /** Vergleicht den Zustand <b>state</b> mit der gepackten Markierung */
+    private boolean equalsAt(int state, long[] packed) {
+        long[] chunk = pool[state >>> CHUNK_BITS];
+        int offset = (state & (CHUNK_SIZE - 1)) * wordsPerState;
+        for (int i = 0; i < wordsPerState; ++i) {
+            if (chunk[offset + i] != packed[i])
+                return false;
+        }
+        return true;
+    }
+
+    /** Legt Blöcke an, bis <b>states</b> Zustände Platz haben */
+    private void ensureChunks(int states) {
+        int chunks = (states + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        if (chunks <= pool.length)
+            return;
+
+        int old = pool.length;
+        pool = Arrays.copyOf(pool, chunks);
+        hashes = Arrays.copyOf(hashes, chunks);
+        for (int i = old; i < chunks; ++i) {
+            pool[i] = new long[CHUNK_SIZE * wordsPerState];
+            hashes[i] = new int[CHUNK_SIZE];
+        }
+    }
+
+    /** Baut die Hashtabelle mit der Größe <b>capacity</b> neu auf */
+    private void rehash(int capacity) {
+        AtomicIntegerArray table = new AtomicIntegerArray(capacity);
+        int mask = capacity - 1;
+        int size = count.get();
+        for (int state = 0; state < size; ++state) {
+            int slot = hashOf(state) & mask;
+            while (table.get(slot) != 0)
+                slot = (slot + 1) & mask;
+            table.set(slot, state + 1);
+        }
+        slots = table;
+    }
+}
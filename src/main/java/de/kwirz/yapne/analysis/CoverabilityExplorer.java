@@ -0,0 +1,372 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.utils.IntArrayList;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Baut den Überdeckungsgraphen eines Petri Netzes nach Karp und Miller auf.
+ * <p>
+ * Im Gegensatz zum Erreichbarkeitsgraphen terminiert die Konstruktion auch für unbeschränkte
+ * Netze: wird ausgehend von einer Markierung M eine Markierung M' &gt; M erreicht, so wird
+ * jede Stelle, deren Markenanzahl gewachsen ist, auf {@link CoverabilityGraph#OMEGA}
+ * gesetzt. Knoten mit gleicher Markierung werden zusammengefasst.
+ * <p>
+ * Die Knoten auf dem Pfad der Tiefensuche werden nach zwei 64 Bit Signaturen gruppiert
+ * (markierte Stellen und ω-Stellen). Die Suche nach kleineren Vorfahren prüft nur die
+ * Signaturen der Gruppen statt jedes einzelnen Vorfahren. Zusätzlich hält jede Gruppe die
+ * kleinste Summe der endlichen Marken ihrer Knoten: ein kleinerer Vorfahr mit denselben
+ * ω-Stellen hat echt weniger Marken, bei konservativen Netzen entfällt so die ganze Gruppe.
+ * <pre>
+ *  CoverabilityGraph graph = CoverabilityExplorer.create(net).explore();
+ *  if (!graph.isBounded())
+ *      ...
+ * </pre>
+ */
+public final class CoverabilityExplorer {
+
+    /** Das untersuchte Netz */
+    private final CompiledNet net;
+
+    /** Maximale Anzahl der Knoten */
+    private int nodeLimit = Integer.MAX_VALUE;
+
+    /**
+     * Erstellt einen Explorer
+     */
+    private CoverabilityExplorer(CompiledNet net) {
+        this.net = net;
+    }
+
+    /** Erstellt einen Explorer für die aktuelle Markierung des Netzes <b>net</b> */
+    public static CoverabilityExplorer create(PetriNet net) {
+        return create(net.compile());
+    }
+
+    /** Erstellt einen Explorer für die Anfangsmarkierung des kompilierten Netzes <b>net</b> */
+    public static CoverabilityExplorer create(CompiledNet net) {
+        return new CoverabilityExplorer(net);
+    }
+
+    /**
+     * Setzt die maximale Anzahl der Knoten
+     * @throws IllegalArgumentException falls <b>limit</b> kleiner als 1 ist
+     */
+    public CoverabilityExplorer nodeLimit(int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("node limit must be positive");
+
+        this.nodeLimit = limit;
+        return this;
+    }
+
+    /**
+     * Führt die Konstruktion durch.
+     * <p>
+     * Wird das Limit erreicht, wird ein unvollständiger Graph zurückgegeben, siehe
+     * {@link CoverabilityGraph#isComplete()}.
+     */
+    public CoverabilityGraph explore() {
+        final int places = net.getPlaceCount();
+        final int transitions = net.getTransitionCount();
+
+        MarkingTable nodes = new MarkingTable(places, 256);
+        IntArrayList edgeSource = new IntArrayList(256);
+        IntArrayList edgeTarget = new IntArrayList(256);
+        IntArrayList edgeTransition = new IntArrayList(256);
+        int[] bounds = new int[places];
+        boolean complete = true;
+
+        // Pfad der Tiefensuche: Knoten, nächste zu prüfende Transition und Vorfahren
+        IntArrayList pathNode = new IntArrayList();
+        IntArrayList pathNext = new IntArrayList();
+        AncestorIndex ancestors = new AncestorIndex(places <= Long.SIZE);
+
+        int[] marking = new int[places];
+        int[] successor = new int[places];
+        int[] ancestor = new int[places];
+
+        int[] initial = net.getInitialMarking();
+        nodes.insert(initial);
+        updateBounds(bounds, initial);
+        pathNode.add(0);
+        pathNext.add(0);
+        ancestors.push(0, initial);
+
+        while (!pathNode.isEmpty()) {
+            int depth = pathNode.size() - 1;
+            int node = pathNode.get(depth);
+            nodes.get(node, marking);
+
+            int t = pathNext.get(depth);
+            while (t < transitions && !net.isEnabled(t, marking))
+                ++t;
+
+            if (t == transitions) {
+                pathNode.removeLast();
+                pathNext.removeLast();
+                ancestors.pop(depth);
+                continue;
+            }
+            pathNext.set(depth, t + 1);
+
+            fire(t, marking, successor);
+            accelerate(nodes, pathNode, ancestors, successor, ancestor);
+
+            int target;
+            if (nodes.size() >= nodeLimit) {
+                target = nodes.find(successor);
+                if (target < 0) {
+                    complete = false;
+                    continue;
+                }
+            } else {
+                target = nodes.insert(successor);
+                if (target < 0) {
+                    target = -target - 1;
+                } else {
+                    updateBounds(bounds, successor);
+                    pathNode.add(target);
+                    pathNext.add(0);
+                    ancestors.push(depth + 1, successor);
+                }
+            }
+
+            edgeSource.add(node);
+            edgeTarget.add(target);
+            edgeTransition.add(t);
+        }
+
+        return new CoverabilityGraph(net, nodes, edgeSource.toArray(), edgeTarget.toArray(),
+                edgeTransition.toArray(), bounds, complete);
+    }
+
+    /** Schaltet die Transition <b>t</b> unter Beachtung von ω */
+    private void fire(int t, int[] marking, int[] successor) {
+        System.arraycopy(marking, 0, successor, 0, marking.length);
+        for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i) {
+            int place = net.getEffectPlace(i);
+            if (successor[place] != CoverabilityGraph.OMEGA) {
+                long tokens = (long) successor[place] + net.getEffectDelta(i);
+                successor[place] = (int) Math.min(tokens, CoverabilityGraph.OMEGA);
+            }
+        }
+    }
+
+    /**
+     * Setzt alle Stellen auf ω, in denen <b>successor</b> einen kleineren Vorfahren auf dem
+     * Pfad echt übertrifft. Wiederholt, bis sich nichts mehr ändert.
+     */
+    private static void accelerate(MarkingTable nodes, IntArrayList path, AncestorIndex ancestors,
+                                   int[] successor, int[] ancestor) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            long support = support(successor);
+            long omega = omega(successor);
+            long tokens = tokens(successor);
+
+            for (int g = 0; g < ancestors.size; ++g) {
+                Group group = ancestors.active[g];
+                // notwendige Bedingungen für ancestor <= successor
+                if ((group.support & ~support) != 0 || (group.omega & ~omega) != 0)
+                    continue;
+
+                // bei gleichen ω-Stellen hat ein echt kleinerer Vorfahr weniger Marken
+                boolean sameOmega = ancestors.exact && group.omega == omega;
+                if (sameOmega && group.minTokens[group.size - 1] >= tokens)
+                    continue;
+
+                for (int k = 0; k < group.size && !changed; ++k) {
+                    if (sameOmega && group.tokens[k] >= tokens)
+                        continue;
+
+                    nodes.get(path.get(group.depths[k]), ancestor);
+                    if (lessOrEqual(ancestor, successor))
+                        changed = widen(ancestor, successor);
+                }
+                if (changed)
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Setzt alle Stellen auf ω, in denen <b>successor</b> den Vorfahren <b>ancestor</b> echt
+     * übertrifft
+     * @return <code>true</code> falls eine Stelle geändert wurde
+     */
+    private static boolean widen(int[] ancestor, int[] successor) {
+        boolean changed = false;
+        for (int p = 0; p < successor.length; ++p) {
+            if (ancestor[p] < successor[p] && successor[p] != CoverabilityGraph.OMEGA) {
+                successor[p] = CoverabilityGraph.OMEGA;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /** Gibt <code>true</code> zurück falls <b>a</b> stellenweise kleiner oder gleich <b>b</b> ist */
+    static boolean lessOrEqual(int[] a, int[] b) {
+        for (int p = 0; p < a.length; ++p) {
+            if (a[p] > b[p])
+                return false;
+        }
+        return true;
+    }
+
+    /** Signatur der markierten Stellen */
+    private static long support(int[] marking) {
+        long signature = 0;
+        for (int p = 0; p < marking.length; ++p) {
+            if (marking[p] > 0)
+                signature |= 1L << p;
+        }
+        return signature;
+    }
+
+    /** Signatur der ω-Stellen */
+    private static long omega(int[] marking) {
+        long signature = 0;
+        for (int p = 0; p < marking.length; ++p) {
+            if (marking[p] == CoverabilityGraph.OMEGA)
+                signature |= 1L << p;
+        }
+        return signature;
+    }
+
+    /** Summe der endlichen Marken */
+    private static long tokens(int[] marking) {
+        long sum = 0;
+        for (int tokens : marking) {
+            if (tokens != CoverabilityGraph.OMEGA)
+                sum += tokens;
+        }
+        return sum;
+    }
+
+    /** Aktualisiert die Schranken der Stellen */
+    private static void updateBounds(int[] bounds, int[] marking) {
+        for (int p = 0; p < marking.length; ++p)
+            bounds[p] = Math.max(bounds[p], marking[p]);
+    }
+
+    /** Knoten des Pfades mit gleichen Signaturen, als Stapel in der Reihenfolge des Pfades */
+    private static final class Group {
+
+        /** Signatur der markierten Stellen */
+        final long support;
+
+        /** Signatur der ω-Stellen */
+        final long omega;
+
+        /** Anzahl der Knoten */
+        int size = 0;
+
+        /** Position in {@link AncestorIndex#active} */
+        int position;
+
+        /** Tiefen der Knoten auf dem Pfad */
+        int[] depths = new int[4];
+
+        /** Summe der endlichen Marken je Knoten */
+        long[] tokens = new long[4];
+
+        /** Kleinste Summe bis einschließlich des jeweiligen Knotens */
+        long[] minTokens = new long[4];
+
+        Group(long support, long omega) {
+            this.support = support;
+            this.omega = omega;
+        }
+
+        void push(int depth, long sum) {
+            if (size == depths.length) {
+                depths = Arrays.copyOf(depths, size * 2);
+                tokens = Arrays.copyOf(tokens, size * 2);
+                minTokens = Arrays.copyOf(minTokens, size * 2);
+            }
+            depths[size] = depth;
+            tokens[size] = sum;
+            minTokens[size] = (size == 0) ? sum : Math.min(sum, minTokens[size - 1]);
+            ++size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Group))
+                return false;
+            Group other = (Group) o;
+            return support == other.support && omega == other.omega;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(support * 31 + omega);
+        }
+    }
+
+    /**
+     * Vorfahren auf dem Pfad der Tiefensuche, gruppiert nach Signaturen. Eine Gruppe wird
+     * entfernt, sobald ihr letzter Knoten den Pfad verlässt.
+     */
+    private static final class AncestorIndex {
+
+        /**
+         * <code>true</code>, falls die Signaturen exakt sind (höchstens 64 Stellen). Sonst
+         * teilen sich mehrere Stellen ein Bit und nur die Teilmengenprüfung ist zulässig.
+         */
+        final boolean exact;
+
+        /** Gruppen mit Knoten auf dem Pfad, jede Gruppe ist ihr eigener Schlüssel */
+        private final Map<Group, Group> groups = new HashMap<>();
+
+        /** Dieselben Gruppen als Array zum schnellen Durchlaufen */
+        Group[] active = new Group[16];
+
+        /** Anzahl der Gruppen */
+        int size = 0;
+
+        /** Gruppe je Tiefe */
+        private Group[] groupAt = new Group[16];
+
+        AncestorIndex(boolean exact) {
+            this.exact = exact;
+        }
+
+        /** Legt den Knoten mit der Markierung <b>marking</b> in der Tiefe <b>depth</b> ab */
+        void push(int depth, int[] marking) {
+            Group group = groups.computeIfAbsent(new Group(support(marking), omega(marking)),
+                    key -> key);
+            if (group.size == 0) {
+                if (size == active.length)
+                    active = Arrays.copyOf(active, size * 2);
+                group.position = size;
+                active[size++] = group;
+            }
+            group.push(depth, tokens(marking));
+
+            if (depth == groupAt.length)
+                groupAt = Arrays.copyOf(groupAt, groupAt.length * 2);
+            groupAt[depth] = group;
+        }
+
+        /** Entfernt den Knoten in der Tiefe <b>depth</b>, den obersten des Pfades */
+        void pop(int depth) {
+            Group group = groupAt[depth];
+            groupAt[depth] = null;
+            if (--group.size == 0) {
+                groups.remove(group);
+                Group last = active[--size];
+                active[group.position] = last;
+                last.position = group.position;
+                active[size] = null;
+            }
+        }
+    }
+}
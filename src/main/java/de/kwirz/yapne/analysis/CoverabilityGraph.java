@@ -0,0 +1,166 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.MarkingVector;
+
+/**
+ * Überdeckungsgraph eines Petri Netzes.
+ * <p>
+ * Knoten sind ab 0 durchnummeriert, der Knoten 0 ist die Anfangsmarkierung. Eine Stelle mit
+ * dem Wert {@link #OMEGA} kann beliebig viele Marken tragen. Eine Markierung ist genau dann
+ * überdeckbar (es gibt eine erreichbare Markierung, die mindestens so groß ist), wenn ein
+ * Knoten sie überdeckt.
+ *
+ * @see CoverabilityExplorer
+ */
+public final class CoverabilityGraph {
+
+    /** Markenanzahl einer unbeschränkten Stelle (ω) */
+    public static final int OMEGA = Integer.MAX_VALUE;
+
+    /** Das untersuchte Netz */
+    private final CompiledNet net;
+
+    /** Markierungen der Knoten */
+    private final MarkingStore nodes;
+
+    /** Quellknoten der Kanten */
+    private final int[] edgeSource;
+
+    /** Zielknoten der Kanten */
+    private final int[] edgeTarget;
+
+    /** Transitionen der Kanten */
+    private final int[] edgeTransition;
+
+    /** Schranken der Stellen, {@link #OMEGA} für unbeschränkte Stellen */
+    private final int[] bounds;
+
+    /** <code>false</code> falls die Konstruktion wegen eines Limits abgebrochen wurde */
+    private final boolean complete;
+
+    /**
+     * Erstellt einen Graphen
+     */
+    CoverabilityGraph(CompiledNet net, MarkingStore nodes, int[] edgeSource, int[] edgeTarget,
+                      int[] edgeTransition, int[] bounds, boolean complete) {
+        this.net = net;
+        this.nodes = nodes;
+        this.edgeSource = edgeSource;
+        this.edgeTarget = edgeTarget;
+        this.edgeTransition = edgeTransition;
+        this.bounds = bounds;
+        this.complete = complete;
+    }
+
+    /** Gibt das untersuchte Netz zurück */
+    public CompiledNet getNet() {
+        return net;
+    }
+
+    /** Gibt die Anzahl der Knoten zurück */
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /** Gibt die Anzahl der Kanten zurück */
+    public int getEdgeCount() {
+        return edgeSource.length;
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls der Graph vollständig ist, <code>false</code> falls
+     * die Konstruktion wegen eines Limits abgebrochen wurde.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /** Gibt die Markierung des Knotens <b>node</b> zurück, unbeschränkte Stellen haben den Wert {@link #OMEGA} */
+    public MarkingVector getMarking(int node) {
+        if (node < 0 || node >= nodes.size())
+            throw new IndexOutOfBoundsException("no such node: " + node);
+
+        int[] marking = new int[nodes.getPlaceCount()];
+        nodes.get(node, marking);
+        return new MarkingVector(marking);
+    }
+
+    /** Gibt den Quellknoten der Kante <b>edge</b> zurück */
+    public int getEdgeSource(int edge) {
+        return edgeSource[edge];
+    }
+
+    /** Gibt den Zielknoten der Kante <b>edge</b> zurück */
+    public int getEdgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    /** Gibt den Index der Transition der Kante <b>edge</b> zurück */
+    public int getEdgeTransition(int edge) {
+        return edgeTransition[edge];
+    }
+
+    /**
+     * Gibt die Schranke der Stelle mit dem Index <b>place</b> zurück, also die maximale
+     * Markenanzahl aller erreichbaren Markierungen, oder {@link #OMEGA} falls die Stelle
+     * unbeschränkt ist.
+     */
+    public int getBound(int place) {
+        return bounds[place];
+    }
+
+    /**
+     * Gibt die Schranke der Stelle mit der ID <b>id</b> zurück
+     * @throws IllegalArgumentException falls die Stelle nicht existiert
+     * @see #getBound(int)
+     */
+    public int getBound(String id) {
+        int place = net.indexOfPlace(id);
+        if (place < 0)
+            throw new IllegalArgumentException("unknown place: " + id);
+
+        return bounds[place];
+    }
+
+    /** Gibt <code>true</code> zurück falls die Stelle mit dem Index <b>place</b> beschränkt ist */
+    public boolean isBounded(int place) {
+        return bounds[place] != OMEGA;
+    }
+
+    /** Gibt <code>true</code> zurück falls alle Stellen beschränkt sind */
+    public boolean isBounded() {
+        for (int bound : bounds) {
+            if (bound == OMEGA)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls eine erreichbare Markierung die Markierung
+     * <b>marking</b> überdeckt
+     * @throws IllegalArgumentException falls die Anzahl der Stellen nicht übereinstimmt
+     */
+    public boolean isCoverable(MarkingVector marking) {
+        if (marking.size() != nodes.getPlaceCount())
+            throw new IllegalArgumentException("marking has " + marking.size() +
+                    " places, net has " + nodes.getPlaceCount());
+
+        int[] required = marking.toArray();
+        int[] node = new int[required.length];
+        for (int i = 0; i < nodes.size(); ++i) {
+            nodes.get(i, node);
+            if (CoverabilityExplorer.lessOrEqual(required, node))
+                return true;
+        }
+        return false;
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("CoverabilityGraph { nodes: %d, edges: %d, bounded: %s, complete: %s }",
+                getNodeCount(), getEdgeCount(), isBounded(), complete);
+    }
+}
@@ -0,0 +1,148 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.utils.IntArrayList;
+
+/**
+ * Sucht eine tote Markierung (Verklemmung), ohne den Erreichbarkeitsgraphen aufzubauen.
+ * <p>
+ * Die Suche läuft in Breitensuche und endet bei der ersten erzeugten Markierung, in der keine
+ * Transition aktiviert ist. Die zurückgegebene Schaltfolge ist daher eine kürzeste.
+ * <p>
+ * Neben den Markierungen wird je Zustand nur die Transition gespeichert, über die er zuerst
+ * erreicht wurde. Der Vorgänger ergibt sich durch Rückwärtsschalten dieser Transition und
+ * wird beim Aufbau der Schaltfolge in der Zustandstabelle nachgeschlagen.
+ * <pre>
+ *  DeadlockReport report = DeadlockFinder.create(net).stateLimit(100000).find();
+ *  if (report.hasDeadlock())
+ *      System.out.println(report.getTraceIds());
+ * </pre>
+ */
+public final class DeadlockFinder {
+
+    /** Das untersuchte Netz */
+    private final CompiledNet net;
+
+    /** Maximale Anzahl der Zustände */
+    private int stateLimit = Integer.MAX_VALUE;
+
+    /**
+     * Erstellt eine Suche
+     */
+    private DeadlockFinder(CompiledNet net) {
+        this.net = net;
+    }
+
+    /** Erstellt eine Suche ausgehend von der aktuellen Markierung des Netzes <b>net</b> */
+    public static DeadlockFinder create(PetriNet net) {
+        return create(net.compile());
+    }
+
+    /** Erstellt eine Suche ausgehend von der Anfangsmarkierung des kompilierten Netzes <b>net</b> */
+    public static DeadlockFinder create(CompiledNet net) {
+        return new DeadlockFinder(net);
+    }
+
+    /**
+     * Setzt die maximale Anzahl der Zustände
+     * @throws IllegalArgumentException falls <b>limit</b> kleiner als 1 ist
+     */
+    public DeadlockFinder stateLimit(int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("state limit must be positive");
+
+        this.stateLimit = limit;
+        return this;
+    }
+
+    /**
+     * Führt die Suche durch.
+     * <p>
+     * Wird das Zustandslimit erreicht, bevor eine Verklemmung gefunden wurde, ist das
+     * Ergebnis unvollständig, siehe {@link DeadlockReport#isComplete()}.
+     */
+    public DeadlockReport find() {
+        final int places = net.getPlaceCount();
+        final int transitions = net.getTransitionCount();
+
+        MarkingTable states = new MarkingTable(places, 1024);
+        IntArrayList via = new IntArrayList(1024);
+        int[] marking = new int[places];
+        int[] successor = new int[places];
+
+        states.insert(net.getInitialMarking());
+        via.add(-1);
+        if (isDead(net.getInitialMarking()))
+            return report(states, via, 0, true);
+
+        boolean complete = true;
+        for (int state = 0; state < states.size(); ++state) {
+            states.get(state, marking);
+            for (int t = 0; t < transitions; ++t) {
+                if (!net.isEnabled(t, marking))
+                    continue;
+
+                System.arraycopy(marking, 0, successor, 0, places);
+                net.fire(t, successor);
+
+                if (states.size() >= stateLimit) {
+                    if (states.find(successor) < 0)
+                        complete = false;
+                    continue;
+                }
+
+                int target = states.insert(successor);
+                if (target < 0)
+                    continue;
+
+                via.add(t);
+                if (isDead(successor))
+                    return report(states, via, target, true);
+            }
+        }
+
+        return report(states, via, -1, complete);
+    }
+
+    /** Gibt <code>true</code> zurück falls in der Markierung keine Transition aktiviert ist */
+    private boolean isDead(int[] marking) {
+        for (int t = 0; t < net.getTransitionCount(); ++t) {
+            if (net.isEnabled(t, marking))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Erstellt das Ergebnis und rekonstruiert die Schaltfolge bis zum Zustand <b>deadlock</b>
+     */
+    private DeadlockReport report(MarkingTable states, IntArrayList via, int deadlock, boolean complete) {
+        if (deadlock < 0)
+            return new DeadlockReport(net, null, null, states.size(), complete, memory(states, via));
+
+        int[] marking = new int[net.getPlaceCount()];
+        states.get(deadlock, marking);
+        int[] dead = marking.clone();
+
+        IntArrayList trace = new IntArrayList();
+        for (int state = deadlock; via.get(state) >= 0; ) {
+            int t = via.get(state);
+            trace.add(t);
+            for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i)
+                marking[net.getEffectPlace(i)] -= net.getEffectDelta(i);
+            state = states.find(marking);
+        }
+
+        int[] sequence = new int[trace.size()];
+        for (int i = 0; i < sequence.length; ++i)
+            sequence[i] = trace.get(sequence.length - 1 - i);
+
+        return new DeadlockReport(net, dead, sequence, states.size(), complete, memory(states, via));
+    }
+
+    /** Speicherbedarf der Zustandstabelle und der Vorgängertabelle */
+    private static long memory(MarkingTable states, IntArrayList via) {
+        return states.getMemoryBytes() + 4L * via.size();
+    }
+}
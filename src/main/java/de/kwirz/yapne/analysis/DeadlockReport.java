@@ -0,0 +1,106 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.MarkingVector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ergebnis einer Suche nach toten Markierungen mit kürzester Schaltfolge.
+ *
+ * @see DeadlockFinder
+ */
+public final class DeadlockReport {
+
+    /** Das untersuchte Netz */
+    private final CompiledNet net;
+
+    /** Gefundene tote Markierung, <code>null</code> falls keine gefunden wurde */
+    private final int[] deadlock;
+
+    /** Indizes der Transitionen bis zur toten Markierung */
+    private final int[] trace;
+
+    /** Anzahl der besuchten Zustände */
+    private final int exploredStates;
+
+    /** <code>false</code> falls die Suche durch das Zustandslimit abgebrochen wurde */
+    private final boolean complete;
+
+    /** Speicherbedarf der Suche in Bytes */
+    private final long memoryBytes;
+
+    /**
+     * Erstellt ein Ergebnis
+     */
+    DeadlockReport(CompiledNet net, int[] deadlock, int[] trace, int exploredStates,
+                   boolean complete, long memoryBytes) {
+        this.net = net;
+        this.deadlock = deadlock;
+        this.trace = trace;
+        this.exploredStates = exploredStates;
+        this.complete = complete;
+        this.memoryBytes = memoryBytes;
+    }
+
+    /** Gibt das untersuchte Netz zurück */
+    public CompiledNet getNet() {
+        return net;
+    }
+
+    /** Gibt <code>true</code> zurück falls eine tote Markierung gefunden wurde */
+    public boolean hasDeadlock() {
+        return deadlock != null;
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls das Ergebnis eindeutig ist: entweder wurde eine
+     * tote Markierung gefunden oder alle erreichbaren Markierungen wurden untersucht
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /** Gibt die tote Markierung zurück, oder <code>null</code> falls keine gefunden wurde */
+    public MarkingVector getDeadlock() {
+        return deadlock == null ? null : new MarkingVector(deadlock);
+    }
+
+    /**
+     * Gibt die Indizes der Transitionen einer kürzesten Schaltfolge zur toten Markierung zurück
+     * (leer falls keine gefunden wurde)
+     */
+    public int[] getTrace() {
+        return trace == null ? new int[0] : trace.clone();
+    }
+
+    /** Gibt die Ids der Transitionen einer kürzesten Schaltfolge zur toten Markierung zurück */
+    public List<String> getTraceIds() {
+        if (trace == null)
+            return Collections.emptyList();
+
+        List<String> result = new ArrayList<>(trace.length);
+        for (int t : trace)
+            result.add(net.getTransitionId(t));
+        return result;
+    }
+
+    /** Gibt die Anzahl der besuchten Zustände zurück */
+    public int getExploredStateCount() {
+        return exploredStates;
+    }
+
+    /** Gibt den ungefähren Speicherbedarf der Suche in Bytes zurück */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("DeadlockReport { deadlock: %s, trace: %s, states: %d }",
+                hasDeadlock() ? getDeadlock() : "none", getTraceIds(), exploredStates);
+    }
+}
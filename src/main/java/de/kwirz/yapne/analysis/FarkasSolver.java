@@ -0,0 +1,301 @@
+package de.kwirz.yapne.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Berechnet die minimalen semi-positiven Lösungen von y · A = 0 mit dem Farkas Algorithmus
+ * (Fourier-Motzkin Elimination).
+ * <p>
+ * Jede Zeile besteht aus einem dünn besetzten Matrixteil (die noch nicht eliminierten
+ * Spalten von A) und einem dünn besetzten Identitätsteil (die Koeffizienten y). Spalten werden
+ * einzeln eliminiert, wobei jeweils die Spalte mit dem geringsten Zeilenwachstum gewählt
+ * wird. Neue Zeilen werden durch den größten gemeinsamen Teiler gekürzt, Zeilen deren
+ * Träger einen anderen Träger echt enthält werden sofort verworfen. Der Vergleich der
+ * Träger kann parallel ausgeführt werden.
+ */
+final class FarkasSolver {
+
+    /**
+     * Zeile der erweiterten Matrix [A | I]
+     */
+    static final class Row {
+
+        /** Spalten des Matrixteils, aufsteigend */
+        final int[] columns;
+
+        /** Werte des Matrixteils */
+        final long[] values;
+
+        /** Indizes des Identitätsteils, aufsteigend */
+        final int[] indices;
+
+        /** Koeffizienten des Identitätsteils, alle positiv */
+        final long[] coefficients;
+
+        /** Träger des Identitätsteils */
+        final BitSet support;
+
+        /** 64 Bit Signatur des Trägers für schnelle Teilmengentests */
+        final long signature;
+
+        Row(int[] columns, long[] values, int[] indices, long[] coefficients) {
+            this.columns = columns;
+            this.values = values;
+            this.indices = indices;
+            this.coefficients = coefficients;
+            this.support = new BitSet();
+            long signature = 0;
+            for (int index : indices) {
+                support.set(index);
+                signature |= 1L << index;
+            }
+            this.signature = signature;
+        }
+
+        /** Gibt den Wert in der Spalte <b>column</b> zurück */
+        long get(int column) {
+            int i = Arrays.binarySearch(columns, column);
+            return i >= 0 ? values[i] : 0;
+        }
+
+        /** Gibt <code>true</code> zurück falls der Träger von <b>other</b> echt im eigenen enthalten ist */
+        boolean strictlyContains(Row other) {
+            if ((other.signature & ~signature) != 0 || other.indices.length >= indices.length)
+                return false;
+
+            BitSet difference = (BitSet) other.support.clone();
+            difference.andNot(support);
+            return difference.isEmpty();
+        }
+    }
+
+    /** Ab dieser Zeilenanzahl wird der Vergleich der Träger parallel ausgeführt */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    /** Anzahl der Spalten von A */
+    private final int columnCount;
+
+    /** <code>true</code> falls der Vergleich der Träger parallel ausgeführt wird */
+    private final boolean parallel;
+
+    /** Maximale Anzahl der Zwischenzeilen */
+    private final int rowLimit;
+
+    /**
+     * Erstellt einen Löser
+     * @param columnCount Anzahl der Spalten von A
+     * @param parallel <code>true</code> für parallelen Vergleich der Träger
+     * @param rowLimit maximale Anzahl der Zwischenzeilen
+     */
+    FarkasSolver(int columnCount, boolean parallel, int rowLimit) {
+        this.columnCount = columnCount;
+        this.parallel = parallel;
+        this.rowLimit = rowLimit;
+    }
+
+    /**
+     * Eliminiert alle Spalten
+     * @param rows Anfangszeilen [A | I]
+     * @return Zeilen mit leerem Matrixteil, deren Identitätsteile die minimalen Lösungen sind
+     * @throws IllegalStateException falls das Zeilenlimit überschritten wird oder ein
+     *         Koeffizient nicht mehr als <code>long</code> darstellbar ist
+     */
+    List<Row> solve(List<Row> rows) {
+        boolean[] eliminated = new boolean[columnCount];
+
+        while (true) {
+            int column = chooseColumn(rows, eliminated);
+            if (column < 0)
+                return rows;
+
+            eliminated[column] = true;
+            rows = removeNonMinimal(eliminate(rows, column));
+        }
+    }
+
+    /**
+     * Wählt die nächste Spalte: diejenige, bei der die Anzahl der Zeilen am wenigsten wächst
+     * @return Spalte oder <code>-1</code> falls alle Spalten null sind
+     */
+    private int chooseColumn(List<Row> rows, boolean[] eliminated) {
+        int[] positive = new int[columnCount];
+        int[] negative = new int[columnCount];
+        for (Row row : rows) {
+            for (int i = 0; i < row.columns.length; ++i) {
+                if (row.values[i] > 0)
+                    ++positive[row.columns[i]];
+                else
+                    ++negative[row.columns[i]];
+            }
+        }
+
+        int best = -1;
+        long bestGrowth = Long.MAX_VALUE;
+        for (int column = 0; column < columnCount; ++column) {
+            if (eliminated[column] || positive[column] + negative[column] == 0)
+                continue;
+
+            long growth = (long) positive[column] * negative[column] - positive[column] - negative[column];
+            if (growth < bestGrowth) {
+                best = column;
+                bestGrowth = growth;
+            }
+        }
+        return best;
+    }
+
+    /** Eliminiert die Spalte <b>column</b> */
+    private List<Row> eliminate(List<Row> rows, int column) {
+        List<Row> result = new ArrayList<>();
+        List<Row> positive = new ArrayList<>();
+        List<Row> negative = new ArrayList<>();
+
+        for (Row row : rows) {
+            long value = row.get(column);
+            if (value == 0)
+                result.add(row);
+            else if (value > 0)
+                positive.add(row);
+            else
+                negative.add(row);
+        }
+
+        if ((long) result.size() + (long) positive.size() * negative.size() > rowLimit)
+            throw new IllegalStateException("row limit of " + rowLimit + " exceeded");
+
+        for (Row p : positive) {
+            for (Row n : negative)
+                result.add(combine(p, n, column));
+        }
+
+        return result;
+    }
+
+    /** Kombiniert zwei Zeilen so, dass die Spalte <b>column</b> null wird */
+    private static Row combine(Row p, Row n, int column) {
+        long a = p.get(column);
+        long b = -n.get(column);
+        long g = gcd(a, b);
+
+        long factorP = b / g;
+        long factorN = a / g;
+
+        Sparse matrix = merge(p.columns, p.values, factorP, n.columns, n.values, factorN);
+        Sparse identity = merge(p.indices, p.coefficients, factorP, n.indices, n.coefficients, factorN);
+
+        long divisor = 0;
+        for (long value : matrix.values)
+            divisor = gcd(divisor, Math.abs(value));
+        for (long coefficient : identity.values)
+            divisor = gcd(divisor, coefficient);
+
+        if (divisor > 1) {
+            for (int i = 0; i < matrix.values.length; ++i)
+                matrix.values[i] /= divisor;
+            for (int i = 0; i < identity.values.length; ++i)
+                identity.values[i] /= divisor;
+        }
+
+        return new Row(matrix.indices, matrix.values, identity.indices, identity.values);
+    }
+
+    /**
+     * Berechnet <code>factorA * a + factorB * b</code> für zwei dünn besetzte Vektoren,
+     * Einträge mit Wert 0 entfallen
+     */
+    private static Sparse merge(int[] aIndex, long[] aValue, long factorA,
+                                int[] bIndex, long[] bValue, long factorB) {
+        int[] index = new int[aIndex.length + bIndex.length];
+        long[] value = new long[index.length];
+        int i = 0, j = 0, k = 0;
+
+        try {
+            while (i < aIndex.length || j < bIndex.length) {
+                long sum;
+                int at;
+                if (j == bIndex.length || (i < aIndex.length && aIndex[i] < bIndex[j])) {
+                    at = aIndex[i];
+                    sum = Math.multiplyExact(factorA, aValue[i++]);
+                } else if (i == aIndex.length || bIndex[j] < aIndex[i]) {
+                    at = bIndex[j];
+                    sum = Math.multiplyExact(factorB, bValue[j++]);
+                } else {
+                    at = aIndex[i];
+                    sum = Math.addExact(Math.multiplyExact(factorA, aValue[i++]),
+                            Math.multiplyExact(factorB, bValue[j++]));
+                }
+
+                if (sum != 0) {
+                    index[k] = at;
+                    value[k++] = sum;
+                }
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("coefficient overflow", e);
+        }
+
+        return new Sparse(Arrays.copyOf(index, k), Arrays.copyOf(value, k));
+    }
+
+    /**
+     * Dünn besetzter Vektor, Ergebnis von {@link #merge}
+     */
+    private static final class Sparse {
+
+        final int[] indices;
+        final long[] values;
+
+        Sparse(int[] indices, long[] values) {
+            this.indices = indices;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Entfernt Zeilen, deren Träger den Träger einer anderen Zeile echt enthält, sowie
+     * doppelte Zeilen
+     */
+    private List<Row> removeNonMinimal(List<Row> rows) {
+        final Row[] array = rows.toArray(new Row[rows.size()]);
+        IntStream range = IntStream.range(0, array.length);
+        if (parallel && array.length >= PARALLEL_THRESHOLD)
+            range = range.parallel();
+
+        return range.filter(i -> !isDominated(array, i))
+                .mapToObj(i -> array[i])
+                .collect(Collectors.toList());
+    }
+
+    /** Gibt <code>true</code> zurück falls die Zeile <b>i</b> nicht minimal oder ein späteres Duplikat ist */
+    private static boolean isDominated(Row[] rows, int i) {
+        Row row = rows[i];
+        for (int j = 0; j < rows.length; ++j) {
+            if (j == i)
+                continue;
+
+            Row other = rows[j];
+            if (row.strictlyContains(other))
+                return true;
+            if (j < i && row.signature == other.signature && Arrays.equals(row.indices, other.indices) &&
+                    Arrays.equals(row.coefficients, other.coefficients) &&
+                    Arrays.equals(row.columns, other.columns) && Arrays.equals(row.values, other.values))
+                return true;
+        }
+        return false;
+    }
+
+    /** Größter gemeinsamer Teiler zweier nicht negativer Zahlen */
+    static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
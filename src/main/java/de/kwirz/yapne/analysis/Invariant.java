@@ -0,0 +1,99 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.MarkingVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Minimale semi-positive Invariante eines Petri Netzes.
+ * <p>
+ * Eine Stelleninvariante (P-Invariante) ordnet Stellen positive Gewichte zu, die gewichtete
+ * Markenanzahl ist dann in allen erreichbaren Markierungen gleich. Eine
+ * Transitionsinvariante (T-Invariante) ordnet Transitionen Schaltzahlen zu, nach denen das
+ * Netz wieder die Ausgangsmarkierung erreicht. Nicht aufgeführte Elemente haben das Gewicht 0.
+ *
+ * @see InvariantAnalysis
+ */
+public final class Invariant {
+
+    /** Indizes der Elemente (Stellen bzw. Transitionen), aufsteigend */
+    private final int[] indices;
+
+    /** Ids der Elemente */
+    private final String[] ids;
+
+    /** Gewichte der Elemente, alle positiv */
+    private final long[] coefficients;
+
+    /**
+     * Erstellt eine Invariante
+     */
+    Invariant(int[] indices, String[] ids, long[] coefficients) {
+        this.indices = indices;
+        this.ids = ids;
+        this.coefficients = coefficients;
+    }
+
+    /** Gibt die Ids der Elemente mit positivem Gewicht zurück (Träger der Invariante) */
+    public List<String> getSupport() {
+        return Collections.unmodifiableList(new ArrayList<>(Arrays.asList(ids)));
+    }
+
+    /** Gibt die Indizes der Elemente mit positivem Gewicht zurück */
+    public int[] getIndices() {
+        return indices.clone();
+    }
+
+    /** Gibt das Gewicht des Elements mit der Id <b>id</b> zurück, 0 falls es nicht zum Träger gehört */
+    public long getCoefficient(String id) {
+        for (int i = 0; i < ids.length; ++i) {
+            if (ids[i].equals(id))
+                return coefficients[i];
+        }
+        return 0;
+    }
+
+    /**
+     * Berechnet die gewichtete Summe einer Markierung (nur für Stelleninvarianten sinnvoll).
+     * Für alle erreichbaren Markierungen ergibt sich der gleiche Wert.
+     */
+    public long evaluate(MarkingVector marking) {
+        long sum = 0;
+        for (int i = 0; i < indices.length; ++i)
+            sum += coefficients[i] * marking.get(indices[i]);
+        return sum;
+    }
+
+    /** Gibt die String Repräsentation zurück, z.B. <code>2*p1 + p2</code> */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < ids.length; ++i) {
+            if (i > 0)
+                builder.append(" + ");
+            if (coefficients[i] != 1)
+                builder.append(coefficients[i]).append('*');
+            builder.append(ids[i]);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof Invariant))
+            return false;
+
+        Invariant invariant = (Invariant) other;
+        return Arrays.equals(ids, invariant.ids) && Arrays.equals(coefficients, invariant.coefficients);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(ids) + Arrays.hashCode(coefficients);
+    }
+}
@@ -0,0 +1,189 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Berechnet die minimalen Stellen- und Transitionsinvarianten eines Petri Netzes.
+ * <p>
+ * Die Inzidenzmatrix C (Zeilen: Stellen, Spalten: Transitionen) wird direkt aus Quelle,
+ * Ziel und Gewicht der {@link PetriNetArc Kanten} aufgebaut und dünn besetzt gespeichert.
+ * P-Invarianten sind die Lösungen von y · C = 0, T-Invarianten die von C · x = 0, beide
+ * werden mit dem Farkas Algorithmus berechnet.
+ * <pre>
+ *  InvariantAnalysis analysis = InvariantAnalysis.create(net);
+ *  for (Invariant invariant : analysis.getPlaceInvariants())
+ *      ...
+ *  boolean conservative = analysis.isCoveredByPlaceInvariants();
+ * </pre>
+ */
+public final class InvariantAnalysis {
+
+    /** Ids der Stellen, nach Index */
+    private final String[] placeIds;
+
+    /** Ids der Transitionen, nach Index */
+    private final String[] transitionIds;
+
+    /** Zeilen der Inzidenzmatrix (je Stelle), Transitionsindex auf Eintrag */
+    private final List<TreeMap<Integer, Long>> byPlace = new ArrayList<>();
+
+    /** Spalten der Inzidenzmatrix (je Transition), Stellenindex auf Eintrag */
+    private final List<TreeMap<Integer, Long>> byTransition = new ArrayList<>();
+
+    /** <code>true</code> falls der Vergleich der Träger parallel ausgeführt wird */
+    private boolean parallel = false;
+
+    /** Maximale Anzahl der Zwischenzeilen */
+    private int rowLimit = 1000000;
+
+    /** Berechnete P-Invarianten */
+    private List<Invariant> placeInvariants = null;
+
+    /** Berechnete T-Invarianten */
+    private List<Invariant> transitionInvariants = null;
+
+    /**
+     * Baut die Inzidenzmatrix auf
+     */
+    private InvariantAnalysis(PetriNet net) {
+        Map<String, Integer> placeIndex = new HashMap<>();
+        Map<String, Integer> transitionIndex = new HashMap<>();
+
+        placeIds = new String[net.getPlaces().size()];
+        for (PetriNetPlace place : net.getPlaces()) {
+            placeIndex.put(place.getId(), placeIndex.size());
+            placeIds[placeIndex.size() - 1] = place.getId();
+            byPlace.add(new TreeMap<>());
+        }
+
+        transitionIds = new String[net.getTransitions().size()];
+        for (PetriNetTransition transition : net.getTransitions()) {
+            transitionIndex.put(transition.getId(), transitionIndex.size());
+            transitionIds[transitionIndex.size() - 1] = transition.getId();
+            byTransition.add(new TreeMap<>());
+        }
+
+        for (PetriNetArc arc : net.getArcs()) {
+            PetriNetNode source = arc.getSource();
+            PetriNetNode target = arc.getTarget();
+            if (source == null || target == null)
+                continue;
+
+            boolean input = source instanceof PetriNetPlace;
+            Integer p = placeIndex.get(input ? source.getId() : target.getId());
+            Integer t = transitionIndex.get(input ? target.getId() : source.getId());
+            if (p == null || t == null)
+                throw new IllegalStateException(String.format(
+                        "arc '%s' references a node which is not part of the net", arc.getId()));
+
+            long weight = input ? -arc.getWeight() : arc.getWeight();
+            byPlace.get(p).merge(t, weight, Long::sum);
+            byTransition.get(t).merge(p, weight, Long::sum);
+        }
+    }
+
+    /** Erstellt eine Analyse für das Netz <b>net</b> */
+    public static InvariantAnalysis create(PetriNet net) {
+        return new InvariantAnalysis(net);
+    }
+
+    /**
+     * Schaltet den parallelen Vergleich der Träger ein oder aus, Standard ist aus
+     */
+    public InvariantAnalysis parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Setzt die maximale Anzahl der Zwischenzeilen
+     * @throws IllegalArgumentException falls <b>limit</b> kleiner als 1 ist
+     */
+    public InvariantAnalysis rowLimit(int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("row limit must be positive");
+
+        this.rowLimit = limit;
+        return this;
+    }
+
+    /**
+     * Gibt die minimalen P-Invarianten zurück
+     * @throws IllegalStateException falls das Zeilenlimit überschritten wird
+     */
+    public List<Invariant> getPlaceInvariants() {
+        if (placeInvariants == null)
+            placeInvariants = solve(byPlace, transitionIds.length, placeIds);
+        return placeInvariants;
+    }
+
+    /**
+     * Gibt die minimalen T-Invarianten zurück
+     * @throws IllegalStateException falls das Zeilenlimit überschritten wird
+     */
+    public List<Invariant> getTransitionInvariants() {
+        if (transitionInvariants == null)
+            transitionInvariants = solve(byTransition, placeIds.length, transitionIds);
+        return transitionInvariants;
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls jede Stelle im Träger einer P-Invariante liegt.
+     * Das Netz ist dann konservativ bezüglich einer positiven Gewichtung und beschränkt.
+     */
+    public boolean isCoveredByPlaceInvariants() {
+        return isCovered(getPlaceInvariants(), placeIds.length);
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls jede Transition im Träger einer T-Invariante liegt
+     */
+    public boolean isCoveredByTransitionInvariants() {
+        return isCovered(getTransitionInvariants(), transitionIds.length);
+    }
+
+    /** Prüft ob alle Elemente überdeckt sind */
+    private static boolean isCovered(List<Invariant> invariants, int count) {
+        BitSet covered = new BitSet(count);
+        for (Invariant invariant : invariants) {
+            for (int index : invariant.getIndices())
+                covered.set(index);
+        }
+        return covered.cardinality() == count;
+    }
+
+    /** Löst y · A = 0 für die Zeilen <b>matrix</b> */
+    private List<Invariant> solve(List<TreeMap<Integer, Long>> matrix, int columns, String[] ids) {
+        List<FarkasSolver.Row> rows = new ArrayList<>(matrix.size());
+        for (int i = 0; i < matrix.size(); ++i) {
+            TreeMap<Integer, Long> entries = matrix.get(i);
+            entries.values().removeIf(value -> value == 0);
+
+            int[] indices = new int[entries.size()];
+            long[] values = new long[entries.size()];
+            int k = 0;
+            for (Map.Entry<Integer, Long> entry : entries.entrySet()) {
+                indices[k] = entry.getKey();
+                values[k++] = entry.getValue();
+            }
+            rows.add(new FarkasSolver.Row(indices, values, new int[] {i}, new long[] {1}));
+        }
+
+        List<Invariant> result = new ArrayList<>();
+        for (FarkasSolver.Row row : new FarkasSolver(columns, parallel, rowLimit).solve(rows)) {
+            String[] support = new String[row.indices.length];
+            for (int i = 0; i < support.length; ++i)
+                support[i] = ids[row.indices[i]];
+            result.add(new Invariant(row.indices, support, row.coefficients));
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
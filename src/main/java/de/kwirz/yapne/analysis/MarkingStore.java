@@ -0,0 +1,31 @@
+package de.kwirz.yapne.analysis;
+
+/**
+ * Lesender Zugriff auf eine Tabelle fortlaufend nummerierter Markierungen.
+ *
+ * @see MarkingTable
+ * @see ConcurrentMarkingTable
+ */
+interface MarkingStore {
+
+    /** Gibt die Anzahl der Zustände zurück */
+    int size();
+
+    /** Gibt die Anzahl der Stellen zurück */
+    int getPlaceCount();
+
+    /** Schreibt die Markierung des Zustandes <b>state</b> in <b>marking</b> */
+    void get(int state, int[] marking);
+
+    /** Gibt die Anzahl der Marken der Stelle <b>place</b> im Zustand <b>state</b> zurück */
+    int get(int state, int place);
+
+    /**
+     * Gibt die Nummer des Zustandes mit der Markierung <b>marking</b> zurück
+     * @return Zustandsnummer oder <code>-1</code> falls die Markierung nicht enthalten ist
+     */
+    int find(int[] marking);
+
+    /** Gibt den ungefähren Speicherbedarf in Bytes zurück */
+    long getMemoryBytes();
+}
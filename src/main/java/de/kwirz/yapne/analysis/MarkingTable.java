@@ -0,0 +1,270 @@
+package de.kwirz.yapne.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Kompakte Zustandstabelle für Markierungen (Hash-Consing).
+ * <p>
+ * Markierungen werden bitweise gepackt in einem einzigen <code>long</code> Array abgelegt,
+ * jede Stelle belegt dabei gleich viele Bits (1, 2, 4, 8, 16 oder 32). Die Breite wird
+ * automatisch vergrößert, sobald eine Markierung nicht mehr hineinpasst. Das Auffinden
+ * erfolgt über eine Hashtabelle mit offener Adressierung (lineares Sondieren), die nur
+ * Zustandsnummern enthält. Pro Zustand werden somit keine Objekte angelegt.
+ * <p>
+ * Zustände werden ab 0 fortlaufend nummeriert, in der Reihenfolge des Einfügens.
+ */
+final class MarkingTable implements MarkingStore {
+
+    /** Maximale Anzahl der Zustände */
+    private static final int MAXIMUM_STATES = Integer.MAX_VALUE / 2;
+
+    /** Anzahl der Stellen */
+    private final int places;
+
+    /** Bits pro Stelle */
+    private int bits = 1;
+
+    /** Anzahl der <code>long</code> Werte pro Zustand */
+    private int wordsPerState;
+
+    /** Gepackte Markierungen, Zustand i beginnt bei <code>i * wordsPerState</code> */
+    private long[] pool;
+
+    /** Hashwerte der Zustände */
+    private int[] hashes;
+
+    /** Anzahl der Zustände */
+    private int count = 0;
+
+    /** Hashtabelle, enthält Zustandsnummer + 1 oder 0 für freie Plätze */
+    private int[] slots;
+
+    /** Zwischenspeicher für die gepackte Markierung */
+    private final long[] scratch;
+
+    /**
+     * Erstellt eine leere Tabelle
+     * @param places Anzahl der Stellen
+     * @param expectedStates erwartete Anzahl der Zustände
+     */
+    MarkingTable(int places, int expectedStates) {
+        this.places = places;
+        this.wordsPerState = wordsFor(bits);
+        this.scratch = new long[Math.max(1, wordsFor(32))];
+
+        int capacity = Math.max(16, expectedStates);
+        this.pool = new long[poolLength(capacity, wordsPerState)];
+        this.hashes = new int[capacity];
+        this.slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+    }
+
+    /** Gibt die Anzahl der <code>long</code> Werte für eine Markierung mit <b>bits</b> pro Stelle zurück */
+    private int wordsFor(int bits) {
+        return (int) (((long) places * bits + 63) >>> 6);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int getPlaceCount() {
+        return places;
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return 8L * pool.length + 4L * hashes.length + 4L * slots.length;
+    }
+
+    /**
+     * Fügt eine Markierung hinzu, falls sie noch nicht enthalten ist.
+     * @return die Nummer des neuen Zustandes, oder <code>-(nummer + 1)</code> falls die
+     *         Markierung bereits enthalten war
+     * @throws IllegalStateException falls die maximale Anzahl der Zustände erreicht ist
+     */
+    int insert(int[] marking) {
+        ensureWidth(marking);
+        encode(marking, scratch);
+        int hash = hash(scratch);
+
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        for (int entry = slots[slot]; entry != 0; entry = slots[slot]) {
+            if (hashes[entry - 1] == hash && equalsAt(entry - 1, scratch))
+                return -entry;
+            slot = (slot + 1) & mask;
+        }
+
+        if (count == MAXIMUM_STATES || (long) (count + 1) * wordsPerState > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("state table is full");
+
+        if (count == hashes.length)
+            growStorage();
+
+        System.arraycopy(scratch, 0, pool, count * wordsPerState, wordsPerState);
+        hashes[count] = hash;
+        slots[slot] = ++count;
+
+        if (count * 2 > slots.length)
+            rehash(slots.length * 2);
+
+        return count - 1;
+    }
+
+    @Override
+    public int find(int[] marking) {
+        if (requiredBits(marking) > bits)
+            return -1;
+
+        encode(marking, scratch);
+        int hash = hash(scratch);
+
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        for (int entry = slots[slot]; entry != 0; entry = slots[slot]) {
+            if (hashes[entry - 1] == hash && equalsAt(entry - 1, scratch))
+                return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    @Override
+    public void get(int state, int[] marking) {
+        decode(pool, state * wordsPerState, bits, marking);
+    }
+
+    @Override
+    public int get(int state, int place) {
+        long bit = (long) place * bits;
+        long word = pool[state * wordsPerState + (int) (bit >>> 6)];
+        return (int) ((word >>> (bit & 63)) & mask(bits));
+    }
+
+    /** Gibt die Bitmaske für <b>bits</b> Bits zurück */
+    static long mask(int bits) {
+        return (bits == 64) ? -1L : (1L << bits) - 1;
+    }
+
+    /** Gibt die benötigten Bits pro Stelle (eine Zweierpotenz) für die Markierung zurück */
+    static int requiredBits(int[] marking) {
+        int max = 0;
+        for (int value : marking)
+            max |= value;
+
+        int needed = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+        return (needed & (needed - 1)) == 0 ? needed : Integer.highestOneBit(needed) << 1;
+    }
+
+    /** Vergrößert die Bits pro Stelle falls die Markierung nicht hineinpasst */
+    private void ensureWidth(int[] marking) {
+        int needed = requiredBits(marking);
+        if (needed > bits)
+            repack(needed);
+    }
+
+    /** Packt alle Zustände mit der neuen Breite <b>newBits</b> neu */
+    private void repack(int newBits) {
+        int newWords = wordsFor(newBits);
+        if ((long) Math.max(count, 1) * newWords > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("state table is full");
+
+        long[] newPool = new long[poolLength(hashes.length, newWords)];
+        int[] marking = new int[places];
+        long[] packed = new long[newWords];
+
+        for (int state = 0; state < count; ++state) {
+            decode(pool, state * wordsPerState, bits, marking);
+            Arrays.fill(packed, 0L);
+            encode(marking, packed, newBits);
+            System.arraycopy(packed, 0, newPool, state * newWords, newWords);
+            hashes[state] = hash(packed, newWords);
+        }
+
+        pool = newPool;
+        bits = newBits;
+        wordsPerState = newWords;
+        rehash(slots.length);
+    }
+
+    /** Vergrößert die Speicher für Markierungen und Hashwerte */
+    private void growStorage() {
+        int capacity = (int) Math.min((long) hashes.length * 2, MAXIMUM_STATES);
+        hashes = Arrays.copyOf(hashes, capacity);
+        pool = Arrays.copyOf(pool, poolLength(capacity, wordsPerState));
+    }
+
+    /**
+     * Gibt die Länge des Speichers für <b>states</b> Zustände mit je <b>words</b> Wörtern
+     * zurück, höchstens die maximale Arraylänge. Zustände jenseits davon weist
+     * {@link #insert} ab.
+     */
+    static int poolLength(int states, int words) {
+        return (int) Math.max(1, Math.min((long) states * words, Integer.MAX_VALUE - 8));
+    }
+
+    /** Baut die Hashtabelle mit der Größe <b>capacity</b> neu auf */
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int state = 0; state < count; ++state) {
+            int slot = hashes[state] & mask;
+            while (slots[slot] != 0)
+                slot = (slot + 1) & mask;
+            slots[slot] = state + 1;
+        }
+    }
+
+    /** Packt die Markierung mit der aktuellen Breite */
+    private void encode(int[] marking, long[] packed) {
+        Arrays.fill(packed, 0, wordsPerState, 0L);
+        encode(marking, packed, bits);
+    }
+
+    /** Packt die Markierung mit <b>bits</b> Bits pro Stelle, <b>packed</b> muss genullt sein */
+    static void encode(int[] marking, long[] packed, int bits) {
+        long bit = 0;
+        for (int value : marking) {
+            packed[(int) (bit >>> 6)] |= (long) value << (bit & 63);
+            bit += bits;
+        }
+    }
+
+    /** Entpackt eine Markierung */
+    static void decode(long[] pool, int offset, int bits, int[] marking) {
+        long mask = mask(bits);
+        long bit = 0;
+        for (int p = 0; p < marking.length; ++p) {
+            marking[p] = (int) ((pool[offset + (int) (bit >>> 6)] >>> (bit & 63)) & mask);
+            bit += bits;
+        }
+    }
+
+    /** Vergleicht den Zustand <b>state</b> mit der gepackten Markierung */
+    private boolean equalsAt(int state, long[] packed) {
+        int offset = state * wordsPerState;
+        for (int i = 0; i < wordsPerState; ++i) {
+            if (pool[offset + i] != packed[i])
+                return false;
+        }
+        return true;
+    }
+
+    /** Berechnet den Hashwert der gepackten Markierung mit der aktuellen Breite */
+    private int hash(long[] packed) {
+        return hash(packed, wordsPerState);
+    }
+
+    /** Berechnet den Hashwert der ersten <b>words</b> Werte */
+    static int hash(long[] packed, int words) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < words; ++i) {
+            h = (h ^ packed[i]) * 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 32;
+        }
+        return (int) (h ^ (h >>> 29));
+    }
+}
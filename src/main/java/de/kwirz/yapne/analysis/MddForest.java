@@ -0,0 +1,195 @@
+package de.kwirz.yapne.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Knotenspeicher für quasi-reduzierte mehrwertige Entscheidungsdiagramme (MDD).
+ * <p>
+ * Ein Knoten der Ebene k &gt; 0 besitzt für jeden lokalen Wert i (die Markenanzahl einer
+ * Stelle) einen Nachfolger der Ebene k - 1. Die Nachfolger werden ohne nachfolgende Nullen
+ * abgelegt, nicht aufgeführte Werte führen zu {@link #EMPTY}. Es gibt zwei terminale Knoten:
+ * {@link #EMPTY} für die leere Menge und {@link #TERMINAL} auf Ebene 0.
+ * <p>
+ * Gleiche Knoten werden über eine Unique-Tabelle nur einmal angelegt, Knoten werden nie
+ * freigegeben. Nachfolger werden immer vor ihren Vorgängern angelegt, ein Knoten hat daher
+ * eine größere Nummer als alle seine Nachfolger.
+ */
+final class MddForest {
+
+    /** Knoten für die leere Menge */
+    static final int EMPTY = 0;
+
+    /** Terminaler Knoten auf Ebene 0 */
+    static final int TERMINAL = 1;
+
+    /** Maximale Anzahl der Knoten */
+    private final int nodeLimit;
+
+    /** Ebenen der Knoten */
+    private int[] levels = new int[1024];
+
+    /** Beginn der Nachfolger im {@link #pool} */
+    private int[] starts = new int[1024];
+
+    /** Anzahl der Nachfolger */
+    private int[] lengths = new int[1024];
+
+    /** Anzahl der Knoten, einschließlich der terminalen */
+    private int count = 2;
+
+    /** Nachfolger aller Knoten */
+    private int[] pool = new int[4096];
+
+    /** Belegte Einträge im {@link #pool} */
+    private int poolSize = 0;
+
+    /** Unique-Tabelle mit offener Adressierung, 0 für freie Plätze */
+    private int[] unique = new int[2048];
+
+    /** Cache für Vereinigungen */
+    private final OperationCache unionCache;
+
+    /**
+     * Erstellt einen leeren Speicher
+     * @param nodeLimit maximale Anzahl der Knoten
+     * @param cacheSize Anzahl der Einträge des Caches für Vereinigungen
+     */
+    MddForest(int nodeLimit, int cacheSize) {
+        this.nodeLimit = nodeLimit;
+        this.unionCache = new OperationCache(cacheSize);
+    }
+
+    /** Gibt die Anzahl der Knoten zurück, einschließlich der terminalen */
+    int size() {
+        return count;
+    }
+
+    /** Gibt die Ebene des Knotens zurück */
+    int getLevel(int node) {
+        return levels[node];
+    }
+
+    /** Gibt die Anzahl der Nachfolger zurück, der letzte ist nie {@link #EMPTY} */
+    int getChildCount(int node) {
+        return lengths[node];
+    }
+
+    /** Gibt den Nachfolger für den lokalen Wert <b>value</b> zurück */
+    int getChild(int node, int value) {
+        return value < lengths[node] ? pool[starts[node] + value] : EMPTY;
+    }
+
+    /** Gibt den ungefähren Speicherbedarf in Bytes zurück */
+    long getMemoryBytes() {
+        return 12L * levels.length + 4L * pool.length + 4L * unique.length + unionCache.getMemoryBytes();
+    }
+
+    /**
+     * Gibt den Knoten der Ebene <b>level</b> mit den ersten <b>length</b> Nachfolgern aus
+     * <b>children</b> zurück und legt ihn bei Bedarf an
+     * @throws IllegalStateException falls die maximale Anzahl der Knoten erreicht ist
+     */
+    int makeNode(int level, int[] children, int length) {
+        while (length > 0 && children[length - 1] == EMPTY)
+            --length;
+        if (length == 0)
+            return EMPTY;
+
+        int hash = hash(level, children, 0, length);
+        int mask = unique.length - 1;
+        int slot = hash & mask;
+        for (int node = unique[slot]; node != 0; node = unique[slot]) {
+            if (equalsNode(node, level, children, length))
+                return node;
+            slot = (slot + 1) & mask;
+        }
+
+        if (count == nodeLimit)
+            throw new IllegalStateException("node limit of " + nodeLimit + " exceeded");
+
+        if (count == levels.length) {
+            levels = Arrays.copyOf(levels, count * 2);
+            starts = Arrays.copyOf(starts, count * 2);
+            lengths = Arrays.copyOf(lengths, count * 2);
+        }
+        if (poolSize + length > pool.length)
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+
+        int node = count++;
+        levels[node] = level;
+        starts[node] = poolSize;
+        lengths[node] = length;
+        System.arraycopy(children, 0, pool, poolSize, length);
+        poolSize += length;
+        unique[slot] = node;
+
+        if (count * 2 > unique.length)
+            rehash();
+
+        return node;
+    }
+
+    /**
+     * Vereinigt zwei Knoten der gleichen Ebene
+     */
+    int union(int a, int b) {
+        if (a == EMPTY || a == b)
+            return b;
+        if (b == EMPTY)
+            return a;
+
+        if (a > b) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+
+        long key = OperationCache.key(a, b);
+        int cached = unionCache.get(key);
+        if (cached >= 0)
+            return cached;
+
+        int length = Math.max(lengths[a], lengths[b]);
+        int[] children = new int[length];
+        for (int i = 0; i < length; ++i)
+            children[i] = union(getChild(a, i), getChild(b, i));
+
+        int result = makeNode(levels[a], children, length);
+        unionCache.put(key, result);
+        return result;
+    }
+
+    /** Vergleicht einen Knoten mit Ebene und Nachfolgern */
+    private boolean equalsNode(int node, int level, int[] children, int length) {
+        if (levels[node] != level || lengths[node] != length)
+            return false;
+
+        int start = starts[node];
+        for (int i = 0; i < length; ++i) {
+            if (pool[start + i] != children[i])
+                return false;
+        }
+        return true;
+    }
+
+    /** Verdoppelt die Unique-Tabelle */
+    private void rehash() {
+        int[] table = new int[unique.length * 2];
+        int mask = table.length - 1;
+        for (int node = 2; node < count; ++node) {
+            int slot = hash(levels[node], pool, starts[node], lengths[node]) & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = node;
+        }
+        unique = table;
+    }
+
+    /** Berechnet den Hashwert eines Knotens mit den Nachfolgern <b>children</b> ab <b>start</b> */
+    private static int hash(int level, int[] children, int start, int length) {
+        int h = level * 0x9E3779B9;
+        for (int i = 0; i < length; ++i)
+            h = (h ^ children[start + i]) * 0x01000193;
+        return h ^ (h >>> 16);
+    }
+}
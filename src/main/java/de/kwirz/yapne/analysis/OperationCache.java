@@ -0,0 +1,64 @@
+package de.kwirz.yapne.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Verlustbehafteter Cache für Ergebnisse von Operationen auf Entscheidungsdiagrammen.
+ * <p>
+ * Jeder Schlüssel wird direkt auf genau einen Eintrag abgebildet, ein neuer Eintrag
+ * verdrängt den vorherigen. Der Speicherbedarf bleibt dadurch konstant.
+ */
+final class OperationCache {
+
+    /** Schlüssel eines freien Eintrags */
+    private static final long FREE = -1L;
+
+    /** Schlüssel der Einträge */
+    private final long[] keys;
+
+    /** Ergebnisse der Einträge */
+    private final int[] values;
+
+    /**
+     * Erstellt einen Cache
+     * @param capacity Anzahl der Einträge, wird auf eine Zweierpotenz aufgerundet
+     */
+    OperationCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        keys = new long[size];
+        values = new int[size];
+        Arrays.fill(keys, FREE);
+    }
+
+    /** Bildet zwei nicht negative <code>int</code> Werte auf einen Schlüssel ab */
+    static long key(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gibt das Ergebnis für den Schlüssel <b>key</b> zurück
+     * @return Ergebnis oder <code>-1</code> falls der Eintrag nicht (mehr) vorhanden ist
+     */
+    int get(long key) {
+        int index = index(key);
+        return keys[index] == key ? values[index] : -1;
+    }
+
+    /** Speichert ein Ergebnis, ein vorhandener Eintrag wird verdrängt */
+    void put(long key, int value) {
+        int index = index(key);
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    /** Gibt den Speicherbedarf in Bytes zurück */
+    long getMemoryBytes() {
+        return 12L * keys.length;
+    }
+
+    /** Berechnet den Index eines Schlüssels */
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+    }
+}
@@ -0,0 +1,284 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.utils.IntArrayList;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Baut den Erreichbarkeitsgraphen eines Petri Netzes mit mehreren Threads auf.
+ * <p>
+ * Die Zustände werden wie bei der Breitensuche von {@link ReachabilityExplorer} in der
+ * Reihenfolge ihrer Nummern expandiert, jedoch blockweise: ein Block noch nicht expandierter
+ * Zustände wird in Teilaufgaben zerlegt und in einem {@link ForkJoinPool} abgearbeitet. Neue
+ * Markierungen werden sperrfrei in eine gemeinsame {@link ConcurrentMarkingTable} eingefügt.
+ * Zwischen zwei Blöcken wird die Tabelle bei Bedarf vergrößert oder umgepackt.
+ * <p>
+ * Bei vollständiger Exploration stimmt die Anzahl der Zustände, Kanten und Verklemmungen mit
+ * dem sequentiellen Explorer überein, die Nummerierung der Zustände (außer der
+ * Anfangsmarkierung mit Nummer 0) hängt dagegen von der Ausführungsreihenfolge ab. Begrenzt
+ * {@link #stateLimit(int)} die Exploration, hängt auch ab, welche Zustände aufgenommen werden, und
+ * damit die Anzahl der Kanten und Verklemmungen.
+ * <pre>
+ *  ReachabilityGraph graph = ParallelReachabilityExplorer.create(net)
+ *                              .parallelism(16)
+ *                              .explore();
+ * </pre>
+ */
+public final class ParallelReachabilityExplorer {
+
+    /** Maximale Anzahl der Zustände pro Block */
+    private static final int MAXIMUM_BATCH = 1 << 16;
+
+    /** Maximale Anzahl der Nachfolger pro Block, begrenzt die Reservierung in der Tabelle */
+    private static final int MAXIMUM_BATCH_SUCCESSORS = 1 << 22;
+
+    /** Das untersuchte Netz */
+    private final CompiledNet net;
+
+    /** Anzahl der Threads */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** Maximale Anzahl der Zustände */
+    private int stateLimit = Integer.MAX_VALUE;
+
+    /**
+     * Erstellt einen Explorer
+     */
+    private ParallelReachabilityExplorer(CompiledNet net) {
+        this.net = net;
+    }
+
+    /** Erstellt einen Explorer für die aktuelle Markierung des Netzes <b>net</b> */
+    public static ParallelReachabilityExplorer create(PetriNet net) {
+        return create(net.compile());
+    }
+
+    /** Erstellt einen Explorer für die Anfangsmarkierung des kompilierten Netzes <b>net</b> */
+    public static ParallelReachabilityExplorer create(CompiledNet net) {
+        return new ParallelReachabilityExplorer(net);
+    }
+
+    /**
+     * Setzt die Anzahl der Threads, Standard ist die Anzahl der Prozessoren
+     * @throws IllegalArgumentException falls <b>parallelism</b> kleiner als 1 ist
+     */
+    public ParallelReachabilityExplorer parallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive");
+
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Setzt die maximale Anzahl der Zustände
+     * @throws IllegalArgumentException falls <b>limit</b> kleiner als 1 ist
+     */
+    public ParallelReachabilityExplorer stateLimit(int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("state limit must be positive");
+
+        this.stateLimit = limit;
+        return this;
+    }
+
+    /**
+     * Führt die Exploration durch.
+     * <p>
+     * Wird das Limit erreicht, werden keine neuen Zustände mehr aufgenommen und ein
+     * unvollständiger Graph zurückgegeben, siehe {@link ReachabilityGraph#isComplete()}.
+     */
+    public ReachabilityGraph explore() {
+        final int transitions = Math.max(1, net.getTransitionCount());
+        final int minimumBatch = parallelism * 16;
+        final int maximumBatch = Math.max(minimumBatch,
+                Math.min(MAXIMUM_BATCH, MAXIMUM_BATCH_SUCCESSORS / transitions));
+
+        ConcurrentMarkingTable states = new ConcurrentMarkingTable(net.getPlaceCount());
+        IntArrayList edgeSource = new IntArrayList(1024);
+        IntArrayList edgeTarget = new IntArrayList(1024);
+        IntArrayList edgeTransition = new IntArrayList(1024);
+        IntArrayList deadlocks = new IntArrayList();
+        boolean complete = true;
+
+        int[] initial = net.getInitialMarking();
+        states.repack(initial);
+        states.reserve(1);
+        states.insert(initial, states.newScratch(), stateLimit);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            int next = 0;
+            while (next < states.size()) {
+                // Für jeden Nachfolger muss Platz reserviert werden, der Block wächst daher
+                // mit der Tabelle, damit die Reservierung deren Größe nicht weit übersteigt
+                int batch = Math.min(states.size() - next,
+                        Math.min(maximumBatch, Math.max(minimumBatch, states.size() / transitions)));
+                states.reserve(Math.min((long) batch * transitions, (long) stateLimit - states.size()));
+
+                Expansion[] tasks = split(states, next, next + batch);
+                pool.invoke(new Batch(tasks));
+                next += batch;
+
+                for (Expansion task : tasks) {
+                    edgeSource.addAll(task.edgeSource);
+                    edgeTarget.addAll(task.edgeTarget);
+                    edgeTransition.addAll(task.edgeTransition);
+                    deadlocks.addAll(task.deadlocks);
+                    complete &= !task.rejected;
+                }
+
+                for (Expansion task : tasks) {
+                    complete &= insertOverflow(states, task.overflowSource, task.overflowTransition,
+                            edgeSource, edgeTarget, edgeTransition);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        int[] dead = deadlocks.toArray();
+        Arrays.sort(dead);
+
+        return new ReachabilityGraph(net, states, edgeSource.toArray(), edgeTarget.toArray(),
+                edgeTransition.toArray(), dead, complete);
+    }
+
+    /** Zerlegt die Zustände <b>from</b> bis <b>to</b> (exklusiv) in Teilaufgaben */
+    private Expansion[] split(ConcurrentMarkingTable states, int from, int to) {
+        int length = to - from;
+        int grain = Math.max(1, Math.min(1024, length / (parallelism * 8)));
+        Expansion[] tasks = new Expansion[(length + grain - 1) / grain];
+        for (int i = 0; i < tasks.length; ++i)
+            tasks[i] = new Expansion(states, from + i * grain, Math.min(to, from + (i + 1) * grain));
+        return tasks;
+    }
+
+    /**
+     * Fügt die Nachfolger ein, die eine breitere Packung der Tabelle benötigen.
+     * Wird zwischen zwei Blöcken sequentiell aufgerufen.
+     * @return <code>false</code> falls das Limit erreicht wurde
+     */
+    private boolean insertOverflow(ConcurrentMarkingTable states, IntArrayList sources,
+                                   IntArrayList transitions, IntArrayList edgeSource,
+                                   IntArrayList edgeTarget, IntArrayList edgeTransition) {
+        boolean complete = true;
+        int[] successor = new int[net.getPlaceCount()];
+
+        for (int i = 0; i < sources.size(); ++i) {
+            states.get(sources.get(i), successor);
+            net.fire(transitions.get(i), successor);
+            states.repack(successor);
+
+            int target = states.insert(successor, states.newScratch(), stateLimit);
+            if (target == ConcurrentMarkingTable.REJECTED) {
+                complete = false;
+                continue;
+            }
+            if (target < 0)
+                target = -target - 1;
+
+            edgeSource.add(sources.get(i));
+            edgeTarget.add(target);
+            edgeTransition.add(transitions.get(i));
+        }
+
+        return complete;
+    }
+
+    /**
+     * Startet alle Teilaufgaben eines Blocks und wartet auf ihr Ende
+     */
+    @SuppressWarnings("serial")
+    private static final class Batch extends RecursiveAction {
+
+        private final Expansion[] tasks;
+
+        Batch(Expansion[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Expandiert einen Bereich von Zuständen. Kanten und Verklemmungen werden lokal
+     * gesammelt und nach dem Block zusammengeführt.
+     */
+    @SuppressWarnings("serial")
+    private final class Expansion extends RecursiveAction {
+
+        private final ConcurrentMarkingTable states;
+        private final int from;
+        private final int to;
+
+        final IntArrayList edgeSource = new IntArrayList();
+        final IntArrayList edgeTarget = new IntArrayList();
+        final IntArrayList edgeTransition = new IntArrayList();
+        final IntArrayList deadlocks = new IntArrayList();
+
+        /** Kanten, deren Zielmarkierung nicht in die aktuelle Packung passt */
+        final IntArrayList overflowSource = new IntArrayList();
+        final IntArrayList overflowTransition = new IntArrayList();
+
+        /** <code>true</code> falls ein Nachfolger wegen des Limits verworfen wurde */
+        boolean rejected = false;
+
+        Expansion(ConcurrentMarkingTable states, int from, int to) {
+            this.states = states;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            final int places = net.getPlaceCount();
+            final int transitions = net.getTransitionCount();
+            int[] marking = new int[places];
+            int[] successor = new int[places];
+            long[] scratch = states.newScratch();
+
+            for (int state = from; state < to; ++state) {
+                states.get(state, marking);
+                boolean dead = true;
+
+                for (int t = 0; t < transitions; ++t) {
+                    if (!net.isEnabled(t, marking))
+                        continue;
+
+                    dead = false;
+                    System.arraycopy(marking, 0, successor, 0, places);
+                    net.fire(t, successor);
+
+                    if (!states.fits(successor)) {
+                        overflowSource.add(state);
+                        overflowTransition.add(t);
+                        continue;
+                    }
+
+                    int target = states.insert(successor, scratch, stateLimit);
+                    if (target == ConcurrentMarkingTable.REJECTED) {
+                        rejected = true;
+                        continue;
+                    }
+                    if (target < 0)
+                        target = -target - 1;
+
+                    edgeSource.add(state);
+                    edgeTarget.add(target);
+                    edgeTransition.add(t);
+                }
+
+                if (dead)
+                    deadlocks.add(state);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.utils.IntArrayList;
+
+/**
+ * Baut den Erreichbarkeitsgraphen eines Petri Netzes explizit auf.
+ * <p>
+ * Die Exploration arbeitet auf einer {@link CompiledNet kompilierten} Form des Netzes,
+ * Markierungen werden in einer kompakten Zustandstabelle gespeichert. Optional wird der
+ * Zustandsraum mit stubborn sets reduziert, siehe {@link #partialOrderReduction}.
+ * <pre>
+ *  ReachabilityGraph graph = ReachabilityExplorer.create(net)
+ *                              .order(ReachabilityExplorer.Order.DEPTH_FIRST)
+ *                              .stateLimit(1000000)
+ *                              .explore();
+ * </pre>
+ */
+public final class ReachabilityExplorer {
+
+    /**
+     * Reihenfolge, in der Zustände expandiert werden
+     */
+    public enum Order {
+        /** Breitensuche */
+        BREADTH_FIRST,
+        /** Tiefensuche */
+        DEPTH_FIRST
+    }
+
+    /** Das untersuchte Netz */
+    private final CompiledNet net;
+
+    /** Reihenfolge der Expansion */
+    private Order order = Order.BREADTH_FIRST;
+
+    /** Maximale Anzahl der Zustände */
+    private int stateLimit = Integer.MAX_VALUE;
+
+    /** Maximale Anzahl der Kanten */
+    private int edgeLimit = Integer.MAX_VALUE - 8;
+
+    /** <code>true</code> falls mit stubborn sets reduziert wird */
+    private boolean reduce = false;
+
+    /** Indizes der sichtbaren Stellen bei Reduktion */
+    private int[] visiblePlaces = null;
+
+    /**
+     * Erstellt einen Explorer
+     */
+    private ReachabilityExplorer(CompiledNet net) {
+        this.net = net;
+    }
+
+    /** Erstellt einen Explorer für die aktuelle Markierung des Netzes <b>net</b> */
+    public static ReachabilityExplorer create(PetriNet net) {
+        return create(net.compile());
+    }
+
+    /** Erstellt einen Explorer für die Anfangsmarkierung des kompilierten Netzes <b>net</b> */
+    public static ReachabilityExplorer create(CompiledNet net) {
+        return new ReachabilityExplorer(net);
+    }
+
+    /** Setzt die Reihenfolge der Expansion, Standard ist Breitensuche */
+    public ReachabilityExplorer order(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Setzt die maximale Anzahl der Zustände
+     * @throws IllegalArgumentException falls <b>limit</b> kleiner als 1 ist
+     */
+    public ReachabilityExplorer stateLimit(int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("state limit must be positive");
+
+        this.stateLimit = limit;
+        return this;
+    }
+
+    /**
+     * Setzt die maximale Anzahl der Kanten
+     * @throws IllegalArgumentException falls <b>limit</b> negativ ist
+     */
+    public ReachabilityExplorer edgeLimit(int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException("edge limit cannot be negative");
+
+        this.edgeLimit = limit;
+        return this;
+    }
+
+    /**
+     * Schaltet die Reduktion mit stubborn sets ein oder aus, Standard ist aus.
+     * <p>
+     * Mit Reduktion werden in jedem Zustand nur die Transitionen einer stubborn set
+     * geschaltet. Der Graph enthält dann nicht mehr alle erreichbaren Zustände, aber
+     * weiterhin alle Verklemmungen. Für Erreichbarkeitsfragen über bestimmte Stellen
+     * müssen diese zusätzlich mit {@link #visiblePlaces} angegeben werden.
+     */
+    public ReachabilityExplorer partialOrderReduction(boolean enabled) {
+        this.reduce = enabled;
+        return this;
+    }
+
+    /**
+     * Setzt die Stellen, deren Markierungen bei Reduktion erhalten bleiben sollen.
+     * <p>
+     * Jede Kombination von Markierungen dieser Stellen, die im vollständigen Graphen
+     * vorkommt, kommt dann auch im reduzierten Graphen vor.
+     * @throws IllegalArgumentException falls eine Stelle nicht existiert
+     */
+    public ReachabilityExplorer visiblePlaces(String... ids) {
+        int[] places = new int[ids.length];
+        for (int i = 0; i < ids.length; ++i) {
+            places[i] = net.indexOfPlace(ids[i]);
+            if (places[i] < 0)
+                throw new IllegalArgumentException("unknown place: " + ids[i]);
+        }
+
+        this.visiblePlaces = places;
+        return this;
+    }
+
+    /**
+     * Führt die Exploration durch.
+     * <p>
+     * Wird ein Limit erreicht, wird die Exploration abgebrochen und ein unvollständiger Graph
+     * zurückgegeben, siehe {@link ReachabilityGraph#isComplete()}.
+     */
+    public ReachabilityGraph explore() {
+        final int places = net.getPlaceCount();
+        final int transitions = net.getTransitionCount();
+
+        MarkingTable states = new MarkingTable(places, 1024);
+        IntArrayList edgeSource = new IntArrayList(1024);
+        IntArrayList edgeTarget = new IntArrayList(1024);
+        IntArrayList edgeTransition = new IntArrayList(1024);
+        IntArrayList deadlocks = new IntArrayList();
+        IntArrayList stack = new IntArrayList();
+        IntArrayList enabled = new IntArrayList();
+        IntArrayList selected = new IntArrayList();
+        StubbornSets stubborn = reduce ? new StubbornSets(net, visiblePlaces) : null;
+        int partiallyExpanded = 0;
+
+        int[] marking = new int[places];
+        int[] successor = new int[places];
+        boolean complete = true;
+
+        states.insert(net.getInitialMarking());
+        stack.add(0);
+        int next = 0;
+
+        expansion:
+        while (true) {
+            int state;
+            if (order == Order.BREADTH_FIRST) {
+                if (next == states.size())
+                    break;
+                state = next++;
+            } else {
+                if (stack.isEmpty())
+                    break;
+                state = stack.removeLast();
+            }
+
+            states.get(state, marking);
+            enabled.clear();
+            for (int t = 0; t < transitions; ++t) {
+                if (net.isEnabled(t, marking))
+                    enabled.add(t);
+            }
+
+            if (enabled.isEmpty()) {
+                deadlocks.add(state);
+                continue;
+            }
+
+            IntArrayList fire = enabled;
+            if (stubborn != null && enabled.size() > 1) {
+                stubborn.compute(marking, enabled, selected);
+                fire = selected;
+            }
+
+            boolean reachedOldState = false;
+            for (int i = 0; i < fire.size(); ++i) {
+                int t = fire.get(i);
+                if (edgeSource.size() >= edgeLimit) {
+                    complete = false;
+                    break expansion;
+                }
+
+                System.arraycopy(marking, 0, successor, 0, places);
+                net.fire(t, successor);
+
+                int target;
+                if (states.size() >= stateLimit) {
+                    target = states.find(successor);
+                    if (target < 0) {
+                        complete = false;
+                        continue;
+                    }
+                    reachedOldState = true;
+                } else {
+                    target = states.insert(successor);
+                    if (target < 0) {
+                        target = -target - 1;
+                        reachedOldState = true;
+                    } else if (order == Order.DEPTH_FIRST) {
+                        stack.add(target);
+                    }
+                }
+
+                edgeSource.add(state);
+                edgeTarget.add(target);
+                edgeTransition.add(t);
+
+                // Zyklusbedingung: führt die reduzierte Menge zurück in bekannte Zustände,
+                // könnten sichtbare Transitionen dauerhaft übergangen werden
+                if (i == fire.size() - 1 && fire == selected && reachedOldState &&
+                        stubborn.hasVisiblePlaces() && selected.size() < enabled.size())
+                    appendMissing(enabled, selected);
+            }
+
+            if (fire == selected && selected.size() < enabled.size())
+                ++partiallyExpanded;
+        }
+
+        return new ReachabilityGraph(net, states, edgeSource.toArray(), edgeTarget.toArray(),
+                edgeTransition.toArray(), deadlocks.toArray(), complete, partiallyExpanded);
+    }
+
+    /** Hängt die Transitionen aus <b>enabled</b> an, die nicht in <b>selected</b> liegen (beide aufsteigend) */
+    private static void appendMissing(IntArrayList enabled, IntArrayList selected) {
+        int count = selected.size();
+        int j = 0;
+        for (int i = 0; i < enabled.size(); ++i) {
+            int t = enabled.get(i);
+            while (j < count && selected.get(j) < t)
+                ++j;
+            if (j == count || selected.get(j) != t)
+                selected.add(t);
+        }
+    }
+
+    /**
+     * Führt die Exploration mit und ohne Reduktion durch und vergleicht die Größen.
+     * <p>
+     * Dazu wird der vollständige Zustandsraum aufgebaut, die Methode ist daher nur für
+     * Netze geeignet, deren Zustandsraum noch explizit berechnet werden kann.
+     */
+    public ReductionReport compareReduction() {
+        boolean reduce = this.reduce;
+        try {
+            this.reduce = false;
+            ReachabilityGraph full = explore();
+            this.reduce = true;
+            ReachabilityGraph reduced = explore();
+            return new ReductionReport(full.getStateCount(), reduced.getStateCount(),
+                    full.getEdgeCount(), reduced.getEdgeCount());
+        } finally {
+            this.reduce = reduce;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.MarkingVector;
+
+/**
+ * Erreichbarkeitsgraph eines Petri Netzes.
+ * <p>
+ * Zustände sind ab 0 durchnummeriert, der Zustand 0 ist die Anfangsmarkierung. Die
+ * Markierungen liegen gepackt in einer kompakten Zustandstabelle, Kanten werden als drei
+ * parallele <code>int</code> Arrays (Quelle, Ziel, Transition) gespeichert.
+ *
+ * @see ReachabilityExplorer
+ */
+public final class ReachabilityGraph {
+
+    /** Das untersuchte Netz */
+    private final CompiledNet net;
+
+    /** Markierungen der Zustände */
+    private final MarkingStore states;
+
+    /** Quellzustände der Kanten */
+    private final int[] edgeSource;
+
+    /** Zielzustände der Kanten */
+    private final int[] edgeTarget;
+
+    /** Transitionen der Kanten */
+    private final int[] edgeTransition;
+
+    /** Zustände ohne aktivierte Transition */
+    private final int[] deadlocks;
+
+    /** <code>false</code> falls die Exploration wegen eines Limits abgebrochen wurde */
+    private final boolean complete;
+
+    /** Anzahl der Zustände, in denen nicht alle aktivierten Transitionen geschaltet wurden */
+    private final int partiallyExpanded;
+
+    /**
+     * Erstellt einen Graphen
+     */
+    ReachabilityGraph(CompiledNet net, MarkingStore states, int[] edgeSource, int[] edgeTarget,
+                      int[] edgeTransition, int[] deadlocks, boolean complete) {
+        this(net, states, edgeSource, edgeTarget, edgeTransition, deadlocks, complete, 0);
+    }
+
+    /**
+     * Erstellt einen (eventuell reduzierten) Graphen
+     */
+    ReachabilityGraph(CompiledNet net, MarkingStore states, int[] edgeSource, int[] edgeTarget,
+                      int[] edgeTransition, int[] deadlocks, boolean complete, int partiallyExpanded) {
+        this.net = net;
+        this.states = states;
+        this.edgeSource = edgeSource;
+        this.edgeTarget = edgeTarget;
+        this.edgeTransition = edgeTransition;
+        this.deadlocks = deadlocks;
+        this.complete = complete;
+        this.partiallyExpanded = partiallyExpanded;
+    }
+
+    /** Gibt das untersuchte Netz zurück */
+    public CompiledNet getNet() {
+        return net;
+    }
+
+    /** Gibt die Anzahl der Zustände zurück */
+    public int getStateCount() {
+        return states.size();
+    }
+
+    /** Gibt die Anzahl der Kanten zurück */
+    public int getEdgeCount() {
+        return edgeSource.length;
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls alle erreichbaren Zustände und Kanten enthalten sind,
+     * <code>false</code> falls die Exploration wegen eines Limits abgebrochen wurde.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Gibt die Anzahl der Zustände zurück, in denen durch Reduktion mit stubborn sets nicht
+     * alle aktivierten Transitionen geschaltet wurden
+     */
+    public int getPartiallyExpandedStateCount() {
+        return partiallyExpanded;
+    }
+
+    /** Gibt die Markierung des Zustandes <b>state</b> zurück */
+    public MarkingVector getMarking(int state) {
+        checkState(state);
+        int[] marking = new int[states.getPlaceCount()];
+        states.get(state, marking);
+        return new MarkingVector(marking);
+    }
+
+    /** Gibt die Anzahl der Marken der Stelle <b>place</b> im Zustand <b>state</b> zurück */
+    public int getTokens(int state, int place) {
+        checkState(state);
+        return states.get(state, place);
+    }
+
+    /**
+     * Gibt den Zustand mit der Markierung <b>marking</b> zurück
+     * @return Zustandsnummer oder <code>-1</code> falls die Markierung nicht enthalten ist
+     */
+    public int indexOf(MarkingVector marking) {
+        if (marking.size() != states.getPlaceCount())
+            return -1;
+
+        return states.find(marking.toArray());
+    }
+
+    /** Gibt <code>true</code> zurück falls die Markierung im Graphen enthalten ist */
+    public boolean contains(MarkingVector marking) {
+        return indexOf(marking) >= 0;
+    }
+
+    /** Gibt den Quellzustand der Kante <b>edge</b> zurück */
+    public int getEdgeSource(int edge) {
+        return edgeSource[edge];
+    }
+
+    /** Gibt den Zielzustand der Kante <b>edge</b> zurück */
+    public int getEdgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    /** Gibt den Index der Transition der Kante <b>edge</b> zurück */
+    public int getEdgeTransition(int edge) {
+        return edgeTransition[edge];
+    }
+
+    /** Gibt die Zustände zurück, in denen keine Transition aktiviert ist */
+    public int[] getDeadlocks() {
+        return deadlocks.clone();
+    }
+
+    /** Gibt den ungefähren Speicherbedarf der Zustandstabelle und Kanten in Bytes zurück */
+    public long getMemoryBytes() {
+        return states.getMemoryBytes() + 12L * edgeSource.length + 4L * deadlocks.length;
+    }
+
+    /** Prüft die Zustandsnummer */
+    private void checkState(int state) {
+        if (state < 0 || state >= states.size())
+            throw new IndexOutOfBoundsException("no such state: " + state);
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("ReachabilityGraph { states: %d, edges: %d, deadlocks: %d, complete: %s }",
+                getStateCount(), getEdgeCount(), deadlocks.length, complete);
+    }
+}
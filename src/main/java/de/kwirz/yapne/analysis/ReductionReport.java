@@ -0,0 +1,64 @@
+package de.kwirz.yapne.analysis;
+
+/**
+ * Vergleich der Größe des vollständigen und des mit stubborn sets reduzierten
+ * Erreichbarkeitsgraphen.
+ *
+ * @see ReachabilityExplorer#compareReduction()
+ */
+public final class ReductionReport {
+
+    /** Zustände ohne Reduktion */
+    private final int fullStates;
+
+    /** Zustände mit Reduktion */
+    private final int reducedStates;
+
+    /** Kanten ohne Reduktion */
+    private final int fullEdges;
+
+    /** Kanten mit Reduktion */
+    private final int reducedEdges;
+
+    /**
+     * Erstellt einen Vergleich
+     */
+    ReductionReport(int fullStates, int reducedStates, int fullEdges, int reducedEdges) {
+        this.fullStates = fullStates;
+        this.reducedStates = reducedStates;
+        this.fullEdges = fullEdges;
+        this.reducedEdges = reducedEdges;
+    }
+
+    /** Gibt die Anzahl der Zustände ohne Reduktion zurück */
+    public int getFullStateCount() {
+        return fullStates;
+    }
+
+    /** Gibt die Anzahl der Zustände mit Reduktion zurück */
+    public int getReducedStateCount() {
+        return reducedStates;
+    }
+
+    /** Gibt die Anzahl der eingesparten Zustände zurück */
+    public int getSavedStateCount() {
+        return fullStates - reducedStates;
+    }
+
+    /** Gibt die Anzahl der Kanten ohne Reduktion zurück */
+    public int getFullEdgeCount() {
+        return fullEdges;
+    }
+
+    /** Gibt die Anzahl der Kanten mit Reduktion zurück */
+    public int getReducedEdgeCount() {
+        return reducedEdges;
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("ReductionReport { states: %d -> %d, edges: %d -> %d }",
+                fullStates, reducedStates, fullEdges, reducedEdges);
+    }
+}
@@ -0,0 +1,349 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Strukturelle Analyse eines Petri Netzes mit Siphons (Deadlocks) und Traps (Fallen).
+ * <p>
+ * Eine Stellenmenge S ist ein Siphon, wenn jede Transition, die Marken in S legt, auch
+ * Marken aus S entnimmt. Ein unmarkierter Siphon bleibt für immer unmarkiert. Eine Trap Q
+ * ist das Gegenstück: jede Transition, die aus Q entnimmt, legt auch wieder Marken in Q,
+ * eine markierte Trap bleibt für immer markiert.
+ * <p>
+ * Enthält jeder minimale Siphon eine markierte Trap (Bedingung von Commoner und Hack), ist
+ * das Netz frei von toten Markierungen, für Free-Choice Netze ist es sogar lebendig.
+ * <p>
+ * Die Struktur wird aus den Ein- und Ausgangskanten der Knoten gelesen, Stellenmengen
+ * werden als {@link BitSet} über den Stellenindizes dargestellt.
+ */
+public final class StructuralAnalysis {
+
+    /** Ids der Stellen, nach Index */
+    private final String[] placeIds;
+
+    /** Markierte Stellen */
+    private final BitSet marked = new BitSet();
+
+    /** Vorbereich jeder Transition */
+    private final int[][] transitionPreset;
+
+    /** Nachbereich jeder Transition */
+    private final int[][] transitionPostset;
+
+    /** Transitionen, die in eine Stelle legen */
+    private final int[][] placePreset;
+
+    /** Transitionen, die aus einer Stelle entnehmen */
+    private final int[][] placePostset;
+
+    /** Maximale Anzahl der minimalen Siphons */
+    private int siphonLimit = 100000;
+
+    /** Berechnete minimale Siphons */
+    private List<BitSet> minimalSiphons = null;
+
+    /**
+     * Liest die Struktur und die aktuelle Markierung des Netzes
+     */
+    private StructuralAnalysis(PetriNet net) {
+        Map<PetriNetNode, Integer> placeIndex = new IdentityHashMap<>();
+        Map<PetriNetNode, Integer> transitionIndex = new IdentityHashMap<>();
+
+        placeIds = new String[net.getPlaces().size()];
+        for (PetriNetPlace place : net.getPlaces()) {
+            int p = placeIndex.size();
+            placeIndex.put(place, p);
+            placeIds[p] = place.getId();
+            if (place.getMarking() > 0)
+                marked.set(p);
+        }
+
+        for (PetriNetTransition transition : net.getTransitions())
+            transitionIndex.put(transition, transitionIndex.size());
+
+        transitionPreset = new int[transitionIndex.size()][];
+        transitionPostset = new int[transitionIndex.size()][];
+        for (Map.Entry<PetriNetNode, Integer> entry : transitionIndex.entrySet()) {
+            transitionPreset[entry.getValue()] = indices(entry.getKey().getInputArcs(), placeIndex, true);
+            transitionPostset[entry.getValue()] = indices(entry.getKey().getOutputArcs(), placeIndex, false);
+        }
+
+        placePreset = new int[placeIds.length][];
+        placePostset = new int[placeIds.length][];
+        for (Map.Entry<PetriNetNode, Integer> entry : placeIndex.entrySet()) {
+            placePreset[entry.getValue()] = indices(entry.getKey().getInputArcs(), transitionIndex, true);
+            placePostset[entry.getValue()] = indices(entry.getKey().getOutputArcs(), transitionIndex, false);
+        }
+    }
+
+    /** Gibt die Indizes der Nachbarknoten über die Kanten <b>arcs</b> zurück */
+    private static int[] indices(List<PetriNetArc> arcs, Map<PetriNetNode, Integer> index, boolean sources) {
+        int[] result = new int[arcs.size()];
+        int count = 0;
+        for (PetriNetArc arc : arcs) {
+            Integer i = index.get(sources ? arc.getSource() : arc.getTarget());
+            if (i != null)
+                result[count++] = i;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /** Erstellt eine Analyse für das Netz <b>net</b> mit seiner aktuellen Markierung */
+    public static StructuralAnalysis create(PetriNet net) {
+        return new StructuralAnalysis(net);
+    }
+
+    /**
+     * Setzt die maximale Anzahl der minimalen Siphons
+     * @throws IllegalArgumentException falls <b>limit</b> kleiner als 1 ist
+     */
+    public StructuralAnalysis siphonLimit(int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("siphon limit must be positive");
+
+        this.siphonLimit = limit;
+        return this;
+    }
+
+    /**
+     * Gibt alle minimalen (nicht leeren) Siphons zurück
+     * @throws IllegalStateException falls es mehr minimale Siphons als das Limit gibt
+     */
+    public List<Set<String>> getMinimalSiphons() {
+        List<Set<String>> result = new ArrayList<>();
+        for (BitSet siphon : minimalSiphons())
+            result.add(toIds(siphon));
+        return result;
+    }
+
+    /** Gibt die maximale Trap des Netzes zurück (leer falls es keine gibt) */
+    public Set<String> getMaximalTrap() {
+        BitSet all = new BitSet();
+        all.set(0, placeIds.length);
+        return toIds(maximalTrap(all));
+    }
+
+    /**
+     * Gibt die maximale Trap innerhalb der Stellen <b>placeIds</b> zurück
+     * @throws IllegalArgumentException falls eine Stelle nicht existiert
+     */
+    public Set<String> getMaximalTrap(Collection<String> placeIds) {
+        return toIds(maximalTrap(toBits(placeIds)));
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls die Stellen <b>placeIds</b> einen Siphon bilden
+     * @throws IllegalArgumentException falls eine Stelle nicht existiert
+     */
+    public boolean isSiphon(Collection<String> placeIds) {
+        BitSet set = toBits(placeIds);
+        return maximalSiphon(set).equals(set);
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls die Stellen <b>placeIds</b> eine Trap bilden
+     * @throws IllegalArgumentException falls eine Stelle nicht existiert
+     */
+    public boolean isTrap(Collection<String> placeIds) {
+        BitSet set = toBits(placeIds);
+        return maximalTrap(set).equals(set);
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls das Netz free-choice ist: konkurrieren mehrere
+     * Transitionen um eine Stelle, ist diese ihre einzige Eingangsstelle.
+     */
+    public boolean isFreeChoice() {
+        for (int p = 0; p < placeIds.length; ++p) {
+            if (placePostset[p].length < 2)
+                continue;
+
+            for (int t : placePostset[p]) {
+                if (transitionPreset[t].length != 1)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prüft die Bedingung von Commoner und Hack für die aktuelle Markierung: jeder minimale
+     * Siphon enthält eine markierte Trap.
+     * @throws IllegalStateException falls es mehr minimale Siphons als das Limit gibt
+     */
+    public boolean satisfiesCommonerHack() {
+        return getSiphonsWithoutMarkedTrap().isEmpty();
+    }
+
+    /**
+     * Gibt die minimalen Siphons zurück, die keine markierte Trap enthalten. Diese Siphons
+     * können leer laufen und damit Transitionen dauerhaft blockieren.
+     * @throws IllegalStateException falls es mehr minimale Siphons als das Limit gibt
+     */
+    public List<Set<String>> getSiphonsWithoutMarkedTrap() {
+        List<Set<String>> result = new ArrayList<>();
+        for (BitSet siphon : minimalSiphons()) {
+            if (!maximalTrap(siphon).intersects(marked))
+                result.add(toIds(siphon));
+        }
+        return result;
+    }
+
+    /** Berechnet die minimalen Siphons bei Bedarf */
+    private List<BitSet> minimalSiphons() {
+        if (minimalSiphons == null) {
+            Set<BitSet> found = new LinkedHashSet<>();
+            BitSet all = new BitSet();
+            all.set(0, placeIds.length);
+            enumerate(all, found, new HashSet<>());
+            minimalSiphons = Collections.unmodifiableList(new ArrayList<>(found));
+        }
+        return minimalSiphons;
+    }
+
+    /**
+     * Sucht alle minimalen Siphons innerhalb von <b>allowed</b>.
+     * <p>
+     * Ein gefundener minimaler Siphon M zerlegt die Suche: jeder andere minimale Siphon
+     * innerhalb des maximalen Siphons S enthält M nicht und liegt daher in S ohne eine der
+     * Stellen von M. Bereits untersuchte Teilmengen werden übersprungen.
+     */
+    private void enumerate(BitSet allowed, Set<BitSet> found, Set<BitSet> visited) {
+        BitSet siphon = maximalSiphon(allowed);
+        if (siphon.isEmpty() || !visited.add(siphon))
+            return;
+
+        BitSet minimal = shrink(siphon);
+        if (found.add(minimal) && found.size() > siphonLimit)
+            throw new IllegalStateException("siphon limit of " + siphonLimit + " exceeded");
+
+        for (int p = minimal.nextSetBit(0); p >= 0; p = minimal.nextSetBit(p + 1)) {
+            BitSet next = (BitSet) siphon.clone();
+            next.clear(p);
+            enumerate(next, found, visited);
+        }
+    }
+
+    /** Verkleinert den Siphon <b>siphon</b> zu einem minimalen Siphon */
+    private BitSet shrink(BitSet siphon) {
+        BitSet current = siphon;
+        for (int p = siphon.nextSetBit(0); p >= 0; p = siphon.nextSetBit(p + 1)) {
+            if (!current.get(p))
+                continue;
+
+            BitSet candidate = (BitSet) current.clone();
+            candidate.clear(p);
+            candidate = maximalSiphon(candidate);
+            if (!candidate.isEmpty())
+                current = candidate;
+        }
+        return current;
+    }
+
+    /**
+     * Berechnet den größten Siphon innerhalb von <b>allowed</b>: Stellen mit einer
+     * Eingangstransition ohne Eingangsstelle in der Menge werden entfernt, bis keine mehr übrig ist.
+     */
+    private BitSet maximalSiphon(BitSet allowed) {
+        return fixpoint(allowed, placePreset, transitionPreset, transitionPostset, placePostset);
+    }
+
+    /**
+     * Berechnet die größte Trap innerhalb von <b>allowed</b>: Stellen mit einer
+     * Ausgangstransition ohne Ausgangsstelle in der Menge werden entfernt, bis keine mehr übrig ist.
+     */
+    private BitSet maximalTrap(BitSet allowed) {
+        return fixpoint(allowed, placePostset, transitionPostset, transitionPreset, placePreset);
+    }
+
+    /**
+     * Gemeinsamer Fixpunkt für Siphons und Traps.
+     * <p>
+     * Eine Stelle p wird entfernt, sobald eine ihrer Transitionen <b>placeNeighbours</b>[p]
+     * keine Stelle <b>required</b>[t] mehr in der Menge hat. Für jede Transition wird die Anzahl
+     * der verbliebenen Stellen gezählt, die Berechnung ist daher linear in der Anzahl der Kanten.
+     * @param placeNeighbours zu prüfende Transitionen je Stelle
+     * @param required Stellen je Transition, von denen eine in der Menge liegen muss
+     * @param dependents Stellen je Transition, die neu geprüft werden müssen
+     * @param reverse Transitionen je Stelle, deren Zähler beim Entfernen sinkt
+     */
+    private BitSet fixpoint(BitSet allowed, int[][] placeNeighbours, int[][] required,
+                            int[][] dependents, int[][] reverse) {
+        BitSet set = (BitSet) allowed.clone();
+        int[] remaining = new int[required.length];
+        for (int t = 0; t < required.length; ++t) {
+            for (int p : required[t]) {
+                if (set.get(p))
+                    ++remaining[t];
+            }
+        }
+
+        int[] queue = new int[placeIds.length];
+        int size = 0;
+        BitSet queued = new BitSet();
+        for (int p = set.nextSetBit(0); p >= 0; p = set.nextSetBit(p + 1)) {
+            for (int t : placeNeighbours[p]) {
+                if (remaining[t] == 0) {
+                    queue[size++] = p;
+                    queued.set(p);
+                    break;
+                }
+            }
+        }
+
+        while (size > 0) {
+            int p = queue[--size];
+            set.clear(p);
+            for (int t : reverse[p]) {
+                if (--remaining[t] != 0)
+                    continue;
+
+                for (int q : dependents[t]) {
+                    if (set.get(q) && !queued.get(q)) {
+                        queue[size++] = q;
+                        queued.set(q);
+                    }
+                }
+            }
+        }
+
+        return set;
+    }
+
+    /** Wandelt Ids in eine Stellenmenge um */
+    private BitSet toBits(Collection<String> ids) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int p = 0; p < placeIds.length; ++p)
+            index.put(placeIds[p], p);
+
+        BitSet result = new BitSet();
+        for (String id : ids) {
+            Integer p = index.get(id);
+            if (p == null)
+                throw new IllegalArgumentException("unknown place: " + id);
+            result.set(p);
+        }
+        return result;
+    }
+
+    /** Wandelt eine Stellenmenge in Ids um, in der Reihenfolge der Stellen */
+    private Set<String> toIds(BitSet set) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int p = set.nextSetBit(0); p >= 0; p = set.nextSetBit(p + 1))
+            result.add(placeIds[p]);
+        return Collections.unmodifiableSet(result);
+    }
+}
@@ -0,0 +1,234 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.utils.IntArrayList;
+
+/**
+ * Berechnet stubborn sets (hartnäckige Mengen) für die Reduktion des Zustandsraums.
+ * <p>
+ * Eine stubborn set S einer Markierung M ist eine Menge von Transitionen mit:
+ * <ul>
+ *     <li>für jede aktivierte Transition t in S liegen alle Transitionen in S, die mit t um
+ *     eine Eingangsstelle konkurrieren (eine von beiden verringert die Stelle),</li>
+ *     <li>für jede nicht aktivierte Transition t in S gibt es eine Eingangsstelle p mit zu
+ *     wenigen Marken (scapegoat), deren sämtliche vergrößernde Transitionen in S liegen,</li>
+ *     <li>S enthält mindestens eine aktivierte Transition, falls es eine gibt.</li>
+ * </ul>
+ * Es genügt dann, nur die aktivierten Transitionen aus S zu schalten, alle Verklemmungen
+ * bleiben erreichbar. Sind sichtbare Stellen gesetzt, werden zusätzlich alle sichtbaren
+ * Transitionen aufgenommen, sobald eine aktivierte sichtbare in S liegt.
+ * <p>
+ * Die Mengen werden allein aus der Struktur des Netzes (Vor- und Nachbereiche) berechnet.
+ */
+final class StubbornSets {
+
+    /** Anzahl der Startkandidaten, aus denen die kleinste Menge gewählt wird */
+    private static final int MAXIMUM_SEEDS = 8;
+
+    /** Das untersuchte Netz */
+    private final CompiledNet net;
+
+    /** Transitionen, die eine Stelle verringern: Anfang des Bereichs für Stelle p */
+    private final int[] decreaserStart;
+
+    /** Transitionen, die eine Stelle verringern */
+    private final int[] decreaser;
+
+    /** Transitionen, die eine Stelle vergrößern: Anfang des Bereichs für Stelle p */
+    private final int[] increaserStart;
+
+    /** Transitionen, die eine Stelle vergrößern */
+    private final int[] increaser;
+
+    /** <code>true</code> für Transitionen, die eine Stelle im Vorbereich verringern, je Eintrag im Vorbereich */
+    private final boolean[] presetDecreased;
+
+    /** Sichtbare Transitionen, <code>null</code> falls keine Stellen sichtbar sind */
+    private final int[] visible;
+
+    /** <code>true</code> für sichtbare Transitionen */
+    private final boolean[] isVisible;
+
+    /** Markierung der Transitionen in der aktuellen Menge */
+    private final int[] stamp;
+
+    /** Aktueller Wert für {@link #stamp} */
+    private int generation = 0;
+
+    /** Arbeitsliste */
+    private final IntArrayList work = new IntArrayList();
+
+    /** Aktivierte Transitionen der besten Menge */
+    private final IntArrayList best = new IntArrayList();
+
+    /** Aktivierte Transitionen der aktuellen Menge */
+    private final IntArrayList current = new IntArrayList();
+
+    /**
+     * Bereitet die Berechnung für das Netz <b>net</b> vor
+     * @param visiblePlaces Indizes der sichtbaren Stellen, <code>null</code> oder leer für keine
+     */
+    StubbornSets(CompiledNet net, int[] visiblePlaces) {
+        this.net = net;
+        final int places = net.getPlaceCount();
+        final int transitions = net.getTransitionCount();
+
+        decreaserStart = new int[places + 1];
+        increaserStart = new int[places + 1];
+        for (int t = 0; t < transitions; ++t) {
+            for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i) {
+                if (net.getEffectDelta(i) < 0)
+                    ++decreaserStart[net.getEffectPlace(i) + 1];
+                else
+                    ++increaserStart[net.getEffectPlace(i) + 1];
+            }
+        }
+        for (int p = 0; p < places; ++p) {
+            decreaserStart[p + 1] += decreaserStart[p];
+            increaserStart[p + 1] += increaserStart[p];
+        }
+
+        decreaser = new int[decreaserStart[places]];
+        increaser = new int[increaserStart[places]];
+        int[] decreaserFill = decreaserStart.clone();
+        int[] increaserFill = increaserStart.clone();
+        for (int t = 0; t < transitions; ++t) {
+            for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i) {
+                int p = net.getEffectPlace(i);
+                if (net.getEffectDelta(i) < 0)
+                    decreaser[decreaserFill[p]++] = t;
+                else
+                    increaser[increaserFill[p]++] = t;
+            }
+        }
+
+        presetDecreased = new boolean[transitions == 0 ? 0 : net.getPresetEnd(transitions - 1)];
+        int[] delta = new int[places];
+        for (int t = 0; t < transitions; ++t) {
+            for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i)
+                delta[net.getEffectPlace(i)] = net.getEffectDelta(i);
+            for (int i = net.getPresetStart(t); i < net.getPresetEnd(t); ++i)
+                presetDecreased[i] = delta[net.getPresetPlace(i)] < 0;
+            for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i)
+                delta[net.getEffectPlace(i)] = 0;
+        }
+
+        isVisible = new boolean[transitions];
+        if (visiblePlaces != null && visiblePlaces.length > 0) {
+            boolean[] placeVisible = new boolean[places];
+            for (int p : visiblePlaces)
+                placeVisible[p] = true;
+
+            IntArrayList list = new IntArrayList();
+            for (int t = 0; t < transitions; ++t) {
+                for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i) {
+                    if (placeVisible[net.getEffectPlace(i)]) {
+                        isVisible[t] = true;
+                        list.add(t);
+                        break;
+                    }
+                }
+            }
+            visible = list.toArray();
+        } else {
+            visible = null;
+        }
+
+        stamp = new int[transitions];
+    }
+
+    /** Gibt <code>true</code> zurück falls sichtbare Stellen gesetzt sind */
+    boolean hasVisiblePlaces() {
+        return visible != null;
+    }
+
+    /**
+     * Berechnet die aktivierten Transitionen einer stubborn set der Markierung <b>marking</b>.
+     * <p>
+     * Es werden mehrere aktivierte Transitionen als Startpunkt versucht und die Menge mit den
+     * wenigsten aktivierten Transitionen gewählt.
+     * @param marking aktuelle Markierung
+     * @param enabled alle aktivierten Transitionen, nicht leer
+     * @param result nimmt die zu schaltenden Transitionen auf (aufsteigend sortiert)
+     */
+    void compute(int[] marking, IntArrayList enabled, IntArrayList result) {
+        best.clear();
+        int seeds = Math.min(enabled.size(), MAXIMUM_SEEDS);
+        for (int s = 0; s < seeds && best.size() != 1; ++s) {
+            closure(enabled.get(s), marking);
+            if (best.isEmpty() || current.size() < best.size()) {
+                best.clear();
+                best.addAll(current);
+            }
+        }
+
+        // in der Reihenfolge der Transitionen ausgeben, damit die Exploration deterministisch bleibt
+        result.clear();
+        ++generation;
+        for (int i = 0; i < best.size(); ++i)
+            stamp[best.get(i)] = generation;
+        for (int i = 0; i < enabled.size(); ++i) {
+            if (stamp[enabled.get(i)] == generation)
+                result.add(enabled.get(i));
+        }
+    }
+
+    /** Berechnet die Hülle ausgehend von der aktivierten Transition <b>seed</b> */
+    private void closure(int seed, int[] marking) {
+        ++generation;
+        current.clear();
+        work.clear();
+        add(seed);
+
+        while (!work.isEmpty()) {
+            int t = work.removeLast();
+            if (net.isEnabled(t, marking)) {
+                current.add(t);
+                for (int i = net.getPresetStart(t); i < net.getPresetEnd(t); ++i) {
+                    int p = net.getPresetPlace(i);
+                    if (presetDecreased[i]) {
+                        for (int j = net.getConsumerStart(p); j < net.getConsumerEnd(p); ++j)
+                            add(net.getConsumerTransition(j));
+                    } else {
+                        for (int j = decreaserStart[p]; j < decreaserStart[p + 1]; ++j)
+                            add(decreaser[j]);
+                    }
+                }
+                if (isVisible[t]) {
+                    for (int v : visible)
+                        add(v);
+                }
+            } else {
+                int scapegoat = scapegoat(t, marking);
+                for (int j = increaserStart[scapegoat]; j < increaserStart[scapegoat + 1]; ++j)
+                    add(increaser[j]);
+            }
+        }
+    }
+
+    /** Wählt eine unzureichend markierte Eingangsstelle mit möglichst wenigen vergrößernden Transitionen */
+    private int scapegoat(int t, int[] marking) {
+        int result = -1;
+        int size = Integer.MAX_VALUE;
+        for (int i = net.getPresetStart(t); i < net.getPresetEnd(t); ++i) {
+            int p = net.getPresetPlace(i);
+            if (marking[p] >= net.getPresetWeight(i))
+                continue;
+
+            int increasers = increaserStart[p + 1] - increaserStart[p];
+            if (increasers < size) {
+                result = p;
+                size = increasers;
+            }
+        }
+        return result;
+    }
+
+    /** Nimmt eine Transition in die aktuelle Menge auf */
+    private void add(int t) {
+        if (stamp[t] != generation) {
+            stamp[t] = generation;
+            work.add(t);
+        }
+    }
+}
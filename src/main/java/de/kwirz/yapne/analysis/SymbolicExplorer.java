@@ -0,0 +1,285 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.PetriNet;
+
+import java.util.Arrays;
+
+/**
+ * Berechnet die Menge der erreichbaren Markierungen symbolisch als mehrwertiges
+ * Entscheidungsdiagramm (MDD), ohne die Zustände einzeln aufzuzählen.
+ * <p>
+ * Jede Stelle bildet eine Ebene des Diagramms (Stelle i auf Ebene i + 1), der lokale Wert
+ * einer Ebene ist die Markenanzahl der Stelle. Eine Transition wirkt nur auf die Ebenen der
+ * Stellen in ihrem Vor- und Nachbereich, ihre höchste Ebene heißt Top-Ebene.
+ * <p>
+ * Der Fixpunkt wird mit Saturierung berechnet: Knoten werden von unten nach oben saturiert,
+ * d.h. unter allen Transitionen abgeschlossen, deren Top-Ebene höchstens ihre eigene Ebene
+ * ist. Das Schalten einer Transition unterhalb ihrer Top-Ebene (RecFire) liefert sofort
+ * wieder saturierte Knoten. Vereinigung und RecFire verwenden verlustbehaftete Caches.
+ * <p>
+ * Für unbeschränkte Netze terminiert die Berechnung nicht, sie wird dann durch das
+ * Knotenlimit beendet. Dabei zählt auch die Anzahl der lokalen Werte einer Ebene.
+ * <pre>
+ *  SymbolicStateSpace space = SymbolicExplorer.create(net).explore();
+ *  BigInteger states = space.getStateCount();
+ * </pre>
+ */
+public final class SymbolicExplorer {
+
+    /** Das untersuchte Netz */
+    private final CompiledNet net;
+
+    /** Maximale Anzahl der Knoten */
+    private int nodeLimit = 1 << 24;
+
+    /** Anzahl der Einträge pro Cache */
+    private int cacheSize = 1 << 18;
+
+    /** Knotenspeicher der laufenden Berechnung */
+    private MddForest forest;
+
+    /** Cache für RecFire */
+    private OperationCache fireCache;
+
+    /** Transitionen je Top-Ebene */
+    private int[][] eventsAt;
+
+    /** Niedrigste Ebene je Transition */
+    private int[] bottom;
+
+    /** Aufsteigend sortierte Ebenen je Transition */
+    private int[][] eventLevels;
+
+    /** Kantengewichte des Vorbereichs je Transition und Ebene (0 falls keine Kante) */
+    private int[][] eventWeights;
+
+    /** Änderung der Markenanzahl je Transition und Ebene */
+    private int[][] eventDeltas;
+
+    /**
+     * Erstellt einen Explorer
+     */
+    private SymbolicExplorer(CompiledNet net) {
+        this.net = net;
+    }
+
+    /** Erstellt einen Explorer für die aktuelle Markierung des Netzes <b>net</b> */
+    public static SymbolicExplorer create(PetriNet net) {
+        return create(net.compile());
+    }
+
+    /** Erstellt einen Explorer für die Anfangsmarkierung des kompilierten Netzes <b>net</b> */
+    public static SymbolicExplorer create(CompiledNet net) {
+        return new SymbolicExplorer(net);
+    }
+
+    /**
+     * Setzt die maximale Anzahl der Knoten
+     * @throws IllegalArgumentException falls <b>limit</b> kleiner als 2 ist
+     */
+    public SymbolicExplorer nodeLimit(int limit) {
+        if (limit < 2)
+            throw new IllegalArgumentException("node limit must be at least 2");
+
+        this.nodeLimit = limit;
+        return this;
+    }
+
+    /**
+     * Setzt die Anzahl der Einträge pro Operationscache
+     * @throws IllegalArgumentException falls <b>size</b> kleiner als 1 ist
+     */
+    public SymbolicExplorer cacheSize(int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("cache size must be positive");
+
+        this.cacheSize = size;
+        return this;
+    }
+
+    /**
+     * Berechnet die erreichbaren Markierungen
+     * @throws IllegalStateException falls das Knotenlimit überschritten wird
+     */
+    public SymbolicStateSpace explore() {
+        forest = new MddForest(nodeLimit, cacheSize);
+        fireCache = new OperationCache(cacheSize);
+        buildEvents();
+
+        try {
+            int[] initial = net.getInitialMarking();
+            int node = MddForest.TERMINAL;
+            for (int level = 1; level <= initial.length; ++level) {
+                int[] children = new int[initial[level - 1] + 1];
+                children[initial[level - 1]] = node;
+                children = saturate(level, children);
+                node = forest.makeNode(level, children, children.length);
+            }
+
+            return new SymbolicStateSpace(net, forest, node);
+        } finally {
+            fireCache = null;
+            forest = null;
+        }
+    }
+
+    /** Bereitet die lokalen Wirkungen der Transitionen je Ebene auf */
+    private void buildEvents() {
+        final int places = net.getPlaceCount();
+        final int transitions = net.getTransitionCount();
+
+        int[] weight = new int[places + 1];
+        int[] delta = new int[places + 1];
+        boolean[] touched = new boolean[places + 1];
+        int[] topCount = new int[places + 1];
+        int[] top = new int[transitions];
+
+        bottom = new int[transitions];
+        eventLevels = new int[transitions][];
+        eventWeights = new int[transitions][];
+        eventDeltas = new int[transitions][];
+
+        for (int t = 0; t < transitions; ++t) {
+            for (int i = net.getPresetStart(t); i < net.getPresetEnd(t); ++i) {
+                int level = net.getPresetPlace(i) + 1;
+                weight[level] = net.getPresetWeight(i);
+                touched[level] = true;
+            }
+            for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i) {
+                int level = net.getEffectPlace(i) + 1;
+                delta[level] = net.getEffectDelta(i);
+                touched[level] = true;
+            }
+
+            int count = 0;
+            for (int level = 1; level <= places; ++level) {
+                if (touched[level])
+                    ++count;
+            }
+
+            eventLevels[t] = new int[count];
+            eventWeights[t] = new int[count];
+            eventDeltas[t] = new int[count];
+            int index = 0;
+            for (int level = 1; level <= places; ++level) {
+                if (!touched[level])
+                    continue;
+
+                eventLevels[t][index] = level;
+                eventWeights[t][index] = weight[level];
+                eventDeltas[t][index] = delta[level];
+                ++index;
+                weight[level] = 0;
+                delta[level] = 0;
+                touched[level] = false;
+            }
+
+            // Transitionen ohne Stellen verändern keine Markierung
+            top[t] = count == 0 ? 0 : eventLevels[t][count - 1];
+            bottom[t] = count == 0 ? 0 : eventLevels[t][0];
+            ++topCount[top[t]];
+        }
+
+        eventsAt = new int[places + 1][];
+        for (int level = 0; level <= places; ++level)
+            eventsAt[level] = new int[topCount[level]];
+        for (int t = transitions - 1; t >= 0; --t)
+            eventsAt[top[t]][--topCount[top[t]]] = t;
+    }
+
+    /** Gibt den Index der Ebene <b>level</b> in den Wirkungen der Transition zurück, oder einen negativen Wert */
+    private int indexOfLevel(int t, int level) {
+        return Arrays.binarySearch(eventLevels[t], level);
+    }
+
+    /**
+     * Saturiert einen Knoten der Ebene <b>level</b> mit bereits saturierten Nachfolgern
+     * <b>children</b> unter allen Transitionen dieser Top-Ebene.
+     * @return die (eventuell vergrößerten) Nachfolger
+     */
+    private int[] saturate(int level, int[] children) {
+        int[] events = eventsAt[level];
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+            for (int t : events) {
+                int index = eventLevels[t].length - 1;
+                int weight = eventWeights[t][index];
+                int delta = eventDeltas[t][index];
+
+                for (int i = weight; i < children.length; ++i) {
+                    if (children[i] == MddForest.EMPTY)
+                        continue;
+
+                    int fired = fire(t, level - 1, children[i]);
+                    if (fired == MddForest.EMPTY)
+                        continue;
+
+                    int j = i + delta;
+                    if (j >= children.length)
+                        children = grow(children, j + 1);
+
+                    int union = forest.union(children[j], fired);
+                    if (union != children[j]) {
+                        children[j] = union;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        return children;
+    }
+
+    /**
+     * Vergrößert die lokalen Nachfolger auf mindestens <b>length</b> Einträge.
+     * <p>
+     * Jeder lokale Wert belegt im fertigen Knoten einen Eintrag, die lokale Größe wird daher
+     * gegen das Knotenlimit gezählt. Sonst würde eine unbeschränkte Stelle die Ebene ohne
+     * neue Knoten beliebig wachsen lassen.
+     * @throws IllegalStateException falls <b>length</b> das Knotenlimit überschreitet
+     */
+    private int[] grow(int[] children, int length) {
+        if (length > nodeLimit)
+            throw new IllegalStateException("node limit of " + nodeLimit + " exceeded");
+
+        return Arrays.copyOf(children, Math.min(nodeLimit, Math.max(length, children.length * 2)));
+    }
+
+    /**
+     * Schaltet die Transition <b>t</b> auf dem saturierten Knoten <b>node</b> der Ebene
+     * <b>level</b> (unterhalb der Top-Ebene von <b>t</b>)
+     * @return saturierter Knoten mit allen Nachfolgemarkierungen
+     */
+    private int fire(int t, int level, int node) {
+        if (node == MddForest.EMPTY || level < bottom[t])
+            return node;
+
+        long key = OperationCache.key(t, node);
+        int cached = fireCache.get(key);
+        if (cached >= 0)
+            return cached;
+
+        int index = indexOfLevel(t, level);
+        int weight = index >= 0 ? eventWeights[t][index] : 0;
+        int delta = index >= 0 ? eventDeltas[t][index] : 0;
+
+        int[] children = new int[Math.max(1, forest.getChildCount(node) + Math.max(delta, 0))];
+        for (int i = weight; i < forest.getChildCount(node); ++i) {
+            int child = forest.getChild(node, i);
+            if (child == MddForest.EMPTY)
+                continue;
+
+            int fired = fire(t, level - 1, child);
+            if (fired != MddForest.EMPTY)
+                children[i + delta] = forest.union(children[i + delta], fired);
+        }
+
+        children = saturate(level, children);
+        int result = forest.makeNode(level, children, children.length);
+        fireCache.put(key, result);
+        return result;
+    }
+}
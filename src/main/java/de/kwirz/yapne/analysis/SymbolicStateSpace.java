@@ -0,0 +1,140 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.MarkingVector;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Menge der erreichbaren Markierungen als mehrwertiges Entscheidungsdiagramm.
+ * <p>
+ * Alle Anfragen arbeiten direkt auf den Knoten des Diagramms, die Markierungen werden nie
+ * einzeln aufgezählt.
+ *
+ * @see SymbolicExplorer
+ */
+public final class SymbolicStateSpace {
+
+    /** Das untersuchte Netz */
+    private final CompiledNet net;
+
+    /** Knotenspeicher */
+    private final MddForest forest;
+
+    /** Wurzel des Diagramms */
+    private final int root;
+
+    /** Vom Wurzelknoten erreichbare Knoten */
+    private final BitSet reachableNodes = new BitSet();
+
+    /** Anzahl der Markierungen, wird bei Bedarf berechnet */
+    private BigInteger stateCount = null;
+
+    /**
+     * Erstellt eine Zustandsmenge
+     */
+    SymbolicStateSpace(CompiledNet net, MddForest forest, int root) {
+        this.net = net;
+        this.forest = forest;
+        this.root = root;
+
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = root;
+        reachableNodes.set(root);
+        while (size > 0) {
+            int node = stack[--size];
+            if (forest.getLevel(node) == 0)
+                continue;
+
+            for (int i = 0; i < forest.getChildCount(node); ++i) {
+                int child = forest.getChild(node, i);
+                if (child == MddForest.EMPTY || reachableNodes.get(child))
+                    continue;
+
+                reachableNodes.set(child);
+                if (size == stack.length)
+                    stack = Arrays.copyOf(stack, size * 2);
+                stack[size++] = child;
+            }
+        }
+    }
+
+    /** Gibt das untersuchte Netz zurück */
+    public CompiledNet getNet() {
+        return net;
+    }
+
+    /** Gibt die Anzahl der erreichbaren Markierungen zurück */
+    public BigInteger getStateCount() {
+        if (stateCount == null) {
+            // Nachfolger haben kleinere Nummern als ihre Vorgänger
+            BigInteger[] counts = new BigInteger[root + 1];
+            for (int node = reachableNodes.nextSetBit(0); node >= 0; node = reachableNodes.nextSetBit(node + 1)) {
+                if (node == MddForest.TERMINAL) {
+                    counts[node] = BigInteger.ONE;
+                    continue;
+                }
+
+                BigInteger count = BigInteger.ZERO;
+                for (int i = 0; i < forest.getChildCount(node); ++i) {
+                    int child = forest.getChild(node, i);
+                    if (child != MddForest.EMPTY)
+                        count = count.add(counts[child]);
+                }
+                counts[node] = count;
+            }
+            stateCount = counts[root];
+        }
+
+        return stateCount;
+    }
+
+    /** Gibt die Anzahl der Knoten des Diagramms zurück, ohne terminale Knoten */
+    public int getNodeCount() {
+        return reachableNodes.cardinality() - 1;
+    }
+
+    /** Gibt den ungefähren Speicherbedarf aller angelegten Knoten und Caches in Bytes zurück */
+    public long getMemoryBytes() {
+        return forest.getMemoryBytes();
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls die Markierung erreichbar ist
+     * @throws IllegalArgumentException falls die Anzahl der Stellen nicht übereinstimmt
+     */
+    public boolean contains(MarkingVector marking) {
+        if (marking.size() != net.getPlaceCount())
+            throw new IllegalArgumentException("marking has " + marking.size() +
+                    " places, net has " + net.getPlaceCount());
+
+        int node = root;
+        for (int level = net.getPlaceCount(); level > 0 && node != MddForest.EMPTY; --level)
+            node = forest.getChild(node, marking.get(level - 1));
+
+        return node == MddForest.TERMINAL;
+    }
+
+    /**
+     * Gibt die maximale Markenanzahl der Stelle mit dem Index <b>place</b> über alle
+     * erreichbaren Markierungen zurück
+     */
+    public int getBound(int place) {
+        int level = place + 1;
+        int bound = 0;
+        for (int node = reachableNodes.nextSetBit(0); node >= 0; node = reachableNodes.nextSetBit(node + 1)) {
+            if (forest.getLevel(node) == level)
+                bound = Math.max(bound, forest.getChildCount(node) - 1);
+        }
+        return bound;
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("SymbolicStateSpace { states: %s, nodes: %d }", getStateCount(), getNodeCount());
+    }
+}
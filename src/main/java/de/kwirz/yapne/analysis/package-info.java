@@ -0,0 +1,4 @@
+/**
+ * Analysen von Petri Netzen, z.B. Erreichbarkeitsgraph, Invarianten und Verklemmungen.
+ */
+package de.kwirz.yapne.analysis;
@@ -1,6 +1,9 @@
 package de.kwirz.yapne.app;
 
+import de.kwirz.yapne.analysis.DeadlockFinder;
+import de.kwirz.yapne.analysis.DeadlockReport;
 import de.kwirz.yapne.io.PnmlParser;
+import de.kwirz.yapne.model.PetriNetSnapshot;
 import de.kwirz.yapne.presentation.PetriNetElementPresentation;
 import de.kwirz.yapne.presentation.PetriNetNodePresentation;
 import de.kwirz.yapne.presentation.PetriNetPresentation;
@@ -44,6 +47,9 @@ public class AppController {
     /** Wird zum Loggen verwendet */
 	private static final Logger logger = Logger.getLogger(AppController.class.getName());
 
+    /** Maximale Anzahl der Zustände bei der Suche nach Verklemmungen vor dem Speichern */
+    private static final int DEADLOCK_CHECK_STATE_LIMIT = 100000;
+
     /** Zeigt an, ob irgendwelche Änderungen im Petri Netz gibt */
     private SimpleBooleanProperty isDirty = new SimpleBooleanProperty(false);
 
@@ -281,6 +287,8 @@ public class AppController {
                 }
             }
 
+            checkDeadlocks();
+
             FileWriter writer = new FileWriter(file);
             writer.write(canvas.getModel().toPNML());
             writer.close();
@@ -293,6 +301,28 @@ public class AppController {
         }
     }
 
+    /**
+     * Sucht im Hintergrund nach einer erreichbaren Verklemmung und zeigt gegebenenfalls eine
+     * Warnung mit einer kürzesten Schaltfolge an. Die Suche arbeitet auf einem Snapshot, das
+     * Netz kann währenddessen weiter bearbeitet werden. Sie ist durch ein Zustandslimit begrenzt.
+     */
+    private void checkDeadlocks() {
+        final PetriNetSnapshot snapshot = canvas.getModel().snapshot();
+        Thread worker = new Thread(() -> {
+            DeadlockReport report = DeadlockFinder.create(snapshot.getNet())
+                    .stateLimit(DEADLOCK_CHECK_STATE_LIMIT)
+                    .find();
+
+            if (report.hasDeadlock()) {
+                logger.info("deadlock found: " + report);
+                Platform.runLater(() -> MessageBox.warning("Das Netz kann sich verklemmen: " +
+                        String.join(", ", report.getTraceIds()), primaryStage));
+            }
+        }, "deadlock-check");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
     /**
      * Speichert <b>PNML</b> Dokument.
      * <p>Es öffnet sich ein Dateiauswahl-Dialog.
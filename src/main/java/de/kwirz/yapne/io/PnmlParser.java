@@ -42,6 +42,32 @@ public class PnmlParser {
      */
     private boolean isValue = false;
 
+    /**
+     * Dieses Flag zeigt an, ob der Parser gerade innerhalb eines Inscription Elements liest.
+     */
+    private boolean isInscription = false;
+
+    /**
+     * Dieses Flag zeigt an, ob der Parser gerade innerhalb eines Text Elements liest.
+     */
+    private boolean isText = false;
+
+    /**
+     * Dieses Flag zeigt an, ob der Parser gerade innerhalb eines toolspecific Elements von
+     * YAPNE liest.
+     */
+    private boolean isToolSpecific = false;
+
+    /**
+     * Dieses Flag zeigt an, ob der Parser gerade innerhalb eines Rate Elements liest.
+     */
+    private boolean isRate = false;
+
+    /**
+     * Diese Variable dient als Zwischenspeicher für die ID der zuletzt gefundenen Kante.
+     */
+    private String lastArcId = null;
+
     /**
      * Wird beim Parsen aufgebaut
      */
@@ -87,10 +113,35 @@ public class PnmlParser {
                             case "value":
                                 isValue = false;
                                 break;
+                            case "text":
+                                isText = false;
+                                break;
+                            case "inscription":
+                                isInscription = false;
+                                break;
+                            case "arc":
+                                lastArcId = null;
+                                break;
+                            case "toolspecific":
+                                isToolSpecific = false;
+                                break;
+                            case "rate":
+                                isRate = false;
+                                break;
                         }
                         break;
                     case XMLStreamConstants.CHARACTERS:
-                        if (isValue && lastId != null) {
+                        if (isInscription && (isValue || isText) && lastArcId != null) {
+                            Characters ch = event.asCharacters();
+                            if (!ch.isWhiteSpace()) {
+                                setWeight(lastArcId, ch.getData());
+                            }
+                        } else if (isToolSpecific && isRate && lastId != null) {
+                            Characters ch = event.asCharacters();
+                            if (!ch.isWhiteSpace()) {
+                                setRate(lastId, ch.getData());
+                            }
+                        } else if (isValue && lastId != null) {
                             Characters ch = event.asCharacters();
                             if (!ch.isWhiteSpace()) {
                                 handleValue(ch.getData());
@@ -136,6 +187,61 @@ public class PnmlParser {
             isToken = true;
         } else if (element.getName().toString().toLowerCase().equals("value")) {
             isValue = true;
+        } else if (element.getName().toString().toLowerCase().equals("text")) {
+            isText = true;
+        } else if (element.getName().toString().toLowerCase().equals("inscription")) {
+            isInscription = true;
+        } else if (element.getName().toString().toLowerCase().equals("toolspecific")) {
+            handleToolSpecific(element);
+        } else if (element.getName().toString().toLowerCase().equals("rate")) {
+            isRate = true;
+        } else if (element.getName().toString().toLowerCase().equals("delay")) {
+            handleDelay(element);
+        }
+    }
+
+    /**
+     * Diese Methode wird aufgerufen, wenn ein Delay Element gelesen wird. Es wird nur innerhalb
+     * eines toolspecific Elements von YAPNE ausgewertet.
+     *
+     * @param element das Delay Element
+     */
+    private void handleDelay(final StartElement element) {
+        if (!isToolSpecific || lastId == null)
+            return;
+
+        String min = null;
+        String max = null;
+        Iterator<?> attributes = element.getAttributes();
+        while (attributes.hasNext()) {
+            Attribute attr = (Attribute) attributes.next();
+            if (attr.getName().toString().toLowerCase().equals("min")) {
+                min = attr.getValue();
+            } else if (attr.getName().toString().toLowerCase().equals("max")) {
+                max = attr.getValue();
+            }
+        }
+        if (min != null && max != null) {
+            setDelay(lastId, min, max);
+        } else {
+            System.err.println("Unvollständige Verzögerung wurde verworfen!");
+        }
+    }
+
+    /**
+     * Diese Methode wird aufgerufen, wenn ein toolspecific Element gelesen wird. Nur Elemente
+     * von YAPNE werden ausgewertet, alle anderen werden ignoriert.
+     *
+     * @param element das toolspecific Element
+     */
+    private void handleToolSpecific(final StartElement element) {
+        Iterator<?> attributes = element.getAttributes();
+        while (attributes.hasNext()) {
+            Attribute attr = (Attribute) attributes.next();
+            if (attr.getName().toString().toLowerCase().equals("tool")) {
+                isToolSpecific = PetriNetTransition.TOOL_NAME.equals(attr.getValue());
+                break;
+            }
         }
     }
 
@@ -246,10 +352,12 @@ public class PnmlParser {
         }
         if (arcId != null && source != null && target != null) {
             newArc(arcId, source, target);
+            lastArcId = arcId;
         } else {
             System.err.println("Unvollständige Kante wurde verworfen!");
+            lastArcId = null;
         }
-        //Die id von Kanten wird nicht gebraucht
+        //Die id von Kanten wird nur für das Gewicht (inscription) gebraucht
         lastId = null;
     }
 
@@ -300,6 +408,22 @@ public class PnmlParser {
         net.addElement(arc);
     }
 
+    /**
+     * Diese Methode kann überschrieben werden, um das Gewicht der geladenen Kanten
+     * zu aktualisieren.
+     *
+     * @param id     Identifikationstext der Kante
+     * @param weight Gewicht der Kante
+     */
+    public void setWeight(final String id, final String weight) {
+        assert net != null;
+
+        PetriNetArc arc = (PetriNetArc) net.getElementById(id);
+        assert arc != null;
+
+        arc.setWeight(Integer.parseInt(weight.trim()));
+    }
+
     /**
      * Diese Methode kann überschrieben werden, um die Positionen der geladenen
      * Elemente zu aktualisieren.
@@ -314,7 +438,7 @@ public class PnmlParser {
         PetriNetNode node = (PetriNetNode) net.getElementById(id);
         assert node != null;
 
-        node.setPosition(new PetriNetNode.Position(Integer.parseInt(x), Integer.parseInt(y)));
+        node.setPosition(Integer.parseInt(x), Integer.parseInt(y));
     }
 
     /**
@@ -348,4 +472,35 @@ public class PnmlParser {
 
         place.setMarking(Integer.parseInt(marking));
     }
+
+    /**
+     * Diese Methode kann überschrieben werden, um die Rate der geladenen
+     * Transitionen zu aktualisieren.
+     *
+     * @param id   Identifikationstext der Transition
+     * @param rate Rate der Transition
+     */
+    public void setRate(final String id, final String rate) {
+        assert net != null;
+
+        PetriNetElement element = net.getElementById(id);
+        if (element instanceof PetriNetTransition)
+            ((PetriNetTransition) element).setRate(Double.parseDouble(rate.trim()));
+    }
+
+    /**
+     * Diese Methode kann überschrieben werden, um die Schaltverzögerung der geladenen
+     * Transitionen zu aktualisieren.
+     *
+     * @param id  Identifikationstext der Transition
+     * @param min untere Grenze der Verzögerung
+     * @param max obere Grenze der Verzögerung
+     */
+    public void setDelay(final String id, final String min, final String max) {
+        assert net != null;
+
+        PetriNetElement element = net.getElementById(id);
+        if (element instanceof PetriNetTransition)
+            ((PetriNetTransition) element).setDelay(Double.parseDouble(min.trim()), Double.parseDouble(max.trim()));
+    }
 }
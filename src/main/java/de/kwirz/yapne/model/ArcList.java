@@ -0,0 +1,357 @@
+package de.kwirz.yapne.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Eingangs- oder Ausgangskanten eines Knotens in der Reihenfolge des Hinzufügens.
+ * <p>
+ * Bis {@value #INDEX_THRESHOLD} Kanten ist die Liste ein einfaches Array, Suchen sind linear.
+ * Darüber wird ein Index aufgebaut: Kante auf Position und Nachbarknoten auf Kante. Damit
+ * sind {@link #contains}, {@link #remove(Object)} und {@link #findByNeighbour} unabhängig vom
+ * Grad des Knotens. Entfernte Kanten hinterlassen dann Lücken, die erst bei Bedarf
+ * zusammengeschoben werden, die Reihenfolge der übrigen Kanten bleibt erhalten.
+ * <p>
+ * Nachbar einer Eingangskante ist ihr Quellknoten, Nachbar einer Ausgangskante ihr
+ * Zielknoten. Ändert sich der Nachbar einer enthaltenen Kante, muss {@link #neighbourChanged}
+ * aufgerufen werden.
+ */
+final class ArcList extends AbstractList<PetriNetArc> {
+
+    /** Anzahl der Kanten, ab der ein Index aufgebaut wird */
+    static final int INDEX_THRESHOLD = 16;
+
+    /** <code>true</code> für Eingangskanten, <code>false</code> für Ausgangskanten */
+    private final boolean input;
+
+    /** Gemeinsames Array für Knoten ohne Kanten */
+    private static final PetriNetArc[] EMPTY = {};
+
+    /** Kanten, mit Lücken (<code>null</code>) falls ein Index existiert */
+    private PetriNetArc[] arcs = EMPTY;
+
+    /** Anzahl der belegten Positionen inklusive Lücken */
+    private int end = 0;
+
+    /** Anzahl der Kanten */
+    private int size = 0;
+
+    /** Index, oder <code>null</code> solange der Grad klein ist */
+    private Index index = null;
+
+    /** Index eines Knotens mit hohem Grad */
+    private static final class Index {
+
+        /** Nachbarn der Kanten, parallel zu {@link ArcList#arcs} */
+        PetriNetNode[] neighbours;
+
+        /** Position jeder Kante */
+        final Map<PetriNetArc, Integer> slots;
+
+        /** Kante je Nachbarknoten */
+        final Map<PetriNetNode, PetriNetArc> byNeighbour;
+
+        Index(int capacity, int expectedSize) {
+            neighbours = new PetriNetNode[capacity];
+            slots = new HashMap<>(expectedSize * 2);
+            byNeighbour = new IdentityHashMap<>(expectedSize * 2);
+        }
+    }
+
+    /**
+     * Erstellt eine leere Liste
+     * @param input <code>true</code> für Eingangskanten
+     */
+    ArcList(boolean input) {
+        this.input = input;
+    }
+
+    /** Gibt den Nachbarknoten der Kante <b>arc</b> zurück */
+    private PetriNetNode neighbourOf(PetriNetArc arc) {
+        return input ? arc.getSource() : arc.getTarget();
+    }
+
+    /** Gibt <code>true</code> zurück, falls ein Index aufgebaut ist */
+    boolean isIndexed() {
+        return index != null;
+    }
+
+    /**
+     * Gibt die Kante zum Nachbarknoten <b>node</b> zurück
+     * @return Kante oder <code>null</code>, falls keine Kante <b>node</b> verbindet
+     */
+    PetriNetArc findByNeighbour(PetriNetNode node) {
+        if (node == null)
+            return null;
+        if (index != null)
+            return index.byNeighbour.get(node);
+
+        for (int i = 0; i < end; ++i) {
+            if (neighbourOf(arcs[i]) == node)
+                return arcs[i];
+        }
+        return null;
+    }
+
+    /**
+     * Aktualisiert den Index, nachdem sich der Nachbar der enthaltenen Kante <b>arc</b>
+     * geändert hat
+     */
+    void neighbourChanged(PetriNetArc arc) {
+        if (index == null)
+            return;
+
+        Integer slot = index.slots.get(arc);
+        if (slot == null || arcs[slot] != arc)
+            return;
+
+        unindexNeighbour(slot);
+        index.neighbours[slot] = neighbourOf(arc);
+        indexNeighbour(slot);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public PetriNetArc get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        return arcs[slotOf(index)];
+    }
+
+    /**
+     * Gibt die Position der <b>index</b>-ten Kante zurück. Ohne Lücken ist das <b>index</b>
+     * selbst, sonst werden die Lücken davor übersprungen. Lesende Zugriffe verändern die Liste
+     * nicht, zusammengeschoben wird nur von Methoden, die {@link #modCount} erhöhen.
+     */
+    private int slotOf(int index) {
+        if (size == end)
+            return index;
+
+        int slot = skipGaps(0);
+        for (int i = 0; i < index; ++i)
+            slot = skipGaps(slot + 1);
+        return slot;
+    }
+
+    @Override
+    public boolean add(PetriNetArc arc) {
+        if (end == arcs.length) {
+            if (size < end) {
+                compact();
+            } else {
+                arcs = Arrays.copyOf(arcs, Math.max(2, end * 2));
+                if (index != null)
+                    index.neighbours = Arrays.copyOf(index.neighbours, arcs.length);
+            }
+        }
+
+        arcs[end] = arc;
+        if (index != null) {
+            index.slots.put(arc, end);
+            index.neighbours[end] = neighbourOf(arc);
+            indexNeighbour(end);
+        }
+        ++end;
+        ++size;
+        ++modCount;
+
+        if (index == null && size > INDEX_THRESHOLD)
+            buildIndex();
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOfSlot(o) >= 0;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int slot = indexOfSlot(o);
+        if (slot < 0)
+            return false;
+
+        removeSlot(slot, true);
+        return true;
+    }
+
+    @Override
+    public PetriNetArc remove(int index) {
+        PetriNetArc arc = get(index);
+        removeSlot(slotOf(index), true);
+        return arc;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super PetriNetArc> filter) {
+        int removed = 0;
+        for (int i = 0; i < end; ++i) {
+            if (arcs[i] != null && filter.test(arcs[i])) {
+                if (index != null) {
+                    unindexNeighbour(i);
+                    index.slots.remove(arcs[i]);
+                    index.neighbours[i] = null;
+                }
+                arcs[i] = null;
+                ++removed;
+            }
+        }
+        if (removed == 0)
+            return false;
+
+        size -= removed;
+        ++modCount;
+        compact();
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        arcs = EMPTY;
+        index = null;
+        end = size = 0;
+        ++modCount;
+    }
+
+    @Override
+    public Iterator<PetriNetArc> iterator() {
+        return new Iterator<PetriNetArc>() {
+            private int next = skipGaps(0);
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public PetriNetArc next() {
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                if (next >= end)
+                    throw new NoSuchElementException();
+
+                last = next;
+                next = skipGaps(next + 1);
+                return arcs[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0)
+                    throw new IllegalStateException();
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+
+                // ohne Index rückt die nächste Kante auf die entfernte Position nach
+                removeSlot(last, false);
+                if (index == null)
+                    next = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    /** Gibt die erste belegte Position ab <b>from</b> zurück, oder {@link #end} */
+    private int skipGaps(int from) {
+        while (from < end && arcs[from] == null)
+            ++from;
+        return from;
+    }
+
+    /** Gibt die Position der Kante <b>o</b> zurück, oder -1 */
+    private int indexOfSlot(Object o) {
+        if (index != null) {
+            Integer slot = index.slots.get(o);
+            return (slot != null) ? slot : -1;
+        }
+
+        for (int i = 0; i < end; ++i) {
+            if (arcs[i].equals(o))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Entfernt die Kante an der Position <b>slot</b>
+     * @param mayCompact <code>false</code>, falls Positionen stabil bleiben müssen
+     */
+    private void removeSlot(int slot, boolean mayCompact) {
+        if (index != null) {
+            unindexNeighbour(slot);
+            index.slots.remove(arcs[slot]);
+            arcs[slot] = null;
+            index.neighbours[slot] = null;
+            --size;
+            // Lücken erst zusammenschieben, wenn sie überwiegen
+            if (mayCompact && end > 2 * size + INDEX_THRESHOLD)
+                compact();
+        } else {
+            System.arraycopy(arcs, slot + 1, arcs, slot, end - slot - 1);
+            arcs[--end] = null;
+            --size;
+        }
+        ++modCount;
+    }
+
+    /** Schiebt die Kanten zusammen und entfernt alle Lücken */
+    private void compact() {
+        if (size == end)
+            return;
+
+        int to = 0;
+        for (int from = 0; from < end; ++from) {
+            if (arcs[from] == null)
+                continue;
+
+            arcs[to] = arcs[from];
+            if (index != null) {
+                index.neighbours[to] = index.neighbours[from];
+                index.slots.put(arcs[to], to);
+            }
+            ++to;
+        }
+        Arrays.fill(arcs, to, end, null);
+        if (index != null)
+            Arrays.fill(index.neighbours, to, end, null);
+        end = to;
+    }
+
+    /** Baut den Index über alle Kanten auf */
+    private void buildIndex() {
+        compact();
+        index = new Index(arcs.length, end);
+        for (int i = 0; i < end; ++i) {
+            index.slots.put(arcs[i], i);
+            index.neighbours[i] = neighbourOf(arcs[i]);
+            indexNeighbour(i);
+        }
+    }
+
+    /** Trägt den Nachbarn der Position <b>slot</b> in den Index ein */
+    private void indexNeighbour(int slot) {
+        if (index.neighbours[slot] != null)
+            index.byNeighbour.putIfAbsent(index.neighbours[slot], arcs[slot]);
+    }
+
+    /** Entfernt den Nachbarn der Position <b>slot</b> aus dem Index */
+    private void unindexNeighbour(int slot) {
+        PetriNetNode neighbour = index.neighbours[slot];
+        if (neighbour != null && index.byNeighbour.get(neighbour) == arcs[slot])
+            index.byNeighbour.remove(neighbour);
+    }
+}
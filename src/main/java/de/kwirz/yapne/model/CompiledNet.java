@@ -0,0 +1,503 @@
+package de.kwirz.yapne.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kompilierte, unveränderliche Ausführungsform eines {@link PetriNet}.
+ * <p>
+ * Stellen und Transitionen werden dicht durchnummeriert (in der Reihenfolge von
+ * {@link PetriNet#getPlaces()} bzw. {@link PetriNet#getTransitions()}), Vor- und Nachbereiche
+ * werden samt Kantengewichten im CSR-Format (compressed sparse row) als <code>int</code> Arrays
+ * abgelegt. Für jede Transition wird zusätzlich ihre Wirkung (Nach- minus Vorvektor)
+ * vorberechnet, so dass die Aktivierungsprüfung ein Vektorvergleich und das Schalten eine
+ * einzige Vektoraddition ist.
+ * Eine Markierung ist ein <code>int[]</code>, dessen Index dem Stellenindex entspricht.
+ * <p>
+ * Aktivierungsprüfung und Schalten arbeiten ausschließlich auf Arrays und erzeugen keine
+ * Objekte. Die resultierende Markierung kann mit {@link #writeBack} in die
+ * {@link PetriNetPlace} Objekte zurückgeschrieben werden.
+ * <p>
+ * Spätere Änderungen am Netz wirken sich nicht auf eine bereits kompilierte Form aus.
+ *
+ * @see PetriNet#compile()
+ */
+public final class CompiledNet {
+
+    /** Stellen, nach Index */
+    private final PetriNetPlace[] places;
+
+    /** Ids der Transitionen, nach Index */
+    private final String[] transitionIds;
+
+    /** Stellenindex nach Id */
+    private final Map<String, Integer> placeIndex;
+
+    /** Transitionsindex nach Id */
+    private final Map<String, Integer> transitionIndex;
+
+    /** Markierung zum Zeitpunkt der Kompilierung */
+    private final int[] initialMarking;
+
+    /** Vorbereich der Transitionen: Anfang des Bereichs für Transition t ist <code>presetStart[t]</code> */
+    private final int[] presetStart;
+
+    /** Vorbereich der Transitionen: Stellenindizes */
+    private final int[] presetPlace;
+
+    /** Vorbereich der Transitionen: Kantengewichte (Vorvektor) */
+    private final int[] presetWeight;
+
+    /** Nachbereich der Transitionen: Anfang des Bereichs für Transition t ist <code>postsetStart[t]</code> */
+    private final int[] postsetStart;
+
+    /** Nachbereich der Transitionen: Stellenindizes */
+    private final int[] postsetPlace;
+
+    /** Nachbereich der Transitionen: Kantengewichte */
+    private final int[] postsetWeight;
+
+    /** Wirkung der Transitionen (Nach- minus Vorvektor): Anfang des Bereichs für Transition t */
+    private final int[] effectStart;
+
+    /** Wirkung der Transitionen: Stellenindizes, nur Stellen mit einer Änderung ungleich 0 */
+    private final int[] effectPlace;
+
+    /** Wirkung der Transitionen: Änderung der Markierung */
+    private final int[] effectDelta;
+
+    /** Transitionen, die aus einer Stelle konsumieren: Anfang des Bereichs für Stelle p */
+    private final int[] consumerStart;
+
+    /** Transitionen, die aus einer Stelle konsumieren: Transitionsindizes */
+    private final int[] consumerTransition;
+
+    /** Transitionen, die aus einer Stelle konsumieren: Kantengewichte */
+    private final int[] consumerWeight;
+
+    /** Transitionen, die in eine Stelle produzieren: Anfang des Bereichs für Stelle p */
+    private final int[] producerStart;
+
+    /** Transitionen, die in eine Stelle produzieren: Transitionsindizes */
+    private final int[] producerTransition;
+
+    /**
+     * Kompiliert das Netz <b>net</b>.
+     * @throws IllegalStateException falls eine Kante des Netzes einen Knoten referenziert, der
+     *         nicht zum Netz gehört
+     */
+    CompiledNet(PetriNet net) {
+        Collection<PetriNetPlace> netPlaces = net.getPlaces();
+        Collection<PetriNetTransition> netTransitions = net.getTransitions();
+
+        places = netPlaces.toArray(new PetriNetPlace[netPlaces.size()]);
+        placeIndex = new HashMap<>();
+        transitionIndex = new HashMap<>();
+        initialMarking = new int[places.length];
+        for (int p = 0; p < places.length; ++p) {
+            placeIndex.put(places[p].getId(), p);
+            initialMarking[p] = places[p].getMarking();
+        }
+
+        transitionIds = new String[netTransitions.size()];
+        int t = 0;
+        for (PetriNetTransition transition : netTransitions) {
+            transitionIds[t] = transition.getId();
+            transitionIndex.put(transition.getId(), t);
+            ++t;
+        }
+        final int transitionCount = transitionIds.length;
+
+        // Kanten nach Transitionen gruppieren
+        Collection<PetriNetArc> arcs = net.getArcs();
+        int[] arcPlace = new int[arcs.size()];
+        int[] arcTransition = new int[arcs.size()];
+        int[] arcWeight = new int[arcs.size()];
+        boolean[] arcIsInput = new boolean[arcs.size()];
+        int[] arcStart = new int[transitionCount + 1];
+
+        int a = 0;
+        for (PetriNetArc arc : arcs) {
+            PetriNetNode source = arc.getSource();
+            PetriNetNode target = arc.getTarget();
+            arcIsInput[a] = source instanceof PetriNetPlace;
+            arcPlace[a] = resolve(net, arc, arcIsInput[a] ? source : target, placeIndex);
+            arcTransition[a] = resolve(net, arc, arcIsInput[a] ? target : source, transitionIndex);
+            arcWeight[a] = arc.getWeight();
+            ++arcStart[arcTransition[a] + 1];
+            ++a;
+        }
+        prefixSum(arcStart);
+
+        int[] arcsByTransition = new int[arcs.size()];
+        int[] fill = arcStart.clone();
+        for (a = 0; a < arcPlace.length; ++a)
+            arcsByTransition[fill[arcTransition[a]]++] = a;
+
+        // Vor-, Nachvektor und Wirkung pro Transition aufsummieren
+        int[] pre = new int[places.length];
+        int[] post = new int[places.length];
+        int[] touched = new int[places.length];
+        IntBuffer presetPlaces = new IntBuffer(), presetWeights = new IntBuffer();
+        IntBuffer postsetPlaces = new IntBuffer(), postsetWeights = new IntBuffer();
+        IntBuffer effectPlaces = new IntBuffer(), effectDeltas = new IntBuffer();
+
+        presetStart = new int[transitionCount + 1];
+        postsetStart = new int[transitionCount + 1];
+        effectStart = new int[transitionCount + 1];
+        consumerStart = new int[places.length + 1];
+        producerStart = new int[places.length + 1];
+
+        for (t = 0; t < transitionCount; ++t) {
+            int touchedCount = 0;
+            for (int i = arcStart[t]; i < arcStart[t + 1]; ++i) {
+                a = arcsByTransition[i];
+                int p = arcPlace[a];
+                if (pre[p] == 0 && post[p] == 0)
+                    touched[touchedCount++] = p;
+                if (arcIsInput[a])
+                    pre[p] += arcWeight[a];
+                else
+                    post[p] += arcWeight[a];
+            }
+
+            for (int i = 0; i < touchedCount; ++i) {
+                int p = touched[i];
+                if (pre[p] > 0) {
+                    presetPlaces.add(p);
+                    presetWeights.add(pre[p]);
+                    ++consumerStart[p + 1];
+                }
+                if (post[p] > 0) {
+                    postsetPlaces.add(p);
+                    postsetWeights.add(post[p]);
+                    ++producerStart[p + 1];
+                }
+                if (post[p] != pre[p]) {
+                    effectPlaces.add(p);
+                    effectDeltas.add(post[p] - pre[p]);
+                }
+                pre[p] = 0;
+                post[p] = 0;
+            }
+
+            presetStart[t + 1] = presetPlaces.size();
+            postsetStart[t + 1] = postsetPlaces.size();
+            effectStart[t + 1] = effectPlaces.size();
+        }
+
+        presetPlace = presetPlaces.toArray();
+        presetWeight = presetWeights.toArray();
+        postsetPlace = postsetPlaces.toArray();
+        postsetWeight = postsetWeights.toArray();
+        effectPlace = effectPlaces.toArray();
+        effectDelta = effectDeltas.toArray();
+
+        // Nachbarschaften der Stellen
+        prefixSum(consumerStart);
+        prefixSum(producerStart);
+        consumerTransition = new int[presetPlace.length];
+        consumerWeight = new int[presetPlace.length];
+        producerTransition = new int[postsetPlace.length];
+
+        int[] consumerFill = consumerStart.clone();
+        int[] producerFill = producerStart.clone();
+        for (t = 0; t < transitionCount; ++t) {
+            for (int i = presetStart[t]; i < presetStart[t + 1]; ++i) {
+                int j = consumerFill[presetPlace[i]]++;
+                consumerTransition[j] = t;
+                consumerWeight[j] = presetWeight[i];
+            }
+            for (int i = postsetStart[t]; i < postsetStart[t + 1]; ++i)
+                producerTransition[producerFill[postsetPlace[i]]++] = t;
+        }
+    }
+
+    /**
+     * Erstellt eine Ausführungsform mit der Struktur von <b>structure</b> und der
+     * Anfangsmarkierung <b>marking</b>. Alle Arrays der Struktur werden geteilt, nicht kopiert.
+     * @param marking Markierung, wird übernommen und darf danach nicht mehr verändert werden
+     */
+    CompiledNet(CompiledNet structure, int[] marking) {
+        places = structure.places;
+        transitionIds = structure.transitionIds;
+        placeIndex = structure.placeIndex;
+        transitionIndex = structure.transitionIndex;
+        initialMarking = marking;
+        presetStart = structure.presetStart;
+        presetPlace = structure.presetPlace;
+        presetWeight = structure.presetWeight;
+        postsetStart = structure.postsetStart;
+        postsetPlace = structure.postsetPlace;
+        postsetWeight = structure.postsetWeight;
+        effectStart = structure.effectStart;
+        effectPlace = structure.effectPlace;
+        effectDelta = structure.effectDelta;
+        consumerStart = structure.consumerStart;
+        consumerTransition = structure.consumerTransition;
+        consumerWeight = structure.consumerWeight;
+        producerStart = structure.producerStart;
+        producerTransition = structure.producerTransition;
+    }
+
+    /**
+     * Einfacher wachsender <code>int</code> Puffer, wird nur beim Kompilieren verwendet.
+     */
+    private static final class IntBuffer {
+
+        /** Werte */
+        private int[] values = new int[16];
+
+        /** Anzahl der Werte */
+        private int size = 0;
+
+        /** Hängt einen Wert an */
+        void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        /** Gibt die Anzahl der Werte zurück */
+        int size() {
+            return size;
+        }
+
+        /** Gibt die Werte als Array passender Länge zurück */
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Gibt den Index eines Knotens einer Kante zurück.
+     * @throws IllegalStateException falls der Knoten nicht zum Netz gehört
+     */
+    private static int resolve(PetriNet net, PetriNetArc arc, PetriNetNode node,
+                               Map<String, Integer> index) {
+        Integer result = (node != null) ? index.get(node.getId()) : null;
+        if (result == null || net.getElementById(node.getId()) != node)
+            throw new IllegalStateException(String.format(
+                    "arc '%s' references a node which is not part of the net", arc.getId()));
+
+        return result;
+    }
+
+    /** Wandelt Anzahlen in Anfangspositionen um */
+    private static void prefixSum(int[] values) {
+        for (int i = 1; i < values.length; ++i)
+            values[i] += values[i - 1];
+    }
+
+    /** Gibt die Anzahl der Stellen zurück */
+    public int getPlaceCount() {
+        return places.length;
+    }
+
+    /** Gibt die Anzahl der Transitionen zurück */
+    public int getTransitionCount() {
+        return transitionIds.length;
+    }
+
+    /** Gibt die Id der Stelle mit dem Index <b>place</b> zurück */
+    public String getPlaceId(int place) {
+        return places[place].getId();
+    }
+
+    /** Gibt die Stelle mit dem Index <b>place</b> zurück */
+    PetriNetPlace getPlace(int place) {
+        return places[place];
+    }
+
+    /** Gibt die Id der Transition mit dem Index <b>transition</b> zurück */
+    public String getTransitionId(int transition) {
+        return transitionIds[transition];
+    }
+
+    /**
+     * Gibt den Index der Stelle mit der gegebenen Id zurück
+     * @return Index oder <code>-1</code> falls keine solche Stelle existiert
+     */
+    public int indexOfPlace(String id) {
+        Integer index = placeIndex.get(id);
+        return (index != null) ? index : -1;
+    }
+
+    /**
+     * Gibt den Index der Transition mit der gegebenen Id zurück
+     * @return Index oder <code>-1</code> falls keine solche Transition existiert
+     */
+    public int indexOfTransition(String id) {
+        Integer index = transitionIndex.get(id);
+        return (index != null) ? index : -1;
+    }
+
+    /** Gibt eine Kopie der Markierung zum Zeitpunkt der Kompilierung zurück */
+    public int[] getInitialMarking() {
+        return initialMarking.clone();
+    }
+
+    /** Gibt den Anfang des Vorbereichs der Transition im CSR-Array zurück */
+    public int getPresetStart(int transition) {
+        return presetStart[transition];
+    }
+
+    /** Gibt das Ende (exklusiv) des Vorbereichs der Transition im CSR-Array zurück */
+    public int getPresetEnd(int transition) {
+        return presetStart[transition + 1];
+    }
+
+    /** Gibt den Stellenindex des Eintrags <b>entry</b> der Vorbereiche zurück */
+    public int getPresetPlace(int entry) {
+        return presetPlace[entry];
+    }
+
+    /** Gibt das Kantengewicht des Eintrags <b>entry</b> der Vorbereiche zurück */
+    public int getPresetWeight(int entry) {
+        return presetWeight[entry];
+    }
+
+    /** Gibt den Anfang des Nachbereichs der Transition im CSR-Array zurück */
+    public int getPostsetStart(int transition) {
+        return postsetStart[transition];
+    }
+
+    /** Gibt das Ende (exklusiv) des Nachbereichs der Transition im CSR-Array zurück */
+    public int getPostsetEnd(int transition) {
+        return postsetStart[transition + 1];
+    }
+
+    /** Gibt den Stellenindex des Eintrags <b>entry</b> der Nachbereiche zurück */
+    public int getPostsetPlace(int entry) {
+        return postsetPlace[entry];
+    }
+
+    /** Gibt das Kantengewicht des Eintrags <b>entry</b> der Nachbereiche zurück */
+    public int getPostsetWeight(int entry) {
+        return postsetWeight[entry];
+    }
+
+    /** Gibt den Anfang der Wirkung der Transition im CSR-Array zurück */
+    public int getEffectStart(int transition) {
+        return effectStart[transition];
+    }
+
+    /** Gibt das Ende (exklusiv) der Wirkung der Transition im CSR-Array zurück */
+    public int getEffectEnd(int transition) {
+        return effectStart[transition + 1];
+    }
+
+    /** Gibt den Stellenindex des Eintrags <b>entry</b> der Wirkungen zurück */
+    public int getEffectPlace(int entry) {
+        return effectPlace[entry];
+    }
+
+    /** Gibt die Markierungsänderung des Eintrags <b>entry</b> der Wirkungen zurück */
+    public int getEffectDelta(int entry) {
+        return effectDelta[entry];
+    }
+
+    /** Gibt den Anfang der konsumierenden Transitionen der Stelle im CSR-Array zurück */
+    public int getConsumerStart(int place) {
+        return consumerStart[place];
+    }
+
+    /** Gibt das Ende (exklusiv) der konsumierenden Transitionen der Stelle im CSR-Array zurück */
+    public int getConsumerEnd(int place) {
+        return consumerStart[place + 1];
+    }
+
+    /** Gibt den Transitionsindex des Eintrags <b>entry</b> der konsumierenden Transitionen zurück */
+    public int getConsumerTransition(int entry) {
+        return consumerTransition[entry];
+    }
+
+    /**
+     * Gibt das Kantengewicht des Eintrags <b>entry</b> der konsumierenden Transitionen zurück,
+     * also die Anzahl der Marken, die die Transition aus der Stelle benötigt
+     */
+    public int getConsumerWeight(int entry) {
+        return consumerWeight[entry];
+    }
+
+    /** Gibt den Anfang der produzierenden Transitionen der Stelle im CSR-Array zurück */
+    public int getProducerStart(int place) {
+        return producerStart[place];
+    }
+
+    /** Gibt das Ende (exklusiv) der produzierenden Transitionen der Stelle im CSR-Array zurück */
+    public int getProducerEnd(int place) {
+        return producerStart[place + 1];
+    }
+
+    /** Gibt den Transitionsindex des Eintrags <b>entry</b> der produzierenden Transitionen zurück */
+    public int getProducerTransition(int entry) {
+        return producerTransition[entry];
+    }
+
+    /**
+     * Gibt die Anzahl der Stellen im Vorbereich der Transition zurück, die unter der Markierung
+     * <b>marking</b> zu wenige Marken haben. Die Transition ist genau dann aktiviert, wenn
+     * das Ergebnis 0 ist.
+     */
+    public int countUnsatisfied(int transition, int[] marking) {
+        int count = 0;
+        for (int i = presetStart[transition], end = presetStart[transition + 1]; i < end; ++i) {
+            if (marking[presetPlace[i]] < presetWeight[i])
+                ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls die Transition unter der Markierung <b>marking</b>
+     * aktiviert ist.
+     * @see PetriNetTransition#isEnabled()
+     */
+    public boolean isEnabled(int transition, int[] marking) {
+        for (int i = presetStart[transition], end = presetStart[transition + 1]; i < end; ++i) {
+            if (marking[presetPlace[i]] < presetWeight[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Schaltet die Transition auf der Markierung <b>marking</b>, indem die vorberechnete
+     * Wirkung addiert wird.
+     * <p>
+     * Die Aktivierung wird <b>nicht</b> geprüft, dies muss vorher mit {@link #isEnabled}
+     * geschehen.
+     */
+    public void fire(int transition, int[] marking) {
+        for (int i = effectStart[transition], end = effectStart[transition + 1]; i < end; ++i)
+            marking[effectPlace[i]] += effectDelta[i];
+    }
+
+    /**
+     * Schreibt die Markierung <b>marking</b> in die Stellen des Netzes zurück.
+     * <p>
+     * Die geänderten Stellen werden den {@link PetriNetListener Listenern} als ein Ereignis
+     * gemeldet.
+     * @throws IllegalArgumentException falls die Länge der Markierung nicht der Stellenanzahl
+     *         entspricht
+     */
+    public void writeBack(int[] marking) {
+        if (marking.length != places.length)
+            throw new IllegalArgumentException("marking does not match the places of the net");
+
+        PetriNet owner = (places.length > 0) ? places[0].net : null;
+        if (owner != null)
+            owner.beginUpdate();
+        try {
+            for (int p = 0; p < places.length; ++p)
+                places[p].setMarking(marking[p]);
+        } finally {
+            if (owner != null)
+                owner.endUpdate();
+        }
+    }
+}
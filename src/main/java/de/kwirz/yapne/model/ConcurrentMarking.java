@@ -0,0 +1,308 @@
+package de.kwirz.yapne.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Synchronisation eines Netzes im nebenläufigen Modus.
+ * <p>
+ * Die Struktur (Elemente und Kanten) ist durch ein {@link StampedLock} geschützt: Änderungen
+ * nehmen die Schreibsperre, lesende Zugriffe laufen zuerst optimistisch ohne Sperre und werden
+ * nur wiederholt, falls die Validierung fehlschlägt. Die Markierungen sind durch gestreifte
+ * Sperren geschützt, jede Stelle gehört über ihre Id zu genau einem Streifen. Eine Schaltung
+ * sperrt die Streifen aller Stellen ihres Vor- und Nachbereichs in aufsteigender Reihenfolge,
+ * dadurch sind Schaltungen atomar und frei von Verklemmungen.
+ *
+ * @see PetriNet#setConcurrent(boolean)
+ */
+final class ConcurrentMarking {
+
+    /** Standardanzahl der Streifen */
+    static final int DEFAULT_STRIPES = 64;
+
+    /** Sperre der Struktur */
+    private final StampedLock structureLock = new StampedLock();
+
+    /** Thread, der die Schreibsperre der Struktur hält, oder <code>null</code> */
+    private volatile Thread structureWriter = null;
+
+    /** Ist für Threads gesetzt, die gerade in {@link #read} die Struktur lesen */
+    private final ThreadLocal<Boolean> reading = new ThreadLocal<>();
+
+    /** Sperren der Markierungen */
+    private final ReentrantLock[] stripes;
+
+    /** Wird bei jeder strukturellen Änderung erhöht, macht zwischengespeicherte Bereiche ungültig */
+    private final AtomicLong structureVersion = new AtomicLong();
+
+    /** Anzahl der Änderungen von Markierungen */
+    private final LongAdder markingChanges = new LongAdder();
+
+    /** Zuletzt kompilierte Struktur, oder <code>null</code> */
+    private volatile Compiled compiled = null;
+
+    /**
+     * Erstellt die Synchronisation mit <b>stripes</b> Streifen
+     * @param stripes Anzahl der Streifen, eine Zweierpotenz
+     */
+    ConcurrentMarking(int stripes) {
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; ++i)
+            this.stripes[i] = new ReentrantLock();
+    }
+
+    /** Gibt den Streifen der Stelle <b>place</b> zurück */
+    private int stripeOf(PetriNetPlace place) {
+        int hash = place.getId().hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Liest die Struktur mit <b>reader</b>, zuerst optimistisch und bei fehlgeschlagener
+     * Validierung unter der Lesesperre.
+     * <p>
+     * Der optimistische Versuch kann auf einen inkonsistenten Zustand treffen, Ausnahmen
+     * werden dann verworfen und der Zugriff unter der Sperre wiederholt. Geschachtelte
+     * Zugriffe und Zugriffe unter der Schreibsperre laufen direkt, sie sind durch den
+     * äußeren Zugriff geschützt.
+     */
+    <T> T read(Supplier<T> reader) {
+        if (structureWriter == Thread.currentThread() || reading.get() != null)
+            return reader.get();
+
+        reading.set(Boolean.TRUE);
+        try {
+            long stamp = structureLock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    T result = reader.get();
+                    if (structureLock.validate(stamp))
+                        return result;
+                } catch (RuntimeException ignored) {
+                    // Struktur wurde während des Lesens geändert
+                }
+            }
+
+            stamp = structureLock.readLock();
+            try {
+                return reader.get();
+            } finally {
+                structureLock.unlockRead(stamp);
+            }
+        } finally {
+            reading.remove();
+        }
+    }
+
+    /**
+     * Nimmt die Schreibsperre der Struktur. Die Sperre ist reentrant, hält der Thread sie
+     * bereits, wird <code>0</code> zurückgegeben.
+     */
+    long lockStructure() {
+        if (structureWriter == Thread.currentThread())
+            return 0;
+
+        long stamp = structureLock.writeLock();
+        structureWriter = Thread.currentThread();
+        return stamp;
+    }
+
+    /** Gibt die mit {@link #lockStructure()} genommene Schreibsperre frei */
+    void unlockStructure(long stamp) {
+        if (stamp == 0)
+            return;
+
+        structureWriter = null;
+        structureLock.unlockWrite(stamp);
+    }
+
+    /** Wird bei strukturellen Änderungen des Netzes aufgerufen */
+    void structureChanged() {
+        structureVersion.incrementAndGet();
+    }
+
+    /** Wird bei jeder Änderung einer Markierung aufgerufen */
+    void markingChanged() {
+        markingChanges.increment();
+    }
+
+    /** Gibt die Anzahl der bisherigen Änderungen von Markierungen zurück */
+    long getMarkingChanges() {
+        return markingChanges.sum();
+    }
+
+    /** Setzt die Markierung der Stelle <b>place</b> unter der Sperre ihres Streifens */
+    void setMarking(PetriNetPlace place, int marking) {
+        ReentrantLock lock = stripes[stripeOf(place)];
+        lock.lock();
+        try {
+            place.applyMarking(marking);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Prüft und schaltet die Transition <b>transition</b> atomar
+     * @return <code>false</code> falls die Transition nicht aktiviert ist
+     */
+    boolean occur(PetriNetTransition transition) {
+        Footprint footprint = footprint(transition);
+        int[] locked = footprint.stripes;
+        for (int stripe : locked)
+            stripes[stripe].lock();
+
+        try {
+            PetriNetPlace[] places = footprint.places;
+            for (int i = 0; i < places.length; ++i) {
+                if (places[i].getMarking() < footprint.pre[i])
+                    return false;
+            }
+            for (int i = 0; i < places.length; ++i) {
+                int delta = footprint.post[i] - footprint.pre[i];
+                if (delta != 0)
+                    places[i].applyMarking(places[i].getMarking() + delta);
+            }
+            return true;
+        } finally {
+            for (int i = locked.length - 1; i >= 0; --i)
+                stripes[locked[i]].unlock();
+        }
+    }
+
+    /** Sperrt die Markierungen aller Stellen */
+    void lockAllMarkings() {
+        for (ReentrantLock lock : stripes)
+            lock.lock();
+    }
+
+    /** Gibt die Sperren aller Markierungen frei */
+    void unlockAllMarkings() {
+        for (int i = stripes.length - 1; i >= 0; --i)
+            stripes[i].unlock();
+    }
+
+    /**
+     * Gibt die kompilierte Struktur des Netzes <b>net</b> zurück, kompiliert sie bei Bedarf
+     * unter optimistischer Lesesperre der Struktur
+     * @throws IllegalStateException falls eine Kante einen Knoten referenziert, der nicht zum
+     *         Netz gehört
+     */
+    CompiledNet getCompiledNet(PetriNet net) {
+        long version = structureVersion.get();
+        Compiled cached = compiled;
+        if (cached != null && cached.version == version)
+            return cached.net;
+
+        CompiledNet result = read(net::compile);
+        compiled = new Compiled(result, version);
+        return result;
+    }
+
+    /**
+     * Gibt den Bereich der Transition zurück, berechnet ihn bei Bedarf unter optimistischer
+     * Lesesperre der Struktur
+     */
+    private Footprint footprint(PetriNetTransition transition) {
+        long version = structureVersion.get();
+        Footprint footprint = transition.footprint;
+        if (footprint != null && footprint.owner() == this && footprint.version == version)
+            return footprint;
+
+        footprint = read(() -> new Footprint(transition, version));
+        transition.footprint = footprint;
+        return footprint;
+    }
+
+    /** Kompilierte Struktur mit der Version, für die sie gilt */
+    private static final class Compiled {
+
+        /** Kompilierte Struktur */
+        final CompiledNet net;
+
+        /** Version der Struktur, für die sie kompiliert wurde */
+        final long version;
+
+        Compiled(CompiledNet net, long version) {
+            this.net = net;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Vor- und Nachbereich einer Transition mit zusammengefassten Kantengewichten und den
+     * sortierten Streifen ihrer Stellen. Unveränderlich, gilt für eine Version der Struktur.
+     */
+    final class Footprint {
+
+        /** Version der Struktur, für die der Bereich berechnet wurde */
+        final long version;
+
+        /** Stellen in Vor- und Nachbereich, ohne Duplikate */
+        final PetriNetPlace[] places;
+
+        /** Summe der Gewichte der Eingangskanten je Stelle */
+        final int[] pre;
+
+        /** Summe der Gewichte der Ausgangskanten je Stelle */
+        final int[] post;
+
+        /** Streifen der Stellen, aufsteigend und ohne Duplikate */
+        final int[] stripes;
+
+        Footprint(PetriNetTransition transition, long version) {
+            this.version = version;
+            int arcCount = transition.inputArcs.size() + transition.outputArcs.size();
+            PetriNetPlace[] collected = new PetriNetPlace[arcCount];
+            int[] collectedPre = new int[arcCount];
+            int[] collectedPost = new int[arcCount];
+            int count = 0;
+
+            for (PetriNetArc arc : transition.inputArcs) {
+                int i = indexOf(collected, count, (PetriNetPlace) arc.getSource());
+                if (i == count)
+                    collected[count++] = (PetriNetPlace) arc.getSource();
+                collectedPre[i] += arc.getWeight();
+            }
+            for (PetriNetArc arc : transition.outputArcs) {
+                int i = indexOf(collected, count, (PetriNetPlace) arc.getTarget());
+                if (i == count)
+                    collected[count++] = (PetriNetPlace) arc.getTarget();
+                collectedPost[i] += arc.getWeight();
+            }
+
+            places = Arrays.copyOf(collected, count);
+            pre = Arrays.copyOf(collectedPre, count);
+            post = Arrays.copyOf(collectedPost, count);
+
+            int[] sorted = new int[count];
+            for (int i = 0; i < count; ++i)
+                sorted[i] = stripeOf(places[i]);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < count; ++i) {
+                if (distinct == 0 || sorted[distinct - 1] != sorted[i])
+                    sorted[distinct++] = sorted[i];
+            }
+            stripes = Arrays.copyOf(sorted, distinct);
+        }
+
+        /** Gibt die Synchronisation zurück, zu der dieser Bereich gehört */
+        ConcurrentMarking owner() {
+            return ConcurrentMarking.this;
+        }
+
+        /** Gibt den Index von <b>place</b> in den ersten <b>count</b> Stellen zurück, sonst <b>count</b> */
+        private int indexOf(PetriNetPlace[] places, int count, PetriNetPlace place) {
+            for (int i = 0; i < count; ++i) {
+                if (places[i] == place)
+                    return i;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package de.kwirz.yapne.model;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Symboltabelle der Elemente eines Netzes.
+ * <p>
+ * Jede Id wird beim Hinzufügen auf einen int-Handle abgebildet, den Index des Elements in
+ * einem Array in der Reihenfolge des Hinzufügens. Die Suche nach Ids ist eine offene
+ * Hashtabelle mit linearer Sondierung über ein int-Array, es gibt keine Einträge als eigene
+ * Objekte und die Id wird nur im Element selbst gespeichert. Entfernte Elemente hinterlassen
+ * Lücken, die zusammengeschoben werden, sobald sie überwiegen. Handles sind daher nur bis zur
+ * nächsten Änderung gültig.
+ * <p>
+ * Für Stellen, Transitionen und Kanten gibt es zusätzlich je eine Liste ihrer Handles, die
+ * typisierten Sichten durchlaufen nur diese und kosten damit O(Anzahl des Typs). Entfernte
+ * Handles bleiben in den Listen stehen, bis die Liste oder die Tabelle zusammengeschoben
+ * wird, und werden beim Durchlaufen übersprungen.
+ */
+final class ElementTable {
+
+    /** Anfangskapazität */
+    private static final int MIN_CAPACITY = 16;
+
+    /** Gemeinsames Array für leere Handle-Listen */
+    private static final int[] EMPTY = {};
+
+    /** Elemente nach Handle, <code>null</code> für Lücken */
+    private PetriNetElement[] elements = new PetriNetElement[MIN_CAPACITY];
+
+    /** Hashtabelle, Handle + 1 je Position, 0 für frei. Höchstens zur Hälfte gefüllt. */
+    private int[] table = new int[2 * MIN_CAPACITY];
+
+    /** Anzahl der belegten Handles inklusive Lücken */
+    private int end = 0;
+
+    /** Anzahl der Elemente */
+    private int size = 0;
+
+    /** Handles je Typ */
+    private final Handles places = new Handles(), transitions = new Handles(), arcs = new Handles();
+
+    /** Wird bei jeder Änderung erhöht */
+    private int modCount = 0;
+
+    /** Verteilt die Bits des Hashcodes */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /** Gibt die Anzahl der Elemente zurück */
+    int size() {
+        return size;
+    }
+
+    /** Gibt den Handle des Elements mit der Id <b>id</b> zurück, oder -1 */
+    int find(String id) {
+        int slot = slotOf(id);
+        return (slot >= 0) ? table[slot] - 1 : -1;
+    }
+
+    /** Gibt das Element mit der Id <b>id</b> zurück, oder <code>null</code> */
+    PetriNetElement get(String id) {
+        int handle = find(id);
+        return (handle >= 0) ? elements[handle] : null;
+    }
+
+    /**
+     * Fügt ein Element hinzu, dessen Id noch nicht vergeben ist
+     * @return Handle des Elements
+     */
+    int add(PetriNetElement element) {
+        if (end == elements.length) {
+            if (size < end - end / 4)
+                compact();
+            else
+                elements = Arrays.copyOf(elements, end * 2);
+        }
+        if (2 * (size + 1) > table.length)
+            rehash(table.length * 2);
+
+        int handle = end++;
+        elements[handle] = element;
+        insert(handle);
+        ++size;
+        Handles handles = handlesOf(element);
+        if (handles != null)
+            handles.add(handle);
+        ++modCount;
+        return handle;
+    }
+
+    /**
+     * Entfernt das Element mit der Id <b>id</b>
+     * @return entferntes Element oder <code>null</code>
+     */
+    PetriNetElement remove(String id) {
+        int slot = slotOf(id);
+        if (slot < 0)
+            return null;
+
+        int handle = table[slot] - 1;
+        PetriNetElement element = elements[handle];
+        delete(slot);
+        elements[handle] = null;
+        --size;
+        ++modCount;
+
+        Handles handles = handlesOf(element);
+        if (handles != null)
+            handles.remove();
+        if (end > 2 * size + MIN_CAPACITY)
+            compact();
+        return element;
+    }
+
+    /** Entfernt alle Elemente */
+    void clear() {
+        elements = new PetriNetElement[MIN_CAPACITY];
+        table = new int[2 * MIN_CAPACITY];
+        end = size = 0;
+        places.clear();
+        transitions.clear();
+        arcs.clear();
+        ++modCount;
+    }
+
+    /**
+     * Gibt eine Sicht auf alle Elemente vom Typ <b>type</b> in der Reihenfolge des
+     * Hinzufügens zurück. Die Sicht ist nicht veränderbar und stets aktuell.
+     */
+    <T extends PetriNetElement> Collection<T> view(Class<T> type) {
+        Handles handles = handlesOf(type);
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return (handles != null) ? new HandleIterator<>(type, handles) : new ElementIterator<>(type);
+            }
+
+            @Override
+            public int size() {
+                return (handles != null) ? handles.count : size;
+            }
+        };
+    }
+
+    /** Gibt die Handle-Liste für den Typ des Elements <b>element</b> zurück, oder <code>null</code> */
+    private Handles handlesOf(PetriNetElement element) {
+        if (element instanceof PetriNetPlace)
+            return places;
+        if (element instanceof PetriNetTransition)
+            return transitions;
+        if (element instanceof PetriNetArc)
+            return arcs;
+        return null;
+    }
+
+    /** Gibt die Handle-Liste für den Typ <b>type</b> zurück, oder <code>null</code> */
+    private Handles handlesOf(Class<?> type) {
+        if (type == PetriNetPlace.class)
+            return places;
+        if (type == PetriNetTransition.class)
+            return transitions;
+        if (type == PetriNetArc.class)
+            return arcs;
+        return null;
+    }
+
+    /** Gibt die Position von <b>id</b> in der Hashtabelle zurück, oder -1 */
+    private int slotOf(String id) {
+        int[] table = this.table;
+        int mask = table.length - 1;
+        int slot = spread(id.hashCode()) & mask;
+        for (int probe = 0; probe < table.length; ++probe, slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0)
+                return -1;
+            if (elements[entry - 1].getId().equals(id))
+                return slot;
+        }
+        return -1;
+    }
+
+    /** Trägt den Handle <b>handle</b> in die Hashtabelle ein */
+    private void insert(int handle) {
+        int mask = table.length - 1;
+        int slot = spread(elements[handle].getId().hashCode()) & mask;
+        while (table[slot] != 0)
+            slot = (slot + 1) & mask;
+        table[slot] = handle + 1;
+    }
+
+    /** Leert die Position <b>slot</b> und rückt nachfolgende Einträge der Sondierung nach */
+    private void delete(int slot) {
+        int mask = table.length - 1;
+        int free = slot;
+        table[free] = 0;
+
+        for (int next = (free + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int home = spread(elements[table[next] - 1].getId().hashCode()) & mask;
+            // bleibt stehen, falls home zyklisch in (free, next] liegt
+            boolean reachable = (free <= next) ? (free < home && home <= next) : (free < home || home <= next);
+            if (reachable)
+                continue;
+
+            table[free] = table[next];
+            table[next] = 0;
+            free = next;
+        }
+    }
+
+    /** Baut die Hashtabelle mit <b>capacity</b> Positionen neu auf */
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int handle = 0; handle < end; ++handle) {
+            if (elements[handle] != null)
+                insert(handle);
+        }
+    }
+
+    /** Schiebt die Elemente zusammen, vergibt neue Handles und baut die Hashtabelle neu auf */
+    private void compact() {
+        places.clear();
+        transitions.clear();
+        arcs.clear();
+
+        int to = 0;
+        for (int from = 0; from < end; ++from) {
+            if (elements[from] == null)
+                continue;
+
+            Handles handles = handlesOf(elements[from]);
+            if (handles != null)
+                handles.add(to);
+            elements[to++] = elements[from];
+        }
+        Arrays.fill(elements, to, end, null);
+        end = to;
+
+        int capacity = 2 * MIN_CAPACITY;
+        while (capacity < 2 * size)
+            capacity *= 2;
+        rehash(capacity);
+        ++modCount;
+    }
+
+    /** Durchläuft die Elemente eines Typs */
+    private final class ElementIterator<T extends PetriNetElement> implements Iterator<T> {
+
+        private final Class<T> type;
+
+        private final int expectedModCount = modCount;
+
+        private int next;
+
+        ElementIterator(Class<T> type) {
+            this.type = type;
+            this.next = skip(0);
+        }
+
+        /** Gibt den ersten Handle ab <b>from</b> mit einem Element vom Typ {@link #type} zurück */
+        private int skip(int from) {
+            while (from < end && !type.isInstance(elements[from]))
+                ++from;
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (next >= end)
+                throw new NoSuchElementException();
+
+            T element = type.cast(elements[next]);
+            next = skip(next + 1);
+            return element;
+        }
+    }
+
+    /** Durchläuft die Elemente eines Typs über dessen Handle-Liste */
+    private final class HandleIterator<T extends PetriNetElement> implements Iterator<T> {
+
+        private final Class<T> type;
+
+        private final Handles handles;
+
+        private final int expectedModCount = modCount;
+
+        private int next;
+
+        HandleIterator(Class<T> type, Handles handles) {
+            this.type = type;
+            this.handles = handles;
+            this.next = skip(0);
+        }
+
+        /** Gibt die erste Position ab <b>from</b> zurück, deren Handle noch belegt ist */
+        private int skip(int from) {
+            while (from < handles.end && elements[handles.handles[from]] == null)
+                ++from;
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < handles.end;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (next >= handles.end)
+                throw new NoSuchElementException();
+
+            T element = type.cast(elements[handles.handles[next]]);
+            next = skip(next + 1);
+            return element;
+        }
+    }
+
+    /** Handles der Elemente eines Typs in der Reihenfolge des Hinzufügens */
+    private final class Handles {
+
+        /** Handles, auch bereits entfernter Elemente */
+        int[] handles = EMPTY;
+
+        /** Anzahl der belegten Positionen inklusive entfernter Handles */
+        int end = 0;
+
+        /** Anzahl der Elemente */
+        int count = 0;
+
+        void add(int handle) {
+            if (end == handles.length)
+                handles = Arrays.copyOf(handles, Math.max(MIN_CAPACITY, end * 2));
+            handles[end++] = handle;
+            ++count;
+        }
+
+        void clear() {
+            handles = EMPTY;
+            end = count = 0;
+        }
+
+        /** Zählt ein entferntes Element, dessen Handle bereits frei ist */
+        void remove() {
+            if (--count == 0)
+                clear();
+            else if (end > 2 * count + MIN_CAPACITY)
+                compact();
+        }
+
+        /** Entfernt die Handles entfernter Elemente */
+        void compact() {
+            int to = 0;
+            for (int from = 0; from < end; ++from) {
+                if (elements[handles[from]] != null)
+                    handles[to++] = handles[from];
+            }
+            end = to;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.kwirz.yapne.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Verwaltet die Menge der aktivierten Transitionen eines Netzes inkrementell.
+ * <p>
+ * Jede verfolgte Transition führt einen Zähler der Eingangsstellen, die weniger Marken
+ * tragen als das Gewicht der jeweiligen Kante verlangt. Ändert sich die Markierung einer
+ * Stelle, werden nur die Zähler der Transitionen im Nachbereich dieser Stelle angepasst,
+ * eine Transition ist genau dann aktiviert, wenn ihr Zähler 0 ist.
+ * <p>
+ * Bei strukturellen Änderungen am Netz wird die Instanz mit {@link #detach} verworfen und
+ * bei Bedarf neu aufgebaut.
+ *
+ * @see PetriNet#getEnabledTransitions()
+ */
+final class EnabledTransitions {
+
+    /** Transitionen, deren Zähler von dieser Instanz gepflegt werden */
+    private final List<PetriNetTransition> tracked;
+
+    /** Aktivierte Transitionen */
+    private final Set<PetriNetTransition> enabled =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Nicht veränderbare Sicht auf {@link #enabled} */
+    private final Set<PetriNetTransition> view = Collections.unmodifiableSet(enabled);
+
+    /**
+     * Initialisiert die Zähler aller Transitionen <b>transitions</b>
+     */
+    EnabledTransitions(Collection<PetriNetTransition> transitions) {
+        tracked = new ArrayList<>(transitions);
+
+        for (PetriNetTransition transition : tracked) {
+            int unsatisfied = 0;
+            for (PetriNetArc arc : transition.inputArcs) {
+                PetriNetNode source = arc.getSource();
+                if (source instanceof PetriNetPlace &&
+                        ((PetriNetPlace) source).getMarking() < arc.getWeight())
+                    ++unsatisfied;
+            }
+
+            transition.unsatisfiedInputPlaces = unsatisfied;
+            transition.enabledTransitions = this;
+            if (unsatisfied == 0)
+                enabled.add(transition);
+        }
+    }
+
+    /** Gibt eine nicht veränderbare, stets aktuelle Sicht auf die aktivierten Transitionen zurück */
+    Set<PetriNetTransition> getView() {
+        return view;
+    }
+
+    /** Gibt <code>true</code> zurück falls die (verfolgte) Transition aktiviert ist */
+    boolean isEnabled(PetriNetTransition transition) {
+        return transition.unsatisfiedInputPlaces == 0;
+    }
+
+    /**
+     * Wird aufgerufen, wenn sich die Markierung einer Eingangsstelle der Transition geändert hat.
+     * @param transition verfolgte Transition
+     * @param arc Kante von der Eingangsstelle zur Transition
+     * @param oldMarking alte Markierung der Stelle
+     * @param newMarking neue Markierung der Stelle
+     */
+    void inputMarkingChanged(PetriNetTransition transition, PetriNetArc arc,
+                             int oldMarking, int newMarking) {
+        boolean wasSatisfied = oldMarking >= arc.getWeight();
+        boolean isSatisfied = newMarking >= arc.getWeight();
+        if (wasSatisfied == isSatisfied)
+            return;
+
+        if (isSatisfied) {
+            if (--transition.unsatisfiedInputPlaces == 0)
+                enabled.add(transition);
+        } else {
+            if (transition.unsatisfiedInputPlaces++ == 0)
+                enabled.remove(transition);
+        }
+    }
+
+    /** Beendet die Verfolgung aller Transitionen */
+    void detach() {
+        for (PetriNetTransition transition : tracked) {
+            if (transition.enabledTransitions == this)
+                transition.enabledTransitions = null;
+        }
+    }
+}
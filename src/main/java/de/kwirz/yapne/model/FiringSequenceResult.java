@@ -0,0 +1,65 @@
+package de.kwirz.yapne.model;
+
+/**
+ * Ergebnis von {@link PetriNet#fireSequence}.
+ * <p>
+ * Die Schaltfolge wird bis zum ersten nicht aktivierten Schritt ausgeführt. Das Ergebnis gibt
+ * an, wie viele Schritte geschaltet wurden, an welchem Schritt abgebrochen wurde und welche
+ * Markierung zu diesem Zeitpunkt vorlag.
+ */
+public final class FiringSequenceResult {
+
+    /** Anzahl der Schritte der Schaltfolge */
+    private final int length;
+
+    /** Anzahl der geschalteten Schritte */
+    private final int firedSteps;
+
+    /** Markierung nach dem letzten geschalteten Schritt */
+    private final MarkingVector marking;
+
+    /**
+     * Erstellt ein Ergebnis
+     * @param length Anzahl der Schritte der Schaltfolge
+     * @param firedSteps Anzahl der geschalteten Schritte
+     * @param marking Markierung nach dem letzten geschalteten Schritt
+     */
+    FiringSequenceResult(int length, int firedSteps, MarkingVector marking) {
+        this.length = length;
+        this.firedSteps = firedSteps;
+        this.marking = marking;
+    }
+
+    /** Gibt <code>true</code> zurück falls alle Schritte geschaltet wurden */
+    public boolean isComplete() {
+        return firedSteps == length;
+    }
+
+    /** Gibt die Anzahl der geschalteten Schritte zurück */
+    public int getFiredSteps() {
+        return firedSteps;
+    }
+
+    /**
+     * Gibt den Index des ersten nicht aktivierten Schrittes zurück
+     * @return Index oder <code>-1</code> falls alle Schritte geschaltet wurden
+     */
+    public int getFailedStep() {
+        return isComplete() ? -1 : firedSteps;
+    }
+
+    /**
+     * Gibt die Markierung nach dem letzten geschalteten Schritt zurück, bei einem Abbruch
+     * also die Markierung, unter der der Schritt {@link #getFailedStep()} nicht aktiviert war.
+     */
+    public MarkingVector getMarking() {
+        return marking;
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("FiringSequenceResult { fired: %d/%d, marking: %s }",
+                firedSteps, length, marking);
+    }
+}
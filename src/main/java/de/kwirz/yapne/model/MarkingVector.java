@@ -0,0 +1,84 @@
+package de.kwirz.yapne.model;
+
+import java.util.Arrays;
+
+/**
+ * Unveränderliche Markierung eines Netzes als <code>int</code> Array.
+ * <p>
+ * Der Index entspricht der Reihenfolge der Stellen in {@link PetriNet#getPlaces()}, die
+ * gleiche Reihenfolge verwendet auch {@link CompiledNet}.
+ *
+ * @see PetriNet#snapshotMarking()
+ * @see PetriNet#restoreMarking(MarkingVector)
+ */
+public final class MarkingVector {
+
+    /** Marken pro Stelle */
+    private final int[] tokens;
+
+    /**
+     * Erstellt eine Markierung aus einer Kopie von <b>tokens</b>
+     * @throws IllegalArgumentException falls ein Wert negativ ist
+     */
+    public MarkingVector(int[] tokens) {
+        this(tokens.clone(), true);
+    }
+
+    /**
+     * Erstellt eine Markierung ohne <b>tokens</b> zu kopieren.
+     * @param validate falls <code>true</code>, werden negative Werte abgelehnt
+     */
+    private MarkingVector(int[] tokens, boolean validate) {
+        if (validate) {
+            for (int value : tokens) {
+                if (value < 0)
+                    throw new IllegalArgumentException("marking cannot be negative");
+            }
+        }
+
+        this.tokens = tokens;
+    }
+
+    /**
+     * Übernimmt <b>tokens</b> ohne Kopie, der Aufrufer darf das Array danach nicht mehr verändern.
+     */
+    static MarkingVector wrap(int[] tokens) {
+        return new MarkingVector(tokens, false);
+    }
+
+    /** Gibt die Anzahl der Stellen zurück */
+    public int size() {
+        return tokens.length;
+    }
+
+    /** Gibt die Markierung der Stelle mit dem Index <b>place</b> zurück */
+    public int get(int place) {
+        return tokens[place];
+    }
+
+    /** Gibt eine Kopie der Markierung als Array zurück */
+    public int[] toArray() {
+        return tokens.clone();
+    }
+
+    /** Es werden die Marken aller Stellen verglichen */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return Arrays.equals(tokens, ((MarkingVector) o).tokens);
+    }
+
+    /** Gibt den Hashcode zurück */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(tokens);
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return Arrays.toString(tokens);
+    }
+}
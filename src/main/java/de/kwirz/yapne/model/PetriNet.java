@@ -1,16 +1,26 @@
 package de.kwirz.yapne.model;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Repräsentiert ein Petri Netz
  * <p>Verwaltet Elemente des Petri Netzes, liefert die PNML Darstellung des Netzes.
  * <p>Es ist wichtig dass Elemente eine eindeutige Kennung haben.
+ * <p>Ein Netz ist standardmäßig nicht threadsicher. Im {@link #setConcurrent(boolean)
+ * nebenläufigen Modus} können mehrere Threads gleichzeitig Transitionen schalten und die
+ * Struktur lesen.
  */
 public final class PetriNet implements PNMLable {
 
@@ -20,9 +30,284 @@ public final class PetriNet implements PNMLable {
     private final static Logger logger = Logger.getLogger(PetriNet.class.getName());
 
     /**
-     * Petri Netz Elemente
+     * Petri Netz Elemente, über eine Symboltabelle nach Id indiziert.
+     * <p>
+     * Die Reihenfolge entspricht der Reihenfolge des Hinzufügens.
+     */
+    private final ElementTable elements = new ElementTable();
+
+    /** Sicht auf die Stellen */
+    private final Collection<PetriNetPlace> places = elements.view(PetriNetPlace.class);
+
+    /** Sicht auf die Transitionen */
+    private final Collection<PetriNetTransition> transitions = elements.view(PetriNetTransition.class);
+
+    /** Sicht auf die Kanten */
+    private final Collection<PetriNetArc> arcs = elements.view(PetriNetArc.class);
+
+    /**
+     * Inkrementell gepflegte Menge aktivierter Transitionen.
+     * <p>
+     * Wird bei Bedarf aufgebaut und bei strukturellen Änderungen verworfen.
+     */
+    private EnabledTransitions enabledTransitions = null;
+
+    /**
+     * Stellen als Array, in der Reihenfolge von {@link #places}.
+     * <p>
+     * Wird bei Bedarf aufgebaut und bei strukturellen Änderungen verworfen.
+     */
+    private PetriNetPlace[] placeArray = null;
+
+    /**
+     * Kompilierte Struktur des Netzes für {@link #fireSequence}.
+     * <p>
+     * Wird bei Bedarf aufgebaut und bei strukturellen Änderungen verworfen.
+     */
+    private CompiledNet compiledNet = null;
+
+    /**
+     * Zuletzt erstellter Snapshot, siehe {@link #snapshot()}.
+     * <p>
+     * Wird bei strukturellen Änderungen verworfen.
+     */
+    private PetriNetSnapshot snapshot = null;
+
+    /** Blöcke der Markierung, die sich seit {@link #snapshot} geändert haben */
+    private final BitSet dirtyChunks = new BitSet();
+
+    /** Versionsnummer, wird bei jeder Änderung erhöht */
+    private long version = 0;
+
+    /** Synchronisation im nebenläufigen Modus, sonst <code>null</code> */
+    private volatile ConcurrentMarking concurrentMarking = null;
+
+    /** Leere Liste der Listener */
+    private static final PetriNetListener[] NO_LISTENERS = {};
+
+    /** Registrierte Listener, wird bei Änderungen kopiert */
+    private volatile PetriNetListener[] listeners = NO_LISTENERS;
+
+    /** Schützt Änderungen von {@link #listeners} */
+    private final Object listenerLock = new Object();
+
+    /** Offene Transaktion des aktuellen Threads, oder <code>null</code> */
+    private final ThreadLocal<Update> updates = new ThreadLocal<>();
+
+    /** Offene Transaktion eines Threads, siehe {@link #beginUpdate()} */
+    private static final class Update {
+
+        /** Schachtelungstiefe */
+        int depth = 0;
+
+        /** Gesammelte, noch nicht gemeldete Änderungen, oder <code>null</code> */
+        PetriNetChangeEvent.Recorder changes = null;
+    }
+
+    /** Sicht auf die aktivierten Transitionen, siehe {@link #getEnabledTransitions} */
+    private final Set<PetriNetTransition> enabledTransitionsView = new AbstractSet<PetriNetTransition>() {
+        @Override
+        public Iterator<PetriNetTransition> iterator() {
+            return currentEnabledTransitions().iterator();
+        }
+
+        @Override
+        public int size() {
+            return currentEnabledTransitions().size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (concurrentMarking != null)
+                return o instanceof PetriNetTransition && isEnabled((PetriNetTransition) o);
+
+            return getEnabledTransitionsTracker().getView().contains(o);
+        }
+    };
+
+    /**
+     * Schaltet den nebenläufigen Modus ein oder aus.
+     * <p>
+     * Im nebenläufigen Modus
+     * <ul>
+     *     <li>prüft und schaltet {@link PetriNetTransition#occur()} atomar unter gestreiften
+     *     Sperren der beteiligten Stellen, die immer in derselben Reihenfolge genommen werden</li>
+     *     <li>werden Markierungen nur unter der Sperre ihrer Stelle geändert</li>
+     *     <li>nehmen strukturelle Änderungen, auch das Umhängen von Kanten und das Ändern
+     *     ihres Gewichts, eine Schreibsperre, lesende Zugriffe auf die Struktur werden
+     *     optimistisch ohne Sperre ausgeführt und nur bei einer gleichzeitigen Änderung unter
+     *     der Lesesperre wiederholt</li>
+     *     <li>liefern {@link #getPlaces()}, {@link #getTransitions()}, {@link #getArcs()} und
+     *     {@link #getEnabledTransitions()} Kopien statt Sichten</li>
+     *     <li>wird die Aktivierung bei Bedarf aus den Markierungen berechnet statt
+     *     inkrementell gepflegt</li>
+     * </ul>
+     * Neue Kanten sollten vollständig konfiguriert werden, bevor sie dem Netz hinzugefügt
+     * werden. Der Modus darf nur umgeschaltet werden, während kein anderer Thread das Netz
+     * verwendet.
+     */
+    public void setConcurrent(boolean concurrent) {
+        if (concurrent == isConcurrent())
+            return;
+
+        structureChanged();
+        concurrentMarking = concurrent ? new ConcurrentMarking(ConcurrentMarking.DEFAULT_STRIPES) : null;
+    }
+
+    /** Gibt <code>true</code> zurück falls der nebenläufige Modus eingeschaltet ist */
+    public boolean isConcurrent() {
+        return concurrentMarking != null;
+    }
+
+    /** Gibt die Synchronisation des nebenläufigen Modus zurück, oder <code>null</code> */
+    ConcurrentMarking getConcurrentMarking() {
+        return concurrentMarking;
+    }
+
+    /**
+     * Nimmt im nebenläufigen Modus die Schreibsperre der Struktur. Die Sperre ist reentrant,
+     * jede Änderung an Elementen oder Kanten des Netzes läuft unter ihr.
+     * @return Stempel für {@link #unlockStructure(long)}
+     */
+    long lockStructure() {
+        ConcurrentMarking concurrent = concurrentMarking;
+        return (concurrent != null) ? concurrent.lockStructure() : 0;
+    }
+
+    /** Gibt die mit {@link #lockStructure()} genommene Sperre frei */
+    void unlockStructure(long stamp) {
+        if (stamp != 0)
+            concurrentMarking.unlockStructure(stamp);
+    }
+
+    /**
+     * Registriert einen Listener für Änderungen des Netzes.
+     * <p>
+     * Gemeldet werden hinzugefügte und entfernte Elemente, umgehängte Kanten, geänderte
+     * Markierungen und Positionen. Der Listener wird im Thread der Änderung aufgerufen, nach
+     * Freigabe aller Sperren, und darf das Netz daher lesen und ändern. Eine Schaltung wird
+     * als ein Ereignis gemeldet, auch im nebenläufigen Modus. Änderungen werden nur
+     * gesammelt, solange Listener registriert sind.
+     *
+     * @see #beginUpdate()
      */
-    private List<PetriNetElement> elements = new ArrayList<>();
+    public void addListener(PetriNetListener listener) {
+        synchronized (listenerLock) {
+            PetriNetListener[] current = listeners;
+            PetriNetListener[] extended = Arrays.copyOf(current, current.length + 1);
+            extended[current.length] = listener;
+            listeners = extended;
+        }
+    }
+
+    /** Entfernt einen Listener, der mit {@link #addListener} registriert wurde */
+    public void removeListener(PetriNetListener listener) {
+        synchronized (listenerLock) {
+            List<PetriNetListener> remaining = new ArrayList<>(Arrays.asList(listeners));
+            if (remaining.remove(listener))
+                listeners = remaining.toArray(NO_LISTENERS);
+        }
+    }
+
+    /**
+     * Beginnt eine Transaktion.
+     * <p>
+     * Alle Änderungen bis zum zugehörigen {@link #endUpdate()} werden zu einem Ereignis
+     * zusammengefasst. Transaktionen können geschachtelt werden, gemeldet wird am Ende der
+     * äußersten. Transaktionen gelten je Thread, Änderungen anderer Threads werden
+     * unabhängig davon gemeldet.
+     * <pre>
+     *  net.beginUpdate();
+     *  try {
+     *      ...
+     *  } finally {
+     *      net.endUpdate();
+     *  }
+     * </pre>
+     */
+    public void beginUpdate() {
+        Update update = updates.get();
+        if (update == null) {
+            update = new Update();
+            updates.set(update);
+        }
+        ++update.depth;
+    }
+
+    /**
+     * Beendet eine Transaktion und meldet am Ende der äußersten die gesammelten Änderungen
+     * @throws IllegalStateException falls der aktuelle Thread keine Transaktion offen hat
+     */
+    public void endUpdate() {
+        Update update = updates.get();
+        if (update == null)
+            throw new IllegalStateException("no update in progress");
+
+        if (--update.depth > 0)
+            return;
+
+        updates.remove();
+        if (update.changes != null && !update.changes.isEmpty())
+            dispatch(update.changes.build());
+    }
+
+    /**
+     * Nimmt eine Änderung in die Transaktion des aktuellen Threads auf. Außerhalb einer
+     * Transaktion wird sie sofort gemeldet.
+     */
+    private void recordChange(Consumer<PetriNetChangeEvent.Recorder> change) {
+        Update update = updates.get();
+        if (update == null) {
+            PetriNetChangeEvent.Recorder changes = new PetriNetChangeEvent.Recorder(this);
+            change.accept(changes);
+            if (!changes.isEmpty())
+                dispatch(changes.build());
+            return;
+        }
+
+        if (update.changes == null)
+            update.changes = new PetriNetChangeEvent.Recorder(this);
+        change.accept(update.changes);
+    }
+
+    /** Gibt <code>true</code> zurück falls Listener registriert sind */
+    boolean hasListeners() {
+        return listeners.length != 0;
+    }
+
+    /** Meldet <b>event</b> allen Listenern */
+    private void dispatch(PetriNetChangeEvent event) {
+        for (PetriNetListener listener : listeners)
+            listener.netChanged(event);
+    }
+
+    /** Wird aufgerufen, wenn Quell- oder Zielknoten der Kante <b>arc</b> dieses Netzes wechseln */
+    void arcReconnected(PetriNetArc arc) {
+        if (listeners.length != 0)
+            recordChange(changes -> changes.arcReconnected(arc));
+    }
+
+    /** Wird aufgerufen, wenn sich die Position des Knotens <b>node</b> dieses Netzes ändert */
+    void nodeMoved(PetriNetNode node) {
+        if (listeners.length != 0)
+            recordChange(changes -> changes.nodeMoved(node));
+    }
+
+    /** Gibt die aktuell aktivierten Transitionen zurück */
+    private Set<PetriNetTransition> currentEnabledTransitions() {
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent == null)
+            return getEnabledTransitionsTracker().getView();
+
+        return concurrent.read(() -> {
+            Set<PetriNetTransition> enabled = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (PetriNetTransition transition : transitions) {
+                if (transition.isEnabledByInputPlaces())
+                    enabled.add(transition);
+            }
+            return Collections.unmodifiableSet(enabled);
+        });
+    }
 
     /**
      * Fügt ein Element hinzu.
@@ -34,9 +319,19 @@ public final class PetriNet implements PNMLable {
      * @see #validateArc
      */
     public void addElement(PetriNetElement element) {
-        validateElement(element);
+        long stamp = lockStructure();
+        try {
+            validateElement(element);
 
-        elements.add(element);
+            element.net = this;
+            elements.add(element);
+            structureChanged();
+        } finally {
+            unlockStructure(stamp);
+        }
+
+        if (listeners.length != 0)
+            recordChange(changes -> changes.elementAdded(element));
     }
 
     /**
@@ -52,7 +347,7 @@ public final class PetriNet implements PNMLable {
         if (element.getId().trim().isEmpty())
             throw new IllegalArgumentException("passed an element with empty id");
 
-        if (hasElementById(element.getId()))
+        if (elements.find(element.getId()) >= 0)
             throw new IllegalArgumentException(String.format("element with id '%s' already exists", element.getId()));
 
         if (element instanceof PetriNetArc) {
@@ -88,21 +383,243 @@ public final class PetriNet implements PNMLable {
 
     }
 
-    /** Liefert Id's aller Elemente */
+    /** Liefert Id's aller Elemente in der Reihenfolge des Hinzufügens */
     public List<String> getIds() {
-        return this.elements.stream().map(PetriNetElement::getId).collect(Collectors.toList());
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null)
+            return concurrent.read(this::collectIds);
+
+        return collectIds();
+    }
+
+    /** Sammelt die Id's aller Elemente */
+    private List<String> collectIds() {
+        List<String> ids = new ArrayList<>(elements.size());
+        for (PetriNetElement element : elements.view(PetriNetElement.class))
+            ids.add(element.getId());
+
+        return ids;
+    }
+
+    /** Liefert alle Stellen in der Reihenfolge des Hinzufügens (nicht veränderbar) */
+    public Collection<PetriNetPlace> getPlaces() {
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null)
+            return concurrent.read(() -> Collections.unmodifiableList(new ArrayList<>(places)));
+
+        return Collections.unmodifiableCollection(places);
+    }
+
+    /** Liefert alle Transitionen in der Reihenfolge des Hinzufügens (nicht veränderbar) */
+    public Collection<PetriNetTransition> getTransitions() {
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null)
+            return concurrent.read(() -> Collections.unmodifiableList(new ArrayList<>(transitions)));
+
+        return Collections.unmodifiableCollection(transitions);
+    }
+
+    /** Liefert alle Kanten in der Reihenfolge des Hinzufügens (nicht veränderbar) */
+    public Collection<PetriNetArc> getArcs() {
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null)
+            return concurrent.read(() -> Collections.unmodifiableList(new ArrayList<>(arcs)));
+
+        return Collections.unmodifiableCollection(arcs);
+    }
+
+    /**
+     * Gibt die Menge der aktivierten Transitionen zurück.
+     * <p>
+     * Die Menge ist nicht veränderbar und stets aktuell. Sie wird inkrementell gepflegt: ändert
+     * sich die Markierung einer Stelle, werden nur die Transitionen in ihrem Nachbereich
+     * neu bewertet. Nach strukturellen Änderungen wird sie beim nächsten Zugriff neu aufgebaut.
+     */
+    public Set<PetriNetTransition> getEnabledTransitions() {
+        return enabledTransitionsView;
+    }
+
+    /**
+     * Gibt <code>true</code> zurück falls die Transition dieses Netzes aktiviert ist.
+     * @see PetriNetTransition#isEnabled()
+     */
+    boolean isEnabled(PetriNetTransition transition) {
+        if (transition.net != this)
+            return transition.isEnabledByInputPlaces();
+
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null)
+            return concurrent.read(transition::isEnabledByInputPlaces);
+
+        return getEnabledTransitionsTracker().isEnabled(transition);
+    }
+
+    /** Gibt die Menge aktivierter Transitionen zurück, baut sie bei Bedarf auf */
+    private EnabledTransitions getEnabledTransitionsTracker() {
+        if (enabledTransitions == null)
+            enabledTransitions = new EnabledTransitions(transitions);
+
+        return enabledTransitions;
+    }
+
+    /**
+     * Wird bei strukturellen Änderungen des Netzes aufgerufen.
+     * <p>
+     * Verwirft abgeleitete Zustände, die bei Bedarf neu aufgebaut werden. Im nebenläufigen
+     * Modus muss der Aufrufer die Sperre aus {@link #lockStructure()} halten.
+     */
+    void structureChanged() {
+        ++version;
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null)
+            concurrent.structureChanged();
+
+        placeArray = null;
+        compiledNet = null;
+        snapshot = null;
+        dirtyChunks.clear();
+
+        if (enabledTransitions != null) {
+            enabledTransitions.detach();
+            enabledTransitions = null;
+        }
+    }
+
+    /**
+     * Wird aufgerufen, wenn sich die Markierung der Stelle <b>place</b> dieses Netzes ändert.
+     * <p>
+     * Merkt sich nur den betroffenen Block der Markierung, kopiert wird erst beim nächsten
+     * {@link #snapshot()}.
+     */
+    void markingChanged(PetriNetPlace place) {
+        if (listeners.length != 0)
+            recordChange(changes -> changes.markingChanged(place));
+
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null) {
+            concurrent.markingChanged();
+            return;
+        }
+
+        ++version;
+        if (snapshot == null)
+            return;
+
+        int index = snapshot.getStructure().indexOfPlace(place.getId());
+        if (index >= 0)
+            dirtyChunks.set(PetriNetSnapshot.chunkOf(index));
+    }
+
+    /**
+     * Gibt einen unveränderlichen Stand von Struktur und Markierung zurück, der ohne Sperren
+     * von anderen Threads gelesen werden kann.
+     * <p>
+     * Ohne Änderungen seit dem letzten Aufruf wird derselbe Snapshot zurückgegeben. Nach
+     * Änderungen der Markierung werden nur die Blöcke der geänderten Stellen kopiert, alles
+     * andere teilt der neue Snapshot mit dem vorherigen. Nach strukturellen Änderungen wird
+     * das Netz neu kompiliert. Die Methode muss vom Thread aufgerufen werden, der das Netz
+     * bearbeitet.
+     *
+     * @throws IllegalStateException falls eine Kante einen Knoten referenziert, der nicht zum
+     *         Netz gehört
+     * @see PetriNetSnapshot
+     */
+    public PetriNetSnapshot snapshot() {
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null)
+            return concurrentSnapshot(concurrent);
+
+        if (snapshot == null) {
+            PetriNetPlace[] places = getPlaceArray();
+            int[][] chunks = new int[PetriNetSnapshot.chunkCount(places.length)][];
+            for (int c = 0; c < chunks.length; ++c)
+                chunks[c] = copyChunk(places, c);
+
+            snapshot = new PetriNetSnapshot(getCompiledNet(), chunks, version);
+        } else if (!dirtyChunks.isEmpty()) {
+            PetriNetPlace[] places = getPlaceArray();
+            int[][] chunks = snapshot.getChunks().clone();
+            for (int c = dirtyChunks.nextSetBit(0); c >= 0; c = dirtyChunks.nextSetBit(c + 1))
+                chunks[c] = copyChunk(places, c);
+
+            dirtyChunks.clear();
+            snapshot = new PetriNetSnapshot(snapshot.getStructure(), chunks, version);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Erstellt im nebenläufigen Modus einen vollständigen Snapshot. Die Struktur wird unter
+     * der Lesesperre kompiliert, dann werden alle Markierungen gleichzeitig gesperrt. Der
+     * Snapshot ist daher ein konsistenter Stand zwischen Schaltungen.
+     */
+    private PetriNetSnapshot concurrentSnapshot(ConcurrentMarking concurrent) {
+        CompiledNet structure = concurrent.getCompiledNet(this);
+        PetriNetPlace[] places = placesOf(structure);
+        int[][] chunks = new int[PetriNetSnapshot.chunkCount(places.length)][];
+
+        concurrent.lockAllMarkings();
+        try {
+            for (int c = 0; c < chunks.length; ++c)
+                chunks[c] = copyChunk(places, c);
+
+            return new PetriNetSnapshot(structure, chunks, version + concurrent.getMarkingChanges());
+        } finally {
+            concurrent.unlockAllMarkings();
+        }
+    }
+
+    /** Kopiert die Markierung der Stellen im Block <b>chunk</b> */
+    private static int[] copyChunk(PetriNetPlace[] places, int chunk) {
+        int from = chunk * PetriNetSnapshot.CHUNK_SIZE;
+        int[] tokens = new int[Math.min(PetriNetSnapshot.CHUNK_SIZE, places.length - from)];
+        for (int i = 0; i < tokens.length; ++i)
+            tokens[i] = places[from + i].getMarking();
+
+        return tokens;
     }
 
     /** Entfernt alle Elemente */
     public void clear() {
-        elements.clear();
+        List<PetriNetElement> removed = new ArrayList<>(elements.size());
+        long stamp = lockStructure();
+        try {
+            for (PetriNetElement element : elements.view(PetriNetElement.class)) {
+                if (element.net == this)
+                    element.net = null;
+                removed.add(element);
+            }
+
+            elements.clear();
+            structureChanged();
+        } finally {
+            unlockStructure(stamp);
+        }
+
+        recordRemoved(removed);
+    }
+
+    /** Nimmt die entfernten Elemente <b>removed</b> als eine Änderung auf */
+    private void recordRemoved(List<PetriNetElement> removed) {
+        if (listeners.length == 0 || removed.isEmpty())
+            return;
+
+        recordChange(changes -> {
+            for (PetriNetElement element : removed)
+                changes.elementRemoved(element);
+        });
     }
 
     /**
      * Liefert <code>true</code> falls ein Element mit der gegebenen Id existiert.
      */
     public boolean hasElementById(String id) {
-        return getElementById(id) != null;
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null)
+            return concurrent.read(() -> elements.find(id) >= 0);
+
+        return elements.find(id) >= 0;
     }
 
     /**
@@ -110,15 +627,11 @@ public final class PetriNet implements PNMLable {
      * @return ein {@linkplain PetriNetElement} oder <code>null</code> falls kein Element existiert.
      */
     public PetriNetElement getElementById(String id) {
-        PetriNetElement element = null;
-        for (PetriNetElement el : elements) {
-            if (id.equals(el.getId())) {
-                element = el;
-                break;
-            }
-        }
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null)
+            return concurrent.read(() -> elements.get(id));
 
-        return element;
+        return elements.get(id);
     }
 
     /**
@@ -130,48 +643,284 @@ public final class PetriNet implements PNMLable {
      *
      * @param id Element mit dieser Id wird entfernt
      * @exception IllegalArgumentException wenn kein Element mit der gegebenen Id existiert
+     * @see #removeElements
      */
     public void removeElementById(String id) {
-        if (!hasElementById(id))
-            throw new IllegalArgumentException(String.format("has no element with id '%s'", id));
+        removeElements(Collections.singleton(id));
+    }
 
-        PetriNetElement element = getElementById(id);
-        assert element != null;
+    /**
+     * Entfernt mehrere Elemente in einem Durchgang.
+     * <p>
+     * Verhält sich wie wiederholtes {@link #removeElementById}, aber jeder betroffene Knoten
+     * wird nur einmal bereinigt und das Netz meldet nur eine strukturelle Änderung. Der
+     * Aufwand ist linear in der Anzahl der entfernten Elemente und der Kanten ihrer Knoten.
+     * Kanten entfernter Knoten werden auch bei den verbleibenden Nachbarn entfernt.
+     *
+     * @param ids Ids der zu entfernenden Elemente, Duplikate sind erlaubt
+     * @exception IllegalArgumentException wenn zu einer Id kein Element existiert, das Netz
+     *            bleibt dann unverändert
+     */
+    public void removeElements(Collection<String> ids) {
+        List<PetriNetElement> order = new ArrayList<>();
+        long stamp = lockStructure();
+        try {
+            Set<PetriNetElement> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (String id : ids) {
+                PetriNetElement element = elements.get(id);
+                if (element == null)
+                    throw new IllegalArgumentException(String.format("has no element with id '%s'", id));
+                if (removed.add(element))
+                    order.add(element);
+            }
+            if (removed.isEmpty())
+                return;
 
-        if ( element instanceof PetriNetNode ) {
-            PetriNetNode node = (PetriNetNode) element;
+            // Kanten der Knoten einsammeln, danach sind alle entfernten Kanten bekannt
+            List<PetriNetNode> nodes = new ArrayList<>();
+            for (int i = 0, selected = order.size(); i < selected; ++i) {
+                if (order.get(i) instanceof PetriNetNode) {
+                    PetriNetNode node = (PetriNetNode) order.get(i);
+                    nodes.add(node);
+                    for (PetriNetArc arc : node.inputArcs) {
+                        if (removed.add(arc))
+                            order.add(arc);
+                    }
+                    for (PetriNetArc arc : node.outputArcs) {
+                        if (removed.add(arc))
+                            order.add(arc);
+                    }
+                }
+            }
 
-            Iterator<PetriNetArc> iterator = node.inputArcs.iterator();
-            while (iterator.hasNext()) {
-                PetriNetArc arc = iterator.next();
-                if (hasElementById(arc.getId()))
-                    elements.remove(arc);
-                iterator.remove();
+            // verbleibende Endknoten je einmal bereinigen
+            Set<PetriNetNode> neighbours = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (PetriNetElement element : removed) {
+                if (element instanceof PetriNetArc) {
+                    PetriNetArc arc = (PetriNetArc) element;
+                    if (arc.getSource() != null && !removed.contains(arc.getSource()))
+                        neighbours.add(arc.getSource());
+                    if (arc.getTarget() != null && !removed.contains(arc.getTarget()))
+                        neighbours.add(arc.getTarget());
+                }
             }
+            for (PetriNetNode node : neighbours) {
+                node.inputArcs.removeIf(removed::contains);
+                node.outputArcs.removeIf(removed::contains);
+            }
+            for (PetriNetNode node : nodes) {
+                node.inputArcs.clear();
+                node.outputArcs.clear();
+            }
+
+            for (PetriNetElement element : order)
+                unregisterElement(element);
+            structureChanged();
+            logger.log(Level.INFO, String.format("removed %d elements", removed.size()));
+        } finally {
+            unlockStructure(stamp);
+        }
+
+        recordRemoved(order);
+    }
+
+    /**
+     * Entfernt ein Element aus allen Indizes.
+     * <p>
+     * Das Element wird nur entfernt, falls unter seiner Id dasselbe Element registriert ist.
+     */
+    private void unregisterElement(PetriNetElement element) {
+        final String id = element.getId();
+        if (elements.get(id) != element)
+            return;
+
+        elements.remove(id);
+
+        if (element.net == this)
+            element.net = null;
+    }
+
+    /** Gibt die Stellen als Array zurück, baut es bei Bedarf auf */
+    private PetriNetPlace[] getPlaceArray() {
+        if (placeArray == null)
+            placeArray = places.toArray(new PetriNetPlace[places.size()]);
+
+        return placeArray;
+    }
+
+    /** Gibt die Stellen der kompilierten Struktur <b>structure</b> als Array zurück */
+    private static PetriNetPlace[] placesOf(CompiledNet structure) {
+        PetriNetPlace[] places = new PetriNetPlace[structure.getPlaceCount()];
+        for (int p = 0; p < places.length; ++p)
+            places[p] = structure.getPlace(p);
+
+        return places;
+    }
 
-            iterator = node.outputArcs.iterator();
-            while (iterator.hasNext()) {
-                PetriNetArc arc = iterator.next();
-                if (hasElementById(arc.getId()))
-                    elements.remove(arc);
-                iterator.remove();
+    /** Liest die Markierung der Stellen <b>places</b> */
+    private static int[] readMarking(PetriNetPlace[] places) {
+        int[] tokens = new int[places.length];
+        for (int p = 0; p < places.length; ++p)
+            tokens[p] = places[p].getMarking();
+
+        return tokens;
+    }
+
+    /**
+     * Gibt die aktuelle Markierung aller Stellen zurück.
+     * <p>
+     * Die Reihenfolge entspricht {@link #getPlaces()}. Im nebenläufigen Modus werden dabei
+     * alle Markierungen gesperrt, das Ergebnis ist ein Stand zwischen Schaltungen.
+     */
+    public MarkingVector snapshotMarking() {
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent == null)
+            return MarkingVector.wrap(readMarking(getPlaceArray()));
+
+        PetriNetPlace[] places = placesOf(concurrent.getCompiledNet(this));
+        concurrent.lockAllMarkings();
+        try {
+            return MarkingVector.wrap(readMarking(places));
+        } finally {
+            concurrent.unlockAllMarkings();
+        }
+    }
+
+    /**
+     * Setzt die Markierung aller Stellen.
+     * <p>
+     * Im nebenläufigen Modus werden dabei alle Markierungen gesperrt, gleichzeitige
+     * Schaltungen sehen entweder nur die alte oder nur die neue Markierung.
+     * @param marking Markierung, z.B. aus {@link #snapshotMarking()}
+     * @throws IllegalArgumentException falls die Markierung nicht zu den Stellen des Netzes passt
+     */
+    public void restoreMarking(MarkingVector marking) {
+        ConcurrentMarking concurrent = concurrentMarking;
+        PetriNetPlace[] places = (concurrent != null)
+                ? placesOf(concurrent.getCompiledNet(this)) : getPlaceArray();
+        if (marking.size() != places.length)
+            throw new IllegalArgumentException(String.format(
+                    "marking has %d places, but net has %d", marking.size(), places.length));
+
+        beginUpdate();
+        if (concurrent != null)
+            concurrent.lockAllMarkings();
+        try {
+            for (int p = 0; p < places.length; ++p)
+                places[p].setMarking(marking.get(p));
+        } finally {
+            if (concurrent != null)
+                concurrent.unlockAllMarkings();
+            endUpdate();
+        }
+    }
+
+    /**
+     * Kompiliert das Netz in eine unveränderliche, indexbasierte Ausführungsform.
+     * @throws IllegalStateException falls eine Kante einen Knoten referenziert, der nicht zum
+     *         Netz gehört
+     * @see CompiledNet
+     */
+    public CompiledNet compile() {
+        return new CompiledNet(this);
+    }
+
+    /**
+     * Schaltet eine Folge von Transitionen.
+     * <p>
+     * Die Transitionen werden über ihren Index in {@link #getTransitions()} angegeben. Die
+     * Folge wird einmal validiert und dann auf einer {@link CompiledNet kompilierten} Form
+     * ausgeführt, bis alle Schritte geschaltet sind oder ein Schritt nicht aktiviert ist.
+     * Die erreichte Markierung wird anschließend in die Stellen geschrieben.
+     *
+     * @param sequence Transitionsindizes
+     * @throws IllegalArgumentException falls ein Index ungültig ist
+     * @throws IllegalStateException falls eine Kante einen Knoten referenziert, der nicht zum
+     *         Netz gehört
+     */
+    public FiringSequenceResult fireSequence(int[] sequence) {
+        CompiledNet net = getCompiledNet();
+        for (int step = 0; step < sequence.length; ++step) {
+            if (sequence[step] < 0 || sequence[step] >= net.getTransitionCount())
+                throw new IllegalArgumentException(String.format(
+                        "invalid transition index %d at step %d", sequence[step], step));
+        }
+
+        return fireValidatedSequence(net, sequence);
+    }
+
+    /**
+     * Schaltet eine Folge von Transitionen.
+     * <p>
+     * Die Ids werden einmalig aufgelöst, danach verhält sich diese Methode wie
+     * {@link #fireSequence(int[])}.
+     *
+     * @param sequence Ids der Transitionen
+     * @throws IllegalArgumentException falls eine Id zu keiner Transition gehört
+     */
+    public FiringSequenceResult fireSequence(List<String> sequence) {
+        CompiledNet net = getCompiledNet();
+        int[] indexes = new int[sequence.size()];
+        int step = 0;
+        for (String id : sequence) {
+            indexes[step] = net.indexOfTransition(id);
+            if (indexes[step] < 0)
+                throw new IllegalArgumentException(String.format(
+                        "has no transition with id '%s' (step %d)", id, step));
+            ++step;
+        }
+
+        return fireValidatedSequence(net, indexes);
+    }
+
+    /**
+     * Führt eine bereits validierte Schaltfolge aus. Im nebenläufigen Modus sind alle
+     * Markierungen vom Lesen bis zum Zurückschreiben gesperrt.
+     */
+    private FiringSequenceResult fireValidatedSequence(CompiledNet net, int[] sequence) {
+        ConcurrentMarking concurrent = concurrentMarking;
+        int[] marking;
+        int step = 0;
+
+        beginUpdate();
+        if (concurrent != null)
+            concurrent.lockAllMarkings();
+        try {
+            marking = readMarking((concurrent != null) ? placesOf(net) : getPlaceArray());
+            while (step < sequence.length && net.isEnabled(sequence[step], marking)) {
+                net.fire(sequence[step], marking);
+                ++step;
             }
-        } else if (element instanceof PetriNetArc) {
-            PetriNetArc arc = (PetriNetArc) element;
 
-            arc.getSource().outputArcs.remove(arc);
-            arc.getTarget().inputArcs.remove(arc);
+            net.writeBack(marking);
+        } finally {
+            if (concurrent != null)
+                concurrent.unlockAllMarkings();
+            endUpdate();
         }
+        return new FiringSequenceResult(sequence.length, step, MarkingVector.wrap(marking));
+    }
+
+    /**
+     * Gibt die kompilierte Struktur zurück, baut sie bei Bedarf auf. Im nebenläufigen Modus
+     * wird sie unter der Lesesperre der Struktur kompiliert.
+     */
+    private CompiledNet getCompiledNet() {
+        ConcurrentMarking concurrent = concurrentMarking;
+        if (concurrent != null)
+            return concurrent.getCompiledNet(this);
+
+        if (compiledNet == null)
+            compiledNet = compile();
 
-        elements.remove(element);
-        logger.log(Level.INFO, "removed element: " + element.getId());
+        return compiledNet;
     }
 
     /** {@inheritDoc} */
     public String toPNML() {
-        String elementsXml = "";
-        for (PetriNetElement element : elements) {
-            elementsXml += element.toPNML() + "\n";
+        StringBuilder elementsXml = new StringBuilder();
+        for (PetriNetElement element : elements.view(PetriNetElement.class)) {
+            elementsXml.append(element.toPNML()).append("\n");
         }
 
         return "<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"no\"?>\n" +
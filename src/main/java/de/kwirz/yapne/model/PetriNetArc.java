@@ -14,6 +14,9 @@ public final class PetriNetArc extends PetriNetElement {
     /** Zielknoten */
     private PetriNetNode target = null;
 
+    /** Kantengewicht, Anzahl der Marken die beim Schalten über diese Kante fließen */
+    private int weight = 1;
+
     /**
      * Erstellt eine Kante
      * @param id Kennung dieser Kante
@@ -31,7 +34,8 @@ public final class PetriNetArc extends PetriNetElement {
      * Setzt den Quellknoten.
      * <p>Diese Kante wird bei dem Knoten <b>source</b> als Ausgangskante gesetzt, falls
      * ein Quellknoten bereits gesetzt ist, wird diese Kante aus seiner Ausgangskantenliste
-     * entfernt und er wird überschrieben.
+     * entfernt und er wird überschrieben. Gehört die Kante zu einem Netz, wird die Änderung
+     * als umgehängte Kante gemeldet.
      * @param source Quellknoten
      * @throws IllegalArgumentException falls Quell- und Zielknoten vom selben Typ sind
      */
@@ -42,13 +46,28 @@ public final class PetriNetArc extends PetriNetElement {
         if (this.target != null && source != null && target.getClass().equals(source.getClass()))
             throw new IllegalArgumentException("source cannot be of same type as target");
 
-        if (this.source != null)
-            this.source.removeOutputArc(this);
-
-        this.source = source;
-
-        if (this.source != null)
-            this.source.addOutputArc(this);
+        PetriNet owner = net;
+        if (owner != null)
+            owner.beginUpdate();
+        long stamp = (owner != null) ? owner.lockStructure() : 0;
+        try {
+            if (this.source != null)
+                this.source.removeOutputArc(this);
+
+            this.source = source;
+
+            if (this.source != null)
+                this.source.addOutputArc(this);
+            if (this.target != null)
+                this.target.inputArcs.neighbourChanged(this);
+            if (owner != null)
+                owner.arcReconnected(this);
+        } finally {
+            if (owner != null) {
+                owner.unlockStructure(stamp);
+                owner.endUpdate();
+            }
+        }
     }
 
     /** Gibt Zielknoten zurück  */
@@ -60,7 +79,8 @@ public final class PetriNetArc extends PetriNetElement {
      * Setzt den Zielknoten.
      * <p>Diese Kante wird bei dem Knoten <b>target</b> als Eingangskante gesetzt, falls
      * ein Zielknoten bereits gesetzt ist, wird diese Kante aus seiner Eingangskantenliste
-     * entfernt und er wird überschrieben.
+     * entfernt und er wird überschrieben. Gehört die Kante zu einem Netz, wird die Änderung
+     * als umgehängte Kante gemeldet.
      * @param target Zielknoten
      * @throws IllegalArgumentException falls Quell- und Zielknoten vom selben Typ sind
      */
@@ -71,20 +91,83 @@ public final class PetriNetArc extends PetriNetElement {
         if (this.source != null && target != null && source.getClass().equals(target.getClass()))
             throw new IllegalArgumentException("target cannot be of same type as source");
 
-        if (this.target != null)
-            this.target.removeInputArc(this);
+        PetriNet owner = net;
+        if (owner != null)
+            owner.beginUpdate();
+        long stamp = (owner != null) ? owner.lockStructure() : 0;
+        try {
+            if (this.target != null)
+                this.target.removeInputArc(this);
+
+            this.target = target;
+
+            if (this.target != null)
+                this.target.addInputArc(this);
+            if (this.source != null)
+                this.source.outputArcs.neighbourChanged(this);
+            if (owner != null)
+                owner.arcReconnected(this);
+        } finally {
+            if (owner != null) {
+                owner.unlockStructure(stamp);
+                owner.endUpdate();
+            }
+        }
+    }
+
+    /** Gibt das Kantengewicht zurück */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Setzt das Kantengewicht
+     * @throws IllegalArgumentException falls <b>weight</b> kleiner als 1 ist
+     */
+    public void setWeight(int weight) {
+        if (weight < 1)
+            throw new IllegalArgumentException("weight must be positive");
 
-        this.target = target;
+        if (this.weight == weight)
+            return;
 
-        if (this.target != null)
-            this.target.addInputArc(this);
+        PetriNet owner = net;
+        long stamp = (owner != null) ? owner.lockStructure() : 0;
+        try {
+            this.weight = weight;
+
+            if (owner != null)
+                owner.structureChanged();
+        } finally {
+            if (owner != null)
+                owner.unlockStructure(stamp);
+        }
+
+        PetriNet targetNet = (target != null) ? target.net : null;
+        if (targetNet != null && targetNet != owner) {
+            stamp = targetNet.lockStructure();
+            try {
+                targetNet.structureChanged();
+            } finally {
+                targetNet.unlockStructure(stamp);
+            }
+        }
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Das Gewicht wird nur als <b>inscription</b> ausgegeben, falls es von 1 abweicht.
+     */
     @Override
     public String toPNML() {
-        return String.format("<arc id=\"%s\" source=\"%s\" target=\"%s\"> </arc>", getId(),
-                getSource()!=null?getSource().getId():"", getTarget()!=null?getTarget().getId():"");
+        String inscription = (weight == 1) ? " " : String.format("\n<inscription>\n" +
+                "<value>%d</value>\n" +
+                "</inscription>\n", weight);
+
+        return String.format("<arc id=\"%s\" source=\"%s\" target=\"%s\">%s</arc>", getId(),
+                getSource()!=null?getSource().getId():"", getTarget()!=null?getTarget().getId():"",
+                inscription);
     }
 
     /** {@inheritDoc} */
@@ -94,6 +177,7 @@ public final class PetriNetArc extends PetriNetElement {
                 .appendSuper(super.toString())
                 .append("target", target)
                 .append("source", source)
+                .append("weight", weight)
                 .toString();
     }
 
@@ -0,0 +1,200 @@
+package de.kwirz.yapne.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Zusammengefasste Änderungen eines {@link PetriNet}.
+ * <p>
+ * Jedes Element kommt je Kategorie höchstens einmal vor, in der Reihenfolge der ersten
+ * Änderung. Die Änderungen sind so zusammengefasst, dass ein Empfänger sie in der Reihenfolge
+ * entfernt, hinzugefügt, umgehängt, Markierung, Position auf seinen Stand anwenden kann:
+ * <ul>
+ *     <li>ein in der Transaktion hinzugefügtes und wieder entferntes Element erscheint gar nicht</li>
+ *     <li>ein entferntes und wieder hinzugefügtes Element erscheint in beiden Listen</li>
+ *     <li>hinzugefügte Elemente erscheinen nicht zusätzlich als umgehängt, markiert oder
+ *     verschoben, entfernte Elemente nur als entfernt</li>
+ * </ul>
+ *
+ * @see PetriNetListener
+ */
+public final class PetriNetChangeEvent {
+
+    /** Geändertes Netz */
+    private final PetriNet net;
+
+    /** Hinzugefügte Elemente */
+    private final List<PetriNetElement> added;
+
+    /** Entfernte Elemente */
+    private final List<PetriNetElement> removed;
+
+    /** Kanten mit geändertem Quell- oder Zielknoten */
+    private final List<PetriNetArc> reconnected;
+
+    /** Stellen mit geänderter Markierung */
+    private final List<PetriNetPlace> markingChanged;
+
+    /** Knoten mit geänderter Position */
+    private final List<PetriNetNode> moved;
+
+    private PetriNetChangeEvent(Recorder recorder) {
+        net = recorder.net;
+        added = recorder.added.build();
+        removed = recorder.removed.build();
+        reconnected = recorder.reconnected.build();
+        markingChanged = recorder.markingChanged.build();
+        moved = recorder.moved.build();
+    }
+
+    /** Gibt das geänderte Netz zurück */
+    public PetriNet getNet() {
+        return net;
+    }
+
+    /** Gibt die hinzugefügten Elemente zurück (nicht veränderbar) */
+    public List<PetriNetElement> getAddedElements() {
+        return added;
+    }
+
+    /** Gibt die entfernten Elemente zurück (nicht veränderbar) */
+    public List<PetriNetElement> getRemovedElements() {
+        return removed;
+    }
+
+    /** Gibt die Kanten mit geändertem Quell- oder Zielknoten zurück (nicht veränderbar) */
+    public List<PetriNetArc> getReconnectedArcs() {
+        return reconnected;
+    }
+
+    /** Gibt die Stellen mit geänderter Markierung zurück (nicht veränderbar) */
+    public List<PetriNetPlace> getChangedPlaces() {
+        return markingChanged;
+    }
+
+    /** Gibt die Knoten mit geänderter Position zurück (nicht veränderbar) */
+    public List<PetriNetNode> getMovedNodes() {
+        return moved;
+    }
+
+    /** Gibt <code>true</code> zurück falls sich die Struktur des Netzes geändert hat */
+    public boolean isStructural() {
+        return !added.isEmpty() || !removed.isEmpty() || !reconnected.isEmpty();
+    }
+
+    /** Gibt <code>true</code> zurück falls das Ereignis keine Änderungen enthält */
+    public boolean isEmpty() {
+        return !isStructural() && markingChanged.isEmpty() && moved.isEmpty();
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("PetriNetChangeEvent { added: %d, removed: %d, reconnected: %d, " +
+                        "markingChanged: %d, moved: %d }", added.size(), removed.size(),
+                reconnected.size(), markingChanged.size(), moved.size());
+    }
+
+    /**
+     * Sammelt die Änderungen einer Transaktion.
+     * <p>
+     * Mitgliedschaft wird über Identität geprüft, entfernte Einträge werden erst in
+     * {@link #build()} herausgefiltert. Dadurch kostet jede Änderung konstante Zeit.
+     */
+    static final class Recorder {
+
+        private final PetriNet net;
+
+        private final Category<PetriNetElement> added = new Category<>();
+        private final Category<PetriNetElement> removed = new Category<>();
+        private final Category<PetriNetArc> reconnected = new Category<>();
+        private final Category<PetriNetPlace> markingChanged = new Category<>();
+        private final Category<PetriNetNode> moved = new Category<>();
+
+        Recorder(PetriNet net) {
+            this.net = net;
+        }
+
+        /** Gibt <code>true</code> zurück falls keine Änderungen gesammelt wurden */
+        boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && reconnected.isEmpty() &&
+                    markingChanged.isEmpty() && moved.isEmpty();
+        }
+
+        void elementAdded(PetriNetElement element) {
+            added.add(element);
+        }
+
+        void elementRemoved(PetriNetElement element) {
+            reconnected.remove(element);
+            markingChanged.remove(element);
+            moved.remove(element);
+            if (!added.remove(element))
+                removed.add(element);
+        }
+
+        void arcReconnected(PetriNetArc arc) {
+            if (!added.contains(arc))
+                reconnected.add(arc);
+        }
+
+        void markingChanged(PetriNetPlace place) {
+            if (!added.contains(place))
+                markingChanged.add(place);
+        }
+
+        void nodeMoved(PetriNetNode node) {
+            if (!added.contains(node))
+                moved.add(node);
+        }
+
+        /** Erstellt das Ereignis */
+        PetriNetChangeEvent build() {
+            return new PetriNetChangeEvent(this);
+        }
+    }
+
+    /** Geordnete Menge von Elementen, nach Identität verglichen */
+    private static final class Category<E> {
+
+        /** Elemente in der Reihenfolge der ersten Aufnahme, kann entfernte enthalten */
+        private final List<E> order = new ArrayList<>();
+
+        /** Aktuell enthaltene Elemente */
+        private final Set<E> members = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        boolean isEmpty() {
+            return members.isEmpty();
+        }
+
+        boolean contains(Object element) {
+            return members.contains(element);
+        }
+
+        void add(E element) {
+            if (members.add(element))
+                order.add(element);
+        }
+
+        boolean remove(Object element) {
+            return members.remove(element);
+        }
+
+        /** Gibt die enthaltenen Elemente in Reihenfolge zurück, ohne Duplikate */
+        List<E> build() {
+            if (members.isEmpty())
+                return Collections.emptyList();
+
+            Set<E> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<E> result = new ArrayList<>(members.size());
+            for (E element : order) {
+                if (members.contains(element) && seen.add(element))
+                    result.add(element);
+            }
+            return Collections.unmodifiableList(result);
+        }
+    }
+}
@@ -31,6 +31,13 @@ public abstract class PetriNetElement implements PNMLable {
      */
     private final String id;
 
+    /**
+     * Netz, dem dieses Element hinzugefügt wurde, oder <code>null</code>.
+     * <p>
+     * Wird von {@link PetriNet} gepflegt.
+     */
+    PetriNet net = null;
+
     /**
      * Erstellt eine Instanz von PetriNetElement
      * @param id Kennung, ist eine Read-Only Eigenschaft
@@ -0,0 +1,20 @@
+package de.kwirz.yapne.model;
+
+/**
+ * Empfängt Änderungen eines {@link PetriNet}.
+ * <p>
+ * Änderungen innerhalb einer Transaktion ({@link PetriNet#beginUpdate()} bis
+ * {@link PetriNet#endUpdate()}) werden zu einem Ereignis zusammengefasst, sonst wird jede
+ * Änderung einzeln gemeldet.
+ *
+ * @see PetriNet#addListener(PetriNetListener)
+ */
+@FunctionalInterface
+public interface PetriNetListener {
+
+    /**
+     * Wird nach einer Änderung bzw. am Ende einer Transaktion aufgerufen
+     * @param event zusammengefasste Änderungen, nie leer
+     */
+    void netChanged(PetriNetChangeEvent event);
+}
@@ -5,7 +5,7 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.logging.Level;
@@ -29,19 +29,19 @@ public abstract class PetriNetNode extends PetriNetElement {
     private String name = "";
 
     /**
-     * Knotenposition
+     * Knotenposition, als Koordinaten statt als eigenes {@link Position} Objekt
      */
-    private Position position = new Position();
+    private int x = 0, y = 0;
 
     /**
-     * Eingangskanten
+     * Eingangskanten, ab einem hohen Grad nach Quellknoten indiziert
      */
-    protected List<PetriNetArc> inputArcs = new ArrayList<>();
+    protected ArcList inputArcs = new ArcList(true);
 
     /**
-     * Ausgangskanten
+     * Ausgangskanten, ab einem hohen Grad nach Zielknoten indiziert
      */
-    protected List<PetriNetArc> outputArcs = new ArrayList<>();
+    protected ArcList outputArcs = new ArcList(false);
 
 
     /**
@@ -211,17 +211,67 @@ public abstract class PetriNetNode extends PetriNetElement {
     }
 
     /**
-     * Gibt die Position zurück
+     * Gibt die Position zurück.
+     * <p>
+     * Die Koordinaten werden im Knoten selbst gespeichert, zurückgegeben wird bei jedem Aufruf
+     * eine neue Kopie. Anders als früher wirken sich {@link Position#setX} und
+     * {@link Position#setY} auf dem Ergebnis daher nicht mehr auf den Knoten aus, Änderungen
+     * gehen über {@link #setPosition(int, int)} bzw. {@link #setPosition(Position)}. Wer nur
+     * die Koordinaten braucht, vermeidet die Kopie mit {@link #getX()} und {@link #getY()}.
      */
     public Position getPosition() {
-        return position;
+        return new Position(x, y);
     }
 
     /**
-     * Setzt die Position
+     * Setzt die Position, die Koordinaten werden übernommen
      */
     public void setPosition(Position position) {
-        this.position = position;
+        setPosition(position.getX(), position.getY());
+    }
+
+    /**
+     * Setzt die Position ohne ein {@link Position} Objekt zu erzeugen
+     * @throws IllegalArgumentException falls x oder y ist negativ
+     */
+    public void setPosition(int x, int y) {
+        if (x < 0 || y < 0)
+            throw new IllegalArgumentException("negative values are not accepted");
+        if (this.x == x && this.y == y)
+            return;
+
+        this.x = x;
+        this.y = y;
+        if (net != null)
+            net.nodeMoved(this);
+    }
+
+    /**
+     * Gibt die X-Koordinate zurück
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Gibt die Y-Koordinate zurück
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Gibt die Eingangskanten zurück (nicht veränderbar)
+     */
+    public List<PetriNetArc> getInputArcs() {
+        return Collections.unmodifiableList(inputArcs);
+    }
+
+    /**
+     * Gibt die Ausgangskanten zurück (nicht veränderbar)
+     */
+    public List<PetriNetArc> getOutputArcs() {
+        return Collections.unmodifiableList(outputArcs);
     }
 
     /**
@@ -234,11 +284,8 @@ public abstract class PetriNetNode extends PetriNetElement {
      * @see #addArc(PetriNetArc arc, ArcType arcType)
      */
     public void addInputArc(PetriNetArc arc) {
-        for (PetriNetArc inputArc : inputArcs ) {
-            if ( inputArc.getSource() != null && arc.getSource() == inputArc.getSource()) {
-                throw new IllegalArgumentException("nodes are already connected");
-            }
-        }
+        if (inputArcs.findByNeighbour(arc.getSource()) != null)
+            throw new IllegalArgumentException("nodes are already connected");
 
         addArc(arc, ArcType.INPUT_ARC);
     }
@@ -253,12 +300,8 @@ public abstract class PetriNetNode extends PetriNetElement {
      * @see #addArc(PetriNetArc arc, ArcType arcType)
      */
     public void addOutputArc(PetriNetArc arc) {
-        for (PetriNetArc outputArc : outputArcs) {
-            if (arc.getTarget() != null && outputArc.getTarget() != null &&
-                    arc.getTarget() == outputArc.getTarget()) {
-                throw new IllegalArgumentException("nodes are already connected");
-            }
-        }
+        if (outputArcs.findByNeighbour(arc.getTarget()) != null)
+            throw new IllegalArgumentException("nodes are already connected");
 
         addArc(arc, ArcType.OUTPUT_ARC);
     }
@@ -271,17 +314,26 @@ public abstract class PetriNetNode extends PetriNetElement {
      * @param arcType Kantentyp
      */
     private void addArc(PetriNetArc arc, ArcType arcType) {
-        List<PetriNetArc> arcs = (arcType == ArcType.INPUT_ARC)?inputArcs:outputArcs;
-
-        if (arcs.contains(arc)) {
-            logger.log(Level.WARNING,
-                    String.format("arc '%s' is already an %s arc of node '%s'",
-                            arc.getId(), arcType.toString(), getId()));
-        } else {
-            arcs.add(arc);
-            logger.log(Level.INFO,
-                    String.format("added %s arc '%s' to node '%s'",
-                            arcType.toString(), arc.getId(), getId()));
+        ArcList arcs = (arcType == ArcType.INPUT_ARC)?inputArcs:outputArcs;
+
+        PetriNet owner = net;
+        long stamp = (owner != null) ? owner.lockStructure() : 0;
+        try {
+            if (arcs.contains(arc)) {
+                logger.log(Level.WARNING,
+                        String.format("arc '%s' is already an %s arc of node '%s'",
+                                arc.getId(), arcType.toString(), getId()));
+            } else {
+                arcs.add(arc);
+                logger.log(Level.INFO,
+                        String.format("added %s arc '%s' to node '%s'",
+                                arcType.toString(), arc.getId(), getId()));
+                if (owner != null)
+                    owner.structureChanged();
+            }
+        } finally {
+            if (owner != null)
+                owner.unlockStructure(stamp);
         }
 
         if (arcType == ArcType.INPUT_ARC) {
@@ -321,19 +373,28 @@ public abstract class PetriNetNode extends PetriNetElement {
      * @param arcType Kantentyp
      */
     private void removeArc(PetriNetArc arc, ArcType arcType) {
-        List<PetriNetArc> arcs = (arcType == ArcType.INPUT_ARC)?inputArcs:outputArcs;
+        ArcList arcs = (arcType == ArcType.INPUT_ARC)?inputArcs:outputArcs;
+
+        PetriNet owner = net;
+        long stamp = (owner != null) ? owner.lockStructure() : 0;
+        try {
+            if (!arcs.contains(arc)) {
+                logger.log(Level.WARNING, String.format("no such arc '%s' in %s arcs of node '%s'",
+                        arc.getId(), arcType.toString(), getId()));
+                return;
+            }
 
-        if (!arcs.contains(arc)) {
-            logger.log(Level.WARNING, String.format("no such arc '%s' in %s arcs of node '%s'",
-                    arc.getId(), arcType.toString(), getId()));
-            return;
+            assert arcs.contains(arc);
+            arcs.remove(arc);
+            logger.log(Level.INFO, String.format("removed %s arc '%s' from node '%s'",
+                            arcType.toString(), arc.getId(), getId()));
+            if (owner != null)
+                owner.structureChanged();
+        } finally {
+            if (owner != null)
+                owner.unlockStructure(stamp);
         }
 
-        assert arcs.contains(arc);
-        arcs.remove(arc);
-        logger.log(Level.INFO, String.format("removed %s arc '%s' from node '%s'",
-                        arcType.toString(), arc.getId(), getId()));
-
         if (arcType == ArcType.INPUT_ARC) {
             if (arc.getTarget() == this)
                 arc.setTarget(null);
@@ -356,7 +417,8 @@ public abstract class PetriNetNode extends PetriNetElement {
                 .append(inputArcs, that.inputArcs)
                 .append(name, that.name)
                 .append(outputArcs, that.outputArcs)
-                .append(position, that.position)
+                .append(x, that.x)
+                .append(y, that.y)
                 .isEquals();
     }
 
@@ -367,7 +429,8 @@ public abstract class PetriNetNode extends PetriNetElement {
     public int hashCode() {
         return new HashCodeBuilder(31, 17)
                 .append(name)
-                .append(position)
+                .append(x)
+                .append(y)
                 .append(inputArcs)
                 .append(outputArcs)
                 .hashCode();
@@ -381,7 +444,7 @@ public abstract class PetriNetNode extends PetriNetElement {
         return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
                 .appendSuper(super.toString())
                 .append("name", name)
-                .append("position", position)
+                .append("position", getPosition())
                 .toString();
     }
 
@@ -8,8 +8,13 @@ import org.apache.commons.lang3.builder.ToStringStyle;
  */
 public final class PetriNetPlace extends PetriNetNode {
 
-    /** Stellenmarkierung */
-    private int marking = 0;
+    /**
+     * Stellenmarkierung.
+     * <p>
+     * Im nebenläufigen Modus wird sie nur unter der Sperre ihres Streifens geändert und kann
+     * ohne Sperre gelesen werden.
+     */
+    private volatile int marking = 0;
 
     /**
      * Erstellt eine Stelle
@@ -32,7 +37,52 @@ public final class PetriNetPlace extends PetriNetNode {
         if (marking < 0)
             throw new IllegalArgumentException("marking cannot be negative");
 
+        PetriNet owner = net;
+        ConcurrentMarking concurrent = (owner != null) ? owner.getConcurrentMarking() : null;
+        if (concurrent == null) {
+            applyMarking(marking);
+            return;
+        }
+
+        // Änderung erst nach Freigabe der Sperre des Streifens melden
+        boolean batch = owner.hasListeners();
+        if (batch)
+            owner.beginUpdate();
+        try {
+            concurrent.setMarking(this, marking);
+        } finally {
+            if (batch)
+                owner.endUpdate();
+        }
+    }
+
+    /**
+     * Setzt die gültige Markierung <b>marking</b> und benachrichtigt Transitionen und Netz.
+     * Im nebenläufigen Modus muss der Aufrufer die Sperre des Streifens halten.
+     */
+    void applyMarking(int marking) {
+        int oldMarking = this.marking;
         this.marking = marking;
+
+        if (oldMarking != marking) {
+            // im nebenläufigen Modus wird die Aktivierung nicht inkrementell gepflegt
+            if (net == null || !net.isConcurrent())
+                notifyOutputTransitions(oldMarking);
+            if (net != null)
+                net.markingChanged(this);
+        }
+    }
+
+    /**
+     * Teilt allen Transitionen im Nachbereich die Änderung der Markierung mit.
+     * @param oldMarking Markierung vor der Änderung
+     */
+    private void notifyOutputTransitions(int oldMarking) {
+        for (PetriNetArc arc : outputArcs) {
+            PetriNetNode target = arc.getTarget();
+            if (target instanceof PetriNetTransition)
+                ((PetriNetTransition) target).inputMarkingChanged(arc, oldMarking, marking);
+        }
     }
 
     /** {@inheritDoc} */
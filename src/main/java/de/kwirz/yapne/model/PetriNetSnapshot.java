@@ -0,0 +1,140 @@
+package de.kwirz.yapne.model;
+
+/**
+ * Unveränderlicher Stand eines {@link PetriNet}: Struktur und Markierung zum Zeitpunkt von
+ * {@link PetriNet#snapshot()}.
+ * <p>
+ * Ein Snapshot kann ohne Sperren und ohne Kopien von beliebigen Threads gelesen werden,
+ * während das Netz weiter bearbeitet wird. Aufeinanderfolgende Snapshots teilen sich alles,
+ * was sich dazwischen nicht geändert hat: die {@link CompiledNet kompilierte} Struktur wird
+ * nur nach strukturellen Änderungen neu aufgebaut, die Markierung ist in Blöcke zu
+ * {@value #CHUNK_SIZE} Stellen aufgeteilt und nur die Blöcke mit geänderten Stellen werden
+ * kopiert. Namen, Positionen und Zeitparameter der Knoten sind nicht Teil des Snapshots.
+ * <pre>
+ *  PetriNetSnapshot snapshot = net.snapshot();
+ *  executor.submit(() -&gt; DeadlockFinder.create(snapshot.getNet()).find());
+ * </pre>
+ */
+public final class PetriNetSnapshot {
+
+    /** Anzahl der Stellen je Block der Markierung */
+    static final int CHUNK_SIZE = 64;
+
+    /** Kompilierte Struktur, wird mit anderen Snapshots geteilt */
+    private final CompiledNet structure;
+
+    /** Markierung in Blöcken, unveränderte Blöcke werden mit anderen Snapshots geteilt */
+    private final int[][] chunks;
+
+    /** Versionsnummer des Netzes */
+    private final long version;
+
+    /** Ausführungsform mit der Markierung dieses Snapshots, wird bei Bedarf erstellt */
+    private volatile CompiledNet net = null;
+
+    /**
+     * Erstellt einen Snapshot
+     * @param chunks Blöcke der Markierung, werden übernommen und dürfen danach nicht mehr
+     *               verändert werden
+     */
+    PetriNetSnapshot(CompiledNet structure, int[][] chunks, long version) {
+        this.structure = structure;
+        this.chunks = chunks;
+        this.version = version;
+    }
+
+    /** Gibt den Block der Stelle mit dem Index <b>place</b> zurück */
+    static int chunkOf(int place) {
+        return place / CHUNK_SIZE;
+    }
+
+    /** Gibt die Anzahl der Blöcke für <b>places</b> Stellen zurück */
+    static int chunkCount(int places) {
+        return (places + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /** Gibt die kompilierte Struktur zurück */
+    CompiledNet getStructure() {
+        return structure;
+    }
+
+    /** Gibt die Blöcke der Markierung zurück (nicht verändern) */
+    int[][] getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Gibt die Versionsnummer zurück. Sie wächst mit jeder Änderung des Netzes, zwei
+     * Snapshots mit gleicher Version beschreiben denselben Stand.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Gibt die Anzahl der Stellen zurück */
+    public int getPlaceCount() {
+        return structure.getPlaceCount();
+    }
+
+    /** Gibt die Anzahl der Transitionen zurück */
+    public int getTransitionCount() {
+        return structure.getTransitionCount();
+    }
+
+    /** Gibt die Markenanzahl der Stelle mit dem Index <b>place</b> zurück */
+    public int getTokens(int place) {
+        return chunks[chunkOf(place)][place % CHUNK_SIZE];
+    }
+
+    /**
+     * Gibt die Markenanzahl der Stelle <b>placeId</b> zurück
+     * @throws IllegalArgumentException falls die Stelle nicht existiert
+     */
+    public int getTokens(String placeId) {
+        int place = structure.indexOfPlace(placeId);
+        if (place < 0)
+            throw new IllegalArgumentException("unknown place: " + placeId);
+        return getTokens(place);
+    }
+
+    /**
+     * Gibt die Markierung zurück.
+     * <p>
+     * Die Reihenfolge entspricht {@link PetriNet#getPlaces()} zum Zeitpunkt des Snapshots.
+     */
+    public MarkingVector getMarking() {
+        return MarkingVector.wrap(flatten());
+    }
+
+    /**
+     * Gibt die Ausführungsform des Netzes mit der Markierung dieses Snapshots als
+     * Anfangsmarkierung zurück. Sie teilt alle Arrays mit der Struktur des Netzes und kann
+     * direkt an Analysen und Simulationen übergeben werden.
+     * <p>
+     * {@link CompiledNet#writeBack} schreibt in die Stellen des lebenden Netzes und darf
+     * nur vom Thread verwendet werden, der das Netz bearbeitet.
+     */
+    public CompiledNet getNet() {
+        CompiledNet result = net;
+        if (result == null)
+            net = result = new CompiledNet(structure, flatten());
+
+        return result;
+    }
+
+    /** Fügt die Blöcke zu einer Markierung zusammen */
+    private int[] flatten() {
+        int[] marking = new int[structure.getPlaceCount()];
+        for (int c = 0; c < chunks.length; ++c)
+            System.arraycopy(chunks[c], 0, marking, c * CHUNK_SIZE, chunks[c].length);
+
+        return marking;
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("PetriNetSnapshot { version: %d, places: %d, transitions: %d }",
+                version, getPlaceCount(), getTransitionCount());
+    }
+}
@@ -1,7 +1,5 @@
 package de.kwirz.yapne.model;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.logging.Level;
 
 /**
@@ -9,6 +7,50 @@ import java.util.logging.Level;
  */
 public final class PetriNetTransition extends PetriNetNode {
 
+    /** Standardrate für stochastische Simulation */
+    public static final double DEFAULT_RATE = 1.0;
+
+    /** Name des Werkzeugs in <b>toolspecific</b> Elementen */
+    public static final String TOOL_NAME = "YAPNE";
+
+    /** Zeitverhalten mit Standardwerten, wird von allen Transitionen ohne eigene Werte geteilt */
+    private static final Timing DEFAULT_TIMING = new Timing(DEFAULT_RATE, 0, 0);
+
+    /** Zeitverhalten, nur bei abweichenden Werten ein eigenes Objekt */
+    private Timing timing = DEFAULT_TIMING;
+
+    /** Rate und Schaltverzögerung einer Transition, unveränderlich */
+    private static final class Timing {
+
+        /** Rate der exponentiell verteilten Schaltverzögerung */
+        final double rate;
+
+        /** Untere Grenze der Schaltverzögerung für zeitbehaftete Simulation */
+        final double minDelay;
+
+        /** Obere Grenze der Schaltverzögerung für zeitbehaftete Simulation */
+        final double maxDelay;
+
+        Timing(double rate, double minDelay, double maxDelay) {
+            this.rate = rate;
+            this.minDelay = minDelay;
+            this.maxDelay = maxDelay;
+        }
+    }
+
+    /**
+     * Anzahl der Eingangsstellen, die zu wenige Marken tragen.
+     * <p>
+     * Nur gültig, solange {@link #enabledTransitions} gesetzt ist.
+     */
+    int unsatisfiedInputPlaces = 0;
+
+    /** Verfolgt die Aktivierung dieser Transition, oder <code>null</code> */
+    EnabledTransitions enabledTransitions = null;
+
+    /** Zwischengespeicherter Bereich für den nebenläufigen Modus, oder <code>null</code> */
+    ConcurrentMarking.Footprint footprint = null;
+
     /**
      * Erstellt eine Transition
      * @param id Kennung
@@ -17,9 +59,71 @@ public final class PetriNetTransition extends PetriNetNode {
         super(id);
     }
 
-    /** {@inheritDoc} */
+    /** Gibt die Rate der exponentiell verteilten Schaltverzögerung zurück */
+    public double getRate() {
+        return timing.rate;
+    }
+
+    /**
+     * Setzt die Rate der exponentiell verteilten Schaltverzögerung, die mittlere Verzögerung
+     * ist <code>1 / rate</code>
+     * @throws IllegalArgumentException falls <b>rate</b> nicht positiv und endlich ist
+     */
+    public void setRate(double rate) {
+        if (!(rate > 0) || Double.isInfinite(rate))
+            throw new IllegalArgumentException("rate must be positive and finite");
+
+        timing = new Timing(rate, timing.minDelay, timing.maxDelay);
+    }
+
+    /** Gibt die untere Grenze der Schaltverzögerung zurück */
+    public double getMinDelay() {
+        return timing.minDelay;
+    }
+
+    /** Gibt die obere Grenze der Schaltverzögerung zurück */
+    public double getMaxDelay() {
+        return timing.maxDelay;
+    }
+
+    /**
+     * Setzt eine feste Schaltverzögerung
+     * @throws IllegalArgumentException falls <b>delay</b> negativ oder nicht endlich ist
+     */
+    public void setDelay(double delay) {
+        setDelay(delay, delay);
+    }
+
+    /**
+     * Setzt das Intervall der Schaltverzögerung: die Transition schaltet nach einer in
+     * [<b>min</b>, <b>max</b>] gleichverteilten Zeit, seit sie aktiviert wurde
+     * @throws IllegalArgumentException falls eine Grenze negativ oder nicht endlich ist oder
+     *         <b>min</b> größer als <b>max</b> ist
+     */
+    public void setDelay(double min, double max) {
+        if (!(min >= 0) || Double.isInfinite(max) || !(min <= max))
+            throw new IllegalArgumentException("invalid delay interval [" + min + ", " + max + "]");
+
+        timing = new Timing(timing.rate, min, max);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Rate und Schaltverzögerung werden nur als <b>toolspecific</b> Element ausgegeben, falls
+     * sie von den Standardwerten abweichen.
+     */
     @Override
     public String toPNML() {
+        Timing timing = this.timing;
+        String rateXml = (timing.rate == DEFAULT_RATE) ? "" : String.format("<rate>%s</rate>\n", Double.toString(timing.rate));
+        String delayXml = (timing.minDelay == 0 && timing.maxDelay == 0) ? "" : String.format("<delay min=\"%s\" max=\"%s\" />\n",
+                Double.toString(timing.minDelay), Double.toString(timing.maxDelay));
+        String toolSpecific = (rateXml.isEmpty() && delayXml.isEmpty()) ? "" : String.format(
+                "<toolspecific tool=\"%s\" version=\"1.0\">\n" +
+                "%s%s" +
+                "</toolspecific>\n", TOOL_NAME, rateXml, delayXml);
+
         return String.format("<transition id=\"%s\">\n" +
                 "<name>\n" +
                 "<value>%s</value>\n" +
@@ -27,7 +131,8 @@ public final class PetriNetTransition extends PetriNetNode {
                 "<graphics>\n" +
                 "%s\n" +
                 "</graphics>\n" +
-                "</transition>", getId(), getName(), getPosition().toPNML());
+                "%s" +
+                "</transition>", getId(), getName(), getPosition().toPNML(), toolSpecific);
     }
 
     /**
@@ -36,75 +141,109 @@ public final class PetriNetTransition extends PetriNetNode {
      * Eine Transition ist aktiviert falls:
      * <ul>
      *     <li>keine Eingangsstellen vorhanden</li>
-     *     <li>jede ihrer Eingangsstellen wenigstens eine Marke trägt</li>
+     *     <li>jede ihrer Eingangsstellen wenigstens so viele Marken trägt, wie das Gewicht
+     *     der Eingangskante angibt</li>
      * </ul>
-     *
+     * Gehört die Transition zu einem Netz, wird der inkrementell gepflegte Zustand des Netzes
+     * abgefragt.
+     * @see PetriNet#getEnabledTransitions()
      */
     public boolean isEnabled() {
-        for (PetriNetPlace place : getInputPlaces()) {
-            if (place.getMarking() < 1)
+        if (net != null)
+            return net.isEnabled(this);
+
+        return isEnabledByInputPlaces();
+    }
+
+    /**
+     * Prüft die Aktivierung anhand der Markierungen aller Eingangsstellen.
+     */
+    boolean isEnabledByInputPlaces() {
+        for (PetriNetArc arc : inputArcs) {
+            PetriNetNode node = arc.getSource();
+            if (node instanceof PetriNetPlace && ((PetriNetPlace) node).getMarking() < arc.getWeight())
                 return false;
         }
 
         return true;
     }
 
-    /** Gibt alle Eingangsstellen zurück. */
-    private List<PetriNetPlace> getInputPlaces() {
-        List<PetriNetPlace> places = new ArrayList<>();
-
-        if (inputArcs != null) {
-            for (PetriNetArc arc : inputArcs) {
-                PetriNetNode node = arc.getSource();
-                if (node instanceof PetriNetPlace) {
-                    PetriNetPlace place = (PetriNetPlace) node;
-                    places.add(place);
-                }
-            }
-        }
-
-        return places;
+    /**
+     * Wird von einer Eingangsstelle aufgerufen, wenn sich ihre Markierung geändert hat.
+     * @param arc Kante von der Eingangsstelle zu dieser Transition
+     */
+    void inputMarkingChanged(PetriNetArc arc, int oldMarking, int newMarking) {
+        if (enabledTransitions != null)
+            enabledTransitions.inputMarkingChanged(this, arc, oldMarking, newMarking);
     }
 
     /**
      * Schaltet die Transition
      * <p>
      * Damit die Schaltung erfolgt muss diese Transition aktiviert sein
+     * @see #tryOccur()
      */
     public void occur() {
-        if (!isEnabled()) {
+        if (!tryOccur())
             logger.log(Level.WARNING, "transition is not enabled, nothing to do...");
-            return;
-        }
-
-        if (!inputArcs.isEmpty())
-            decrementMarkingOfInputPlaces();
+    }
 
-        if (!outputArcs.isEmpty())
-            incrementMarkingOfOutputPlaces();
+    /**
+     * Schaltet die Transition, falls sie aktiviert ist.
+     * <p>
+     * Im {@link PetriNet#setConcurrent(boolean) nebenläufigen Modus} werden Prüfung und
+     * Schaltung atomar unter den Sperren aller beteiligten Stellen ausgeführt, mehrere Threads
+     * können dann gleichzeitig Transitionen desselben Netzes schalten. Die Änderungen werden
+     * als ein Ereignis gemeldet, nach Freigabe der Sperren.
+     * @return <code>true</code> falls die Transition geschaltet hat
+     */
+    public boolean tryOccur() {
+        PetriNet owner = net;
+        ConcurrentMarking concurrent = (owner != null) ? owner.getConcurrentMarking() : null;
+        if (concurrent == null && !isEnabled())
+            return false;
+
+        // alle Änderungen der Markierung als ein Ereignis melden
+        boolean batch = owner != null && owner.hasListeners();
+        if (batch)
+            owner.beginUpdate();
+        try {
+            if (concurrent != null)
+                return concurrent.occur(this);
+
+            if (!inputArcs.isEmpty())
+                decrementMarkingOfInputPlaces();
+
+            if (!outputArcs.isEmpty())
+                incrementMarkingOfOutputPlaces();
+        } finally {
+            if (batch)
+                owner.endUpdate();
+        }
+        return true;
     }
 
     /**
-     * Inkrementiert Markierungen aller Ausgangsstellen
+     * Inkrementiert Markierungen aller Ausgangsstellen um das jeweilige Kantengewicht
      */
     private void incrementMarkingOfOutputPlaces() {
         for (PetriNetArc outputArc : outputArcs) {
             assert outputArc.getTarget() instanceof PetriNetPlace;
 
             PetriNetPlace place = (PetriNetPlace) outputArc.getTarget();
-            place.setMarking(place.getMarking() + 1);
+            place.setMarking(place.getMarking() + outputArc.getWeight());
         }
     }
 
     /**
-     * Decrementiert Markierungen aller Eingangsstellen.
+     * Decrementiert Markierungen aller Eingangsstellen um das jeweilige Kantengewicht.
      */
     private void decrementMarkingOfInputPlaces() {
         for (PetriNetArc inputArc : inputArcs) {
             assert inputArc.getSource() instanceof PetriNetPlace;
             PetriNetPlace place = (PetriNetPlace) inputArc.getSource();
-            assert place.getMarking() > 0;
-            place.setMarking(place.getMarking() - 1);
+            assert place.getMarking() >= inputArc.getWeight();
+            place.setMarking(place.getMarking() - inputArc.getWeight());
         }
     }
 
@@ -339,7 +339,7 @@ public abstract class PetriNetNodePresentation
         PetriNetNode model = (PetriNetNode) getModel();
 
         model.setName(getLabel());
-        model.setPosition(new PetriNetNode.Position((int) getCenterX(), (int) getCenterY()));
+        model.setPosition((int) getCenterX(), (int) getCenterY());
     }
 
     /**
@@ -355,8 +355,8 @@ public abstract class PetriNetNodePresentation
         PetriNetNode model = (PetriNetNode) getModel();
 
         setLabel(model.getName());
-        setCenterX(model.getPosition().getX());
-        setCenterY(model.getPosition().getY());
+        setCenterX(model.getX());
+        setCenterY(model.getY());
     }
 
 }
@@ -3,6 +3,7 @@ package de.kwirz.yapne.presentation;
 import de.kwirz.yapne.model.*;
 import de.kwirz.yapne.utils.Settings;
 import de.kwirz.yapne.utils.Utils;
+import javafx.application.Platform;
 import javafx.event.EventHandler;
 import javafx.geometry.Point2D;
 import javafx.scene.Node;
@@ -45,11 +46,17 @@ public class PetriNetPresentation extends Pane {
     /** Id's aktuell ausgewählter Elemente */
     private Set<String> selectedElements = new HashSet<>();
 
+    /** Präsentationen nach ihrer (normalisierten) Id, wird in {@link #reload()} aufgebaut */
+    private final Map<String, Node> presentations = new HashMap<>();
+
+    /** Aktualisiert die Präsentationen bei Änderungen des Models */
+    private final PetriNetListener modelListener = this::modelChanged;
+
     /**
      * Erstellt eine <b>PetriNetPresentation</b>
      */
     public PetriNetPresentation() {
-
+        model.addListener(modelListener);
     }
 
     /**
@@ -57,10 +64,45 @@ public class PetriNetPresentation extends Pane {
      * Modelelemente werden neu gezeichnet
      */
     public void setModel(PetriNet model) {
+        this.model.removeListener(modelListener);
         this.model = model;
+        this.model.addListener(modelListener);
         reload();
     }
 
+    /**
+     * Wird bei Änderungen des Models aufgerufen.
+     * <p>
+     * Strukturelle Änderungen zeichnen alles neu. Bei geänderten Markierungen werden nur die
+     * Stellen und die Transitionen in ihrem Nachbereich aktualisiert, bei geänderten
+     * Positionen nur die verschobenen Knoten.
+     */
+    private void modelChanged(PetriNetChangeEvent event) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> modelChanged(event));
+            return;
+        }
+
+        if (event.isStructural()) {
+            reload();
+            return;
+        }
+
+        Set<PetriNetNode> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PetriNetPlace place : event.getChangedPlaces()) {
+            changed.add(place);
+            for (PetriNetArc arc : place.getOutputArcs())
+                changed.add(arc.getTarget());
+        }
+        changed.addAll(event.getMovedNodes());
+
+        for (PetriNetNode node : changed) {
+            Node presentation = presentations.get(normalizeId(node.getId()));
+            if (presentation instanceof PetriNetElementPresentation)
+                ((PetriNetElementPresentation) presentation).syncFromModel();
+        }
+    }
+
     /**
      * Erstellt Präsentationen aus den Modelelementen und zeichnet sie.
      * <p>
@@ -76,6 +118,7 @@ public class PetriNetPresentation extends Pane {
      */
     public void reload() {
         getChildren().clear();
+        presentations.clear();
 
         double strokeWidth = getStrokeWidthFromSettings();
         double nodeSize = getNodeSizeFormSettings();
@@ -84,7 +127,7 @@ public class PetriNetPresentation extends Pane {
         for (final String id : model.getIds()) {
             PetriNetElement element = model.getElementById(id);
             assert element != null;
-            assert lookup("#" + element.getId()) == null;
+            assert !presentations.containsKey(normalizeId(id));
 
             PetriNetElementPresentation presentation = null;
             if (element instanceof PetriNetPlace) {
@@ -93,9 +136,6 @@ public class PetriNetPresentation extends Pane {
                         .size(nodeSize)
                         .strokeWidth(strokeWidth)
                         .build();
-                ((PetriNetPlacePresentation) presentation).markingProperty().addListener((observableValue, number, t1) -> {
-                    reload();
-                });
             } else if (element instanceof PetriNetTransition) {
                 presentation = PetriNetTransitionPresentationBuilder.create()
                         .model(element)
@@ -107,7 +147,7 @@ public class PetriNetPresentation extends Pane {
             if (presentation != null) {
                 ((Node) presentation).setId(normalizeId(id));
                 getChildren().add((Node) presentation);
-                ((Node) presentation).addEventHandler(OccurrenceEvent.OCCURRED, event -> reload());
+                presentations.put(normalizeId(id), (Node) presentation);
             }
         }
 
@@ -120,9 +160,9 @@ public class PetriNetPresentation extends Pane {
                 continue;
 
             PetriNetNodePresentation source =
-                    (PetriNetNodePresentation) lookup("#" + normalizeId(((PetriNetArc) element).getSource().getId()));
+                    (PetriNetNodePresentation) presentations.get(normalizeId(((PetriNetArc) element).getSource().getId()));
             PetriNetNodePresentation target =
-                    (PetriNetNodePresentation)  lookup("#" + normalizeId(((PetriNetArc) element).getTarget().getId()));
+                    (PetriNetNodePresentation) presentations.get(normalizeId(((PetriNetArc) element).getTarget().getId()));
 
             assert source != null && target != null;
 
@@ -135,6 +175,7 @@ public class PetriNetPresentation extends Pane {
 
             presentation.setId(normalizeId(id));
             getChildren().add(presentation);
+            presentations.put(normalizeId(id), presentation);
         }
 
         setOnMouseDraggedForEachElement(mouseDraggedEventHandler);
@@ -178,7 +219,7 @@ public class PetriNetPresentation extends Pane {
     /**
      * Erstellt eine Stelle und fügt sie dem Model hinzu.
      * <p>
-     * Um Änderungen sichtbar zu machen werden Präsentationen neu gezeichnet.
+     * Die Präsentationen werden über das Änderungsereignis des Models neu gezeichnet.
      * @see #reload()
      * @param x X-Koordinate
      * @param y Y-Koordinate
@@ -186,10 +227,9 @@ public class PetriNetPresentation extends Pane {
     public void createPlace(double x, double y) {
         PetriNetPlace place = new PetriNetPlace(generateValidElementName("place"));
         place.setName(place.getId());
-        place.setPosition(new PetriNetNode.Position((int)x, (int)y));
+        place.setPosition((int)x, (int)y);
         
         model.addElement(place);
-        reload();
     }
 
     /**
@@ -209,7 +249,7 @@ public class PetriNetPresentation extends Pane {
         final int MAX_LOOKUPS = 1000;
         for (int i = 1; i < MAX_LOOKUPS; ++i) {
             String name = suffix + String.valueOf(i);
-            if (lookup("#" + name) == null)
+            if (!presentations.containsKey(name))
                 return name;
         }
         return suffix + String.valueOf(new Random().nextInt());
@@ -218,7 +258,7 @@ public class PetriNetPresentation extends Pane {
     /**
      * Erstellt eine Transition und fügt sie dem Model hinzu.
      * <p>
-     * Um Änderungen sichtbar zu machen werden Präsentationen neu gezeichnet.
+     * Die Präsentationen werden über das Änderungsereignis des Models neu gezeichnet.
      * @see #reload()
      * @param x X-Koordinate
      * @param y Y-Koordinate
@@ -226,16 +266,15 @@ public class PetriNetPresentation extends Pane {
     public void createTransition(double x, double y) {
         PetriNetTransition transition = new PetriNetTransition(generateValidElementName("trans"));
         transition.setName(transition.getId());
-        transition.setPosition(new PetriNetNode.Position((int)x , (int)y));
+        transition.setPosition((int)x , (int)y);
 
         model.addElement(transition);
-        reload();
     }
 
     /**
      * Erstellt eine Transition und fügt sie dem Model hinzu.
      * <p>
-     * Um Änderungen sichtbar zu machen werden Präsentationen neu gezeichnet.
+     * Die Präsentationen werden über das Änderungsereignis des Models neu gezeichnet.
      * @see #reload()
      * @param point X,Y-Koordinaten
      */
@@ -246,7 +285,7 @@ public class PetriNetPresentation extends Pane {
     /**
      * Erstellt eine Kante und fügt sie dem Model hinzu.
      * <p>
-     * Um Änderungen sichtbar zu machen werden Präsentationen neu gezeichnet.
+     * Die Präsentationen werden über das Änderungsereignis des Models neu gezeichnet.
      * @see #reload()
      * @param source Präsentation des Quellknotens
      * @param target Präsentation des Zielknotens
@@ -257,7 +296,6 @@ public class PetriNetPresentation extends Pane {
         arc.setTarget((PetriNetNode) target.getModel());
 
         model.addElement(arc);
-        reload();
     }
 
     /**
@@ -277,7 +315,7 @@ public class PetriNetPresentation extends Pane {
      * @param id Element zum auswählen
      */
     public void selectElementById(String id) {
-        Node node = lookup("#" + id);
+        Node node = presentations.get(id);
         if (node == null) {
             logger.log(Level.WARNING, "no node with id '" + id + "' found");
             return;
@@ -308,7 +346,7 @@ public class PetriNetPresentation extends Pane {
      * @param id Id des Elements
      */
     private void unselectElementById(String id) {
-        Node node = lookup("#" + id);
+        Node node = presentations.get(id);
         if (node == null) {
             logger.log(Level.WARNING, "no node with id '" + id + "' found");
         } else {
@@ -331,24 +369,22 @@ public class PetriNetPresentation extends Pane {
 
     /**
      * Entfernt ausgewähltes Element
-     * <p>Element wird aus dem Model entfernt und anschließend neu gezeichnet.
+     * <p>Alle Elemente werden in einem Durchgang aus dem Model entfernt, das Model meldet
+     * dies als eine Änderung und die Präsentationen werden einmal neu gezeichnet.
      */
     public void removeSelectedElements() {
-        selectedElements.forEach(this::removeElementById);
-
-        selectedElements.clear();
-        reload();
-    }
-
-    private void removeElementById(String id) {
-        Node node = lookup("#" + id);
-
-        if (node == null) {
-            logger.log(Level.WARNING, "couldn't found node with id " + id);
-            return;
+        List<String> ids = new ArrayList<>(selectedElements.size());
+        for (String id : selectedElements) {
+            Node node = presentations.get(id);
+            if (node == null) {
+                logger.log(Level.WARNING, "couldn't found node with id " + id);
+                continue;
+            }
+            ids.add(((PetriNetElementPresentation) node).getModel().getId());
         }
 
-        getModel().removeElementById(((PetriNetElementPresentation) node).getModel().getId());
+        selectedElements.clear();
+        getModel().removeElements(ids);
     }
 
 
@@ -378,17 +414,22 @@ public class PetriNetPresentation extends Pane {
         deltaX = Utils.ensureRange(deltaX, OFFSET - minX, deltaX);
         deltaY = Utils.ensureRange(deltaY, OFFSET - minY, deltaY);
 
-        for (PetriNetNodePresentation node : nodes) {
-            double x = node.getCenterX() + deltaX;
-            double y = node.getCenterY() + deltaY;
+        model.beginUpdate();
+        try {
+            for (PetriNetNodePresentation node : nodes) {
+                double x = node.getCenterX() + deltaX;
+                double y = node.getCenterY() + deltaY;
 
-            x = Utils.ensureRange(x, OFFSET, x);
-            y = Utils.ensureRange(y, OFFSET, y);
+                x = Utils.ensureRange(x, OFFSET, x);
+                y = Utils.ensureRange(y, OFFSET, y);
 
-            node.setCenterX(x);
-            node.setCenterY(y);
+                node.setCenterX(x);
+                node.setCenterY(y);
 
-            node.syncToModel();
+                node.syncToModel();
+            }
+        } finally {
+            model.endUpdate();
         }
     }
 
@@ -410,7 +451,7 @@ public class PetriNetPresentation extends Pane {
         List<PetriNetElementPresentation> elements = new ArrayList<>();
 
         for (String id : selectedElements) {
-            Node node = lookup("#" + id);
+            Node node = presentations.get(id);
             if (node != null) {
                 elements.add((PetriNetElementPresentation) node);
             } else {
@@ -427,7 +468,7 @@ public class PetriNetPresentation extends Pane {
     public void clear() {
         model.clear();
         getChildren().clear();
-        reload();
+        presentations.clear();
     }
 
     /**
@@ -0,0 +1,283 @@
+package de.kwirz.yapne.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Ereignisliste als Kalender-Warteschlange (calendar queue, Brown 1988).
+ * <p>
+ * Die Zeitachse wird in Tage der Breite {@link #width} eingeteilt, ein Jahr besteht aus so
+ * vielen Tagen wie es Buckets gibt. Ein Ereignis liegt im Bucket seines Tages modulo der
+ * Bucketanzahl, jeder Bucket ist eine nach Zeit sortierte Liste. Das nächste Ereignis wird
+ * gefunden, indem ab dem aktuellen Tag die Buckets nach einem Ereignis des jeweiligen Tages
+ * durchsucht werden. Die Anzahl der Buckets wird verdoppelt bzw. halbiert, sobald sie nicht
+ * mehr zur Anzahl der Ereignisse passt, die Tagesbreite wird dabei aus den Abständen der
+ * nächsten Ereignisse geschätzt. Einfügen und Entnehmen kosten so amortisiert O(1).
+ * <p>
+ * Ereignisse bestehen aus einem Zeitpunkt und einem <code>long</code> Wert und werden in
+ * primitiven Arrays gespeichert, freie Einträge werden wiederverwendet. Ereignisse mit
+ * gleichem Zeitpunkt werden in der Reihenfolge des Einfügens entnommen. Jeder Bucket kennt
+ * sein letztes Ereignis, ein Ereignis, das nicht vor diesem liegt, wird ohne Durchlaufen der
+ * Liste angehängt. Viele gleichzeitige Ereignisse, etwa bei festen Verzögerungen, kosten so
+ * ebenfalls O(1) je Ereignis.
+ */
+final class CalendarQueue {
+
+    /** Kennzeichnet das Ende einer Liste */
+    private static final int NONE = -1;
+
+    /** Minimale Anzahl der Buckets */
+    private static final int MINIMUM_BUCKETS = 16;
+
+    /** Anzahl der Ereignisse, aus denen die Tagesbreite geschätzt wird */
+    private static final int SAMPLE = 32;
+
+    /** Zeitpunkte der Ereignisse */
+    private double[] times;
+
+    /** Werte der Ereignisse */
+    private long[] values;
+
+    /** Nächstes Ereignis im Bucket bzw. in der Freiliste */
+    private int[] next;
+
+    /** Anfang der Freiliste */
+    private int free = NONE;
+
+    /** Anzahl der jemals belegten Einträge */
+    private int used = 0;
+
+    /** Erstes Ereignis je Bucket */
+    private int[] buckets;
+
+    /** Letztes Ereignis je Bucket, nur gültig, falls der Bucket nicht leer ist */
+    private int[] tails;
+
+    /** Breite eines Tages */
+    private double width = 1.0;
+
+    /** Aktueller Tag, kein Ereignis liegt vor diesem Tag */
+    private long day = 0;
+
+    /** Anzahl der Ereignisse */
+    private int size = 0;
+
+    /**
+     * Erstellt eine leere Warteschlange
+     */
+    CalendarQueue() {
+        times = new double[64];
+        values = new long[64];
+        next = new int[64];
+        buckets = new int[MINIMUM_BUCKETS];
+        tails = new int[MINIMUM_BUCKETS];
+        Arrays.fill(buckets, NONE);
+    }
+
+    /** Gibt die Anzahl der Ereignisse zurück */
+    int size() {
+        return size;
+    }
+
+    /** Gibt <code>true</code> zurück falls keine Ereignisse vorhanden sind */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Entfernt alle Ereignisse */
+    void clear() {
+        Arrays.fill(buckets, NONE);
+        free = NONE;
+        used = 0;
+        size = 0;
+        day = 0;
+    }
+
+    /**
+     * Fügt ein Ereignis ein
+     * @param time Zeitpunkt, nicht kleiner als der Zeitpunkt des zuletzt entnommenen Ereignisses
+     * @param value Wert des Ereignisses
+     */
+    void add(double time, long value) {
+        int event = allocate();
+        times[event] = time;
+        values[event] = value;
+
+        long eventDay = dayOf(time);
+        if (size == 0 || eventDay < day)
+            day = eventDay;
+
+        insert(event, bucketOf(eventDay));
+        if (++size > 2 * buckets.length)
+            resize(buckets.length * 2);
+    }
+
+    /**
+     * Gibt den Zeitpunkt des nächsten Ereignisses zurück, oder
+     * {@link Double#POSITIVE_INFINITY} falls keine Ereignisse vorhanden sind
+     */
+    double peekTime() {
+        return size == 0 ? Double.POSITIVE_INFINITY : times[buckets[findBucket()]];
+    }
+
+    /** Gibt den Wert des nächsten Ereignisses zurück, die Warteschlange darf nicht leer sein */
+    long peekValue() {
+        return values[buckets[findBucket()]];
+    }
+
+    /**
+     * Entfernt das nächste Ereignis
+     * @return Wert des Ereignisses, dessen Zeitpunkt vorher mit {@link #peekTime()} abgefragt
+     *         werden kann
+     */
+    long poll() {
+        int bucket = findBucket();
+        int event = buckets[bucket];
+        buckets[bucket] = next[event];
+        long value = values[event];
+
+        next[event] = free;
+        free = event;
+        if (--size < buckets.length / 2 && buckets.length > MINIMUM_BUCKETS)
+            resize(buckets.length / 2);
+        return value;
+    }
+
+    /**
+     * Sucht ab dem aktuellen Tag den Bucket mit dem nächsten Ereignis und setzt den aktuellen
+     * Tag auf dessen Tag
+     */
+    private int findBucket() {
+        for (int i = 0; i < buckets.length; ++i) {
+            int bucket = bucketOf(day);
+            int head = buckets[bucket];
+            if (head != NONE && dayOf(times[head]) == day)
+                return bucket;
+            ++day;
+        }
+
+        // ein ganzes Jahr ohne Ereignis: direkt das früheste Ereignis suchen
+        int best = NONE;
+        for (int bucket = 0; bucket < buckets.length; ++bucket) {
+            int head = buckets[bucket];
+            if (head != NONE && (best == NONE || times[head] < times[buckets[best]]))
+                best = bucket;
+        }
+        day = dayOf(times[buckets[best]]);
+        return best;
+    }
+
+    /** Fügt das Ereignis sortiert in die Liste des Buckets ein, hinter Ereignisse mit gleichem Zeitpunkt */
+    private void insert(int event, int bucket) {
+        double time = times[event];
+        int head = buckets[bucket];
+        if (head == NONE) {
+            next[event] = NONE;
+            buckets[bucket] = tails[bucket] = event;
+            return;
+        }
+        if (time < times[head]) {
+            next[event] = head;
+            buckets[bucket] = event;
+            return;
+        }
+
+        int previous = tails[bucket];
+        if (time < times[previous]) {
+            previous = head;
+            while (times[next[previous]] <= time)
+                previous = next[previous];
+        }
+        next[event] = next[previous];
+        next[previous] = event;
+        if (next[event] == NONE)
+            tails[bucket] = event;
+    }
+
+    /** Gibt einen freien Eintrag zurück */
+    private int allocate() {
+        if (free != NONE) {
+            int event = free;
+            free = next[event];
+            return event;
+        }
+
+        if (used == times.length) {
+            int capacity = times.length * 2;
+            times = Arrays.copyOf(times, capacity);
+            values = Arrays.copyOf(values, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return used++;
+    }
+
+    /** Gibt den Tag des Zeitpunkts <b>time</b> zurück */
+    private long dayOf(double time) {
+        return (long) Math.floor(time / width);
+    }
+
+    /** Gibt den Bucket des Tages <b>day</b> zurück */
+    private int bucketOf(long day) {
+        return (int) Math.floorMod(day, (long) buckets.length);
+    }
+
+    /** Verteilt alle Ereignisse auf <b>count</b> Buckets mit neu geschätzter Tagesbreite */
+    private void resize(int count) {
+        int[] events = new int[size];
+        int n = 0;
+        for (int head : buckets) {
+            for (int event = head; event != NONE; event = next[event])
+                events[n++] = event;
+        }
+
+        width = estimateWidth(events);
+        buckets = new int[count];
+        tails = new int[count];
+        Arrays.fill(buckets, NONE);
+
+        // Ereignisse mit gleichem Zeitpunkt lagen in derselben Liste und landen wieder in
+        // derselben, das sortierte Einfügen erhält ihre Reihenfolge
+        double earliest = Double.POSITIVE_INFINITY;
+        for (int event : events) {
+            earliest = Math.min(earliest, times[event]);
+            insert(event, bucketOf(dayOf(times[event])));
+        }
+        day = n == 0 ? 0 : dayOf(earliest);
+    }
+
+    /**
+     * Schätzt die Tagesbreite als dreifachen mittleren Abstand der frühesten Ereignisse,
+     * gleiche Zeitpunkte werden dabei nicht gezählt
+     */
+    private double estimateWidth(int[] events) {
+        double[] sample = new double[Math.min(SAMPLE, events.length)];
+        int n = 0;
+        for (int event : events) {
+            double time = times[event];
+            if (n < sample.length) {
+                sample[n++] = time;
+                if (n == sample.length)
+                    Arrays.sort(sample);
+            } else if (time < sample[n - 1]) {
+                int i = n - 1;
+                while (i > 0 && sample[i - 1] > time) {
+                    sample[i] = sample[i - 1];
+                    --i;
+                }
+                sample[i] = time;
+            }
+        }
+        if (n < sample.length)
+            Arrays.sort(sample, 0, n);
+
+        double sum = 0;
+        int gaps = 0;
+        for (int i = 1; i < n; ++i) {
+            double gap = sample[i] - sample[i - 1];
+            if (gap > 0) {
+                sum += gap;
+                ++gaps;
+            }
+        }
+        return gaps == 0 ? width : 3 * sum / gaps;
+    }
+}
@@ -0,0 +1,104 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.CompiledNet;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Strategie, nach der im Tokenspiel unter mehreren aktivierten Transitionen die schaltende
+ * gewählt wird.
+ * <p>
+ * Strategien können einen Zustand haben (z.B. einen Zufallszahlengenerator) und sollten nicht
+ * von mehreren Simulatoren gleichzeitig verwendet werden.
+ *
+ * @see TokenGameSimulator
+ */
+public interface ConflictPolicy {
+
+    /**
+     * Wird einmal aufgerufen, bevor die Strategie für das Netz <b>net</b> verwendet wird
+     * @throws IllegalArgumentException falls die Strategie nicht zum Netz passt
+     */
+    default void attach(CompiledNet net) {
+    }
+
+    /**
+     * Wählt eine der aktivierten Transitionen
+     * @param enabled Indizes der aktivierten Transitionen in beliebiger Reihenfolge
+     * @param count Anzahl der aktivierten Transitionen, mindestens 1
+     * @return Index der schaltenden Transition, muss in <b>enabled</b> enthalten sein
+     */
+    int select(int[] enabled, int count);
+
+    /** Gleichverteilte Wahl mit zufälligem Startwert */
+    static ConflictPolicy uniform() {
+        return uniform(new SplittableRandom());
+    }
+
+    /** Gleichverteilte Wahl mit dem Startwert <b>seed</b> */
+    static ConflictPolicy uniform(long seed) {
+        return uniform(new SplittableRandom(seed));
+    }
+
+    /** Gleichverteilte Wahl mit dem Zufallszahlengenerator <b>random</b> */
+    static ConflictPolicy uniform(SplittableRandom random) {
+        return (enabled, count) -> enabled[random.nextInt(count)];
+    }
+
+    /**
+     * Wählt die aktivierte Transition mit der höchsten Priorität, bei gleicher Priorität die
+     * mit dem kleinsten Index. Die Wahl durchsucht alle aktivierten Transitionen.
+     * @param priorities Priorität je Transitionsindex
+     * @throws IllegalArgumentException beim Anhängen, falls die Anzahl der Prioritäten nicht
+     *         mit der Anzahl der Transitionen übereinstimmt
+     */
+    static ConflictPolicy priority(int... priorities) {
+        return new PriorityPolicy(priorities.clone(), null);
+    }
+
+    /**
+     * Wählt die aktivierte Transition mit der höchsten Priorität, bei gleicher Priorität die
+     * mit dem kleinsten Index
+     * @param priorities Priorität je Transitions-Id, nicht angegebene Transitionen haben die
+     *                   Priorität 0
+     * @throws IllegalArgumentException beim Anhängen, falls eine Transition nicht existiert
+     */
+    static ConflictPolicy priority(Map<String, Integer> priorities) {
+        return new PriorityPolicy(null, priorities);
+    }
+
+    /**
+     * Wählt reihum: die aktivierte Transition, deren Index als nächster auf den Index der
+     * zuletzt gewählten folgt (zyklisch). Die Wahl durchsucht alle aktivierten Transitionen.
+     */
+    static ConflictPolicy roundRobin() {
+        return new ConflictPolicy() {
+            private int transitions = 0;
+            private int last = -1;
+
+            @Override
+            public void attach(CompiledNet net) {
+                transitions = net.getTransitionCount();
+                last = -1;
+            }
+
+            @Override
+            public int select(int[] enabled, int count) {
+                int best = enabled[0];
+                int bestDistance = Integer.MAX_VALUE;
+                for (int i = 0; i < count; ++i) {
+                    int distance = enabled[i] - last - 1;
+                    if (distance < 0)
+                        distance += transitions;
+                    if (distance < bestDistance) {
+                        best = enabled[i];
+                        bestDistance = distance;
+                    }
+                }
+                last = best;
+                return best;
+            }
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.CompiledNet;
+
+/**
+ * Statistische Zusammenfassung aller Replikationen eines Ensembles.
+ *
+ * @see MonteCarloEnsemble
+ */
+public final class EnsembleResult {
+
+    /** Das simulierte Netz */
+    private final CompiledNet net;
+
+    /** Anzahl der Replikationen */
+    private final int replications;
+
+    /** Simulierte Zeit je Replikation */
+    private final double horizon;
+
+    /** Markenanzahl am Horizont, je Stelle */
+    private final Statistic[] finalTokens;
+
+    /** Zeitgemittelte Markenanzahl, je Stelle */
+    private final Statistic[] averageTokens;
+
+    /** Anzahl der Schaltungen, je Transition */
+    private final Statistic[] firings;
+
+    /** Anzahl der Replikationen, die vor dem Horizont verklemmt sind */
+    private final long deadlocked;
+
+    /**
+     * Erstellt eine Zusammenfassung
+     */
+    EnsembleResult(CompiledNet net, int replications, double horizon, Statistic[] finalTokens,
+                   Statistic[] averageTokens, Statistic[] firings, long deadlocked) {
+        this.net = net;
+        this.replications = replications;
+        this.horizon = horizon;
+        this.finalTokens = finalTokens;
+        this.averageTokens = averageTokens;
+        this.firings = firings;
+        this.deadlocked = deadlocked;
+    }
+
+    /** Gibt das simulierte Netz zurück */
+    public CompiledNet getNet() {
+        return net;
+    }
+
+    /** Gibt die Anzahl der Replikationen zurück */
+    public int getReplicationCount() {
+        return replications;
+    }
+
+    /** Gibt die simulierte Zeit je Replikation zurück */
+    public double getHorizon() {
+        return horizon;
+    }
+
+    /** Gibt die Markenanzahl der Stelle mit dem Index <b>place</b> am Horizont zurück */
+    public Statistic getFinalTokens(int place) {
+        return finalTokens[place];
+    }
+
+    /**
+     * Gibt die Markenanzahl der Stelle <b>placeId</b> am Horizont zurück
+     * @throws IllegalArgumentException falls die Stelle nicht existiert
+     */
+    public Statistic getFinalTokens(String placeId) {
+        return finalTokens[placeIndex(placeId)];
+    }
+
+    /** Gibt die über die Zeit gemittelte Markenanzahl der Stelle mit dem Index <b>place</b> zurück */
+    public Statistic getAverageTokens(int place) {
+        return averageTokens[place];
+    }
+
+    /**
+     * Gibt die über die Zeit gemittelte Markenanzahl der Stelle <b>placeId</b> zurück
+     * @throws IllegalArgumentException falls die Stelle nicht existiert
+     */
+    public Statistic getAverageTokens(String placeId) {
+        return averageTokens[placeIndex(placeId)];
+    }
+
+    /** Gibt die Anzahl der Schaltungen der Transition mit dem Index <b>transition</b> zurück */
+    public Statistic getFiringCount(int transition) {
+        return firings[transition];
+    }
+
+    /**
+     * Gibt die Anzahl der Schaltungen der Transition <b>transitionId</b> zurück
+     * @throws IllegalArgumentException falls die Transition nicht existiert
+     */
+    public Statistic getFiringCount(String transitionId) {
+        return firings[transitionIndex(transitionId)];
+    }
+
+    /** Gibt den Durchsatz (Schaltungen pro Zeiteinheit) der Transition mit dem Index <b>transition</b> zurück */
+    public Statistic getThroughput(int transition) {
+        return firings[transition].scale(1 / horizon);
+    }
+
+    /**
+     * Gibt den Durchsatz (Schaltungen pro Zeiteinheit) der Transition <b>transitionId</b> zurück
+     * @throws IllegalArgumentException falls die Transition nicht existiert
+     */
+    public Statistic getThroughput(String transitionId) {
+        return getThroughput(transitionIndex(transitionId));
+    }
+
+    /** Gibt die Anzahl der Replikationen zurück, die vor dem Horizont verklemmt sind */
+    public long getDeadlockedCount() {
+        return deadlocked;
+    }
+
+    /** Gibt den Index der Stelle <b>id</b> zurück */
+    private int placeIndex(String id) {
+        int index = net.indexOfPlace(id);
+        if (index < 0)
+            throw new IllegalArgumentException("unknown place: " + id);
+        return index;
+    }
+
+    /** Gibt den Index der Transition <b>id</b> zurück */
+    private int transitionIndex(String id) {
+        int index = net.indexOfTransition(id);
+        if (index < 0)
+            throw new IllegalArgumentException("unknown transition: " + id);
+        return index;
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("EnsembleResult { replications: %d, horizon: %s, deadlocked: %d }",
+                replications, horizon, deadlocked);
+    }
+}
@@ -0,0 +1,106 @@
+package de.kwirz.yapne.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Binärer Min-Heap über den Indizes 0 bis n - 1 mit je einem <code>double</code> Schlüssel.
+ * <p>
+ * Jeder Index ist immer genau einmal enthalten, die Position im Heap wird mitgeführt. Dadurch
+ * kann der Schlüssel eines beliebigen Index in O(log n) geändert werden, das Minimum ist in
+ * O(1) abrufbar.
+ */
+final class IndexedPriorityQueue {
+
+    /** Indizes in Heap-Ordnung */
+    private final int[] heap;
+
+    /** Position jedes Index im Heap */
+    private final int[] position;
+
+    /** Schlüssel je Index */
+    private final double[] keys;
+
+    /**
+     * Erstellt eine Warteschlange mit den Indizes 0 bis <b>size</b> - 1, alle Schlüssel sind
+     * {@link Double#POSITIVE_INFINITY}
+     */
+    IndexedPriorityQueue(int size) {
+        heap = new int[size];
+        position = new int[size];
+        keys = new double[size];
+        clear();
+    }
+
+    /** Setzt alle Schlüssel auf {@link Double#POSITIVE_INFINITY} */
+    void clear() {
+        Arrays.fill(keys, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < heap.length; ++i) {
+            heap[i] = i;
+            position[i] = i;
+        }
+    }
+
+    /** Gibt die Anzahl der Indizes zurück */
+    int size() {
+        return heap.length;
+    }
+
+    /** Gibt den Index mit dem kleinsten Schlüssel zurück */
+    int peek() {
+        return heap[0];
+    }
+
+    /** Gibt den Schlüssel des Index <b>index</b> zurück */
+    double getKey(int index) {
+        return keys[index];
+    }
+
+    /** Setzt den Schlüssel des Index <b>index</b> */
+    void update(int index, double key) {
+        double old = keys[index];
+        keys[index] = key;
+        if (key < old)
+            siftUp(position[index]);
+        else if (key > old)
+            siftDown(position[index]);
+    }
+
+    /** Verschiebt den Eintrag an der Position <b>i</b> nach oben */
+    private void siftUp(int i) {
+        int index = heap[i];
+        double key = keys[index];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[heap[parent]] <= key)
+                break;
+
+            move(heap[parent], i);
+            i = parent;
+        }
+        move(index, i);
+    }
+
+    /** Verschiebt den Eintrag an der Position <b>i</b> nach unten */
+    private void siftDown(int i) {
+        int index = heap[i];
+        double key = keys[index];
+        int half = heap.length >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heap.length && keys[heap[child + 1]] < keys[heap[child]])
+                ++child;
+            if (key <= keys[heap[child]])
+                break;
+
+            move(heap[child], i);
+            i = child;
+        }
+        move(index, i);
+    }
+
+    /** Legt den Index <b>index</b> an die Position <b>i</b> */
+    private void move(int index, int i) {
+        heap[i] = index;
+        position[index] = i;
+    }
+}
@@ -0,0 +1,425 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.MarkingVector;
+import de.kwirz.yapne.model.PetriNet;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Schaltet ein Netz in maximalen Schritten: in jedem Schritt schaltet eine maximale Menge
+ * aktivierter Transitionen, von denen keine zwei eine gemeinsame Eingangsstelle haben.
+ * <p>
+ * Der Konfliktgraph (Transitionen mit gemeinsamer Eingangsstelle) wird einmal beim Erstellen
+ * aus der Struktur berechnet und im CSR-Format abgelegt. Ein Schritt besteht aus drei Phasen:
+ * <ol>
+ *     <li>Auswahl: die aktivierten Transitionen werden in Indexreihenfolge (oder zufälliger
+ *     Reihenfolge) durchlaufen, jede noch nicht blockierte wird gewählt und blockiert ihre
+ *     Nachbarn im Konfliktgraphen</li>
+ *     <li>Markierung: für jede berührte Stelle werden die Wirkungen aller gewählten
+ *     Transitionen aufsummiert</li>
+ *     <li>Aktivierung: nur die Konsumenten der berührten Stellen werden neu geprüft</li>
+ * </ol>
+ * Die zweite und dritte Phase laufen bei großen Schritten parallel im
+ * {@link ForkJoinPool#commonPool() gemeinsamen Pool}. Jeder Eintrag des gemeinsamen
+ * Markierungsarrays wird dabei von genau einem Thread geschrieben, weil die Arbeit nach
+ * Stellen und nicht nach Transitionen aufgeteilt wird. Dadurch sind weder Sperren noch atomare
+ * Operationen nötig, auch wenn mehrere Transitionen eines Schritts in dieselbe Stelle
+ * produzieren.
+ * <pre>
+ *  MaximalStepSimulator simulator = MaximalStepSimulator.create(net);
+ *  long steps = simulator.run(1000);
+ *  simulator.writeBack();
+ * </pre>
+ */
+public final class MaximalStepSimulator {
+
+    /** Standardgröße der Teilbereiche, ab der parallel gearbeitet wird */
+    public static final int DEFAULT_GRAIN = 2048;
+
+    /** Das simulierte Netz */
+    private final CompiledNet net;
+
+    /** Konfliktgraph: Anfang der Nachbarn für Transition t */
+    private final int[] conflictStart;
+
+    /** Konfliktgraph: Nachbarn, ohne die Transition selbst */
+    private final int[] conflict;
+
+    /** Wirkungen je Stelle: Anfang des Bereichs für Stelle p */
+    private final int[] effectStart;
+
+    /** Wirkungen je Stelle: Transitionsindizes */
+    private final int[] effectTransition;
+
+    /** Wirkungen je Stelle: Änderung der Markierung */
+    private final int[] effectDelta;
+
+    /** Aktivierung je Transition */
+    private final boolean[] enabled;
+
+    /** Schrittnummer, in der die Transition zuletzt blockiert wurde */
+    private final long[] blocked;
+
+    /** Schrittnummer, in der die Transition zuletzt geschaltet hat */
+    private final long[] fired;
+
+    /** Schrittnummer, in der die Stelle bzw. Transition zuletzt vorgemerkt wurde */
+    private final long[] placeStamp, transitionStamp;
+
+    /** Gewählte Transitionen des letzten Schritts */
+    private final int[] selected;
+
+    /** Berührte Stellen und neu zu prüfende Transitionen des aktuellen Schritts */
+    private final int[] touched, affected;
+
+    /** Reihenfolge der Auswahl bei zufälliger Reihenfolge */
+    private final int[] order;
+
+    /** Anzahl der Schaltungen je Transition */
+    private final long[] firingCounts;
+
+    /** Anzahl der gewählten Transitionen im letzten Schritt */
+    private int selectedCount;
+
+    /** Aktuelle Markierung */
+    private int[] marking;
+
+    /** Anzahl der Schritte seit dem Start */
+    private long steps;
+
+    /** Zufallszahlengenerator für die Reihenfolge, oder <code>null</code> für Indexreihenfolge */
+    private SplittableRandom random = null;
+
+    /** Ob große Schritte parallel ausgeführt werden */
+    private boolean parallel = true;
+
+    /** Größe der Teilbereiche, ab der parallel gearbeitet wird */
+    private int grain = DEFAULT_GRAIN;
+
+    /**
+     * Erstellt einen Simulator
+     */
+    private MaximalStepSimulator(CompiledNet net) {
+        this.net = net;
+        final int places = net.getPlaceCount();
+        final int transitions = net.getTransitionCount();
+
+        // t und u stehen in Konflikt, falls sie aus derselben Stelle konsumieren
+        int[] stamp = new int[transitions];
+        Arrays.fill(stamp, -1);
+        conflictStart = new int[transitions + 1];
+        for (int t = 0; t < transitions; ++t) {
+            stamp[t] = t;
+            for (int i = net.getPresetStart(t); i < net.getPresetEnd(t); ++i) {
+                int p = net.getPresetPlace(i);
+                for (int j = net.getConsumerStart(p); j < net.getConsumerEnd(p); ++j) {
+                    int u = net.getConsumerTransition(j);
+                    if (stamp[u] != t) {
+                        stamp[u] = t;
+                        ++conflictStart[t + 1];
+                    }
+                }
+            }
+        }
+        for (int t = 0; t < transitions; ++t)
+            conflictStart[t + 1] += conflictStart[t];
+
+        conflict = new int[conflictStart[transitions]];
+        Arrays.fill(stamp, -1);
+        for (int t = 0, next = 0; t < transitions; ++t) {
+            stamp[t] = t;
+            for (int i = net.getPresetStart(t); i < net.getPresetEnd(t); ++i) {
+                int p = net.getPresetPlace(i);
+                for (int j = net.getConsumerStart(p); j < net.getConsumerEnd(p); ++j) {
+                    int u = net.getConsumerTransition(j);
+                    if (stamp[u] != t) {
+                        stamp[u] = t;
+                        conflict[next++] = u;
+                    }
+                }
+            }
+        }
+
+        // Wirkungen nach Stellen gruppieren
+        effectStart = new int[places + 1];
+        for (int t = 0; t < transitions; ++t) {
+            for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i)
+                ++effectStart[net.getEffectPlace(i) + 1];
+        }
+        for (int p = 0; p < places; ++p)
+            effectStart[p + 1] += effectStart[p];
+
+        effectTransition = new int[effectStart[places]];
+        effectDelta = new int[effectStart[places]];
+        int[] fill = effectStart.clone();
+        for (int t = 0; t < transitions; ++t) {
+            for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i) {
+                int j = fill[net.getEffectPlace(i)]++;
+                effectTransition[j] = t;
+                effectDelta[j] = net.getEffectDelta(i);
+            }
+        }
+
+        enabled = new boolean[transitions];
+        blocked = new long[transitions];
+        fired = new long[transitions];
+        transitionStamp = new long[transitions];
+        placeStamp = new long[places];
+        selected = new int[transitions];
+        affected = new int[transitions];
+        touched = new int[places];
+        order = new int[transitions];
+        firingCounts = new long[transitions];
+        reset();
+    }
+
+    /** Erstellt einen Simulator für die aktuelle Markierung des Netzes <b>net</b> */
+    public static MaximalStepSimulator create(PetriNet net) {
+        return create(net.compile());
+    }
+
+    /** Erstellt einen Simulator für die Anfangsmarkierung des kompilierten Netzes <b>net</b> */
+    public static MaximalStepSimulator create(CompiledNet net) {
+        return new MaximalStepSimulator(net);
+    }
+
+    /**
+     * Wählt in jedem Schritt in zufälliger Reihenfolge mit dem Startwert <b>seed</b> statt in
+     * Indexreihenfolge
+     */
+    public MaximalStepSimulator random(long seed) {
+        this.random = new SplittableRandom(seed);
+        return this;
+    }
+
+    /** Schaltet die parallele Ausführung großer Schritte ein oder aus, Standard ist ein */
+    public MaximalStepSimulator parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Setzt die Größe der Teilbereiche, ab der parallel gearbeitet wird
+     * @throws IllegalArgumentException falls <b>grain</b> kleiner als 1 ist
+     */
+    public MaximalStepSimulator grain(int grain) {
+        if (grain < 1)
+            throw new IllegalArgumentException("grain must be positive");
+
+        this.grain = grain;
+        return this;
+    }
+
+    /** Setzt die Simulation auf die Anfangsmarkierung zurück */
+    public void reset() {
+        marking = net.getInitialMarking();
+        steps = 0;
+        selectedCount = 0;
+        Arrays.fill(firingCounts, 0);
+        Arrays.fill(blocked, -1);
+        Arrays.fill(fired, -1);
+        Arrays.fill(placeStamp, -1);
+        Arrays.fill(transitionStamp, -1);
+        for (int t = 0; t < enabled.length; ++t)
+            enabled[t] = net.isEnabled(t, marking);
+    }
+
+    /**
+     * Schaltet einen maximalen konfliktfreien Schritt
+     * @return Anzahl der geschalteten Transitionen, <code>0</code> falls keine aktiviert ist
+     */
+    public int step() {
+        final long step = steps;
+        int touchedCount = 0;
+        selectedCount = 0;
+
+        if (random != null) {
+            for (int i = 0; i < order.length; ++i) {
+                int j = random.nextInt(i + 1);
+                order[i] = order[j];
+                order[j] = i;
+            }
+        }
+
+        for (int i = 0; i < enabled.length; ++i) {
+            int t = (random != null) ? order[i] : i;
+            if (!enabled[t] || blocked[t] == step)
+                continue;
+
+            selected[selectedCount++] = t;
+            fired[t] = step;
+            ++firingCounts[t];
+            for (int j = conflictStart[t]; j < conflictStart[t + 1]; ++j)
+                blocked[conflict[j]] = step;
+            for (int j = net.getEffectStart(t); j < net.getEffectEnd(t); ++j) {
+                int p = net.getEffectPlace(j);
+                if (placeStamp[p] != step) {
+                    placeStamp[p] = step;
+                    touched[touchedCount++] = p;
+                }
+            }
+        }
+
+        if (selectedCount == 0)
+            return 0;
+
+        int affectedCount = 0;
+        for (int i = 0; i < touchedCount; ++i) {
+            int p = touched[i];
+            for (int j = net.getConsumerStart(p); j < net.getConsumerEnd(p); ++j) {
+                int u = net.getConsumerTransition(j);
+                if (transitionStamp[u] != step) {
+                    transitionStamp[u] = step;
+                    affected[affectedCount++] = u;
+                }
+            }
+        }
+
+        forEach(touched, touchedCount, this::updatePlaces);
+        forEach(affected, affectedCount, this::updateEnabled);
+        ++steps;
+        return selectedCount;
+    }
+
+    /**
+     * Führt bis zu <b>steps</b> Schritte aus und stoppt vorher, falls keine Transition mehr
+     * aktiviert ist
+     * @return Anzahl der ausgeführten Schritte
+     * @throws IllegalArgumentException falls <b>steps</b> negativ ist
+     */
+    public long run(long steps) {
+        if (steps < 0)
+            throw new IllegalArgumentException("step count cannot be negative");
+
+        long performed = 0;
+        while (performed < steps && step() > 0)
+            ++performed;
+        return performed;
+    }
+
+    /** Addiert die Wirkungen der gewählten Transitionen auf die Stellen <b>places[from, to)</b> */
+    private void updatePlaces(int[] places, int from, int to) {
+        final long step = steps;
+        for (int i = from; i < to; ++i) {
+            int p = places[i];
+            int tokens = marking[p];
+            for (int j = effectStart[p], end = effectStart[p + 1]; j < end; ++j) {
+                if (fired[effectTransition[j]] == step)
+                    tokens += effectDelta[j];
+            }
+            marking[p] = tokens;
+        }
+    }
+
+    /** Prüft die Aktivierung der Transitionen <b>transitions[from, to)</b> */
+    private void updateEnabled(int[] transitions, int from, int to) {
+        for (int i = from; i < to; ++i)
+            enabled[transitions[i]] = net.isEnabled(transitions[i], marking);
+    }
+
+    /**
+     * Wendet <b>action</b> auf die ersten <b>count</b> Einträge von <b>items</b> an, bei mehr
+     * als {@link #grain} Einträgen parallel in Teilbereichen
+     */
+    private void forEach(int[] items, int count, RangeAction action) {
+        if (!parallel || count <= grain)
+            action.apply(items, 0, count);
+        else
+            ForkJoinPool.commonPool().invoke(new RangeTask(items, 0, count, grain, action));
+    }
+
+    /**
+     * Bearbeitet einen Teilbereich eines Arrays
+     */
+    private interface RangeAction {
+        void apply(int[] items, int from, int to);
+    }
+
+    /**
+     * Teilt einen Bereich bis zur Größe {@link #grain} und bearbeitet die Teile parallel
+     */
+    @SuppressWarnings("serial")
+    private static final class RangeTask extends RecursiveAction {
+
+        final int[] items;
+        final int from;
+        final int to;
+        final int grain;
+        final RangeAction action;
+
+        RangeTask(int[] items, int from, int to, int grain, RangeAction action) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                action.apply(items, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(items, from, middle, grain, action),
+                    new RangeTask(items, middle, to, grain, action));
+        }
+    }
+
+    /** Gibt das simulierte Netz zurück */
+    public CompiledNet getNet() {
+        return net;
+    }
+
+    /**
+     * Gibt die Transitionen zurück, die mit der Transition mit dem Index <b>transition</b> eine
+     * Eingangsstelle teilen
+     */
+    public int[] getConflicts(int transition) {
+        return Arrays.copyOfRange(conflict, conflictStart[transition], conflictStart[transition + 1]);
+    }
+
+    /** Gibt die im letzten Schritt geschalteten Transitionen zurück */
+    public int[] getLastStep() {
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    /** Gibt die Anzahl der Schritte seit dem Start zurück */
+    public long getStepCount() {
+        return steps;
+    }
+
+    /** Gibt die Anzahl der Schaltungen der Transition mit dem Index <b>transition</b> zurück */
+    public long getFiringCount(int transition) {
+        return firingCounts[transition];
+    }
+
+    /** Gibt <code>true</code> zurück falls die Transition mit dem Index <b>transition</b> aktiviert ist */
+    public boolean isEnabled(int transition) {
+        return enabled[transition];
+    }
+
+    /** Gibt die aktuelle Markierung zurück */
+    public MarkingVector getMarking() {
+        return new MarkingVector(marking);
+    }
+
+    /** Gibt die aktuelle Markenanzahl der Stelle mit dem Index <b>place</b> zurück */
+    public int getTokens(int place) {
+        return marking[place];
+    }
+
+    /**
+     * Schreibt die aktuelle Markierung in die Stellen des Netzes zurück
+     * @see CompiledNet#writeBack(int[])
+     */
+    public void writeBack() {
+        net.writeBack(marking);
+    }
+}
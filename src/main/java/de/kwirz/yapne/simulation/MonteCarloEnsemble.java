@@ -0,0 +1,316 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.model.PetriNetTransition;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Führt viele unabhängige stochastische Simulationen eines Netzes parallel aus und fasst
+ * die Ergebnisse statistisch zusammen.
+ * <p>
+ * Jede Replikation läuft mit einem {@link StochasticSimulator} bis zum Zeithorizont. Der
+ * Bereich der Replikationen wird bis zu einzelnen Replikationen halbiert, bei jeder Teilung
+ * erhält die rechte Hälfte einen mit {@link SplittableRandom#split()} abgeleiteten Generator.
+ * Der Generator einer Replikation hängt damit nur vom Startwert und ihrer Nummer ab, nicht
+ * von der Anzahl der Threads. Oberhalb einer Mindestgröße werden die Hälften als Aufgaben in
+ * einem {@link ForkJoinPool} ausgeführt.
+ * <p>
+ * Die Messgrößen jeder Replikation werden sofort in sperrfreie Akkumulatoren
+ * ({@link DoubleAdder}) addiert, Ergebnislisten werden nicht aufgebaut. Ganzzahlige Größen
+ * (Markenanzahlen am Horizont, Schaltungen) werden dabei exakt summiert, die Ergebnisse sind
+ * für einen Startwert reproduzierbar. Zeitgemittelte Markenanzahlen können sich in den letzten
+ * Stellen durch die Reihenfolge der Additionen unterscheiden.
+ * <pre>
+ *  EnsembleResult result = MonteCarloEnsemble.create(net)
+ *                              .replications(100000)
+ *                              .horizon(50.0)
+ *                              .seed(42)
+ *                              .run();
+ *  Statistic throughput = result.getThroughput("serve");
+ * </pre>
+ */
+public final class MonteCarloEnsemble {
+
+    /** Das simulierte Netz */
+    private final CompiledNet net;
+
+    /** Rate je Transition */
+    private final double[] rates;
+
+    /** Anzahl der Replikationen */
+    private int replications = 1000;
+
+    /** Simulierte Zeit je Replikation */
+    private double horizon = 1.0;
+
+    /** Startwert der Zufallszahlen */
+    private long seed = 0;
+
+    /** Anzahl der Threads */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** Berechnung der Propensität */
+    private StochasticSimulator.Semantics semantics = StochasticSimulator.Semantics.SINGLE_SERVER;
+
+    /**
+     * Erstellt ein Ensemble
+     */
+    private MonteCarloEnsemble(CompiledNet net, double[] rates) {
+        this.net = net;
+        this.rates = rates;
+    }
+
+    /**
+     * Erstellt ein Ensemble für die aktuelle Markierung des Netzes <b>net</b>, die Raten
+     * werden aus den Transitionen gelesen
+     */
+    public static MonteCarloEnsemble create(PetriNet net) {
+        double[] rates = new double[net.getTransitions().size()];
+        int t = 0;
+        for (PetriNetTransition transition : net.getTransitions())
+            rates[t++] = transition.getRate();
+
+        return new MonteCarloEnsemble(net.compile(), rates);
+    }
+
+    /**
+     * Erstellt ein Ensemble für die Anfangsmarkierung des kompilierten Netzes <b>net</b>
+     * @param rates Rate je Transitionsindex
+     * @throws IllegalArgumentException falls die Raten ungültig sind
+     * @see StochasticSimulator#create(CompiledNet, double[])
+     */
+    public static MonteCarloEnsemble create(CompiledNet net, double[] rates) {
+        StochasticSimulator.checkRates(net, rates);
+        return new MonteCarloEnsemble(net, rates.clone());
+    }
+
+    /**
+     * Setzt die Anzahl der Replikationen
+     * @throws IllegalArgumentException falls <b>replications</b> kleiner als 1 ist
+     */
+    public MonteCarloEnsemble replications(int replications) {
+        if (replications < 1)
+            throw new IllegalArgumentException("replication count must be positive");
+
+        this.replications = replications;
+        return this;
+    }
+
+    /**
+     * Setzt die simulierte Zeit je Replikation
+     * @throws IllegalArgumentException falls <b>horizon</b> nicht positiv und endlich ist
+     */
+    public MonteCarloEnsemble horizon(double horizon) {
+        if (!(horizon > 0) || Double.isInfinite(horizon))
+            throw new IllegalArgumentException("horizon must be positive and finite");
+
+        this.horizon = horizon;
+        return this;
+    }
+
+    /** Setzt den Startwert, aus dem die Zufallszahlen aller Replikationen abgeleitet werden */
+    public MonteCarloEnsemble seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Setzt die Anzahl der Threads, Standard ist die Anzahl der Prozessoren
+     * @throws IllegalArgumentException falls <b>parallelism</b> kleiner als 1 ist
+     */
+    public MonteCarloEnsemble parallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive");
+
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /** Setzt die Berechnung der Propensität */
+    public MonteCarloEnsemble semantics(StochasticSimulator.Semantics semantics) {
+        this.semantics = semantics;
+        return this;
+    }
+
+    /**
+     * Führt alle Replikationen aus
+     */
+    public EnsembleResult run() {
+        Accumulators accumulators = new Accumulators(net.getPlaceCount(), net.getTransitionCount());
+        int grain = Math.max(1, replications / (parallelism * 8));
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new Replications(0, replications, new SplittableRandom(seed), grain, accumulators));
+        } finally {
+            pool.shutdown();
+        }
+
+        return accumulators.toResult(net, replications, horizon);
+    }
+
+    /**
+     * Sperrfreie Summen der Messgrößen über alle Replikationen
+     */
+    private static final class Accumulators {
+
+        /** Summe und Quadratsumme der Markenanzahl am Horizont, je Stelle */
+        final DoubleAdder[] finalTokens;
+        final DoubleAdder[] finalTokensSquared;
+
+        /** Summe und Quadratsumme der zeitgemittelten Markenanzahl, je Stelle */
+        final DoubleAdder[] averageTokens;
+        final DoubleAdder[] averageTokensSquared;
+
+        /** Summe und Quadratsumme der Schaltungen, je Transition */
+        final DoubleAdder[] firings;
+        final DoubleAdder[] firingsSquared;
+
+        /** Anzahl der Replikationen, die vor dem Horizont verklemmt sind */
+        final LongAdder deadlocked = new LongAdder();
+
+        Accumulators(int places, int transitions) {
+            finalTokens = adders(places);
+            finalTokensSquared = adders(places);
+            averageTokens = adders(places);
+            averageTokensSquared = adders(places);
+            firings = adders(transitions);
+            firingsSquared = adders(transitions);
+        }
+
+        private static DoubleAdder[] adders(int count) {
+            DoubleAdder[] result = new DoubleAdder[count];
+            for (int i = 0; i < count; ++i)
+                result[i] = new DoubleAdder();
+            return result;
+        }
+
+        private static Statistic[] statistics(long count, DoubleAdder[] sums, DoubleAdder[] squares) {
+            Statistic[] result = new Statistic[sums.length];
+            for (int i = 0; i < sums.length; ++i)
+                result[i] = Statistic.of(count, sums[i].sum(), squares[i].sum());
+            return result;
+        }
+
+        EnsembleResult toResult(CompiledNet net, int replications, double horizon) {
+            return new EnsembleResult(net, replications, horizon,
+                    statistics(replications, finalTokens, finalTokensSquared),
+                    statistics(replications, averageTokens, averageTokensSquared),
+                    statistics(replications, firings, firingsSquared),
+                    deadlocked.sum());
+        }
+    }
+
+    /**
+     * Führt die Replikationen im Bereich [from, to) aus
+     */
+    @SuppressWarnings("serial")
+    private final class Replications extends RecursiveAction {
+
+        final int from;
+        final int to;
+        final SplittableRandom random;
+        final int grain;
+        final Accumulators accumulators;
+
+        Replications(int from, int to, SplittableRandom random, int grain, Accumulators accumulators) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+            this.grain = grain;
+            this.accumulators = accumulators;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int middle = (from + to) >>> 1;
+                SplittableRandom right = random.split();
+                invokeAll(new Replications(from, middle, random, grain, accumulators),
+                        new Replications(middle, to, right, grain, accumulators));
+                return;
+            }
+
+            Replication replication = new Replication(accumulators);
+            runSequential(from, to, random, replication);
+        }
+
+        /** Teilt den Bereich wie {@link #compute()}, aber ohne neue Aufgaben */
+        private void runSequential(int from, int to, SplittableRandom random, Replication replication) {
+            if (to - from == 1) {
+                replication.run(random);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            SplittableRandom right = random.split();
+            runSequential(from, middle, random, replication);
+            runSequential(middle, to, right, replication);
+        }
+    }
+
+    /**
+     * Führt einzelne Replikationen aus, wird von einem Thread wiederverwendet
+     */
+    private final class Replication {
+
+        final Accumulators accumulators;
+        final StochasticSimulator simulator;
+
+        /** Integral der Markenanzahl über die Zeit, je Stelle */
+        final double[] area;
+
+        /** Zeitpunkt der letzten Änderung, je Stelle */
+        final double[] lastChange;
+
+        Replication(Accumulators accumulators) {
+            this.accumulators = accumulators;
+            this.simulator = new StochasticSimulator(net, rates).semantics(semantics);
+            this.area = new double[net.getPlaceCount()];
+            this.lastChange = new double[net.getPlaceCount()];
+        }
+
+        void run(SplittableRandom random) {
+            simulator.reset(random);
+            Arrays.fill(area, 0);
+            Arrays.fill(lastChange, 0);
+
+            // die Integrale werden nur für die von einer Schaltung veränderten Stellen nachgeführt
+            while (simulator.getNextEventTime() <= horizon) {
+                int t = simulator.step();
+                double now = simulator.getTime();
+                for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i) {
+                    int p = net.getEffectPlace(i);
+                    int before = simulator.getTokens(p) - net.getEffectDelta(i);
+                    area[p] += before * (now - lastChange[p]);
+                    lastChange[p] = now;
+                }
+            }
+
+            if (simulator.getNextEventTime() == Double.POSITIVE_INFINITY)
+                accumulators.deadlocked.increment();
+
+            for (int p = 0; p < area.length; ++p) {
+                int tokens = simulator.getTokens(p);
+                double average = (area[p] + tokens * (horizon - lastChange[p])) / horizon;
+                accumulators.finalTokens[p].add(tokens);
+                accumulators.finalTokensSquared[p].add((double) tokens * tokens);
+                accumulators.averageTokens[p].add(average);
+                accumulators.averageTokensSquared[p].add(average * average);
+            }
+
+            for (int t = 0; t < accumulators.firings.length; ++t) {
+                double count = simulator.getFiringCount(t);
+                accumulators.firings[t].add(count);
+                accumulators.firingsSquared[t].add(count * count);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.CompiledNet;
+
+import java.util.Map;
+
+/**
+ * Wählt die aktivierte Transition mit der höchsten Priorität, bei gleicher Priorität die mit
+ * dem kleinsten Index.
+ *
+ * @see ConflictPolicy#priority(int...)
+ * @see ConflictPolicy#priority(Map)
+ */
+final class PriorityPolicy implements ConflictPolicy {
+
+    /** Priorität je Transitionsindex */
+    private int[] priorities;
+
+    /** Priorität je Transitions-Id, wird beim Anhängen aufgelöst, oder <code>null</code> */
+    private final Map<String, Integer> byId;
+
+    /**
+     * Erstellt die Strategie, entweder mit Prioritäten je Index oder je Id
+     */
+    PriorityPolicy(int[] priorities, Map<String, Integer> byId) {
+        this.priorities = priorities;
+        this.byId = byId;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void attach(CompiledNet net) {
+        if (byId == null) {
+            if (priorities.length != net.getTransitionCount())
+                throw new IllegalArgumentException("expected " + net.getTransitionCount() +
+                        " priorities, got " + priorities.length);
+            return;
+        }
+
+        int[] resolved = new int[net.getTransitionCount()];
+        for (Map.Entry<String, Integer> entry : byId.entrySet()) {
+            int t = net.indexOfTransition(entry.getKey());
+            if (t < 0)
+                throw new IllegalArgumentException("unknown transition: " + entry.getKey());
+            resolved[t] = entry.getValue();
+        }
+        priorities = resolved;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int select(int[] enabled, int count) {
+        int best = enabled[0];
+        for (int i = 1; i < count; ++i) {
+            int t = enabled[i];
+            if (priorities[t] > priorities[best] || (priorities[t] == priorities[best] && t < best))
+                best = t;
+        }
+        return best;
+    }
+}
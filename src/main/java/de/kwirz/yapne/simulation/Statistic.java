@@ -0,0 +1,97 @@
+package de.kwirz.yapne.simulation;
+
+/**
+ * Zusammenfassung einer Messgröße über alle Replikationen eines Ensembles: Mittelwert,
+ * Stichprobenvarianz und Konfidenzintervall des Mittelwerts.
+ *
+ * @see EnsembleResult
+ */
+public final class Statistic {
+
+    /** Quantil der Standardnormalverteilung für ein 95% Konfidenzintervall */
+    public static final double Z_95 = 1.959963984540054;
+
+    /** Anzahl der Werte */
+    private final long count;
+
+    /** Mittelwert */
+    private final double mean;
+
+    /** Stichprobenvarianz */
+    private final double variance;
+
+    /**
+     * Erstellt eine Zusammenfassung
+     */
+    Statistic(long count, double mean, double variance) {
+        this.count = count;
+        this.mean = mean;
+        this.variance = variance;
+    }
+
+    /**
+     * Erstellt eine Zusammenfassung aus der Summe und der Quadratsumme von <b>count</b> Werten
+     */
+    static Statistic of(long count, double sum, double sumOfSquares) {
+        if (count == 0)
+            return new Statistic(0, Double.NaN, Double.NaN);
+
+        double mean = sum / count;
+        double variance = count < 2 ? 0 : Math.max(0, (sumOfSquares - sum * mean) / (count - 1));
+        return new Statistic(count, mean, variance);
+    }
+
+    /** Gibt die mit <b>factor</b> multiplizierte Messgröße zurück */
+    Statistic scale(double factor) {
+        return new Statistic(count, mean * factor, variance * factor * factor);
+    }
+
+    /** Gibt die Anzahl der Werte zurück */
+    public long getCount() {
+        return count;
+    }
+
+    /** Gibt den Mittelwert zurück */
+    public double getMean() {
+        return mean;
+    }
+
+    /** Gibt die Stichprobenvarianz zurück */
+    public double getVariance() {
+        return variance;
+    }
+
+    /** Gibt die Standardabweichung zurück */
+    public double getStandardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    /** Gibt die halbe Breite des 95% Konfidenzintervalls des Mittelwerts zurück */
+    public double getHalfWidth() {
+        return getHalfWidth(Z_95);
+    }
+
+    /**
+     * Gibt die halbe Breite des Konfidenzintervalls des Mittelwerts zum Normalverteilungsquantil
+     * <b>z</b> zurück
+     */
+    public double getHalfWidth(double z) {
+        return count == 0 ? Double.NaN : z * Math.sqrt(variance / count);
+    }
+
+    /** Gibt die untere Grenze des 95% Konfidenzintervalls zurück */
+    public double getLower() {
+        return mean - getHalfWidth();
+    }
+
+    /** Gibt die obere Grenze des 95% Konfidenzintervalls zurück */
+    public double getUpper() {
+        return mean + getHalfWidth();
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("%.6g ± %.3g (n=%d)", mean, getHalfWidth(), count);
+    }
+}
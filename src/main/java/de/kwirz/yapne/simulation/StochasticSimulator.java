@@ -0,0 +1,347 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.MarkingVector;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.model.PetriNetTransition;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Stochastische Simulation eines Petri Netzes mit exponentiell verteilten Schaltverzögerungen
+ * nach der Next-Reaction-Methode von Gibson und Bruck.
+ * <p>
+ * Jede Transition hat eine Rate, siehe {@link PetriNetTransition#getRate()}. Daraus ergibt
+ * sich je nach {@link Semantics} ihre Propensität in der aktuellen Markierung. Für jede
+ * Transition wird der absolute Zeitpunkt ihres nächsten Schaltens in einer indizierten
+ * Prioritätswarteschlange gehalten, es schaltet immer die Transition mit dem frühesten
+ * Zeitpunkt.
+ * <p>
+ * Nach dem Schalten werden nur die Transitionen neu bewertet, deren Vorbereich eine von der
+ * Schaltung veränderte Stelle enthält (Abhängigkeitsgraph). Ändert sich die Propensität einer
+ * solchen Transition, wird ihr Zeitpunkt umskaliert statt neu gezogen. Ein Schritt kostet damit
+ * O(d log T) bei d abhängigen Transitionen.
+ * <pre>
+ *  StochasticSimulator simulator = StochasticSimulator.create(net).seed(42);
+ *  simulator.run(100.0);
+ *  MarkingVector marking = simulator.getMarking();
+ * </pre>
+ */
+public final class StochasticSimulator {
+
+    /**
+     * Berechnung der Propensität einer aktivierten Transition
+     */
+    public enum Semantics {
+        /** Die Propensität ist die Rate (single server) */
+        SINGLE_SERVER,
+        /**
+         * Massenwirkung: die Rate multipliziert mit der Anzahl der Möglichkeiten, die
+         * benötigten Marken aus den Eingangsstellen zu wählen
+         */
+        MASS_ACTION
+    }
+
+    /** Das simulierte Netz */
+    private final CompiledNet net;
+
+    /** Rate je Transition */
+    private final double[] rates;
+
+    /** Abhängige Transitionen: Anfang des Bereichs für Transition t */
+    private final int[] dependentStart;
+
+    /** Abhängige Transitionen, ohne die Transition selbst */
+    private final int[] dependent;
+
+    /** Zeitpunkte des nächsten Schaltens */
+    private final IndexedPriorityQueue queue;
+
+    /** Aktuelle Propensität je Transition */
+    private final double[] propensity;
+
+    /** Anzahl der Schaltungen je Transition */
+    private final long[] firingCounts;
+
+    /** Berechnung der Propensität */
+    private Semantics semantics = Semantics.SINGLE_SERVER;
+
+    /** Zufallszahlengenerator */
+    private SplittableRandom random = new SplittableRandom();
+
+    /** Aktuelle Markierung */
+    private int[] marking;
+
+    /** Aktuelle Simulationszeit */
+    private double time;
+
+    /** Anzahl der Schaltungen seit dem Start */
+    private long events;
+
+    /**
+     * Erstellt einen Simulator, die Raten werden nicht geprüft
+     */
+    StochasticSimulator(CompiledNet net, double[] rates) {
+        this.net = net;
+        this.rates = rates;
+
+        final int transitions = net.getTransitionCount();
+        queue = new IndexedPriorityQueue(transitions);
+        propensity = new double[transitions];
+        firingCounts = new long[transitions];
+
+        // t beeinflusst u, falls t eine Stelle im Vorbereich von u verändert
+        int[] stamp = new int[transitions];
+        Arrays.fill(stamp, -1);
+        dependentStart = new int[transitions + 1];
+        for (int t = 0; t < transitions; ++t) {
+            dependentStart[t + 1] = dependentStart[t];
+            stamp[t] = t;
+            for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i) {
+                int p = net.getEffectPlace(i);
+                for (int j = net.getConsumerStart(p); j < net.getConsumerEnd(p); ++j) {
+                    int u = net.getConsumerTransition(j);
+                    if (stamp[u] != t) {
+                        stamp[u] = t;
+                        ++dependentStart[t + 1];
+                    }
+                }
+            }
+        }
+
+        dependent = new int[dependentStart[transitions]];
+        Arrays.fill(stamp, -1);
+        for (int t = 0, fill = 0; t < transitions; ++t) {
+            stamp[t] = t;
+            for (int i = net.getEffectStart(t); i < net.getEffectEnd(t); ++i) {
+                int p = net.getEffectPlace(i);
+                for (int j = net.getConsumerStart(p); j < net.getConsumerEnd(p); ++j) {
+                    int u = net.getConsumerTransition(j);
+                    if (stamp[u] != t) {
+                        stamp[u] = t;
+                        dependent[fill++] = u;
+                    }
+                }
+            }
+        }
+
+        reset();
+    }
+
+    /**
+     * Erstellt einen Simulator für die aktuelle Markierung des Netzes <b>net</b>, die Raten
+     * werden aus den Transitionen gelesen
+     */
+    public static StochasticSimulator create(PetriNet net) {
+        double[] rates = new double[net.getTransitions().size()];
+        int t = 0;
+        for (PetriNetTransition transition : net.getTransitions())
+            rates[t++] = transition.getRate();
+
+        return new StochasticSimulator(net.compile(), rates);
+    }
+
+    /**
+     * Erstellt einen Simulator für die Anfangsmarkierung des kompilierten Netzes <b>net</b>
+     * @param rates Rate je Transitionsindex
+     * @throws IllegalArgumentException falls die Anzahl der Raten nicht übereinstimmt oder eine
+     *         Rate nicht positiv und endlich ist
+     */
+    public static StochasticSimulator create(CompiledNet net, double[] rates) {
+        checkRates(net, rates);
+        return new StochasticSimulator(net, rates.clone());
+    }
+
+    /**
+     * Prüft die Raten <b>rates</b> für das Netz <b>net</b>
+     * @throws IllegalArgumentException falls die Anzahl der Raten nicht übereinstimmt oder eine
+     *         Rate nicht positiv und endlich ist
+     */
+    static void checkRates(CompiledNet net, double[] rates) {
+        if (rates.length != net.getTransitionCount())
+            throw new IllegalArgumentException("expected " + net.getTransitionCount() +
+                    " rates, got " + rates.length);
+        for (double rate : rates) {
+            if (!(rate > 0) || Double.isInfinite(rate))
+                throw new IllegalArgumentException("rate must be positive and finite");
+        }
+    }
+
+    /** Setzt die Berechnung der Propensität und startet die Simulation neu */
+    public StochasticSimulator semantics(Semantics semantics) {
+        this.semantics = semantics;
+        reset();
+        return this;
+    }
+
+    /** Setzt den Startwert des Zufallszahlengenerators und startet die Simulation neu */
+    public StochasticSimulator seed(long seed) {
+        this.random = new SplittableRandom(seed);
+        reset();
+        return this;
+    }
+
+    /**
+     * Setzt die Simulation zurück und verwendet ab jetzt den Zufallszahlengenerator
+     * <b>random</b>
+     */
+    void reset(SplittableRandom random) {
+        this.random = random;
+        reset();
+    }
+
+    /**
+     * Setzt die Simulation auf die Anfangsmarkierung und den Zeitpunkt 0 zurück, die
+     * Zufallszahlen laufen weiter
+     */
+    public void reset() {
+        marking = net.getInitialMarking();
+        time = 0;
+        events = 0;
+        Arrays.fill(firingCounts, 0);
+        queue.clear();
+        for (int t = 0; t < propensity.length; ++t) {
+            propensity[t] = propensity(t);
+            schedule(t);
+        }
+    }
+
+    /**
+     * Schaltet die Transition mit dem frühesten Zeitpunkt und setzt die Zeit auf diesen
+     * Zeitpunkt
+     * @return Index der geschalteten Transition oder <code>-1</code> falls keine Transition
+     *         aktiviert ist
+     */
+    public int step() {
+        if (propensity.length == 0)
+            return -1;
+
+        int t = queue.peek();
+        double next = queue.getKey(t);
+        if (next == Double.POSITIVE_INFINITY)
+            return -1;
+
+        time = next;
+        net.fire(t, marking);
+        ++events;
+        ++firingCounts[t];
+
+        propensity[t] = propensity(t);
+        schedule(t);
+
+        for (int i = dependentStart[t]; i < dependentStart[t + 1]; ++i) {
+            int u = dependent[i];
+            double old = propensity[u];
+            double updated = propensity(u);
+            if (updated == old)
+                continue;
+
+            propensity[u] = updated;
+            if (updated == 0 || old == 0)
+                schedule(u);
+            else
+                queue.update(u, time + (old / updated) * (queue.getKey(u) - time));
+        }
+
+        return t;
+    }
+
+    /**
+     * Simuliert bis zum Zeitpunkt <b>until</b>, danach ist die Zeit genau <b>until</b>
+     * @return Anzahl der Schaltungen in diesem Aufruf
+     * @throws IllegalArgumentException falls <b>until</b> vor der aktuellen Zeit liegt
+     */
+    public long run(double until) {
+        if (until < time)
+            throw new IllegalArgumentException("cannot run backwards in time");
+
+        long before = events;
+        while (getNextEventTime() <= until)
+            step();
+
+        time = until;
+        return events - before;
+    }
+
+    /** Zieht den nächsten Zeitpunkt der Transition <b>t</b> aus ihrer aktuellen Propensität */
+    private void schedule(int t) {
+        double a = propensity[t];
+        if (a == 0)
+            queue.update(t, Double.POSITIVE_INFINITY);
+        else
+            queue.update(t, time - Math.log(1.0 - random.nextDouble()) / a);
+    }
+
+    /** Berechnet die Propensität der Transition <b>t</b> in der aktuellen Markierung */
+    private double propensity(int t) {
+        if (!net.isEnabled(t, marking))
+            return 0;
+        if (semantics == Semantics.SINGLE_SERVER)
+            return rates[t];
+
+        double a = rates[t];
+        for (int i = net.getPresetStart(t); i < net.getPresetEnd(t); ++i)
+            a *= binomial(marking[net.getPresetPlace(i)], net.getPresetWeight(i));
+        return a;
+    }
+
+    /** Binomialkoeffizient <b>n</b> über <b>k</b> als Gleitkommazahl */
+    private static double binomial(int n, int k) {
+        double result = 1;
+        for (int i = 0; i < k; ++i)
+            result = result * (n - i) / (i + 1);
+        return result;
+    }
+
+    /** Gibt das simulierte Netz zurück */
+    public CompiledNet getNet() {
+        return net;
+    }
+
+    /** Gibt die aktuelle Simulationszeit zurück */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Gibt den Zeitpunkt der nächsten Schaltung zurück, oder {@link Double#POSITIVE_INFINITY}
+     * falls keine Transition aktiviert ist
+     */
+    public double getNextEventTime() {
+        return propensity.length == 0 ? Double.POSITIVE_INFINITY : queue.getKey(queue.peek());
+    }
+
+    /** Gibt die Anzahl der Schaltungen seit dem Start zurück */
+    public long getEventCount() {
+        return events;
+    }
+
+    /** Gibt die Anzahl der Schaltungen der Transition mit dem Index <b>transition</b> zurück */
+    public long getFiringCount(int transition) {
+        return firingCounts[transition];
+    }
+
+    /** Gibt die aktuelle Propensität der Transition mit dem Index <b>transition</b> zurück */
+    public double getPropensity(int transition) {
+        return propensity[transition];
+    }
+
+    /** Gibt die aktuelle Markierung zurück */
+    public MarkingVector getMarking() {
+        return new MarkingVector(marking);
+    }
+
+    /** Gibt die aktuelle Markenanzahl der Stelle mit dem Index <b>place</b> zurück */
+    public int getTokens(int place) {
+        return marking[place];
+    }
+
+    /**
+     * Schreibt die aktuelle Markierung in die Stellen des Netzes zurück
+     * @see CompiledNet#writeBack(int[])
+     */
+    public void writeBack() {
+        net.writeBack(marking);
+    }
+}
@@ -0,0 +1,337 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.MarkingVector;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.model.PetriNetTransition;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Ereignisdiskrete Simulation eines zeitbehafteten Netzes.
+ * <p>
+ * Jede Transition hat ein Intervall [min, max] der Schaltverzögerung. Wird eine Transition
+ * zum Zeitpunkt τ aktiviert, wird ihr Schalten für τ + d geplant, d ist gleichverteilt im
+ * Intervall (bzw. fest, falls min = max). Wird sie vorher deaktiviert, verfällt das geplante
+ * Ereignis, bei erneuter Aktivierung beginnt die Verzögerung von vorne. Wie bei Time Petri
+ * Netzen üblich zählt dabei auch die Zwischenmarkierung, nachdem die schaltende Transition
+ * ihre Marken entnommen hat: eine Transition, die dort nicht aktiviert ist, beginnt neu, auch
+ * wenn die Marken durch eine Schleife sofort zurückgelegt werden. Die schaltende Transition
+ * selbst wird, falls sie noch aktiviert ist, ebenfalls neu geplant. Gleichzeitige Ereignisse
+ * schalten in der Reihenfolge, in der sie geplant wurden.
+ * <p>
+ * Die geplanten Ereignisse liegen in einer {@link CalendarQueue} mit amortisiert konstanten
+ * Kosten je Operation. Ein Ereignis besteht aus dem Zeitpunkt als <code>double</code> und der
+ * Transition zusammen mit ihrer Generation als <code>long</code>; verfallene Ereignisse werden
+ * nicht gesucht, sondern beim Entnehmen an ihrer veralteten Generation erkannt. Die Simulation
+ * erzeugt daher auch bei sehr vielen Ereignissen keine Objekte.
+ * <pre>
+ *  TimedSimulator simulator = TimedSimulator.create(net).seed(42);
+ *  long events = simulator.run(1000.0);
+ *  double throughput = simulator.getFiringCount(0) / simulator.getTime();
+ * </pre>
+ */
+public final class TimedSimulator {
+
+    /** Das simulierte Netz */
+    private final CompiledNet net;
+
+    /** Untere Grenze der Verzögerung je Transition */
+    private final double[] minDelay;
+
+    /** Obere Grenze der Verzögerung je Transition */
+    private final double[] maxDelay;
+
+    /** Anzahl der Eingangsstellen mit zu wenigen Marken, je Transition */
+    private final int[] unsatisfied;
+
+    /** Generation je Transition, Ereignisse einer älteren Generation sind verfallen */
+    private final int[] generation;
+
+    /** Ob für die Transition ein gültiges Ereignis geplant ist */
+    private final boolean[] scheduled;
+
+    /** Transitionen, die beim aktuellen Schalten neu beginnen */
+    private final int[] restarted;
+
+    /** Anzahl der Schaltungen je Transition */
+    private final long[] firingCounts;
+
+    /** Geplante Ereignisse */
+    private final CalendarQueue queue = new CalendarQueue();
+
+    /** Zufallszahlengenerator */
+    private SplittableRandom random = new SplittableRandom();
+
+    /** Aktuelle Markierung */
+    private int[] marking;
+
+    /** Aktuelle Simulationszeit */
+    private double time;
+
+    /** Anzahl der Schaltungen seit dem Start */
+    private long events;
+
+    /**
+     * Erstellt einen Simulator, die Verzögerungen werden nicht geprüft
+     */
+    private TimedSimulator(CompiledNet net, double[] minDelay, double[] maxDelay) {
+        this.net = net;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        final int transitions = net.getTransitionCount();
+
+        unsatisfied = new int[transitions];
+        generation = new int[transitions];
+        scheduled = new boolean[transitions];
+        restarted = new int[transitions];
+        firingCounts = new long[transitions];
+        reset();
+    }
+
+    /**
+     * Erstellt einen Simulator für die aktuelle Markierung des Netzes <b>net</b>, die
+     * Verzögerungen werden aus den Transitionen gelesen
+     */
+    public static TimedSimulator create(PetriNet net) {
+        double[] min = new double[net.getTransitions().size()];
+        double[] max = new double[min.length];
+        int t = 0;
+        for (PetriNetTransition transition : net.getTransitions()) {
+            min[t] = transition.getMinDelay();
+            max[t++] = transition.getMaxDelay();
+        }
+
+        return new TimedSimulator(net.compile(), min, max);
+    }
+
+    /**
+     * Erstellt einen Simulator für die Anfangsmarkierung des kompilierten Netzes <b>net</b>
+     * @param minDelay untere Grenze der Verzögerung je Transitionsindex
+     * @param maxDelay obere Grenze der Verzögerung je Transitionsindex
+     * @throws IllegalArgumentException falls die Anzahl der Grenzen nicht übereinstimmt, eine
+     *         Grenze negativ oder nicht endlich ist oder eine untere Grenze größer als die obere ist
+     */
+    public static TimedSimulator create(CompiledNet net, double[] minDelay, double[] maxDelay) {
+        if (minDelay.length != net.getTransitionCount() || maxDelay.length != net.getTransitionCount())
+            throw new IllegalArgumentException("expected " + net.getTransitionCount() + " delays");
+        for (int t = 0; t < minDelay.length; ++t) {
+            if (!(minDelay[t] >= 0) || Double.isInfinite(maxDelay[t]) || !(minDelay[t] <= maxDelay[t]))
+                throw new IllegalArgumentException("invalid delay interval [" + minDelay[t] + ", " +
+                        maxDelay[t] + "]");
+        }
+
+        return new TimedSimulator(net, minDelay.clone(), maxDelay.clone());
+    }
+
+    /** Setzt den Startwert des Zufallszahlengenerators und startet die Simulation neu */
+    public TimedSimulator seed(long seed) {
+        this.random = new SplittableRandom(seed);
+        reset();
+        return this;
+    }
+
+    /**
+     * Setzt die Simulation auf die Anfangsmarkierung und den Zeitpunkt 0 zurück, die
+     * Zufallszahlen laufen weiter
+     */
+    public void reset() {
+        marking = net.getInitialMarking();
+        time = 0;
+        events = 0;
+        Arrays.fill(firingCounts, 0);
+        Arrays.fill(scheduled, false);
+        queue.clear();
+        for (int t = 0; t < unsatisfied.length; ++t) {
+            unsatisfied[t] = net.countUnsatisfied(t, marking);
+
+            if (unsatisfied[t] == 0)
+                schedule(t);
+        }
+    }
+
+    /**
+     * Schaltet die Transition mit dem frühesten geplanten Ereignis und setzt die Zeit auf
+     * dessen Zeitpunkt
+     * @return Index der geschalteten Transition oder <code>-1</code> falls keine Transition
+     *         aktiviert ist
+     */
+    public int step() {
+        discardCancelled();
+        if (queue.isEmpty())
+            return -1;
+
+        time = queue.peekTime();
+        int t = (int) queue.poll();
+        fire(t);
+        return t;
+    }
+
+    /**
+     * Simuliert bis zum Zeitpunkt <b>until</b>, danach ist die Zeit genau <b>until</b>
+     * @return Anzahl der Schaltungen in diesem Aufruf
+     * @throws IllegalArgumentException falls <b>until</b> vor der aktuellen Zeit liegt
+     */
+    public long run(double until) {
+        return run(until, Long.MAX_VALUE);
+    }
+
+    /**
+     * Simuliert bis zum Zeitpunkt <b>until</b>, höchstens aber <b>maxEvents</b> Schaltungen.
+     * Die Grenze verhindert Endlosschleifen, falls Transitionen ohne Verzögerung immer wieder
+     * schalten können. Wird sie erreicht, bleibt die Zeit beim letzten Ereignis stehen,
+     * sonst ist sie danach genau <b>until</b>.
+     * @return Anzahl der Schaltungen in diesem Aufruf
+     * @throws IllegalArgumentException falls <b>until</b> vor der aktuellen Zeit liegt oder
+     *         <b>maxEvents</b> negativ ist
+     */
+    public long run(double until, long maxEvents) {
+        if (until < time)
+            throw new IllegalArgumentException("cannot run backwards in time");
+        if (maxEvents < 0)
+            throw new IllegalArgumentException("event limit cannot be negative");
+
+        long before = events;
+        while (events - before < maxEvents && getNextEventTime() <= until) {
+            time = queue.peekTime();
+            fire((int) queue.poll());
+        }
+
+        if (events - before < maxEvents)
+            time = until;
+        return events - before;
+    }
+
+    /**
+     * Schaltet die Transition <b>t</b>, deren Ereignis gerade entnommen wurde, und plant bzw.
+     * verwirft die Ereignisse der Transitionen, deren Aktivierung sich ändert
+     */
+    private void fire(int t) {
+        ++events;
+        ++firingCounts[t];
+        scheduled[t] = false;
+
+        // Konflikte in der Zwischenmarkierung: die Ereignisse verfallen und werden nach dem
+        // Schalten neu geplant, falls die Transitionen dann aktiviert sind
+        int restartCount = 0;
+        for (int i = net.getPresetStart(t), end = net.getPresetEnd(t); i < end; ++i) {
+            int p = net.getPresetPlace(i);
+            int intermediate = marking[p] - net.getPresetWeight(i);
+            for (int j = net.getConsumerStart(p), last = net.getConsumerEnd(p); j < last; ++j) {
+                int u = net.getConsumerTransition(j);
+                if (scheduled[u] && intermediate < net.getConsumerWeight(j)) {
+                    cancel(u);
+                    restarted[restartCount++] = u;
+                }
+            }
+        }
+
+        for (int i = net.getEffectStart(t), end = net.getEffectEnd(t); i < end; ++i) {
+            int p = net.getEffectPlace(i);
+            int before = marking[p];
+            int after = before + net.getEffectDelta(i);
+            marking[p] = after;
+
+            for (int j = net.getConsumerStart(p), last = net.getConsumerEnd(p); j < last; ++j) {
+                int weight = net.getConsumerWeight(j);
+                boolean satisfiedBefore = before >= weight;
+                if (satisfiedBefore == (after >= weight))
+                    continue;
+
+                int u = net.getConsumerTransition(j);
+                if (satisfiedBefore) {
+                    if (unsatisfied[u]++ == 0)
+                        cancel(u);
+                } else if (--unsatisfied[u] == 0) {
+                    schedule(u);
+                }
+            }
+        }
+
+        for (int i = 0; i < restartCount; ++i) {
+            int u = restarted[i];
+            if (unsatisfied[u] == 0 && !scheduled[u])
+                schedule(u);
+        }
+        if (unsatisfied[t] == 0 && !scheduled[t])
+            schedule(t);
+    }
+
+    /** Plant das Schalten der aktivierten Transition <b>t</b> */
+    private void schedule(int t) {
+        double min = minDelay[t];
+        double delay = min == maxDelay[t] ? min : min + (maxDelay[t] - min) * random.nextDouble();
+        scheduled[t] = true;
+        queue.add(time + delay, (long) ++generation[t] << 32 | t);
+    }
+
+    /** Verwirft das geplante Ereignis der deaktivierten Transition <b>t</b> */
+    private void cancel(int t) {
+        scheduled[t] = false;
+        ++generation[t];
+    }
+
+    /** Entfernt verfallene Ereignisse vom Anfang der Warteschlange */
+    private void discardCancelled() {
+        while (!queue.isEmpty()) {
+            long value = queue.peekValue();
+            int t = (int) value;
+            if (scheduled[t] && (int) (value >>> 32) == generation[t])
+                return;
+            queue.poll();
+        }
+    }
+
+    /** Gibt das simulierte Netz zurück */
+    public CompiledNet getNet() {
+        return net;
+    }
+
+    /** Gibt die aktuelle Simulationszeit zurück */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Gibt den Zeitpunkt der nächsten Schaltung zurück, oder {@link Double#POSITIVE_INFINITY}
+     * falls keine Transition aktiviert ist
+     */
+    public double getNextEventTime() {
+        discardCancelled();
+        return queue.peekTime();
+    }
+
+    /** Gibt die Anzahl der Schaltungen seit dem Start zurück */
+    public long getEventCount() {
+        return events;
+    }
+
+    /** Gibt die Anzahl der Schaltungen der Transition mit dem Index <b>transition</b> zurück */
+    public long getFiringCount(int transition) {
+        return firingCounts[transition];
+    }
+
+    /** Gibt <code>true</code> zurück falls die Transition mit dem Index <b>transition</b> aktiviert ist */
+    public boolean isEnabled(int transition) {
+        return unsatisfied[transition] == 0;
+    }
+
+    /** Gibt die aktuelle Markierung zurück */
+    public MarkingVector getMarking() {
+        return new MarkingVector(marking);
+    }
+
+    /** Gibt die aktuelle Markenanzahl der Stelle mit dem Index <b>place</b> zurück */
+    public int getTokens(int place) {
+        return marking[place];
+    }
+
+    /**
+     * Schreibt die aktuelle Markierung in die Stellen des Netzes zurück
+     * @see CompiledNet#writeBack(int[])
+     */
+    public void writeBack() {
+        net.writeBack(marking);
+    }
+}
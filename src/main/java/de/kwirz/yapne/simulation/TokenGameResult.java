@@ -0,0 +1,100 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.MarkingVector;
+
+/**
+ * Ergebnis eines Laufs des Tokenspiels.
+ *
+ * @see TokenGameSimulator#run(long)
+ */
+public final class TokenGameResult {
+
+    /** Das simulierte Netz */
+    private final CompiledNet net;
+
+    /** Anzahl der ausgeführten Schritte */
+    private final long steps;
+
+    /** <code>true</code> falls am Ende keine Transition aktiviert war */
+    private final boolean deadlocked;
+
+    /** Laufzeit in Nanosekunden */
+    private final long elapsedNanos;
+
+    /** Markierung am Ende des Laufs */
+    private final int[] marking;
+
+    /** Anzahl der Schaltungen je Transition seit dem letzten Zurücksetzen */
+    private final long[] firingCounts;
+
+    /**
+     * Erstellt ein Ergebnis
+     */
+    TokenGameResult(CompiledNet net, long steps, boolean deadlocked, long elapsedNanos,
+                    int[] marking, long[] firingCounts) {
+        this.net = net;
+        this.steps = steps;
+        this.deadlocked = deadlocked;
+        this.elapsedNanos = elapsedNanos;
+        this.marking = marking;
+        this.firingCounts = firingCounts;
+    }
+
+    /** Gibt das simulierte Netz zurück */
+    public CompiledNet getNet() {
+        return net;
+    }
+
+    /** Gibt die Anzahl der in diesem Lauf ausgeführten Schritte zurück */
+    public long getSteps() {
+        return steps;
+    }
+
+    /** Gibt <code>true</code> zurück falls der Lauf in einer toten Markierung endete */
+    public boolean isDeadlocked() {
+        return deadlocked;
+    }
+
+    /** Gibt die Laufzeit in Nanosekunden zurück */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /** Gibt die Anzahl der Schaltungen pro Sekunde zurück */
+    public double getFiringsPerSecond() {
+        return elapsedNanos == 0 ? Double.POSITIVE_INFINITY : steps * 1e9 / elapsedNanos;
+    }
+
+    /** Gibt die Markierung am Ende des Laufs zurück */
+    public MarkingVector getFinalMarking() {
+        return new MarkingVector(marking);
+    }
+
+    /**
+     * Gibt die Anzahl der Schaltungen der Transition mit dem Index <b>transition</b> seit dem
+     * letzten Zurücksetzen zurück
+     */
+    public long getFiringCount(int transition) {
+        return firingCounts[transition];
+    }
+
+    /**
+     * Gibt die Anzahl der Schaltungen der Transition <b>transitionId</b> seit dem letzten
+     * Zurücksetzen zurück
+     * @throws IllegalArgumentException falls die Transition nicht existiert
+     */
+    public long getFiringCount(String transitionId) {
+        int index = net.indexOfTransition(transitionId);
+        if (index < 0)
+            throw new IllegalArgumentException("unknown transition: " + transitionId);
+        return firingCounts[index];
+    }
+
+    /** Gibt die String Repräsentation zurück */
+    @Override
+    public String toString() {
+        return String.format("TokenGameResult { steps: %d, deadlocked: %s, firings/s: %.0f, marking: %s }",
+                steps, deadlocked, getFiringsPerSecond(), getFinalMarking());
+    }
+}
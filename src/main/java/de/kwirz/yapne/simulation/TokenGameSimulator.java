@@ -0,0 +1,201 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.CompiledNet;
+import de.kwirz.yapne.model.MarkingVector;
+import de.kwirz.yapne.model.PetriNet;
+
+import java.util.Arrays;
+
+/**
+ * Spielt das Tokenspiel ohne Oberfläche direkt auf der kompilierten Form eines Netzes.
+ * <p>
+ * In jedem Schritt wählt eine {@link ConflictPolicy} eine der aktivierten Transitionen, die
+ * dann schaltet. Die Menge der aktivierten Transitionen wird inkrementell gepflegt: für jede
+ * Transition wird die Anzahl der Eingangsstellen mit zu wenigen Marken gezählt, nach dem
+ * Schalten werden nur die Konsumenten der veränderten Stellen angepasst. Ein Schritt erzeugt
+ * keine Objekte und kostet unabhängig von der Größe des Netzes nur die lokale Umgebung der
+ * geschalteten Transition (plus die Wahl der Strategie).
+ * <pre>
+ *  TokenGameResult result = TokenGameSimulator.create(net)
+ *                              .policy(ConflictPolicy.uniform(42))
+ *                              .run(10000000);
+ *  double rate = result.getFiringsPerSecond();
+ * </pre>
+ */
+public final class TokenGameSimulator {
+
+    /** Das simulierte Netz */
+    private final CompiledNet net;
+
+    /** Anzahl der Eingangsstellen mit zu wenigen Marken, je Transition */
+    private final int[] unsatisfied;
+
+    /** Aktivierte Transitionen, die ersten {@link #enabledCount} Einträge sind gültig */
+    private final int[] enabled;
+
+    /** Position jeder aktivierten Transition in {@link #enabled}, sonst <code>-1</code> */
+    private final int[] enabledPosition;
+
+    /** Anzahl der aktivierten Transitionen */
+    private int enabledCount;
+
+    /** Anzahl der Schaltungen je Transition */
+    private final long[] firingCounts;
+
+    /** Aktuelle Markierung */
+    private int[] marking;
+
+    /** Strategie zur Auflösung von Konflikten */
+    private ConflictPolicy policy = ConflictPolicy.uniform();
+
+    /**
+     * Erstellt einen Simulator
+     */
+    private TokenGameSimulator(CompiledNet net) {
+        this.net = net;
+        final int transitions = net.getTransitionCount();
+
+        unsatisfied = new int[transitions];
+        enabled = new int[transitions];
+        enabledPosition = new int[transitions];
+        firingCounts = new long[transitions];
+        reset();
+    }
+
+    /** Erstellt einen Simulator für die aktuelle Markierung des Netzes <b>net</b> */
+    public static TokenGameSimulator create(PetriNet net) {
+        return create(net.compile());
+    }
+
+    /** Erstellt einen Simulator für die Anfangsmarkierung des kompilierten Netzes <b>net</b> */
+    public static TokenGameSimulator create(CompiledNet net) {
+        return new TokenGameSimulator(net);
+    }
+
+    /**
+     * Setzt die Strategie zur Auflösung von Konflikten, Standard ist eine gleichverteilte Wahl
+     * @throws IllegalArgumentException falls die Strategie nicht zum Netz passt
+     */
+    public TokenGameSimulator policy(ConflictPolicy policy) {
+        policy.attach(net);
+        this.policy = policy;
+        return this;
+    }
+
+    /** Setzt die Simulation auf die Anfangsmarkierung zurück */
+    public void reset() {
+        marking = net.getInitialMarking();
+        Arrays.fill(firingCounts, 0);
+        enabledCount = 0;
+        for (int t = 0; t < unsatisfied.length; ++t) {
+            unsatisfied[t] = net.countUnsatisfied(t, marking);
+
+            enabledPosition[t] = -1;
+            if (unsatisfied[t] == 0)
+                addEnabled(t);
+        }
+    }
+
+    /**
+     * Schaltet eine aktivierte Transition
+     * @return Index der geschalteten Transition oder <code>-1</code> falls keine aktiviert ist
+     */
+    public int step() {
+        if (enabledCount == 0)
+            return -1;
+
+        int t = policy.select(enabled, enabledCount);
+        fire(t);
+        return t;
+    }
+
+    /**
+     * Führt bis zu <b>steps</b> Schritte aus und stoppt vorher, falls keine Transition mehr
+     * aktiviert ist
+     * @throws IllegalArgumentException falls <b>steps</b> negativ ist
+     */
+    public TokenGameResult run(long steps) {
+        if (steps < 0)
+            throw new IllegalArgumentException("step count cannot be negative");
+
+        long performed = 0;
+        long start = System.nanoTime();
+        while (performed < steps && enabledCount > 0) {
+            fire(policy.select(enabled, enabledCount));
+            ++performed;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new TokenGameResult(net, performed, enabledCount == 0, elapsed, marking.clone(),
+                firingCounts.clone());
+    }
+
+    /** Schaltet die aktivierte Transition <b>t</b> und passt die aktivierten Transitionen an */
+    private void fire(int t) {
+        ++firingCounts[t];
+        for (int i = net.getEffectStart(t), end = net.getEffectEnd(t); i < end; ++i) {
+            int p = net.getEffectPlace(i);
+            int before = marking[p];
+            int after = before + net.getEffectDelta(i);
+            marking[p] = after;
+
+            for (int j = net.getConsumerStart(p), last = net.getConsumerEnd(p); j < last; ++j) {
+                int weight = net.getConsumerWeight(j);
+                boolean satisfiedBefore = before >= weight;
+                if (satisfiedBefore == (after >= weight))
+                    continue;
+
+                int u = net.getConsumerTransition(j);
+                if (satisfiedBefore) {
+                    if (unsatisfied[u]++ == 0)
+                        removeEnabled(u);
+                } else if (--unsatisfied[u] == 0) {
+                    addEnabled(u);
+                }
+            }
+        }
+    }
+
+    /** Nimmt die Transition <b>t</b> in die aktivierten Transitionen auf */
+    private void addEnabled(int t) {
+        enabledPosition[t] = enabledCount;
+        enabled[enabledCount++] = t;
+    }
+
+    /** Entfernt die Transition <b>t</b> aus den aktivierten Transitionen */
+    private void removeEnabled(int t) {
+        int position = enabledPosition[t];
+        int last = enabled[--enabledCount];
+        enabled[position] = last;
+        enabledPosition[last] = position;
+        enabledPosition[t] = -1;
+    }
+
+    /** Gibt das simulierte Netz zurück */
+    public CompiledNet getNet() {
+        return net;
+    }
+
+    /** Gibt die aktuelle Markierung zurück */
+    public MarkingVector getMarking() {
+        return new MarkingVector(marking);
+    }
+
+    /** Gibt die Anzahl der aktuell aktivierten Transitionen zurück */
+    public int getEnabledCount() {
+        return enabledCount;
+    }
+
+    /** Gibt <code>true</code> zurück falls die Transition mit dem Index <b>transition</b> aktiviert ist */
+    public boolean isEnabled(int transition) {
+        return enabledPosition[transition] >= 0;
+    }
+
+    /**
+     * Schreibt die aktuelle Markierung in die Stellen des Netzes zurück
+     * @see CompiledNet#writeBack(int[])
+     */
+    public void writeBack() {
+        net.writeBack(marking);
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Simulation von Petri Netzen, z.B. stochastische Simulation mit exponentiell verteilten
+ * Schaltverzögerungen oder ereignisdiskrete Simulation mit festen bzw. gleichverteilten
+ * Schaltverzögerungen.
+ */
+package de.kwirz.yapne.simulation;
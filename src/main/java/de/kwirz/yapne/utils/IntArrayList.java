@@ -0,0 +1,127 @@
+package de.kwirz.yapne.utils;
+
+import java.util.Arrays;
+
+
+/**
+ * Wachsende Liste von <code>int</code> Werten ohne Boxing.
+ * <p>
+ * Wird in Analysen eingesetzt, die sehr viele Werte (z.B. Zustände oder Kanten) speichern,
+ * bei denen eine {@link java.util.List} von {@link Integer} zu viel Speicher belegen würde.
+ */
+public class IntArrayList {
+
+    /** Werte */
+    private int[] values;
+
+    /** Anzahl der Werte */
+    private int size = 0;
+
+    /**
+     * Erstellt eine leere Liste
+     */
+    public IntArrayList() {
+        this(16);
+    }
+
+    /**
+     * Erstellt eine leere Liste
+     * @param capacity anfängliche Kapazität
+     */
+    public IntArrayList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    /** Hängt einen Wert an */
+    public void add(int value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, grow(values.length));
+
+        values[size++] = value;
+    }
+
+    /** Hängt alle Werte der Liste <b>other</b> an */
+    public void addAll(IntArrayList other) {
+        if ((long) size + other.size > values.length) {
+            long capacity = Math.max((long) size + other.size, grow(values.length));
+            if (capacity > Integer.MAX_VALUE - 8)
+                throw new IllegalStateException("list is too large");
+            values = Arrays.copyOf(values, (int) capacity);
+        }
+
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Gibt den Wert an der Position <b>index</b> zurück
+     * @throws IndexOutOfBoundsException falls <b>index</b> ungültig ist
+     */
+    public int get(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Setzt den Wert an der Position <b>index</b>
+     * @throws IndexOutOfBoundsException falls <b>index</b> ungültig ist
+     */
+    public void set(int index, int value) {
+        checkIndex(index);
+        values[index] = value;
+    }
+
+    /**
+     * Entfernt den letzten Wert und gibt ihn zurück
+     * @throws IndexOutOfBoundsException falls die Liste leer ist
+     */
+    public int removeLast() {
+        checkIndex(size - 1);
+        return values[--size];
+    }
+
+    /** Gibt die Anzahl der Werte zurück */
+    public int size() {
+        return size;
+    }
+
+    /** Gibt <code>true</code> zurück falls die Liste leer ist */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Entfernt alle Werte */
+    public void clear() {
+        size = 0;
+    }
+
+    /** Gibt die Werte als Array passender Länge zurück */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Berechnet die neue Kapazität, wächst um die Hälfte.
+     * @throws IllegalStateException falls die maximale Arraygröße erreicht ist
+     */
+    private static int grow(int capacity) {
+        if (capacity == Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("list is too large");
+
+        return (int) Math.min((long) capacity + (capacity >> 1) + 1, Integer.MAX_VALUE - 8);
+    }
+
+    /** Prüft den Index */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+    }
+
+    /**
+     * Repräsentation als String
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,110 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.io.PnmlParser;
+import de.kwirz.yapne.model.*;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class CoverabilityExplorerTest {
+
+    /** p0 -> t -> p0 + p1, p1 wächst unbeschränkt */
+    private static PetriNet producer() {
+        PetriNet net = new PetriNet();
+        PetriNetPlace source = TestNets.place(net, "p0", 1);
+        PetriNetPlace sink = TestNets.place(net, "p1", 0);
+        PetriNetTransition produce = TestNets.transition(net, "t");
+        TestNets.connect(net, source, produce);
+        TestNets.connect(net, produce, source);
+        TestNets.connect(net, produce, sink);
+        return net;
+    }
+
+    @Test
+    public void testUnboundedPlace() {
+        CoverabilityGraph graph = CoverabilityExplorer.create(producer()).explore();
+
+        assertTrue(graph.isComplete());
+        assertFalse(graph.isBounded());
+        assertThat(graph.getNodeCount(), is(2));
+        assertThat(graph.getEdgeCount(), is(2));
+        assertThat(graph.getBound("p0"), is(1));
+        assertThat(graph.getBound("p1"), is(CoverabilityGraph.OMEGA));
+        assertThat(graph.getMarking(1), is(new MarkingVector(new int[] {1, CoverabilityGraph.OMEGA})));
+
+        assertTrue(graph.isCoverable(new MarkingVector(new int[] {1, 1000})));
+        assertFalse(graph.isCoverable(new MarkingVector(new int[] {2, 0})));
+    }
+
+    @Test
+    public void testBoundedNetMatchesReachability() {
+        PetriNet net = TestNets.diningPhilosophers(6);
+        CoverabilityGraph coverability = CoverabilityExplorer.create(net).explore();
+        ReachabilityGraph reachability = ReachabilityExplorer.create(net).explore();
+
+        assertTrue(coverability.isBounded());
+        assertThat(coverability.getNodeCount(), is(reachability.getStateCount()));
+        assertThat(coverability.getEdgeCount(), is(reachability.getEdgeCount()));
+        for (int p = 0; p < net.getPlaces().size(); ++p)
+            assertThat(coverability.getBound(p), is(1));
+    }
+
+    @Test
+    public void testWeightedArcs() {
+        // t verbraucht 2 Marken aus p0 und erzeugt 3, p0 ist unbeschränkt; p1 bleibt bei 1
+        PetriNet net = new PetriNet();
+        PetriNetPlace p0 = TestNets.place(net, "p0", 2);
+        PetriNetPlace p1 = TestNets.place(net, "p1", 1);
+        PetriNetTransition t = TestNets.transition(net, "t");
+        TestNets.connect(net, p0, t, 2);
+        TestNets.connect(net, t, p0, 3);
+        TestNets.connect(net, p1, t);
+        TestNets.connect(net, t, p1);
+
+        CoverabilityGraph graph = CoverabilityExplorer.create(net).explore();
+
+        assertThat(graph.getBound("p0"), is(CoverabilityGraph.OMEGA));
+        assertThat(graph.getBound("p1"), is(1));
+        assertFalse(graph.isCoverable(new MarkingVector(new int[] {0, 2})));
+    }
+
+    @Test
+    public void testParsedNet() {
+        final String input = "<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"no\"?>\n" +
+                "<pnml>\n" +
+                "  <net>\n" +
+                "    <transition id=\"t\">\n" +
+                "    </transition>\n" +
+                "    <place id=\"p0\">\n" +
+                "      <initialMarking>\n" +
+                "        <token>\n" +
+                "          <value>1</value>\n" +
+                "        </token>\n" +
+                "      </initialMarking>\n" +
+                "    </place>\n" +
+                "    <place id=\"p1\">\n" +
+                "    </place>\n" +
+                "    <arc id=\"a1\" source=\"p0\" target=\"t\">\n" +
+                "    </arc>\n" +
+                "    <arc id=\"a2\" source=\"t\" target=\"p0\">\n" +
+                "    </arc>\n" +
+                "    <arc id=\"a3\" source=\"t\" target=\"p1\">\n" +
+                "    </arc>\n" +
+                "  </net>\n" +
+                "</pnml>";
+        CoverabilityGraph graph = CoverabilityExplorer.create(new PnmlParser().parse(input)).explore();
+
+        assertTrue(graph.isBounded(graph.getNet().indexOfPlace("p0")));
+        assertFalse(graph.isBounded(graph.getNet().indexOfPlace("p1")));
+    }
+
+    @Test
+    public void testNodeLimit() {
+        CoverabilityGraph graph = CoverabilityExplorer.create(TestNets.ring(4, 3)).nodeLimit(3).explore();
+
+        assertFalse(graph.isComplete());
+        assertThat(graph.getNodeCount(), is(3));
+    }
+}
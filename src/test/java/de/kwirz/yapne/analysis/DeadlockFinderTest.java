@@ -0,0 +1,80 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.*;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class DeadlockFinderTest {
+
+    @Test
+    public void testDeadlockingPhilosophers() {
+        DeadlockReport report = DeadlockFinder.create(TestNets.deadlockingPhilosophers(5)).find();
+
+        assertTrue(report.hasDeadlock());
+        assertTrue(report.isComplete());
+        assertThat(report.getTrace().length, is(5));
+        for (String id : report.getTraceIds())
+            assertTrue(id.startsWith("takeLeft"));
+
+        // die Schaltfolge führt zur gemeldeten Markierung
+        CompiledNet net = report.getNet();
+        int[] marking = net.getInitialMarking();
+        for (int t : report.getTrace()) {
+            assertTrue(net.isEnabled(t, marking));
+            net.fire(t, marking);
+        }
+        assertThat(new MarkingVector(marking), is(report.getDeadlock()));
+        for (int t = 0; t < net.getTransitionCount(); ++t)
+            assertFalse(net.isEnabled(t, marking));
+    }
+
+    @Test
+    public void testDeadlockFree() {
+        DeadlockReport report = DeadlockFinder.create(TestNets.diningPhilosophers(6)).find();
+
+        assertFalse(report.hasDeadlock());
+        assertTrue(report.isComplete());
+        assertNull(report.getDeadlock());
+        assertThat(report.getTrace().length, is(0));
+        assertThat(report.getExploredStateCount(), is(18));
+    }
+
+    @Test
+    public void testInitialDeadlock() {
+        PetriNet net = new PetriNet();
+        TestNets.place(net, "p", 0);
+        TestNets.connect(net, net.getPlaces().iterator().next(), TestNets.transition(net, "t"));
+
+        DeadlockReport report = DeadlockFinder.create(net).find();
+        assertTrue(report.hasDeadlock());
+        assertTrue(report.getTraceIds().isEmpty());
+        assertThat(report.getExploredStateCount(), is(1));
+    }
+
+    @Test
+    public void testShortestTrace() {
+        DeadlockReport report = DeadlockFinder.create(TestNets.independentProcesses(12)).find();
+
+        assertTrue(report.hasDeadlock());
+        assertThat(report.getTrace().length, is(12));
+    }
+
+    @Test
+    public void testStateLimit() {
+        DeadlockReport report = DeadlockFinder.create(TestNets.deadlockingPhilosophers(8))
+                .stateLimit(5)
+                .find();
+
+        assertFalse(report.hasDeadlock());
+        assertFalse(report.isComplete());
+        assertThat(report.getExploredStateCount(), is(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimit() {
+        DeadlockFinder.create(TestNets.ring(2, 1)).stateLimit(0);
+    }
+}
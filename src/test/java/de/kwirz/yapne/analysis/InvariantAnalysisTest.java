@@ -0,0 +1,94 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.*;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class InvariantAnalysisTest {
+
+    @Test
+    public void testRing() {
+        InvariantAnalysis analysis = InvariantAnalysis.create(TestNets.ring(4, 2));
+
+        List<Invariant> places = analysis.getPlaceInvariants();
+        assertThat(places.size(), is(1));
+        assertThat(places.get(0).toString(), is("p0 + p1 + p2 + p3"));
+
+        List<Invariant> transitions = analysis.getTransitionInvariants();
+        assertThat(transitions.size(), is(1));
+        assertThat(transitions.get(0).getSupport().size(), is(4));
+        assertTrue(analysis.isCoveredByPlaceInvariants());
+        assertTrue(analysis.isCoveredByTransitionInvariants());
+    }
+
+    @Test
+    public void testDiningPhilosophers() {
+        PetriNet net = TestNets.diningPhilosophers(3);
+        InvariantAnalysis analysis = InvariantAnalysis.create(net);
+
+        // thinking_i + eating_i sowie fork_i + eating_i + eating_(i-1)
+        assertThat(analysis.getPlaceInvariants().size(), is(6));
+        assertThat(analysis.getTransitionInvariants().size(), is(3));
+        for (Invariant invariant : analysis.getTransitionInvariants())
+            assertThat(invariant.getSupport().size(), is(2));
+
+        // gewichtete Summen sind in allen erreichbaren Markierungen gleich
+        ReachabilityGraph graph = ReachabilityExplorer.create(net).explore();
+        for (Invariant invariant : analysis.getPlaceInvariants()) {
+            long expected = invariant.evaluate(graph.getMarking(0));
+            for (int state = 1; state < graph.getStateCount(); ++state)
+                assertThat(invariant.evaluate(graph.getMarking(state)), is(expected));
+        }
+    }
+
+    @Test
+    public void testWeightedArcs() {
+        PetriNet net = new PetriNet();
+        PetriNetPlace p0 = TestNets.place(net, "p0", 2);
+        PetriNetPlace p1 = TestNets.place(net, "p1", 0);
+        PetriNetTransition t = TestNets.transition(net, "t");
+        PetriNetTransition u = TestNets.transition(net, "u");
+        TestNets.connect(net, p0, t, 2);
+        TestNets.connect(net, t, p1);
+        TestNets.connect(net, p1, u);
+        TestNets.connect(net, u, p0, 2);
+
+        List<Invariant> invariants = InvariantAnalysis.create(net).getPlaceInvariants();
+
+        assertThat(invariants.size(), is(1));
+        assertThat(invariants.get(0).getCoefficient("p0"), is(1L));
+        assertThat(invariants.get(0).getCoefficient("p1"), is(2L));
+        assertThat(invariants.get(0).toString(), is("p0 + 2*p1"));
+    }
+
+    @Test
+    public void testUncoveredPlace() {
+        InvariantAnalysis analysis = InvariantAnalysis.create(TestNets.independentProcesses(3));
+
+        assertThat(analysis.getPlaceInvariants().size(), is(3));
+        assertTrue(analysis.isCoveredByPlaceInvariants());
+        assertTrue(analysis.getTransitionInvariants().isEmpty());
+        assertFalse(analysis.isCoveredByTransitionInvariants());
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        PetriNet net = TestNets.deadlockingPhilosophers(30);
+        List<Invariant> sequential = InvariantAnalysis.create(net).getPlaceInvariants();
+        List<Invariant> parallel = InvariantAnalysis.create(net).parallel(true).getPlaceInvariants();
+
+        assertThat(sequential.size(), is(60));
+        assertThat(new HashSet<>(parallel), is(new HashSet<>(sequential)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRowLimit() {
+        InvariantAnalysis.create(TestNets.diningPhilosophers(10)).rowLimit(2).getPlaceInvariants();
+    }
+}
@@ -0,0 +1,36 @@
+package de.kwirz.yapne.analysis;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class MarkingTableTest {
+
+    @Test
+    public void testPoolLengthDoesNotOverflow() {
+        assertThat(MarkingTable.poolLength(0, 3), is(1));
+        assertThat(MarkingTable.poolLength(16, 3), is(48));
+        // 2^30 Zustände mit 4 Wörtern: im int-Produkt negativ
+        assertThat(MarkingTable.poolLength(1 << 30, 4), is(Integer.MAX_VALUE - 8));
+        assertThat(MarkingTable.poolLength(Integer.MAX_VALUE / 2, 64), is(Integer.MAX_VALUE - 8));
+    }
+
+    @Test
+    public void testWideningKeepsStates() {
+        MarkingTable table = new MarkingTable(100, 16);
+        for (int i = 0; i < 1000; ++i) {
+            int[] marking = new int[100];
+            marking[i % 100] = i;
+            assertThat(table.insert(marking), is(i));
+        }
+
+        int[] marking = new int[100];
+        for (int i = 0; i < 1000; ++i) {
+            table.get(i, marking);
+            assertThat(marking[i % 100], is(i));
+            assertThat(table.find(marking), is(i));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.MarkingVector;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.model.TestNets;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class ParallelReachabilityExplorerTest {
+
+    /** Vergleicht das Ergebnis mit dem sequentiellen Explorer */
+    private static void assertSameAsSequential(PetriNet net, int parallelism) {
+        ReachabilityGraph expected = ReachabilityExplorer.create(net).explore();
+        ReachabilityGraph actual = ParallelReachabilityExplorer.create(net)
+                .parallelism(parallelism)
+                .explore();
+
+        assertTrue(actual.isComplete());
+        assertThat(actual.getStateCount(), is(expected.getStateCount()));
+        assertThat(actual.getEdgeCount(), is(expected.getEdgeCount()));
+        assertThat(actual.getDeadlocks().length, is(expected.getDeadlocks().length));
+        assertThat(actual.getMarking(0), is(expected.getMarking(0)));
+
+        for (int state = 0; state < expected.getStateCount(); ++state)
+            assertTrue(actual.contains(expected.getMarking(state)));
+    }
+
+    @Test
+    public void testDiningPhilosophers() {
+        assertSameAsSequential(TestNets.diningPhilosophers(12), 4);
+        assertSameAsSequential(TestNets.deadlockingPhilosophers(6), 4);
+    }
+
+    @Test
+    public void testRing() {
+        assertSameAsSequential(TestNets.ring(6, 8), 1);
+        assertSameAsSequential(TestNets.ring(6, 8), 8);
+    }
+
+    @Test
+    public void testIndependentProcesses() {
+        assertSameAsSequential(TestNets.independentProcesses(12), 4);
+    }
+
+    @Test
+    public void testLargeMarkingsAreRepacked() {
+        ReachabilityGraph graph = ParallelReachabilityExplorer.create(TestNets.ring(3, 300))
+                .parallelism(4)
+                .explore();
+
+        // (3 + 300 - 1) über 300 = 45451
+        assertThat(graph.getStateCount(), is(45451));
+        assertTrue(graph.contains(new MarkingVector(new int[] {0, 0, 300})));
+        assertTrue(graph.contains(new MarkingVector(new int[] {100, 100, 100})));
+    }
+
+    @Test
+    public void testStateLimit() {
+        ReachabilityGraph graph = ParallelReachabilityExplorer.create(TestNets.ring(5, 5))
+                .parallelism(4)
+                .stateLimit(50)
+                .explore();
+
+        assertFalse(graph.isComplete());
+        assertThat(graph.getStateCount(), is(50));
+    }
+
+    @Test
+    public void testTruncatedExplorationIsConsistent() {
+        // welche Zustände aufgenommen werden, hängt von der Ausführungsreihenfolge ab,
+        // geprüft wird daher nur, was für jede Reihenfolge gilt
+        PetriNet net = TestNets.deadlockingPhilosophers(8);
+        ReachabilityGraph full = ReachabilityExplorer.create(net).explore();
+
+        for (int round = 0; round < 5; ++round) {
+            ReachabilityGraph graph = ParallelReachabilityExplorer.create(net)
+                    .parallelism(4)
+                    .stateLimit(200)
+                    .explore();
+
+            assertFalse(graph.isComplete());
+            assertThat(graph.getStateCount(), is(200));
+            assertThat(graph.getMarking(0), is(full.getMarking(0)));
+            assertTrue(graph.getEdgeCount() < full.getEdgeCount());
+
+            for (int state = 0; state < graph.getStateCount(); ++state)
+                assertTrue(full.contains(graph.getMarking(state)));
+
+            for (int edge = 0; edge < graph.getEdgeCount(); ++edge) {
+                int[] marking = graph.getMarking(graph.getEdgeSource(edge)).toArray();
+                graph.getNet().fire(graph.getEdgeTransition(edge), marking);
+                assertThat(new MarkingVector(marking), is(graph.getMarking(graph.getEdgeTarget(edge))));
+            }
+            for (int deadlock : graph.getDeadlocks()) {
+                int[] marking = graph.getMarking(deadlock).toArray();
+                for (int t = 0; t < graph.getNet().getTransitionCount(); ++t)
+                    assertFalse(graph.getNet().isEnabled(t, marking));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelism() {
+        ParallelReachabilityExplorer.create(TestNets.ring(2, 1)).parallelism(0);
+    }
+}
@@ -0,0 +1,85 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.MarkingVector;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.model.TestNets;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class ReachabilityExplorerTest {
+
+    @Test
+    public void testRing() {
+        ReachabilityGraph graph = ReachabilityExplorer.create(TestNets.ring(3, 2)).explore();
+
+        // (2,0,0) (0,2,0) (0,0,2) (1,1,0) (0,1,1) (1,0,1)
+        assertThat(graph.getStateCount(), is(6));
+        assertThat(graph.getEdgeCount(), is(9));
+        assertTrue(graph.isComplete());
+        assertThat(graph.getDeadlocks().length, is(0));
+        assertThat(graph.getMarking(0), is(new MarkingVector(new int[] {2, 0, 0})));
+        assertTrue(graph.contains(new MarkingVector(new int[] {0, 1, 1})));
+        assertFalse(graph.contains(new MarkingVector(new int[] {1, 1, 1})));
+    }
+
+    @Test
+    public void testEdges() {
+        ReachabilityGraph graph = ReachabilityExplorer.create(TestNets.ring(2, 1)).explore();
+
+        assertThat(graph.getStateCount(), is(2));
+        assertThat(graph.getEdgeCount(), is(2));
+        assertThat(graph.getEdgeSource(0), is(0));
+        assertThat(graph.getEdgeTarget(0), is(1));
+        assertThat(graph.getEdgeTransition(0), is(0));
+        assertThat(graph.getEdgeTarget(1), is(0));
+        assertThat(graph.getEdgeTransition(1), is(1));
+    }
+
+    @Test
+    public void testDiningPhilosophers() {
+        // Lucas-Zahlen: L(5) = 11, L(10) = 123
+        assertThat(ReachabilityExplorer.create(TestNets.diningPhilosophers(5)).explore().getStateCount(), is(11));
+        assertThat(ReachabilityExplorer.create(TestNets.diningPhilosophers(10)).explore().getStateCount(), is(123));
+    }
+
+    @Test
+    public void testDepthFirstFindsSameStates() {
+        PetriNet net = TestNets.deadlockingPhilosophers(4);
+        ReachabilityGraph bfs = ReachabilityExplorer.create(net).explore();
+        ReachabilityGraph dfs = ReachabilityExplorer.create(net)
+                .order(ReachabilityExplorer.Order.DEPTH_FIRST)
+                .explore();
+
+        assertThat(dfs.getStateCount(), is(bfs.getStateCount()));
+        assertThat(dfs.getEdgeCount(), is(bfs.getEdgeCount()));
+        assertThat(dfs.getDeadlocks().length, is(1));
+        assertThat(bfs.getDeadlocks().length, is(1));
+    }
+
+    @Test
+    public void testLimits() {
+        PetriNet net = TestNets.ring(4, 3);
+
+        ReachabilityGraph limited = ReachabilityExplorer.create(net).stateLimit(5).explore();
+        assertFalse(limited.isComplete());
+        assertThat(limited.getStateCount(), is(5));
+
+        ReachabilityGraph noEdges = ReachabilityExplorer.create(net).edgeLimit(0).explore();
+        assertFalse(noEdges.isComplete());
+        assertThat(noEdges.getEdgeCount(), is(0));
+    }
+
+    @Test
+    public void testLargeMarkingsAreRepacked() {
+        PetriNet net = TestNets.ring(3, 40);
+        ReachabilityGraph graph = ReachabilityExplorer.create(net).explore();
+
+        // (3 + 40 - 1) über 40 = 861
+        assertThat(graph.getStateCount(), is(861));
+        assertThat(graph.getMarking(0), is(new MarkingVector(new int[] {40, 0, 0})));
+        assertThat(graph.getTokens(graph.getStateCount() - 1, 2), is(40));
+    }
+}
@@ -0,0 +1,89 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class StructuralAnalysisTest {
+
+    @Test
+    public void testRing() {
+        StructuralAnalysis analysis = StructuralAnalysis.create(TestNets.ring(4, 1));
+
+        List<Set<String>> siphons = analysis.getMinimalSiphons();
+        assertThat(siphons.size(), is(1));
+        assertThat(siphons.get(0).size(), is(4));
+        assertThat(analysis.getMaximalTrap().size(), is(4));
+        assertTrue(analysis.isFreeChoice());
+        assertTrue(analysis.satisfiesCommonerHack());
+    }
+
+    @Test
+    public void testUnmarkedRing() {
+        StructuralAnalysis analysis = StructuralAnalysis.create(TestNets.ring(3, 0));
+
+        assertFalse(analysis.satisfiesCommonerHack());
+        assertThat(analysis.getSiphonsWithoutMarkedTrap().size(), is(1));
+    }
+
+    @Test
+    public void testSequence() {
+        PetriNet net = new PetriNet();
+        PetriNetPlace p1 = TestNets.place(net, "p1", 1);
+        PetriNetPlace p2 = TestNets.place(net, "p2", 0);
+        PetriNetTransition t = TestNets.transition(net, "t");
+        TestNets.connect(net, p1, t);
+        TestNets.connect(net, t, p2);
+
+        StructuralAnalysis analysis = StructuralAnalysis.create(net);
+        assertThat(analysis.getMinimalSiphons(), is(Collections.singletonList(Collections.singleton("p1"))));
+        assertThat(analysis.getMaximalTrap().size(), is(2));
+        assertTrue(analysis.isTrap(Collections.singleton("p2")));
+        assertTrue(analysis.isSiphon(Collections.singleton("p1")));
+        assertFalse(analysis.isTrap(Collections.singleton("p1")));
+        assertFalse(analysis.satisfiesCommonerHack());
+    }
+
+    @Test
+    public void testDiningPhilosophers() {
+        StructuralAnalysis analysis = StructuralAnalysis.create(TestNets.diningPhilosophers(3));
+
+        // Träger der Stelleninvarianten sind Siphons und Traps zugleich
+        for (Set<String> siphon : analysis.getMinimalSiphons())
+            assertTrue(analysis.isTrap(siphon));
+        assertTrue(analysis.isSiphon(Arrays.asList("thinking0", "eating0")));
+        assertTrue(analysis.isSiphon(Arrays.asList("fork1", "eating0", "eating1")));
+        assertTrue(analysis.satisfiesCommonerHack());
+        assertFalse(analysis.isFreeChoice());
+    }
+
+    @Test
+    public void testDeadlockingPhilosophers() {
+        StructuralAnalysis analysis = StructuralAnalysis.create(TestNets.deadlockingPhilosophers(3));
+
+        // alle Gabeln und Esser können gemeinsam leer laufen
+        assertFalse(analysis.satisfiesCommonerHack());
+        boolean found = false;
+        for (Set<String> siphon : analysis.getSiphonsWithoutMarkedTrap())
+            found |= siphon.containsAll(Arrays.asList("fork0", "fork1", "fork2"));
+        assertTrue(found);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSiphonLimit() {
+        StructuralAnalysis.create(TestNets.diningPhilosophers(4)).siphonLimit(2).getMinimalSiphons();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPlace() {
+        StructuralAnalysis.create(TestNets.ring(2, 1)).isSiphon(Collections.singleton("missing"));
+    }
+}
@@ -0,0 +1,83 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.MarkingVector;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.model.TestNets;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class StubbornSetsTest {
+
+    /** Gibt die Markierungen der Verklemmungen zurück */
+    private static Set<MarkingVector> deadlocks(ReachabilityGraph graph) {
+        Set<MarkingVector> result = new HashSet<>();
+        for (int state : graph.getDeadlocks())
+            result.add(graph.getMarking(state));
+        return result;
+    }
+
+    @Test
+    public void testIndependentProcessesCollapse() {
+        PetriNet net = TestNets.independentProcesses(12);
+        ReachabilityGraph full = ReachabilityExplorer.create(net).explore();
+        ReachabilityGraph reduced = ReachabilityExplorer.create(net).partialOrderReduction(true).explore();
+
+        assertThat(full.getStateCount(), is(4096));
+        assertThat(reduced.getStateCount(), is(13));
+        assertThat(reduced.getPartiallyExpandedStateCount(), is(11));
+        assertThat(deadlocks(reduced), is(deadlocks(full)));
+    }
+
+    @Test
+    public void testDeadlocksArePreserved() {
+        for (int n = 2; n <= 6; ++n) {
+            PetriNet net = TestNets.deadlockingPhilosophers(n);
+            ReachabilityGraph full = ReachabilityExplorer.create(net).explore();
+            ReachabilityGraph reduced = ReachabilityExplorer.create(net)
+                    .order(ReachabilityExplorer.Order.DEPTH_FIRST)
+                    .partialOrderReduction(true)
+                    .explore();
+
+            assertTrue(reduced.getStateCount() <= full.getStateCount());
+            assertThat(deadlocks(reduced), is(deadlocks(full)));
+        }
+    }
+
+    @Test
+    public void testVisiblePlaces() {
+        PetriNet net = TestNets.independentProcesses(6);
+        ReachabilityGraph reduced = ReachabilityExplorer.create(net)
+                .partialOrderReduction(true)
+                .visiblePlaces("after0", "after3")
+                .explore();
+
+        int after0 = reduced.getNet().indexOfPlace("after0");
+        int after3 = reduced.getNet().indexOfPlace("after3");
+        Set<Integer> combinations = new HashSet<>();
+        for (int state = 0; state < reduced.getStateCount(); ++state)
+            combinations.add(reduced.getTokens(state, after0) * 2 + reduced.getTokens(state, after3));
+
+        assertThat(combinations.size(), is(4));
+        assertTrue(reduced.getStateCount() < 64);
+    }
+
+    @Test
+    public void testCompareReduction() {
+        ReductionReport report = ReachabilityExplorer.create(TestNets.independentProcesses(8)).compareReduction();
+
+        assertThat(report.getFullStateCount(), is(256));
+        assertThat(report.getReducedStateCount(), is(9));
+        assertThat(report.getSavedStateCount(), is(247));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownVisiblePlace() {
+        ReachabilityExplorer.create(TestNets.ring(2, 1)).visiblePlaces("nope");
+    }
+}
@@ -0,0 +1,94 @@
+package de.kwirz.yapne.analysis;
+
+import de.kwirz.yapne.model.MarkingVector;
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.model.PetriNetPlace;
+import de.kwirz.yapne.model.PetriNetTransition;
+import de.kwirz.yapne.model.TestNets;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class SymbolicExplorerTest {
+
+    /** Vergleicht das Ergebnis mit dem expliziten Explorer */
+    private static void assertSameAsExplicit(PetriNet net) {
+        ReachabilityGraph graph = ReachabilityExplorer.create(net).explore();
+        SymbolicStateSpace space = SymbolicExplorer.create(net).explore();
+
+        assertThat(space.getStateCount(), is(BigInteger.valueOf(graph.getStateCount())));
+        for (int state = 0; state < graph.getStateCount(); ++state)
+            assertTrue(space.contains(graph.getMarking(state)));
+    }
+
+    /** Berechnet die Lucas-Zahl L(n) */
+    private static BigInteger lucas(int n) {
+        BigInteger a = BigInteger.valueOf(2);
+        BigInteger b = BigInteger.ONE;
+        for (int i = 0; i < n; ++i) {
+            BigInteger c = a.add(b);
+            a = b;
+            b = c;
+        }
+        return a;
+    }
+
+    @Test
+    public void testSmallNets() {
+        assertSameAsExplicit(TestNets.ring(5, 4));
+        assertSameAsExplicit(TestNets.diningPhilosophers(7));
+        assertSameAsExplicit(TestNets.deadlockingPhilosophers(5));
+        assertSameAsExplicit(TestNets.independentProcesses(8));
+    }
+
+    @Test
+    public void testLargeStateSpaces() {
+        SymbolicStateSpace philosophers = SymbolicExplorer.create(TestNets.diningPhilosophers(100)).explore();
+        assertThat(philosophers.getStateCount(), is(lucas(100)));
+
+        SymbolicStateSpace processes = SymbolicExplorer.create(TestNets.independentProcesses(60)).explore();
+        assertThat(processes.getStateCount(), is(BigInteger.ONE.shiftLeft(60)));
+        assertThat(processes.getNodeCount(), is(180));
+    }
+
+    @Test
+    public void testQueries() {
+        SymbolicStateSpace space = SymbolicExplorer.create(TestNets.ring(3, 4)).explore();
+
+        assertThat(space.getStateCount(), is(BigInteger.valueOf(15)));
+        assertTrue(space.contains(new MarkingVector(new int[] {1, 1, 2})));
+        assertFalse(space.contains(new MarkingVector(new int[] {1, 1, 1})));
+        assertFalse(space.contains(new MarkingVector(new int[] {5, 0, 0})));
+        assertThat(space.getBound(0), is(4));
+        assertThat(space.getBound(2), is(4));
+    }
+
+    @Test
+    public void testSmallCachesStillWork() {
+        SymbolicStateSpace space = SymbolicExplorer.create(TestNets.diningPhilosophers(20))
+                .cacheSize(1)
+                .explore();
+
+        assertThat(space.getStateCount(), is(lucas(20)));
+    }
+
+    @Test(expected = IllegalStateException.class, timeout = 10000)
+    public void testNodeLimitOnUnboundedNet() {
+        // eine Transition ohne Vorbereich erzeugt beliebig viele Marken
+        PetriNet net = new PetriNet();
+        PetriNetPlace place = TestNets.place(net, "place", 0);
+        PetriNetTransition producer = TestNets.transition(net, "producer");
+        TestNets.connect(net, producer, place);
+
+        SymbolicExplorer.create(net).nodeLimit(1000).explore();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNodeLimit() {
+        SymbolicExplorer.create(TestNets.diningPhilosophers(50)).nodeLimit(10).explore();
+    }
+}
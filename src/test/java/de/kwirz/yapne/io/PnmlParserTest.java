@@ -98,4 +98,90 @@ public class PnmlParserTest {
         assertEquals(arc2.getTarget(), transition2);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testParseArcWeights() {
+        final String input = "<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"no\"?>\n" +
+                "<pnml>\n" +
+                "  <net>\n" +
+                "    <transition id=\"transition1\"/>\n" +
+                "    <place id=\"place1\"/>\n" +
+                "    <place id=\"place2\"/>\n" +
+                "    <arc id=\"arc1\" source=\"place1\" target=\"transition1\">\n" +
+                "      <inscription>\n" +
+                "        <value>3</value>\n" +
+                "      </inscription>\n" +
+                "    </arc>\n" +
+                "    <arc id=\"arc2\" source=\"transition1\" target=\"place2\">\n" +
+                "      <inscription><text> 2 </text></inscription>\n" +
+                "    </arc>\n" +
+                "    <arc id=\"arc3\" source=\"place2\" target=\"transition1\"/>\n" +
+                "  </net>\n" +
+                "</pnml>";
+
+        PetriNet net = parser.parse(input);
+
+        assertEquals(((PetriNetArc) net.getElementById("arc1")).getWeight(), 3);
+        assertEquals(((PetriNetArc) net.getElementById("arc2")).getWeight(), 2);
+        assertEquals(((PetriNetArc) net.getElementById("arc3")).getWeight(), 1);
+    }
+
+    @Test
+    public void testArcWeightRoundTrip() {
+        PetriNet net = new PetriNet();
+        PetriNetPlace place = new PetriNetPlace("place1");
+        PetriNetTransition transition = new PetriNetTransition("transition1");
+        PetriNetArc arc = new PetriNetArc("arc1");
+        arc.setSource(place);
+        arc.setTarget(transition);
+        arc.setWeight(4);
+        net.addElement(place);
+        net.addElement(transition);
+        net.addElement(arc);
+
+        PetriNet parsed = parser.parse(net.toPNML());
+
+        assertEquals(((PetriNetArc) parsed.getElementById("arc1")).getWeight(), 4);
+        assertEquals(parsed.toPNML(), net.toPNML());
+    }
+
+    @Test
+    public void testRateRoundTrip() {
+        PetriNet net = new PetriNet();
+        PetriNetTransition fast = new PetriNetTransition("fast");
+        PetriNetTransition normal = new PetriNetTransition("normal");
+        fast.setRate(2.5);
+        net.addElement(fast);
+        net.addElement(normal);
+
+        PetriNet parsed = parser.parse(net.toPNML());
+
+        assertEquals(((PetriNetTransition) parsed.getElementById("fast")).getRate(), 2.5, 0);
+        assertEquals(((PetriNetTransition) parsed.getElementById("normal")).getRate(),
+                PetriNetTransition.DEFAULT_RATE, 0);
+        assertEquals(parsed.toPNML(), net.toPNML());
+    }
+
+    @Test
+    public void testDelayRoundTrip() {
+        PetriNet net = new PetriNet();
+        PetriNetTransition fixed = new PetriNetTransition("fixed");
+        PetriNetTransition interval = new PetriNetTransition("interval");
+        fixed.setDelay(2.0);
+        interval.setDelay(0.5, 1.5);
+        interval.setRate(3.0);
+        net.addElement(fixed);
+        net.addElement(interval);
+
+        PetriNet parsed = parser.parse(net.toPNML());
+
+        PetriNetTransition parsedFixed = (PetriNetTransition) parsed.getElementById("fixed");
+        PetriNetTransition parsedInterval = (PetriNetTransition) parsed.getElementById("interval");
+        assertEquals(parsedFixed.getMinDelay(), 2.0, 0);
+        assertEquals(parsedFixed.getMaxDelay(), 2.0, 0);
+        assertEquals(parsedInterval.getMinDelay(), 0.5, 0);
+        assertEquals(parsedInterval.getMaxDelay(), 1.5, 0);
+        assertEquals(parsedInterval.getRate(), 3.0, 0);
+        assertEquals(parsed.toPNML(), net.toPNML());
+    }
+
+}
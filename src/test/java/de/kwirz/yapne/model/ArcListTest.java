@@ -0,0 +1,149 @@
+package de.kwirz.yapne.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class ArcListTest {
+
+    private static final int COUNT = 3 * ArcList.INDEX_THRESHOLD;
+
+    /** Verbindet eine Stelle mit <b>count</b> Transitionen */
+    private static List<PetriNetArc> hub(PetriNetPlace place, int count) {
+        List<PetriNetArc> arcs = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            PetriNetArc arc = new PetriNetArc("arc" + i);
+            arc.setSource(place);
+            arc.setTarget(new PetriNetTransition("transition" + i));
+            arcs.add(arc);
+        }
+        return arcs;
+    }
+
+    @Test
+    public void testKeepsInsertionOrderWithIndex() {
+        PetriNetPlace place = new PetriNetPlace("place");
+        List<PetriNetArc> arcs = hub(place, COUNT);
+        assertEquals(arcs, place.getOutputArcs());
+
+        for (int i = 0; i < COUNT; i += 3) {
+            place.removeOutputArc(arcs.get(i));
+        }
+        arcs.removeIf(arc -> arc.getSource() != place);
+        assertEquals(arcs, place.getOutputArcs());
+        assertEquals(arcs.get(1), place.getOutputArcs().get(1));
+
+        PetriNetArc last = new PetriNetArc("last");
+        last.setSource(place);
+        last.setTarget(new PetriNetTransition("transitionLast"));
+        arcs.add(last);
+        assertEquals(arcs, place.getOutputArcs());
+    }
+
+    @Test
+    public void testDetectsDuplicateConnectionWithIndex() {
+        PetriNetPlace place = new PetriNetPlace("place");
+        List<PetriNetArc> arcs = hub(place, COUNT);
+        PetriNetNode target = arcs.get(COUNT - 5).getTarget();
+
+        PetriNetArc duplicate = new PetriNetArc("duplicate");
+        duplicate.setTarget(target);
+        try {
+            duplicate.setSource(place);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals(COUNT, place.getOutputArcs().size());
+        }
+    }
+
+    @Test
+    public void testFollowsChangedNeighbour() {
+        PetriNetPlace place = new PetriNetPlace("place");
+        List<PetriNetArc> arcs = hub(place, COUNT);
+        PetriNetArc arc = arcs.get(7);
+        PetriNetTransition oldTarget = (PetriNetTransition) arc.getTarget();
+        PetriNetTransition newTarget = new PetriNetTransition("newTarget");
+
+        arc.setTarget(newTarget);
+        assertSame(arc, place.outputArcs.findByNeighbour(newTarget));
+        assertNull(place.outputArcs.findByNeighbour(oldTarget));
+
+        // die alte Verbindung ist wieder frei
+        PetriNetArc reconnect = new PetriNetArc("reconnect");
+        reconnect.setSource(place);
+        reconnect.setTarget(oldTarget);
+        assertEquals(COUNT + 1, place.getOutputArcs().size());
+    }
+
+    @Test
+    public void testRandomAccessDoesNotMoveArcs() {
+        PetriNetPlace place = new PetriNetPlace("place");
+        List<PetriNetArc> arcs = hub(place, COUNT);
+        for (int i = 0; i < COUNT; i += 4)
+            place.removeOutputArc(arcs.get(i));
+        arcs.removeIf(arc -> arc.getSource() != place);
+
+        // wahlfreier Zugriff während einer Iteration darf diese nicht verschieben
+        List<PetriNetArc> visited = new ArrayList<>();
+        for (PetriNetArc arc : place.outputArcs) {
+            visited.add(arc);
+            assertSame(arcs.get(visited.size() - 1), place.outputArcs.get(visited.size() - 1));
+            assertSame(arcs.get(arcs.size() - 1), place.outputArcs.get(arcs.size() - 1));
+        }
+        assertEquals(arcs, visited);
+
+        assertSame(arcs.remove(5), place.outputArcs.remove(5));
+        assertEquals(arcs, place.getOutputArcs());
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        for (int count : new int[]{ArcList.INDEX_THRESHOLD / 2, COUNT}) {
+            PetriNetPlace place = new PetriNetPlace("place");
+            List<PetriNetArc> expected = hub(place, count);
+
+            Iterator<PetriNetArc> iterator = place.outputArcs.iterator();
+            for (int i = 0; iterator.hasNext(); ++i) {
+                iterator.next();
+                if (i % 2 == 0)
+                    iterator.remove();
+            }
+            for (int i = 0; i < count; i += 2)
+                expected.set(i, null);
+            expected.removeIf(arc -> arc == null);
+            assertEquals(expected, place.getOutputArcs());
+        }
+    }
+
+    @Test
+    public void testHighFanOut() {
+        int count = 64 * ArcList.INDEX_THRESHOLD;
+        PetriNetPlace place = new PetriNetPlace("place");
+        List<PetriNetArc> arcs = hub(place, count);
+        assertTrue(place.outputArcs.isIndexed());
+        assertEquals(count, place.getOutputArcs().size());
+        for (PetriNetArc arc : arcs)
+            assertSame(arc, place.outputArcs.findByNeighbour(arc.getTarget()));
+        assertNull(place.outputArcs.findByNeighbour(new PetriNetTransition("other")));
+
+        // jede zweite Kante lösen, der Index bleibt bestehen und vollständig
+        for (int i = 0; i < count; i += 2) {
+            PetriNetNode target = arcs.get(i).getTarget();
+            arcs.get(i).setSource(null);
+            assertNull(place.outputArcs.findByNeighbour(target));
+        }
+        assertTrue(place.outputArcs.isIndexed());
+        assertEquals(count / 2, place.getOutputArcs().size());
+        for (int i = 1; i < count; i += 2)
+            assertSame(arcs.get(i), place.outputArcs.findByNeighbour(arcs.get(i).getTarget()));
+
+        for (PetriNetArc arc : arcs)
+            arc.setSource(null);
+        assertTrue(place.getOutputArcs().isEmpty());
+    }
+}
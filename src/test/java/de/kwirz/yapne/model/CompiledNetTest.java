@@ -0,0 +1,156 @@
+package de.kwirz.yapne.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class CompiledNetTest {
+
+    private PetriNet net;
+
+    private PetriNetPlace in1, in2, out;
+
+    private PetriNetTransition transition;
+
+    @Before
+    public void setUp() {
+        net = new PetriNet();
+
+        in1 = new PetriNetPlace("in1");
+        in1.setMarking(2);
+        in2 = new PetriNetPlace("in2");
+        in2.setMarking(1);
+        out = new PetriNetPlace("out");
+        transition = new PetriNetTransition("transition");
+
+        net.addElement(in1);
+        net.addElement(in2);
+        net.addElement(out);
+        net.addElement(transition);
+
+        addArc("arc1", in1, transition);
+        addArc("arc2", in2, transition);
+        addArc("arc3", transition, out);
+    }
+
+    private void addArc(String id, PetriNetNode source, PetriNetNode target) {
+        PetriNetArc arc = new PetriNetArc(id);
+        arc.setSource(source);
+        arc.setTarget(target);
+        net.addElement(arc);
+    }
+
+    @Test
+    public void testIndexes() {
+        CompiledNet compiled = net.compile();
+
+        assertThat(compiled.getPlaceCount(), is(3));
+        assertThat(compiled.getTransitionCount(), is(1));
+        assertThat(compiled.indexOfPlace("in2"), is(1));
+        assertThat(compiled.getPlaceId(2), is("out"));
+        assertThat(compiled.indexOfTransition("transition"), is(0));
+        assertThat(compiled.indexOfTransition("in1"), is(-1));
+        assertArrayEquals(compiled.getInitialMarking(), new int[] {2, 1, 0});
+    }
+
+    @Test
+    public void testPresetAndPostset() {
+        CompiledNet compiled = net.compile();
+
+        assertThat(compiled.getPresetEnd(0) - compiled.getPresetStart(0), is(2));
+        assertThat(compiled.getPresetPlace(compiled.getPresetStart(0)), is(0));
+        assertThat(compiled.getPostsetEnd(0) - compiled.getPostsetStart(0), is(1));
+        assertThat(compiled.getPostsetPlace(compiled.getPostsetStart(0)), is(2));
+
+        assertThat(compiled.getConsumerEnd(1) - compiled.getConsumerStart(1), is(1));
+        assertThat(compiled.getConsumerEnd(2) - compiled.getConsumerStart(2), is(0));
+        assertThat(compiled.getProducerTransition(compiled.getProducerStart(2)), is(0));
+    }
+
+    @Test
+    public void testFireAndWriteBack() {
+        CompiledNet compiled = net.compile();
+        int[] marking = compiled.getInitialMarking();
+
+        assertTrue(compiled.isEnabled(0, marking));
+        compiled.fire(0, marking);
+        assertArrayEquals(marking, new int[] {1, 0, 1});
+        assertFalse(compiled.isEnabled(0, marking));
+
+        assertThat(in1.getMarking(), is(2));
+        compiled.writeBack(marking);
+        assertThat(in1.getMarking(), is(1));
+        assertThat(in2.getMarking(), is(0));
+        assertThat(out.getMarking(), is(1));
+        assertFalse(transition.isEnabled());
+    }
+
+    @Test
+    public void testCompiledNetIsNotAffectedByLaterChanges() {
+        CompiledNet compiled = net.compile();
+        in1.setMarking(0);
+        net.removeElementById("out");
+
+        assertThat(compiled.getPlaceCount(), is(3));
+        assertArrayEquals(compiled.getInitialMarking(), new int[] {2, 1, 0});
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testArcToForeignNode() {
+        addArc("arc4", transition, new PetriNetPlace("foreign"));
+        net.compile();
+    }
+
+    @Test
+    public void testWeightsAndEffect() {
+        PetriNetArc arc1 = (PetriNetArc) net.getElementById("arc1");
+        arc1.setWeight(2);
+        addArc("arc4", transition, in2);
+        ((PetriNetArc) net.getElementById("arc4")).setWeight(1);
+
+        CompiledNet compiled = net.compile();
+        int[] marking = compiled.getInitialMarking();
+
+        // in2 ist Ein- und Ausgangsstelle mit gleichem Gewicht und hat daher keine Wirkung
+        assertThat(compiled.getEffectEnd(0) - compiled.getEffectStart(0), is(2));
+        assertThat(compiled.getEffectDelta(compiled.getEffectStart(0)), is(-2));
+        assertThat(compiled.getPresetWeight(compiled.getPresetStart(0)), is(2));
+
+        assertTrue(compiled.isEnabled(0, marking));
+        compiled.fire(0, marking);
+        assertArrayEquals(marking, new int[] {0, 1, 1});
+        assertFalse(compiled.isEnabled(0, marking));
+    }
+
+    @Test
+    public void testConsumerWeightsAndUnsatisfiedPlaces() {
+        ((PetriNetArc) net.getElementById("arc1")).setWeight(3);
+        CompiledNet compiled = net.compile();
+        int[] marking = compiled.getInitialMarking();
+
+        int entry = compiled.getConsumerStart(0);
+        assertThat(compiled.getConsumerTransition(entry), is(0));
+        assertThat(compiled.getConsumerWeight(entry), is(3));
+        assertThat(compiled.getConsumerWeight(compiled.getConsumerStart(1)), is(1));
+
+        assertThat(compiled.countUnsatisfied(0, marking), is(1));
+        marking[1] = 0;
+        assertThat(compiled.countUnsatisfied(0, marking), is(2));
+        marking[0] = 3;
+        marking[1] = 1;
+        assertThat(compiled.countUnsatisfied(0, marking), is(0));
+        assertTrue(compiled.isEnabled(0, marking));
+    }
+
+    @Test
+    public void testWeightChangeUpdatesEnabledTransitions() {
+        assertTrue(net.getEnabledTransitions().contains(transition));
+        ((PetriNetArc) net.getElementById("arc2")).setWeight(2);
+        assertFalse(net.getEnabledTransitions().contains(transition));
+        in2.setMarking(2);
+        assertTrue(transition.isEnabled());
+    }
+}
@@ -0,0 +1,115 @@
+package de.kwirz.yapne.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class ElementTableTest {
+
+    /** Erstellt ein Element passend zur Id */
+    private static PetriNetElement element(String id) {
+        switch (id.charAt(0)) {
+            case 'p': return new PetriNetPlace(id);
+            case 't': return new PetriNetTransition(id);
+            default: return new PetriNetArc(id);
+        }
+    }
+
+    /** Vergleicht die Tabelle mit <b>expected</b> */
+    private static void assertSameContent(Map<String, PetriNetElement> expected, ElementTable table) {
+        assertEquals(expected.size(), table.size());
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(table.view(PetriNetElement.class)));
+
+        List<PetriNetPlace> places = new ArrayList<>();
+        for (PetriNetElement element : expected.values()) {
+            if (element instanceof PetriNetPlace)
+                places.add((PetriNetPlace) element);
+        }
+        assertEquals(places, new ArrayList<>(table.view(PetriNetPlace.class)));
+        assertEquals(places.size(), table.view(PetriNetPlace.class).size());
+
+        for (Map.Entry<String, PetriNetElement> entry : expected.entrySet())
+            assertSame(entry.getValue(), table.get(entry.getKey()));
+    }
+
+    @Test
+    public void testMatchesLinkedHashMap() {
+        Random random = new Random(42);
+        ElementTable table = new ElementTable();
+        Map<String, PetriNetElement> expected = new LinkedHashMap<>();
+        String[] prefixes = {"p", "t", "a"};
+
+        for (int round = 0; round < 20000; ++round) {
+            String id = prefixes[random.nextInt(3)] + random.nextInt(2000);
+            if (expected.containsKey(id)) {
+                assertSame(expected.remove(id), table.remove(id));
+            } else {
+                PetriNetElement element = element(id);
+                expected.put(id, element);
+                table.add(element);
+            }
+            if (round % 1000 == 0)
+                assertSameContent(expected, table);
+        }
+        assertSameContent(expected, table);
+
+        for (String id : new ArrayList<>(expected.keySet())) {
+            table.remove(id);
+            assertNull(table.get(id));
+        }
+        assertEquals(0, table.size());
+        assertFalse(table.view(PetriNetElement.class).iterator().hasNext());
+    }
+
+    @Test
+    public void testReaddedIdMovesToEnd() {
+        ElementTable table = new ElementTable();
+        for (int i = 0; i < 100; ++i)
+            table.add(element("p" + i));
+
+        table.remove("p0");
+        PetriNetElement readded = element("p0");
+        table.add(readded);
+        assertEquals(table.find("p0"), 100);
+        assertSame(readded, table.get("p0"));
+
+        List<PetriNetElement> elements = new ArrayList<>(table.view(PetriNetElement.class));
+        assertSame(readded, elements.get(elements.size() - 1));
+        assertEquals(-1, table.find("missing"));
+    }
+
+    @Test
+    public void testTypedViewsWhileOtherTypeDominates() {
+        ElementTable table = new ElementTable();
+        Map<String, PetriNetElement> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; ++i) {
+            for (String id : new String[]{"p" + i, "a" + i, "b" + i, "c" + i}) {
+                PetriNetElement element = element(id);
+                expected.put(id, element);
+                table.add(element);
+            }
+        }
+
+        // die Kanten überwiegen, die Tabelle wird nicht zusammengeschoben, die Stellen schon
+        for (int i = 0; i < 1000; ++i) {
+            if (i % 50 != 0)
+                assertSame(expected.remove("p" + i), table.remove("p" + i));
+        }
+        assertSameContent(expected, table);
+        assertEquals(3000, table.view(PetriNetArc.class).size());
+        assertFalse(table.view(PetriNetTransition.class).iterator().hasNext());
+
+        for (int i = 0; i < 1000; i += 50)
+            table.remove("p" + i);
+        assertFalse(table.view(PetriNetPlace.class).iterator().hasNext());
+        table.add(element("p0"));
+        assertEquals(1, table.view(PetriNetPlace.class).size());
+    }
+}
@@ -0,0 +1,69 @@
+package de.kwirz.yapne.model;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class MarkingVectorTest {
+
+    @Test
+    public void testEqualsAndHashCode() {
+        MarkingVector a = new MarkingVector(new int[] {1, 0, 3});
+        MarkingVector b = new MarkingVector(new int[] {1, 0, 3});
+        MarkingVector c = new MarkingVector(new int[] {1, 0, 2});
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, c);
+    }
+
+    @Test
+    public void testIsImmutable() {
+        int[] tokens = {1, 2};
+        MarkingVector marking = new MarkingVector(tokens);
+
+        tokens[0] = 5;
+        marking.toArray()[1] = 7;
+
+        assertThat(marking.get(0), is(1));
+        assertThat(marking.get(1), is(2));
+        assertThat(marking.size(), is(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMarking() {
+        new MarkingVector(new int[] {1, -1});
+    }
+
+    @Test
+    public void testSnapshotAndRestore() {
+        PetriNet net = new PetriNet();
+        PetriNetPlace place1 = new PetriNetPlace("place1");
+        PetriNetPlace place2 = new PetriNetPlace("place2");
+        net.addElement(place1);
+        net.addElement(new PetriNetTransition("transition1"));
+        net.addElement(place2);
+
+        place1.setMarking(4);
+        MarkingVector snapshot = net.snapshotMarking();
+        assertEquals(snapshot, new MarkingVector(new int[] {4, 0}));
+
+        place1.setMarking(0);
+        place2.setMarking(2);
+        assertNotEquals(net.snapshotMarking(), snapshot);
+
+        net.restoreMarking(snapshot);
+        assertThat(place1.getMarking(), is(4));
+        assertThat(place2.getMarking(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRestoreWithWrongSize() {
+        PetriNet net = new PetriNet();
+        net.addElement(new PetriNetPlace("place1"));
+
+        net.restoreMarking(new MarkingVector(new int[] {1, 2}));
+    }
+}
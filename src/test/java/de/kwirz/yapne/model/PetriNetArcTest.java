@@ -27,4 +27,21 @@ public class PetriNetArcTest {
         arc.setTarget(new PetriNetPlace("place1"));
         assertEquals(arc.toPNML(), "<arc id=\"arc1\" source=\"transition1\" target=\"place1\"> </arc>");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testToXMLWithWeight() {
+        arc.setSource(new PetriNetTransition("transition1"));
+        arc.setTarget(new PetriNetPlace("place1"));
+        arc.setWeight(3);
+        assertEquals(arc.toPNML(), "<arc id=\"arc1\" source=\"transition1\" target=\"place1\">\n" +
+                "<inscription>\n" +
+                "<value>3</value>\n" +
+                "</inscription>\n" +
+                "</arc>");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetNonPositiveWeight() {
+        arc.setWeight(0);
+    }
+}
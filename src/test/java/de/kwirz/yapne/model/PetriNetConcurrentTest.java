@@ -0,0 +1,322 @@
+package de.kwirz.yapne.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class PetriNetConcurrentTest {
+
+    private static final int THREADS = 8;
+
+    private PetriNet net;
+
+    private PetriNetPlace[] places;
+
+    private PetriNetTransition[] transitions;
+
+    @Before
+    public void setUp() {
+        // Ring p0 -> t0 -> p1 -> t1 -> ... -> p0 mit 3 Marken je Stelle
+        net = new PetriNet();
+        places = new PetriNetPlace[100];
+        transitions = new PetriNetTransition[places.length];
+        for (int i = 0; i < places.length; ++i) {
+            places[i] = new PetriNetPlace("p" + i);
+            places[i].setMarking(3);
+            net.addElement(places[i]);
+        }
+        for (int i = 0; i < places.length; ++i) {
+            transitions[i] = new PetriNetTransition("t" + i);
+            net.addElement(transitions[i]);
+            addArc("in" + i, places[i], transitions[i]);
+            addArc("out" + i, transitions[i], places[(i + 1) % places.length]);
+        }
+        net.setConcurrent(true);
+    }
+
+    private void addArc(String id, PetriNetNode source, PetriNetNode target) {
+        PetriNetArc arc = new PetriNetArc(id);
+        arc.setSource(source);
+        arc.setTarget(target);
+        net.addElement(arc);
+    }
+
+    /** Führt <b>task</b> in {@link #THREADS} Threads aus und wartet auf alle */
+    private static void runInParallel(Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; ++i)
+                futures.add(executor.submit(task));
+            for (Future<Void> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentFiringIsAtomic() throws Exception {
+        AtomicLongArray firings = new AtomicLongArray(transitions.length);
+        runInParallel(() -> {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+            for (int i = 0; i < 50000; ++i) {
+                int t = random.nextInt(transitions.length);
+                if (transitions[t].tryOccur())
+                    firings.incrementAndGet(t);
+            }
+            return null;
+        });
+
+        // jede Stelle hat genau so viele Marken, wie die Schaltungen ihrer Nachbarn ergeben
+        for (int p = 0; p < places.length; ++p) {
+            long in = firings.get((p + places.length - 1) % places.length);
+            long out = firings.get(p);
+            assertThat((long) places[p].getMarking(), is(3 + in - out));
+        }
+    }
+
+    @Test
+    public void testOnlyOneConsumerWins() throws Exception {
+        PetriNetPlace shared = new PetriNetPlace("shared");
+        shared.setMarking(1);
+        net.addElement(shared);
+        PetriNetTransition[] consumers = new PetriNetTransition[THREADS];
+        for (int i = 0; i < THREADS; ++i) {
+            consumers[i] = new PetriNetTransition("consume" + i);
+            net.addElement(consumers[i]);
+            addArc("shared" + i, shared, consumers[i]);
+        }
+
+        AtomicLongArray wins = new AtomicLongArray(1);
+        runInParallel(() -> {
+            for (PetriNetTransition consumer : consumers) {
+                if (consumer.tryOccur())
+                    wins.incrementAndGet(0);
+            }
+            return null;
+        });
+
+        assertThat(wins.get(0), is(1L));
+        assertThat(shared.getMarking(), is(0));
+    }
+
+    @Test
+    public void testSnapshotsAreConsistent() throws Exception {
+        AtomicBoolean inconsistent = new AtomicBoolean(false);
+        runInParallel(() -> {
+            SplittableRandom random = new SplittableRandom();
+            for (int i = 0; i < 2000; ++i) {
+                transitions[random.nextInt(transitions.length)].tryOccur();
+                if (i % 1000 == 0) {
+                    PetriNetSnapshot snapshot = net.snapshot();
+                    int tokens = 0;
+                    for (int p = 0; p < snapshot.getPlaceCount(); ++p)
+                        tokens += snapshot.getTokens(p);
+                    if (tokens != 3 * places.length)
+                        inconsistent.set(true);
+                }
+            }
+            return null;
+        });
+
+        assertFalse(inconsistent.get());
+    }
+
+    @Test
+    public void testStructuralChangesDuringFiring() throws Exception {
+        AtomicBoolean done = new AtomicBoolean(false);
+        ExecutorService editor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> edits = editor.submit(() -> {
+                for (int i = 0; i < 2000; ++i) {
+                    net.addElement(new PetriNetPlace("extra" + i));
+                    if (i % 2 == 1)
+                        net.removeElementById("extra" + (i - 1));
+                }
+                done.set(true);
+            });
+
+            runInParallel(() -> {
+                SplittableRandom random = new SplittableRandom();
+                while (!done.get()) {
+                    transitions[random.nextInt(transitions.length)].tryOccur();
+                    assertTrue(net.getPlaces().size() >= places.length);
+                    assertTrue(net.hasElementById("p0"));
+                }
+                return null;
+            });
+            edits.get();
+        } finally {
+            editor.shutdown();
+        }
+
+        assertThat(net.getPlaces().size(), is(places.length + 1000));
+        int tokens = 0;
+        for (PetriNetPlace place : places)
+            tokens += place.getMarking();
+        assertThat(tokens, is(3 * places.length));
+    }
+
+    /** Führt <b>edit</b> in einem eigenen Thread aus, während {@link #THREADS} Threads schalten */
+    private AtomicLongArray fireWhile(Runnable edit) throws Exception {
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicLongArray firings = new AtomicLongArray(transitions.length);
+        ExecutorService editor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> edits = editor.submit(() -> {
+                try {
+                    edit.run();
+                } finally {
+                    done.set(true);
+                }
+            });
+
+            runInParallel(() -> {
+                SplittableRandom random = new SplittableRandom();
+                while (!done.get()) {
+                    int t = random.nextInt(transitions.length);
+                    if (transitions[t].tryOccur())
+                        firings.incrementAndGet(t);
+                }
+                return null;
+            });
+            edits.get();
+        } finally {
+            editor.shutdown();
+        }
+        return firings;
+    }
+
+    /** Gibt die Summe der Marken aller Stellen des Rings zurück */
+    private int tokens() {
+        int tokens = 0;
+        for (PetriNetPlace place : places)
+            tokens += place.getMarking();
+        return tokens;
+    }
+
+    @Test
+    public void testReconnectDuringFiring() throws Exception {
+        PetriNetArc arc = (PetriNetArc) net.getElementById("out0");
+        fireWhile(() -> {
+            for (int i = 0; i < 2000; ++i)
+                arc.setTarget(places[(i % 2 == 0) ? 2 : 1]);
+        });
+
+        // jede Schaltung verschiebt genau eine Marke, egal wohin die Kante gerade zeigt
+        assertThat(tokens(), is(3 * places.length));
+        assertThat(arc.getTarget(), is((PetriNetNode) places[1]));
+        assertThat(places[1].getInputArcs().size(), is(1));
+        assertThat(places[2].getInputArcs().size(), is(1));
+    }
+
+    @Test
+    public void testReweightDuringFiring() throws Exception {
+        PetriNetArc arc = (PetriNetArc) net.getElementById("in0");
+        AtomicLongArray firings = fireWhile(() -> {
+            for (int i = 0; i < 2000; ++i)
+                arc.setWeight((i % 2 == 0) ? 2 : 1);
+        });
+
+        // t0 verliert je Schaltung höchstens die zusätzliche Marke des Gewichts 2
+        assertThat(arc.getWeight(), is(1));
+        assertTrue(tokens() <= 3 * places.length);
+        assertTrue(tokens() >= 3 * places.length - firings.get(0));
+
+        // der Bereich von t0 wurde für das neue Gewicht neu berechnet
+        places[0].setMarking(1);
+        int before = places[1].getMarking();
+        assertTrue(transitions[0].tryOccur());
+        assertThat(places[0].getMarking(), is(0));
+        assertThat(places[1].getMarking(), is(before + 1));
+    }
+
+    @Test
+    public void testFireSequenceDuringFiring() throws Exception {
+        List<String> round = new ArrayList<>();
+        for (PetriNetTransition transition : transitions)
+            round.add(transition.getId());
+
+        fireWhile(() -> {
+            for (int i = 0; i < 2000; ++i)
+                net.fireSequence(round.subList(i % 50, i % 50 + 20));
+        });
+
+        // Folge und einzelne Schaltungen verschieben je eine Marke, keine geht verloren
+        assertThat(tokens(), is(3 * places.length));
+    }
+
+    @Test
+    public void testRestoreMarkingDuringFiring() throws Exception {
+        AtomicBoolean inconsistent = new AtomicBoolean(false);
+        fireWhile(() -> {
+            for (int i = 0; i < 2000; ++i) {
+                MarkingVector marking = net.snapshotMarking();
+                int tokens = 0;
+                for (int p = 0; p < marking.size(); ++p)
+                    tokens += marking.get(p);
+                if (tokens != 3 * places.length)
+                    inconsistent.set(true);
+                net.restoreMarking(marking);
+            }
+        });
+
+        assertFalse(inconsistent.get());
+        assertThat(tokens(), is(3 * places.length));
+    }
+
+    @Test
+    public void testOneEventPerConcurrentFiring() throws Exception {
+        AtomicLongArray events = new AtomicLongArray(2);
+        net.addListener(event -> {
+            events.incrementAndGet(0);
+            if (event.getChangedPlaces().size() != 2)
+                events.incrementAndGet(1);
+        });
+
+        // eine offene Transaktion dieses Threads hält die Ereignisse anderer Threads nicht auf
+        net.beginUpdate();
+        AtomicLongArray firings;
+        try {
+            firings = fireWhile(() -> {
+                while (events.get(0) < 10000)
+                    Thread.yield();
+            });
+        } finally {
+            net.endUpdate();
+        }
+
+        long total = 0;
+        for (int t = 0; t < transitions.length; ++t)
+            total += firings.get(t);
+        assertThat(events.get(0), is(total));
+        assertThat(events.get(1), is(0L));
+    }
+
+    @Test
+    public void testEnabledTransitionsInConcurrentMode() {
+        assertThat(net.getEnabledTransitions().size(), is(transitions.length));
+
+        places[0].setMarking(0);
+        assertFalse(transitions[0].isEnabled());
+        assertFalse(net.getEnabledTransitions().contains(transitions[0]));
+
+        net.setConcurrent(false);
+        assertFalse(net.isConcurrent());
+        assertThat(net.getEnabledTransitions().size(), is(transitions.length - 1));
+    }
+}
@@ -0,0 +1,159 @@
+package de.kwirz.yapne.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class PetriNetListenerTest {
+
+    private PetriNet net;
+    private PetriNetPlace input;
+    private PetriNetPlace output;
+    private PetriNetTransition transition;
+    private PetriNetArc consume;
+    private PetriNetArc produce;
+
+    private final List<PetriNetChangeEvent> events = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        net = new PetriNet();
+        input = new PetriNetPlace("input");
+        output = new PetriNetPlace("output");
+        transition = new PetriNetTransition("transition");
+        input.setMarking(2);
+
+        consume = new PetriNetArc("consume");
+        consume.setSource(input);
+        consume.setTarget(transition);
+        produce = new PetriNetArc("produce");
+        produce.setSource(transition);
+        produce.setTarget(output);
+
+        for (PetriNetElement element : Arrays.asList(input, output, transition, consume, produce))
+            net.addElement(element);
+
+        net.addListener(events::add);
+    }
+
+    @Test
+    public void testSingleChangesAreReportedImmediately() {
+        PetriNetPlace place = new PetriNetPlace("place");
+        net.addElement(place);
+        place.setMarking(3);
+        place.setPosition(10, 20);
+        place.setPosition(10, 20);
+
+        assertEquals(3, events.size());
+        assertEquals(Collections.singletonList(place), events.get(0).getAddedElements());
+        assertTrue(events.get(0).isStructural());
+        assertEquals(Collections.singletonList(place), events.get(1).getChangedPlaces());
+        assertFalse(events.get(1).isStructural());
+        assertEquals(Collections.singletonList(place), events.get(2).getMovedNodes());
+    }
+
+    @Test
+    public void testOccurrenceIsOneEvent() {
+        transition.occur();
+
+        assertEquals(1, events.size());
+        assertEquals(Arrays.asList(input, output), events.get(0).getChangedPlaces());
+    }
+
+    @Test
+    public void testTransactionCoalescesChanges() {
+        PetriNetPlace place = new PetriNetPlace("place");
+        net.beginUpdate();
+        try {
+            net.addElement(place);
+            place.setMarking(1);
+            input.setMarking(5);
+            input.setMarking(6);
+            output.setPosition(1, 1);
+
+            net.beginUpdate();
+            transition.occur();
+            net.endUpdate();
+            assertTrue(events.isEmpty());
+        } finally {
+            net.endUpdate();
+        }
+
+        assertEquals(1, events.size());
+        PetriNetChangeEvent event = events.get(0);
+        assertSame(net, event.getNet());
+        assertEquals(Collections.singletonList(place), event.getAddedElements());
+        assertEquals(Arrays.asList(input, output), event.getChangedPlaces());
+        assertEquals(Collections.singletonList(output), event.getMovedNodes());
+        assertTrue(event.getRemovedElements().isEmpty());
+    }
+
+    @Test
+    public void testAddedAndRemovedInTransactionIsDropped() {
+        net.beginUpdate();
+        PetriNetPlace place = new PetriNetPlace("place");
+        net.addElement(place);
+        place.setMarking(4);
+        net.removeElementById("place");
+        net.endUpdate();
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testRemoveElementsIsOneEvent() {
+        net.beginUpdate();
+        input.setMarking(7);
+        net.removeElements(Collections.singletonList("input"));
+        net.endUpdate();
+
+        assertEquals(1, events.size());
+        assertEquals(Arrays.asList(input, consume), events.get(0).getRemovedElements());
+        assertTrue(events.get(0).getChangedPlaces().isEmpty());
+    }
+
+    @Test
+    public void testArcReconnected() {
+        PetriNetPlace place = new PetriNetPlace("place");
+        net.addElement(place);
+        events.clear();
+
+        produce.setTarget(place);
+        assertEquals(1, events.size());
+        assertEquals(Collections.singletonList(produce), events.get(0).getReconnectedArcs());
+        assertTrue(events.get(0).isStructural());
+    }
+
+    @Test
+    public void testWriteBackIsOneEvent() {
+        CompiledNet compiled = net.compile();
+        compiled.writeBack(new int[]{0, 9});
+
+        assertEquals(1, events.size());
+        assertEquals(Arrays.asList(input, output), events.get(0).getChangedPlaces());
+    }
+
+    @Test
+    public void testRemovedListenerIsNotCalled() {
+        PetriNetListener listener = events::add;
+        net.addListener(listener);
+        input.setMarking(0);
+        assertEquals(2, events.size());
+
+        net.removeListener(listener);
+        input.setMarking(1);
+        assertEquals(3, events.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEndUpdateWithoutBegin() {
+        net.endUpdate();
+    }
+}
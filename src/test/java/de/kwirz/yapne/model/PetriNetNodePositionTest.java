@@ -39,4 +39,23 @@ public class PetriNetNodePositionTest {
         assertEquals(position.toPNML(), "<position x=\"100\" y=\"200\" />");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testNodeStoresCoordinates() {
+        PetriNetPlace place = new PetriNetPlace("place");
+        place.setPosition(new PetriNetNode.Position(10, 20));
+        assertEquals(place.getX(), 10);
+        assertEquals(place.getY(), 20);
+
+        place.getPosition().setX(99);
+        assertEquals(place.getPosition(), new PetriNetNode.Position(10, 20));
+
+        place.setPosition(30, 40);
+        assertEquals(place.getPosition(), new PetriNetNode.Position(30, 40));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNodeRejectsNegativeCoordinates() {
+        new PetriNetTransition("transition").setPosition(5, -1);
+    }
+
+}
@@ -0,0 +1,116 @@
+package de.kwirz.yapne.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+
+public class PetriNetSnapshotTest {
+
+    private PetriNet net;
+
+    private PetriNetPlace[] places;
+
+    @Before
+    public void setUp() {
+        // Kette p0 -> t0 -> p1 -> ... über mehrere Blöcke der Markierung
+        net = new PetriNet();
+        places = new PetriNetPlace[200];
+        for (int i = 0; i < places.length; ++i) {
+            places[i] = new PetriNetPlace("p" + i);
+            places[i].setMarking(i);
+            net.addElement(places[i]);
+        }
+        for (int i = 0; i + 1 < places.length; ++i) {
+            PetriNetTransition transition = new PetriNetTransition("t" + i);
+            net.addElement(transition);
+            addArc("in" + i, places[i], transition);
+            addArc("out" + i, transition, places[i + 1]);
+        }
+    }
+
+    private void addArc(String id, PetriNetNode source, PetriNetNode target) {
+        PetriNetArc arc = new PetriNetArc(id);
+        arc.setSource(source);
+        arc.setTarget(target);
+        net.addElement(arc);
+    }
+
+    @Test
+    public void testSnapshotIsImmutable() {
+        PetriNetSnapshot snapshot = net.snapshot();
+        places[5].setMarking(50);
+
+        assertThat(snapshot.getTokens(5), is(5));
+        assertThat(snapshot.getTokens("p5"), is(5));
+        assertThat(snapshot.getNet().getInitialMarking()[5], is(5));
+        assertThat(net.snapshot().getTokens(5), is(50));
+        assertTrue(net.snapshot().getVersion() > snapshot.getVersion());
+    }
+
+    @Test
+    public void testUnchangedNetReturnsSameSnapshot() {
+        PetriNetSnapshot snapshot = net.snapshot();
+        assertThat(net.snapshot(), is(sameInstance(snapshot)));
+
+        places[3].setMarking(3);
+        assertThat(net.snapshot(), is(sameInstance(snapshot)));
+    }
+
+    @Test
+    public void testMarkingChangeCopiesOnlyTouchedChunk() {
+        PetriNetSnapshot before = net.snapshot();
+        places[130].setMarking(7);
+        PetriNetSnapshot after = net.snapshot();
+
+        int touched = PetriNetSnapshot.chunkOf(130);
+        for (int c = 0; c < before.getChunks().length; ++c) {
+            if (c == touched)
+                assertThat(after.getChunks()[c], is(not(sameInstance(before.getChunks()[c]))));
+            else
+                assertThat(after.getChunks()[c], is(sameInstance(before.getChunks()[c])));
+        }
+        assertThat(after.getStructure(), is(sameInstance(before.getStructure())));
+        assertThat(after.getMarking(), is(equalTo(net.snapshotMarking())));
+    }
+
+    @Test
+    public void testStructuralChange() {
+        PetriNetSnapshot before = net.snapshot();
+        net.addElement(new PetriNetPlace("extra"));
+        PetriNetSnapshot after = net.snapshot();
+
+        assertThat(before.getPlaceCount(), is(200));
+        assertThat(after.getPlaceCount(), is(201));
+        assertThat(after.getStructure(), is(not(sameInstance(before.getStructure()))));
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            PetriNetSnapshot snapshot = net.snapshot();
+            Future<Integer> sum = executor.submit(() -> {
+                int total = 0;
+                for (int p = 0; p < snapshot.getPlaceCount(); ++p)
+                    total += snapshot.getTokens(p);
+                return total;
+            });
+
+            // das Netz wird weiter bearbeitet, während der Snapshot gelesen wird
+            for (PetriNetPlace place : places)
+                place.setMarking(0);
+
+            assertThat(sum.get(), is(199 * 200 / 2));
+            assertThat(net.snapshot().getTokens(199), is(0));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
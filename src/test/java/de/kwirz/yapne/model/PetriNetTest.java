@@ -4,7 +4,10 @@ import de.kwirz.yapne.model.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -56,11 +59,41 @@ public class PetriNetTest {
         assertTrue(ids.contains("arc2"));
     }
 
+    @Test
+    public void testGetIdsKeepsInsertionOrder() {
+        assertEquals(net.getIds(), Arrays.asList("transition1", "transition2", "place1", "arc1", "arc2"));
+
+        net.removeElementById("transition2");
+        net.addElement(new PetriNetTransition("transition2"));
+        assertEquals(net.getIds(), Arrays.asList("transition1", "place1", "arc1", "transition2"));
+    }
+
+    @Test
+    public void testTypedIndexes() {
+        assertEquals(net.getPlaces().size(), 1);
+        assertEquals(net.getTransitions().size(), 2);
+        assertEquals(net.getArcs().size(), 2);
+        assertSame(net.getPlaces().iterator().next(), net.getElementById("place1"));
+
+        net.removeElementById("place1");
+        assertTrue(net.getPlaces().isEmpty());
+        assertTrue(net.getArcs().isEmpty());
+        assertEquals(net.getTransitions().size(), 2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testTypedIndexesAreReadOnly() {
+        net.getPlaces().clear();
+    }
+
     @Test
     public void testClear() {
         assertFalse(net.getIds().isEmpty());
         net.clear();
         assertTrue(net.getIds().isEmpty());
+        assertTrue(net.getPlaces().isEmpty());
+        assertTrue(net.getTransitions().isEmpty());
+        assertTrue(net.getArcs().isEmpty());
     }
 
     @Test
@@ -143,7 +176,135 @@ public class PetriNetTest {
         net.removeElementById("arc1");
         assertFalse(net.hasElementById("arc1"));
         assertTrue(((PetriNetNode) net.getElementById("place1")).inputArcs.isEmpty());
-        //assertTrue(((PetriNetNode) net.getElementById("transition1")).outputArcs.isEmpty());
+        assertTrue(((PetriNetNode) net.getElementById("transition1")).outputArcs.isEmpty());
+    }
+
+    @Test
+    public void testRemoveNodeDetachesArcsFromNeighbours() {
+        net.removeElementById("place1");
+        assertTrue(((PetriNetNode) net.getElementById("transition1")).getOutputArcs().isEmpty());
+        assertTrue(((PetriNetNode) net.getElementById("transition2")).getInputArcs().isEmpty());
+    }
+
+    @Test
+    public void testRemoveElements() {
+        net.removeElements(Arrays.asList("transition1", "arc2", "transition1"));
+        assertEquals(net.getIds(), Arrays.asList("transition2", "place1"));
+        assertTrue(((PetriNetNode) net.getElementById("place1")).getInputArcs().isEmpty());
+        assertTrue(((PetriNetNode) net.getElementById("place1")).getOutputArcs().isEmpty());
+        assertTrue(((PetriNetNode) net.getElementById("transition2")).getInputArcs().isEmpty());
+    }
+
+    @Test
+    public void testRemoveElementsWithUnknownIdKeepsNet() {
+        try {
+            net.removeElements(Arrays.asList("place1", "not_exist"));
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals(net.getIds().size(), 5);
+            assertEquals(((PetriNetNode) net.getElementById("place1")).getInputArcs().size(), 1);
+        }
+    }
+
+    @Test
+    public void testRemoveElementsIsSingleStructuralChange() {
+        long version = net.snapshot().getVersion();
+        net.removeElements(Arrays.asList("arc1", "arc2", "place1"));
+        assertEquals(net.snapshot().getVersion(), version + 1);
+        assertEquals(net.getTransitions().size(), 2);
+        assertTrue(net.getArcs().isEmpty());
+    }
+
+    @Test
+    public void testEnabledTransitions() {
+        PetriNetTransition transition1 = (PetriNetTransition) net.getElementById("transition1");
+        PetriNetTransition transition2 = (PetriNetTransition) net.getElementById("transition2");
+        PetriNetPlace place1 = (PetriNetPlace) net.getElementById("place1");
+
+        Set<PetriNetTransition> enabled = net.getEnabledTransitions();
+        assertEquals(enabled, Collections.singleton(transition1));
+        assertFalse(transition2.isEnabled());
+
+        transition1.occur();
+        assertEquals(place1.getMarking(), 1);
+        assertTrue(enabled.contains(transition2));
+        assertTrue(transition2.isEnabled());
+
+        transition2.occur();
+        assertEquals(enabled, Collections.singleton(transition1));
+
+        place1.setMarking(3);
+        assertEquals(enabled.size(), 2);
+        place1.setMarking(0);
+        assertEquals(enabled.size(), 1);
+    }
+
+    @Test
+    public void testEnabledTransitionsAfterStructuralChange() {
+        PetriNetTransition transition2 = (PetriNetTransition) net.getElementById("transition2");
+        PetriNetPlace place2 = new PetriNetPlace("place2");
+        net.addElement(place2);
+
+        assertFalse(net.getEnabledTransitions().contains(transition2));
+
+        net.removeElementById("arc2");
+        assertTrue(net.getEnabledTransitions().contains(transition2));
+
+        PetriNetArc arc = new PetriNetArc("arc3");
+        arc.setSource(place2);
+        arc.setTarget(transition2);
+        net.addElement(arc);
+        assertFalse(net.getEnabledTransitions().contains(transition2));
+
+        place2.setMarking(1);
+        assertTrue(net.getEnabledTransitions().contains(transition2));
+
+        net.removeElementById("transition2");
+        assertFalse(net.getEnabledTransitions().contains(transition2));
+        place2.setMarking(0);
+        assertFalse(net.getEnabledTransitions().contains(transition2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEnabledTransitionsAreReadOnly() {
+        net.getEnabledTransitions().clear();
+    }
+
+    @Test
+    public void testFireSequence() {
+        FiringSequenceResult result = net.fireSequence(
+                Arrays.asList("transition1", "transition1", "transition2"));
+
+        assertTrue(result.isComplete());
+        assertEquals(result.getFailedStep(), -1);
+        assertEquals(result.getFiredSteps(), 3);
+        assertEquals(result.getMarking(), new MarkingVector(new int[] {1}));
+        assertEquals(((PetriNetPlace) net.getElementById("place1")).getMarking(), 1);
+    }
+
+    @Test
+    public void testFireSequenceStopsAtFirstDisabledStep() {
+        FiringSequenceResult result = net.fireSequence(new int[] {0, 1, 1, 0});
+
+        assertFalse(result.isComplete());
+        assertEquals(result.getFailedStep(), 2);
+        assertEquals(result.getMarking(), new MarkingVector(new int[] {0}));
+        assertEquals(((PetriNetPlace) net.getElementById("place1")).getMarking(), 0);
+        assertFalse(((PetriNetTransition) net.getElementById("transition2")).isEnabled());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFireSequenceWithUnknownId() {
+        try {
+            net.fireSequence(Arrays.asList("transition1", "place1"));
+        } finally {
+            assertEquals(((PetriNetPlace) net.getElementById("place1")).getMarking(), 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFireSequenceWithInvalidIndex() {
+        net.fireSequence(new int[] {0, 2});
     }
 
     @Test
@@ -31,6 +31,54 @@ public class PetriNetTransitionTest {
                 "</transition>" );
     }
 
+    @Test
+    public void testRateToXML() {
+        transition.setRate(0.5);
+
+        assertTrue(transition.toPNML().endsWith("</graphics>\n" +
+                "<toolspecific tool=\"YAPNE\" version=\"1.0\">\n" +
+                "<rate>0.5</rate>\n" +
+                "</toolspecific>\n" +
+                "</transition>"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        transition.setRate(0);
+    }
+
+    @Test
+    public void testDelayToXML() {
+        transition.setDelay(1.0, 2.5);
+
+        assertTrue(transition.toPNML().endsWith("</graphics>\n" +
+                "<toolspecific tool=\"YAPNE\" version=\"1.0\">\n" +
+                "<delay min=\"1.0\" max=\"2.5\" />\n" +
+                "</toolspecific>\n" +
+                "</transition>"));
+    }
+
+    @Test
+    public void testRateAndDelayAreIndependent() {
+        PetriNetTransition other = new PetriNetTransition("b");
+        transition.setRate(0.5);
+        transition.setDelay(1.0, 2.5);
+        transition.setRate(2.0);
+
+        assertThat(transition.getRate(), is(2.0));
+        assertThat(transition.getMinDelay(), is(1.0));
+        assertThat(transition.getMaxDelay(), is(2.5));
+
+        // Standardwerte anderer Transitionen bleiben unberührt
+        assertThat(other.getRate(), is(PetriNetTransition.DEFAULT_RATE));
+        assertThat(other.getMaxDelay(), is(0.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDelay() {
+        transition.setDelay(2.0, 1.0);
+    }
+
     @Test
     public void testIsEnabledWithoutInputPlaces() {
         assertTrue(transition.isEnabled());
@@ -247,4 +295,29 @@ public class PetriNetTransitionTest {
     }
 
 
-}
\ No newline at end of file
+    @Test
+    public void testOccurrenceWithWeightedArcs() {
+        PetriNetPlace in = new PetriNetPlace("in");
+        PetriNetPlace out = new PetriNetPlace("out");
+
+        PetriNetArc inputArc = new PetriNetArc("arc1");
+        inputArc.setSource(in);
+        inputArc.setTarget(transition);
+        inputArc.setWeight(2);
+
+        PetriNetArc outputArc = new PetriNetArc("arc2");
+        outputArc.setSource(transition);
+        outputArc.setTarget(out);
+        outputArc.setWeight(3);
+
+        in.setMarking(3);
+        assertTrue(transition.isEnabled());
+
+        transition.occur();
+
+        assertThat(in.getMarking(), is(1));
+        assertThat(out.getMarking(), is(3));
+        assertFalse(transition.isEnabled());
+    }
+
+}
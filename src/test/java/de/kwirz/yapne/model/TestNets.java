@@ -0,0 +1,173 @@
+package de.kwirz.yapne.model;
+
+/**
+ * Erzeugt Netze für die Tests des Models, der Analysen und der Simulation.
+ */
+public class TestNets {
+
+    /** Fügt eine Kante mit dem Gewicht <b>weight</b> hinzu */
+    public static void connect(PetriNet net, PetriNetNode source, PetriNetNode target, int weight) {
+        PetriNetArc arc = new PetriNetArc(source.getId() + "->" + target.getId());
+        arc.setSource(source);
+        arc.setTarget(target);
+        arc.setWeight(weight);
+        net.addElement(arc);
+    }
+
+    /** Fügt eine Kante hinzu */
+    public static void connect(PetriNet net, PetriNetNode source, PetriNetNode target) {
+        connect(net, source, target, 1);
+    }
+
+    /** Fügt eine Stelle hinzu */
+    public static PetriNetPlace place(PetriNet net, String id, int marking) {
+        PetriNetPlace place = new PetriNetPlace(id);
+        place.setMarking(marking);
+        net.addElement(place);
+        return place;
+    }
+
+    /** Fügt eine Transition hinzu */
+    public static PetriNetTransition transition(PetriNet net, String id) {
+        return transition(net, id, PetriNetTransition.DEFAULT_RATE);
+    }
+
+    /** Fügt eine Transition mit der Rate <b>rate</b> hinzu */
+    public static PetriNetTransition transition(PetriNet net, String id, double rate) {
+        PetriNetTransition transition = new PetriNetTransition(id);
+        transition.setRate(rate);
+        net.addElement(transition);
+        return transition;
+    }
+
+    /**
+     * Speisende Philosophen: jeder Philosoph nimmt beide Gabeln auf einmal.
+     * <p>
+     * Die Anzahl der erreichbaren Zustände entspricht der Lucas-Zahl L(n).
+     */
+    public static PetriNet diningPhilosophers(int n) {
+        PetriNet net = new PetriNet();
+        PetriNetPlace[] forks = new PetriNetPlace[n];
+        PetriNetPlace[] thinking = new PetriNetPlace[n];
+        PetriNetPlace[] eating = new PetriNetPlace[n];
+
+        // Stellen eines Philosophen liegen nebeneinander (günstige Variablenordnung für MDDs)
+        for (int i = 0; i < n; ++i) {
+            forks[i] = place(net, "fork" + i, 1);
+            thinking[i] = place(net, "thinking" + i, 1);
+            eating[i] = place(net, "eating" + i, 0);
+        }
+
+        for (int i = 0; i < n; ++i) {
+            PetriNetTransition take = transition(net, "take" + i);
+            PetriNetTransition release = transition(net, "release" + i);
+
+            connect(net, thinking[i], take);
+            connect(net, forks[i], take);
+            connect(net, forks[(i + 1) % n], take);
+            connect(net, take, eating[i]);
+            connect(net, eating[i], release);
+            connect(net, release, thinking[i]);
+            connect(net, release, forks[i]);
+            connect(net, release, forks[(i + 1) % n]);
+        }
+
+        return net;
+    }
+
+    /**
+     * Speisende Philosophen, die Gabeln einzeln nehmen (erst links, dann rechts).
+     * <p>
+     * Das Netz hat eine Verklemmung, wenn alle Philosophen ihre linke Gabel halten.
+     */
+    public static PetriNet deadlockingPhilosophers(int n) {
+        PetriNet net = new PetriNet();
+        PetriNetPlace[] forks = new PetriNetPlace[n];
+        for (int i = 0; i < n; ++i)
+            forks[i] = place(net, "fork" + i, 1);
+
+        for (int i = 0; i < n; ++i) {
+            PetriNetPlace thinking = place(net, "thinking" + i, 1);
+            PetriNetPlace hasLeft = place(net, "hasLeft" + i, 0);
+            PetriNetPlace eating = place(net, "eating" + i, 0);
+            PetriNetTransition takeLeft = transition(net, "takeLeft" + i);
+            PetriNetTransition takeRight = transition(net, "takeRight" + i);
+            PetriNetTransition release = transition(net, "release" + i);
+
+            connect(net, thinking, takeLeft);
+            connect(net, forks[i], takeLeft);
+            connect(net, takeLeft, hasLeft);
+            connect(net, hasLeft, takeRight);
+            connect(net, forks[(i + 1) % n], takeRight);
+            connect(net, takeRight, eating);
+            connect(net, eating, release);
+            connect(net, release, thinking);
+            connect(net, release, forks[i]);
+            connect(net, release, forks[(i + 1) % n]);
+        }
+
+        return net;
+    }
+
+    /**
+     * Ring aus <b>n</b> Stellen mit <b>tokens</b> Marken in der ersten Stelle.
+     * <p>
+     * Die Anzahl der erreichbaren Zustände ist (n + tokens - 1) über tokens.
+     */
+    public static PetriNet ring(int n, int tokens) {
+        PetriNet net = new PetriNet();
+        PetriNetPlace[] places = new PetriNetPlace[n];
+        for (int i = 0; i < n; ++i)
+            places[i] = place(net, "p" + i, i == 0 ? tokens : 0);
+
+        for (int i = 0; i < n; ++i) {
+            PetriNetTransition transition = transition(net, "t" + i);
+            connect(net, places[i], transition);
+            connect(net, transition, places[(i + 1) % n]);
+        }
+
+        return net;
+    }
+
+    /**
+     * <b>n</b> unabhängige Prozesse mit je zwei Zuständen, hochgradig nebenläufig.
+     * <p>
+     * Jeder Prozess kann genau einmal schalten, es gibt 2^n Zustände und eine Verklemmung.
+     */
+    public static PetriNet independentProcesses(int n) {
+        PetriNet net = new PetriNet();
+        for (int i = 0; i < n; ++i) {
+            PetriNetPlace before = place(net, "before" + i, 1);
+            PetriNetPlace after = place(net, "after" + i, 0);
+            PetriNetTransition step = transition(net, "step" + i);
+            connect(net, before, step);
+            connect(net, step, after);
+        }
+
+        return net;
+    }
+
+    /**
+     * Warteschlange mit Ankunftsrate <b>arrival</b> und Bedienrate <b>service</b> (M/M/1).
+     * <p>
+     * Die Stelle <code>queue</code> hat den Index 0, die Transitionen <code>arrive</code> und
+     * <code>serve</code> die Indizes 0 und 1.
+     */
+    public static PetriNet queue(double arrival, double service) {
+        PetriNet net = new PetriNet();
+        PetriNetPlace queue = place(net, "queue", 0);
+        PetriNetTransition arrive = transition(net, "arrive", arrival);
+        PetriNetTransition serve = transition(net, "serve", service);
+        connect(net, arrive, queue);
+        connect(net, queue, serve);
+        return net;
+    }
+
+    /** Zerfall A -> 0 mit der Rate <b>rate</b> und <b>tokens</b> Anfangsmarken */
+    public static PetriNet decay(int tokens, double rate) {
+        PetriNet net = new PetriNet();
+        PetriNetPlace a = place(net, "A", tokens);
+        connect(net, a, transition(net, "decay", rate));
+        return net;
+    }
+}
@@ -0,0 +1,104 @@
+package de.kwirz.yapne.simulation;
+
+import org.junit.Test;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class CalendarQueueTest {
+
+    @Test
+    public void testEmpty() {
+        CalendarQueue queue = new CalendarQueue();
+        assertTrue(queue.isEmpty());
+        assertThat(queue.peekTime(), is(Double.POSITIVE_INFINITY));
+
+        queue.add(2.0, 7);
+        assertThat(queue.size(), is(1));
+        assertThat(queue.peekTime(), is(2.0));
+        assertThat(queue.poll(), is(7L));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testTiesInInsertionOrder() {
+        CalendarQueue queue = new CalendarQueue();
+        for (int i = 0; i < 1000; ++i)
+            queue.add(i % 3, i);
+
+        // beim Einfügen und Entnehmen wird die Anzahl der Buckets mehrfach angepasst
+        for (int day = 0; day < 3; ++day) {
+            for (int i = day; i < 1000; i += 3) {
+                assertThat(queue.peekTime(), is((double) day));
+                assertThat(queue.poll(), is((long) i));
+            }
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testHoldModel() {
+        // klassisches Hold-Modell: entnehmen und mit zufälligem Abstand wieder einfügen
+        Random random = new Random(11);
+        CalendarQueue queue = new CalendarQueue();
+        PriorityQueue<Double> reference = new PriorityQueue<>();
+        for (int i = 0; i < 500; ++i) {
+            double time = random.nextDouble() * 100;
+            queue.add(time, i);
+            reference.add(time);
+        }
+
+        for (int i = 0; i < 100000; ++i) {
+            double now = reference.poll();
+            assertThat(queue.peekTime(), is(now));
+            queue.poll();
+
+            double next = now + (i % 1000 == 0 ? 1e4 : random.nextDouble() * 10);
+            queue.add(next, i);
+            reference.add(next);
+        }
+    }
+
+    @Test
+    public void testGrowAndShrink() {
+        Random random = new Random(3);
+        CalendarQueue queue = new CalendarQueue();
+        PriorityQueue<Double> reference = new PriorityQueue<>();
+        double now = 0;
+        for (int round = 0; round < 5; ++round) {
+            for (int i = 0; i < 20000; ++i) {
+                double time = now + random.nextDouble() * 1e3 * (round + 1);
+                queue.add(time, i);
+                reference.add(time);
+            }
+            while (queue.size() > 10) {
+                now = reference.poll();
+                assertThat(queue.peekTime(), is(now));
+                queue.poll();
+            }
+        }
+        assertThat(queue.size(), is(reference.size()));
+    }
+
+    @Test(timeout = 10000)
+    public void testManySimultaneousEvents() {
+        // feste Verzögerung: alle Ereignisse eines Zeitpunkts liegen im selben Bucket und
+        // werden dort angehängt, ein Durchlaufen der Liste wäre quadratisch
+        int count = 50000;
+        CalendarQueue queue = new CalendarQueue();
+        for (int i = 0; i < count; ++i)
+            queue.add(0.0, i);
+
+        for (int i = 0; i < 4 * count; ++i) {
+            double now = queue.peekTime();
+            assertThat(now, is((double) (i / count)));
+            assertThat(queue.poll(), is((long) i));
+            queue.add(now + 1.0, i + count);
+        }
+        assertThat(queue.size(), is(count));
+    }
+}
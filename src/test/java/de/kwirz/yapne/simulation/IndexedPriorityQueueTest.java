@@ -0,0 +1,49 @@
+package de.kwirz.yapne.simulation;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class IndexedPriorityQueueTest {
+
+    @Test
+    public void testUpdate() {
+        IndexedPriorityQueue queue = new IndexedPriorityQueue(4);
+        assertThat(queue.getKey(queue.peek()), is(Double.POSITIVE_INFINITY));
+
+        queue.update(2, 3.0);
+        queue.update(1, 5.0);
+        assertThat(queue.peek(), is(2));
+
+        queue.update(1, 1.0);
+        assertThat(queue.peek(), is(1));
+
+        queue.update(1, Double.POSITIVE_INFINITY);
+        assertThat(queue.peek(), is(2));
+        assertThat(queue.getKey(1), is(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void testRandomUpdates() {
+        Random random = new Random(7);
+        IndexedPriorityQueue queue = new IndexedPriorityQueue(100);
+        double[] keys = new double[100];
+        Arrays.fill(keys, Double.POSITIVE_INFINITY);
+
+        for (int i = 0; i < 10000; ++i) {
+            int index = random.nextInt(100);
+            keys[index] = random.nextDouble();
+            queue.update(index, keys[index]);
+
+            double minimum = Double.POSITIVE_INFINITY;
+            for (double key : keys)
+                minimum = Math.min(minimum, key);
+            assertThat(queue.getKey(queue.peek()), is(minimum));
+        }
+    }
+}
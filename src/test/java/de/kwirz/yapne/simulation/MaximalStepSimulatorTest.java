@@ -0,0 +1,136 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.*;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class MaximalStepSimulatorTest {
+
+    /** <b>n</b> Transitionen konkurrieren um die Stelle <code>shared</code> */
+    private static PetriNet fork(int n, int tokens) {
+        PetriNet net = new PetriNet();
+        PetriNetPlace shared = TestNets.place(net, "shared", tokens);
+        for (int i = 0; i < n; ++i) {
+            PetriNetTransition transition = TestNets.transition(net, "t" + i, 1.0);
+            TestNets.connect(net, shared, transition);
+            TestNets.connect(net, transition, TestNets.place(net, "out" + i, 0));
+        }
+        return net;
+    }
+
+    /** Zufälliges Netz mit <b>places</b> Stellen und <b>transitions</b> Transitionen */
+    private static PetriNet randomNet(int places, int transitions, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        PetriNet net = new PetriNet();
+        PetriNetPlace[] p = new PetriNetPlace[places];
+        for (int i = 0; i < places; ++i)
+            p[i] = TestNets.place(net, "p" + i, random.nextInt(3));
+        for (int i = 0; i < transitions; ++i) {
+            PetriNetTransition transition = TestNets.transition(net, "t" + i, 1.0);
+            TestNets.connect(net, p[random.nextInt(places)], transition);
+            int first = random.nextInt(places);
+            int second = (first + 1 + random.nextInt(places - 1)) % places;
+            TestNets.connect(net, transition, p[first]);
+            TestNets.connect(net, transition, p[second]);
+        }
+        return net;
+    }
+
+    @Test
+    public void testIndependentTransitionsFireTogether() {
+        PetriNet ring = TestNets.ring(6, 0);
+        for (PetriNetPlace place : ring.getPlaces())
+            place.setMarking(Integer.parseInt(place.getId().substring(1)) % 2 == 0 ? 1 : 0);
+
+        MaximalStepSimulator simulator = MaximalStepSimulator.create(ring);
+        assertThat(simulator.step(), is(3));
+        assertThat(simulator.getLastStep(), is(new int[]{0, 2, 4}));
+        assertThat(simulator.getMarking().toArray(), is(new int[]{0, 1, 0, 1, 0, 1}));
+
+        assertThat(simulator.step(), is(3));
+        assertThat(simulator.getLastStep(), is(new int[]{1, 3, 5}));
+        assertThat(simulator.getStepCount(), is(2L));
+    }
+
+    @Test
+    public void testConflictGraph() {
+        MaximalStepSimulator simulator = MaximalStepSimulator.create(fork(3, 1));
+
+        assertThat(simulator.getConflicts(0), is(new int[]{1, 2}));
+        assertThat(simulator.getConflicts(2), is(new int[]{0, 1}));
+        assertThat(MaximalStepSimulator.create(TestNets.ring(3, 1)).getConflicts(0), is(new int[0]));
+    }
+
+    @Test
+    public void testConflictingTransitionsFireOneAtATime() {
+        // genug Marken für alle, trotzdem schaltet je Schritt nur eine der Transitionen
+        MaximalStepSimulator simulator = MaximalStepSimulator.create(fork(3, 5));
+
+        assertThat(simulator.run(10), is(5L));
+        assertThat(simulator.getTokens(0), is(0));
+        assertThat(simulator.getFiringCount(0), is(5L));
+        assertThat(simulator.step(), is(0));
+    }
+
+    @Test
+    public void testRandomOrder() {
+        MaximalStepSimulator simulator = MaximalStepSimulator.create(fork(4, 4000)).random(9);
+
+        assertThat(simulator.run(4000), is(4000L));
+        for (int t = 0; t < 4; ++t)
+            assertEquals(1000, simulator.getFiringCount(t), 150);
+    }
+
+    @Test
+    public void testStepIsMaximalAndConflictFree() {
+        MaximalStepSimulator simulator = MaximalStepSimulator.create(randomNet(300, 400, 5));
+        CompiledNet net = simulator.getNet();
+
+        for (int i = 0; i < 50; ++i) {
+            boolean[] enabledBefore = new boolean[net.getTransitionCount()];
+            for (int t = 0; t < enabledBefore.length; ++t)
+                enabledBefore[t] = simulator.isEnabled(t);
+            if (simulator.step() == 0)
+                break;
+
+            boolean[] inStep = new boolean[net.getTransitionCount()];
+            for (int t : simulator.getLastStep()) {
+                assertTrue(enabledBefore[t]);
+                inStep[t] = true;
+            }
+            for (int t : simulator.getLastStep()) {
+                for (int u : simulator.getConflicts(t))
+                    assertFalse(inStep[u]);
+            }
+
+            // jede aktivierte, nicht gewählte Transition steht mit einer gewählten in Konflikt
+            for (int t = 0; t < inStep.length; ++t) {
+                if (!enabledBefore[t] || inStep[t])
+                    continue;
+                boolean blocked = false;
+                for (int u : simulator.getConflicts(t))
+                    blocked |= inStep[u];
+                assertTrue(blocked);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        PetriNet net = randomNet(20000, 30000, 11);
+        MaximalStepSimulator sequential = MaximalStepSimulator.create(net).parallel(false);
+        MaximalStepSimulator parallel = MaximalStepSimulator.create(net).grain(64);
+
+        for (int i = 0; i < 100; ++i) {
+            assertThat(parallel.step(), is(sequential.step()));
+            assertThat(parallel.getMarking(), is(sequential.getMarking()));
+        }
+        for (int t = 0; t < 30000; ++t)
+            assertThat(parallel.isEnabled(t), is(sequential.isEnabled(t)));
+    }
+}
@@ -0,0 +1,91 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.PetriNet;
+import de.kwirz.yapne.model.TestNets;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class MonteCarloEnsembleTest {
+
+    @Test
+    public void testMassActionDecay() {
+        EnsembleResult result = MonteCarloEnsemble.create(TestNets.decay(100, 1.0))
+                .semantics(StochasticSimulator.Semantics.MASS_ACTION)
+                .replications(20000)
+                .horizon(1.0)
+                .seed(11)
+                .run();
+
+        Statistic tokens = result.getFinalTokens("A");
+        assertThat(tokens.getCount(), is(20000L));
+        assertEquals(100 * Math.exp(-1), tokens.getMean(), 4 * tokens.getHalfWidth() / Statistic.Z_95);
+        assertTrue(tokens.getLower() < tokens.getMean() && tokens.getMean() < tokens.getUpper());
+
+        // Binomialverteilung mit p = e^-1
+        assertEquals(100 * Math.exp(-1) * (1 - Math.exp(-1)), tokens.getVariance(), 2.0);
+        assertThat(result.getDeadlockedCount(), is(0L));
+    }
+
+    @Test
+    public void testDeadlockProbability() {
+        EnsembleResult result = MonteCarloEnsemble.create(TestNets.decay(1, 1.0))
+                .replications(10000)
+                .horizon(1.0)
+                .seed(5)
+                .run();
+
+        assertEquals(1 - Math.exp(-1), result.getDeadlockedCount() / 10000.0, 0.03);
+        assertEquals(result.getDeadlockedCount() / 10000.0, result.getFiringCount("decay").getMean(), 1e-12);
+    }
+
+    @Test
+    public void testQueueThroughput() {
+        EnsembleResult result = MonteCarloEnsemble.create(TestNets.queue(1.0, 2.0))
+                .replications(2000)
+                .horizon(100.0)
+                .seed(17)
+                .run();
+
+        assertEquals(1.0, result.getThroughput("arrive").getMean(), 0.02);
+        assertEquals(1.0, result.getThroughput("serve").getMean(), 0.03);
+        assertEquals(1.0, result.getAverageTokens("queue").getMean(), 0.1);
+    }
+
+    @Test
+    public void testReproducibleAcrossParallelism() {
+        PetriNet net = TestNets.queue(1.0, 1.2);
+        EnsembleResult sequential = MonteCarloEnsemble.create(net)
+                .replications(500).horizon(20.0).seed(99).parallelism(1).run();
+        EnsembleResult parallel = MonteCarloEnsemble.create(net)
+                .replications(500).horizon(20.0).seed(99).parallelism(4).run();
+
+        assertThat(parallel.getFinalTokens(0).getMean(), is(sequential.getFinalTokens(0).getMean()));
+        assertThat(parallel.getFinalTokens(0).getVariance(), is(sequential.getFinalTokens(0).getVariance()));
+        assertThat(parallel.getFiringCount(1).getMean(), is(sequential.getFiringCount(1).getMean()));
+        assertEquals(sequential.getAverageTokens(0).getMean(), parallel.getAverageTokens(0).getMean(), 1e-9);
+    }
+
+    @Test
+    public void testStatistic() {
+        Statistic statistic = Statistic.of(3, 1 + 2 + 3, 1 + 4 + 9);
+
+        assertThat(statistic.getMean(), is(2.0));
+        assertThat(statistic.getVariance(), is(1.0));
+        assertEquals(Statistic.Z_95 / Math.sqrt(3), statistic.getHalfWidth(), 1e-12);
+        assertThat(statistic.scale(2).getMean(), is(4.0));
+        assertThat(statistic.scale(2).getVariance(), is(4.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPlace() {
+        MonteCarloEnsemble.create(TestNets.decay(1, 1.0)).replications(1).run().getFinalTokens("missing");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHorizon() {
+        MonteCarloEnsemble.create(TestNets.decay(1, 1.0)).horizon(0);
+    }
+}
@@ -0,0 +1,104 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.*;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class StochasticSimulatorTest {
+
+    @Test
+    public void testQueueLength() {
+        StochasticSimulator simulator = StochasticSimulator.create(TestNets.queue(1.0, 2.0)).seed(1);
+
+        // zeitgewichtetes Mittel der Warteschlangenlänge, für M/M/1 gilt rho / (1 - rho) = 1
+        double area = 0;
+        double last = 0;
+        for (int i = 0; i < 200000; ++i) {
+            int tokens = simulator.getTokens(0);
+            assertTrue(simulator.step() >= 0);
+            area += tokens * (simulator.getTime() - last);
+            last = simulator.getTime();
+        }
+        assertEquals(1.0, area / last, 0.1);
+    }
+
+    @Test
+    public void testMassActionDecay() {
+        StochasticSimulator simulator = StochasticSimulator.create(TestNets.decay(1000, 1.0))
+                .semantics(StochasticSimulator.Semantics.MASS_ACTION)
+                .seed(3);
+
+        simulator.run(1.0);
+        assertThat(simulator.getTime(), is(1.0));
+        assertEquals(1000 * Math.exp(-1), simulator.getTokens(0), 60);
+        assertThat(simulator.getEventCount(), is(1000L - simulator.getTokens(0)));
+    }
+
+    @Test
+    public void testCompetingRates() {
+        PetriNet net = new PetriNet();
+        PetriNetPlace p = TestNets.place(net, "p", 1);
+        PetriNetTransition slow = TestNets.transition(net, "slow", 1.0);
+        PetriNetTransition fast = TestNets.transition(net, "fast", 3.0);
+        TestNets.connect(net, p, slow);
+        TestNets.connect(net, slow, p);
+        TestNets.connect(net, p, fast);
+        TestNets.connect(net, fast, p);
+
+        StochasticSimulator simulator = StochasticSimulator.create(net).seed(5);
+        for (int i = 0; i < 40000; ++i)
+            simulator.step();
+
+        assertEquals(0.75, simulator.getFiringCount(1) / 40000.0, 0.02);
+    }
+
+    @Test
+    public void testSeedIsReproducible() {
+        StochasticSimulator a = StochasticSimulator.create(TestNets.queue(1.0, 1.5)).seed(42);
+        StochasticSimulator b = StochasticSimulator.create(TestNets.queue(1.0, 1.5)).seed(42);
+
+        for (int i = 0; i < 1000; ++i) {
+            assertThat(a.step(), is(b.step()));
+            assertThat(a.getTime(), is(b.getTime()));
+        }
+    }
+
+    @Test
+    public void testDeadNet() {
+        StochasticSimulator simulator = StochasticSimulator.create(TestNets.decay(2, 1.0)).seed(0);
+
+        assertThat(simulator.run(1000.0), is(2L));
+        assertThat(simulator.step(), is(-1));
+        assertThat(simulator.getTime(), is(1000.0));
+        assertThat(simulator.getPropensity(0), is(0.0));
+
+        simulator.reset();
+        assertThat(simulator.getTokens(0), is(2));
+        assertThat(simulator.getEventCount(), is(0L));
+    }
+
+    @Test
+    public void testWriteBack() {
+        PetriNet net = TestNets.decay(3, 1.0);
+        StochasticSimulator simulator = StochasticSimulator.create(net).seed(0);
+        simulator.run(1000.0);
+        simulator.writeBack();
+
+        assertThat(((PetriNetPlace) net.getElementById("A")).getMarking(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRateCountMismatch() {
+        StochasticSimulator.create(TestNets.decay(1, 1.0).compile(), new double[2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRunBackwards() {
+        StochasticSimulator simulator = StochasticSimulator.create(TestNets.decay(1, 1.0));
+        simulator.run(1.0);
+        simulator.run(0.5);
+    }
+}
@@ -0,0 +1,122 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.*;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class TimedSimulatorTest {
+
+    /** Ring aus <b>n</b> Stellen, jede Transition mit der Verzögerung [min, max] */
+    private static PetriNet ring(int n, int tokens, double min, double max) {
+        PetriNet net = TestNets.ring(n, tokens);
+        for (PetriNetTransition transition : net.getTransitions())
+            transition.setDelay(min, max);
+        return net;
+    }
+
+    @Test
+    public void testCycleTime() {
+        // eine Marke umrundet 4 Stellen mit je 0.5 Zeiteinheiten: Zykluszeit 2
+        TimedSimulator simulator = TimedSimulator.create(ring(4, 1, 0.5, 0.5));
+
+        assertThat(simulator.run(100.0), is(200L));
+        assertThat(simulator.getTime(), is(100.0));
+        assertThat(simulator.getFiringCount(0), is(50L));
+        assertThat(simulator.getTokens(0), is(1));
+    }
+
+    @Test
+    public void testSingleServer() {
+        // drei Marken vor einer Transition schalten nacheinander, nicht gleichzeitig
+        PetriNet net = new PetriNet();
+        PetriNetPlace input = TestNets.place(net, "in", 3);
+        PetriNetPlace output = TestNets.place(net, "out", 0);
+        PetriNetTransition work = TestNets.transition(net, "work", 1.0);
+        work.setDelay(2.0);
+        TestNets.connect(net, input, work);
+        TestNets.connect(net, work, output);
+
+        TimedSimulator simulator = TimedSimulator.create(net);
+        for (int i = 1; i <= 3; ++i) {
+            assertThat(simulator.step(), is(0));
+            assertThat(simulator.getTime(), is(2.0 * i));
+        }
+        assertThat(simulator.step(), is(-1));
+        assertThat(simulator.getTokens(1), is(3));
+        assertThat(simulator.getNextEventTime(), is(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void testRaceCancelsSlowerTransition() {
+        // fast und slow konkurrieren um die Marke, slow wird jedes Mal deaktiviert und neu gestartet
+        PetriNet net = new PetriNet();
+        PetriNetPlace p = TestNets.place(net, "p", 1);
+        PetriNetTransition slow = TestNets.transition(net, "slow", 1.0);
+        PetriNetTransition fast = TestNets.transition(net, "fast", 1.0);
+        slow.setDelay(1.5);
+        fast.setDelay(1.0);
+        TestNets.connect(net, p, slow);
+        TestNets.connect(net, slow, p);
+        TestNets.connect(net, p, fast);
+        TestNets.connect(net, fast, p);
+
+        TimedSimulator simulator = TimedSimulator.create(net);
+        assertThat(simulator.run(10.0), is(10L));
+        assertThat(simulator.getFiringCount(0), is(0L));
+        assertThat(simulator.getFiringCount(1), is(10L));
+    }
+
+    @Test
+    public void testIntervalDelay() {
+        // mittlere Verzögerung 1.5 je Schritt
+        TimedSimulator simulator = TimedSimulator.create(ring(3, 1, 1.0, 2.0)).seed(7);
+
+        long events = simulator.run(30000.0);
+        assertEquals(20000, events, 200);
+
+        simulator.reset();
+        assertThat(simulator.getEventCount(), is(0L));
+        assertThat(simulator.getTime(), is(0.0));
+        assertThat(simulator.getTokens(0), is(1));
+    }
+
+    @Test
+    public void testSeedIsReproducible() {
+        TimedSimulator a = TimedSimulator.create(ring(5, 3, 0.1, 1.0)).seed(42);
+        TimedSimulator b = TimedSimulator.create(ring(5, 3, 0.1, 1.0)).seed(42);
+
+        for (int i = 0; i < 1000; ++i) {
+            assertThat(a.step(), is(b.step()));
+            assertThat(a.getTime(), is(b.getTime()));
+        }
+    }
+
+    @Test
+    public void testEventLimit() {
+        // ohne Verzögerung schaltet der Ring unendlich oft zum Zeitpunkt 0
+        TimedSimulator simulator = TimedSimulator.create(TestNets.ring(2, 1));
+
+        assertThat(simulator.run(1.0, 1000), is(1000L));
+        assertThat(simulator.getTime(), is(0.0));
+    }
+
+    @Test
+    public void testManyEvents() {
+        TimedSimulator simulator = TimedSimulator.create(ring(1000, 200, 0.5, 1.5)).seed(1);
+
+        assertThat(simulator.run(Double.MAX_VALUE, 1000000), is(1000000L));
+        int tokens = 0;
+        for (int p = 0; p < 1000; ++p)
+            tokens += simulator.getTokens(p);
+        assertThat(tokens, is(200));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDelays() {
+        CompiledNet net = TestNets.ring(2, 1).compile();
+        TimedSimulator.create(net, new double[]{1.0, 2.0}, new double[]{1.0, 1.0});
+    }
+}
@@ -0,0 +1,128 @@
+package de.kwirz.yapne.simulation;
+
+import de.kwirz.yapne.model.*;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+
+public class TokenGameSimulatorTest {
+
+    /** Stelle p mit zwei konkurrierenden Transitionen a und b, die p zurücklegen */
+    private static PetriNet conflict() {
+        PetriNet net = new PetriNet();
+        PetriNetPlace p = TestNets.place(net, "p", 1);
+        PetriNetTransition a = TestNets.transition(net, "a", 1.0);
+        PetriNetTransition b = TestNets.transition(net, "b", 1.0);
+        TestNets.connect(net, p, a);
+        TestNets.connect(net, a, p);
+        TestNets.connect(net, p, b);
+        TestNets.connect(net, b, p);
+        return net;
+    }
+
+    @Test
+    public void testEnabledSetIsConsistent() {
+        PetriNet net = TestNets.ring(5, 3);
+        PetriNetPlace p0 = (PetriNetPlace) net.getElementById("p0");
+        PetriNetPlace extra = TestNets.place(net, "extra", 0);
+        PetriNetTransition collect = TestNets.transition(net, "collect", 1.0);
+        TestNets.connect(net, p0, collect, 2);
+        TestNets.connect(net, collect, extra);
+        PetriNetTransition release = TestNets.transition(net, "release", 1.0);
+        TestNets.connect(net, extra, release);
+        TestNets.connect(net, release, p0, 2);
+
+        TokenGameSimulator simulator = TokenGameSimulator.create(net).policy(ConflictPolicy.uniform(3));
+        CompiledNet compiled = simulator.getNet();
+        for (int step = 0; step < 10000; ++step) {
+            int[] marking = simulator.getMarking().toArray();
+            int count = 0;
+            for (int t = 0; t < compiled.getTransitionCount(); ++t) {
+                assertThat(simulator.isEnabled(t), is(compiled.isEnabled(t, marking)));
+                if (compiled.isEnabled(t, marking))
+                    ++count;
+            }
+            assertThat(simulator.getEnabledCount(), is(count));
+            assertTrue(simulator.step() >= 0);
+        }
+    }
+
+    @Test
+    public void testUniformPolicy() {
+        TokenGameResult result = TokenGameSimulator.create(conflict())
+                .policy(ConflictPolicy.uniform(1))
+                .run(100000);
+
+        assertThat(result.getSteps(), is(100000L));
+        assertFalse(result.isDeadlocked());
+        assertEquals(0.5, result.getFiringCount("a") / 100000.0, 0.01);
+        assertThat(result.getFiringCount("a") + result.getFiringCount("b"), is(100000L));
+    }
+
+    @Test
+    public void testPriorityPolicy() {
+        TokenGameResult result = TokenGameSimulator.create(conflict())
+                .policy(ConflictPolicy.priority(Collections.singletonMap("b", 1)))
+                .run(1000);
+
+        assertThat(result.getFiringCount("a"), is(0L));
+        assertThat(result.getFiringCount("b"), is(1000L));
+        assertThat(result.getFinalMarking(), is(new MarkingVector(new int[] { 1 })));
+    }
+
+    @Test
+    public void testRoundRobinPolicy() {
+        PetriNet net = new PetriNet();
+        PetriNetPlace sink = TestNets.place(net, "sink", 0);
+        for (int i = 0; i < 3; ++i)
+            TestNets.connect(net, TestNets.transition(net, "t" + i, 1.0), sink);
+
+        TokenGameSimulator simulator = TokenGameSimulator.create(net).policy(ConflictPolicy.roundRobin());
+        for (int i = 0; i < 9; ++i)
+            assertThat(simulator.step(), is(i % 3));
+    }
+
+    @Test
+    public void testDeadlock() {
+        TokenGameSimulator simulator = TokenGameSimulator.create(TestNets.decay(3, 1.0));
+        TokenGameResult result = simulator.run(100);
+
+        assertThat(result.getSteps(), is(3L));
+        assertTrue(result.isDeadlocked());
+        assertThat(result.getFinalMarking().get(0), is(0));
+        assertThat(simulator.step(), is(-1));
+
+        simulator.reset();
+        assertThat(simulator.getEnabledCount(), is(1));
+        assertThat(simulator.getMarking().get(0), is(3));
+    }
+
+    @Test
+    public void testThroughput() {
+        TokenGameResult result = TokenGameSimulator.create(TestNets.ring(100, 50))
+                .policy(ConflictPolicy.uniform(7))
+                .run(1000000);
+
+        assertThat(result.getSteps(), is(1000000L));
+        assertTrue(result.getFiringsPerSecond() > 0);
+
+        int tokens = 0;
+        for (int p = 0; p < 100; ++p)
+            tokens += result.getFinalMarking().get(p);
+        assertThat(tokens, is(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPriorityCountMismatch() {
+        TokenGameSimulator.create(conflict()).policy(ConflictPolicy.priority(1, 2, 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPriorityTransition() {
+        TokenGameSimulator.create(conflict()).policy(ConflictPolicy.priority(Collections.singletonMap("x", 1)));
+    }
+}
@@ -0,0 +1,61 @@
+package de.kwirz.yapne.utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class IntArrayListTest {
+
+    @Test
+    public void testAddAndGet() {
+        IntArrayList list = new IntArrayList(1);
+        for (int i = 0; i < 100; ++i)
+            list.add(i * 2);
+
+        assertEquals(list.size(), 100);
+        assertEquals(list.get(0), 0);
+        assertEquals(list.get(99), 198);
+
+        list.set(5, -1);
+        assertEquals(list.get(5), -1);
+        assertEquals(list.toArray().length, 100);
+    }
+
+    @Test
+    public void testAddAll() {
+        IntArrayList first = new IntArrayList(1);
+        IntArrayList second = new IntArrayList();
+        first.add(1);
+        for (int i = 0; i < 20; ++i)
+            second.add(i);
+
+        first.addAll(second);
+        first.addAll(new IntArrayList());
+
+        assertEquals(first.size(), 21);
+        assertEquals(first.get(0), 1);
+        assertEquals(first.get(20), 19);
+    }
+
+    @Test
+    public void testRemoveLast() {
+        IntArrayList list = new IntArrayList();
+        list.add(1);
+        list.add(2);
+
+        assertEquals(list.removeLast(), 2);
+        assertEquals(list.removeLast(), 1);
+        assertTrue(list.isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfRange() {
+        IntArrayList list = new IntArrayList();
+        list.add(1);
+        list.get(1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRemoveLastFromEmptyList() {
+        new IntArrayList().removeLast();
+    }
+}
@@ -8,6 +8,6 @@ import org.junit.runners.Suite;
  */
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({BuilderValueTest.class, UtilsTest.class})
+@Suite.SuiteClasses({BuilderValueTest.class, UtilsTest.class, IntArrayListTest.class})
 public class TestSuite {
 }